@@ -0,0 +1,42 @@
+package io.scalecube.services.benchmarks.gateway.codec;
+
+import io.netty.buffer.AbstractByteBufAllocator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledDirectByteBuf;
+import io.netty.buffer.UnpooledHeapByteBuf;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Unpooled allocator (direct by default) which counts bytes of every buffer it allocates. Direct
+ * buffers created by this allocator keep reference to it, so that {@link ByteBuf#copy()} on them
+ * (and on their slices) is counted as well.
+ */
+public final class CountingByteBufAllocator extends AbstractByteBufAllocator {
+
+  private final LongAdder allocatedBytes = new LongAdder();
+
+  public CountingByteBufAllocator() {
+    super(true /*preferDirect*/);
+  }
+
+  public long allocatedBytes() {
+    return allocatedBytes.sum();
+  }
+
+  @Override
+  protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+    allocatedBytes.add(initialCapacity);
+    return new UnpooledHeapByteBuf(this, initialCapacity, maxCapacity);
+  }
+
+  @Override
+  protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+    allocatedBytes.add(initialCapacity);
+    return new UnpooledDirectByteBuf(this, initialCapacity, maxCapacity);
+  }
+
+  @Override
+  public boolean isDirectBufferPooled() {
+    return false;
+  }
+}
@@ -0,0 +1,71 @@
+package io.scalecube.services.benchmarks.gateway.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.scalecube.benchmarks.BenchmarkSettings;
+import io.scalecube.benchmarks.metrics.BenchmarkMeter;
+import io.scalecube.benchmarks.metrics.BenchmarkTimer;
+import io.scalecube.benchmarks.metrics.BenchmarkTimer.Context;
+import io.scalecube.services.gateway.ReferenceCountUtil;
+import io.scalecube.services.gateway.ws.GatewayMessage;
+import io.scalecube.services.gateway.ws.GatewayMessageBinaryCodec;
+import io.scalecube.services.gateway.ws.GatewayMessageCodec;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+public class GatewayMessageBinaryCodecBenchmark {
+
+  /**
+   * Main runner. Encodes and decodes the same message with JSON codec ({@code json.*} timers) and
+   * with binary sub-protocol codec ({@code binary.*} timers).
+   *
+   * @param args program arguments
+   */
+  public static void main(String[] args) {
+    BenchmarkSettings settings =
+        BenchmarkSettings.from(args).durationUnit(TimeUnit.NANOSECONDS).build();
+
+    new GatewayMessageCodecBenchmarkState(settings)
+        .runForSync(
+            state -> {
+              GatewayMessageCodec codec = state.codec();
+              GatewayMessageBinaryCodec binaryCodec = state.binaryCodec();
+              GatewayMessage message = state.message();
+              ByteBuf data = message.data();
+              BenchmarkTimer jsonEncodeTimer = state.timer("json.encode.timer");
+              BenchmarkTimer jsonDecodeTimer = state.timer("json.decode.timer");
+              BenchmarkTimer binaryEncodeTimer = state.timer("binary.encode.timer");
+              BenchmarkTimer binaryDecodeTimer = state.timer("binary.decode.timer");
+              BenchmarkMeter meter = state.meter("meter");
+
+              return i -> {
+                // JSON encoder moves reader index of data, so each encoder gets its own slice
+                GatewayMessage jsonMessage =
+                    GatewayMessage.from(message).data(data.slice()).build();
+                Context timerContext = jsonEncodeTimer.time();
+                ByteBuf bb = codec.encode(jsonMessage);
+                timerContext.stop();
+                bb.release();
+
+                GatewayMessage binaryMessage =
+                    GatewayMessage.from(message).data(data.slice()).build();
+                timerContext = binaryEncodeTimer.time();
+                bb = binaryCodec.encode(binaryMessage);
+                timerContext.stop();
+                bb.release();
+
+                timerContext = jsonDecodeTimer.time();
+                GatewayMessage decoded = codec.decode(state.byteBufExample().retain());
+                timerContext.stop();
+                Optional.ofNullable(decoded.data()).ifPresent(ReferenceCountUtil::safestRelease);
+
+                timerContext = binaryDecodeTimer.time();
+                decoded = binaryCodec.decode(state.binaryByteBufExample().retain());
+                timerContext.stop();
+                Optional.ofNullable(decoded.data()).ifPresent(ReferenceCountUtil::safestRelease);
+
+                meter.mark();
+                return decoded;
+              };
+            });
+  }
+}
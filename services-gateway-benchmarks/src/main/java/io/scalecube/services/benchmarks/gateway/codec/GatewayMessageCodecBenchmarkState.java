@@ -10,12 +10,16 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
 import io.scalecube.benchmarks.BenchmarkSettings;
 import io.scalecube.benchmarks.BenchmarkState;
 import io.scalecube.services.gateway.ws.GatewayMessage;
+import io.scalecube.services.gateway.ws.GatewayMessageBinaryCodec;
 import io.scalecube.services.gateway.ws.GatewayMessageCodec;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,11 +33,21 @@ public class GatewayMessageCodecBenchmarkState
   private static final String MESSAGE_PATTERN =
       "{" + "\"q\":\"%s\"," + "\"sig\":%d," + "\"sid\":%d," + "\"d\":%s" + "}";
 
+  private static final String ZERO_COPY_DECODE = "zeroCopyDecode";
+  private static final String DIRECT_CODEC = "directCodec";
+  private static final String PAYLOAD_SIZES = "payloadSizes";
+
+  private final CountingByteBufAllocator exampleAllocator = new CountingByteBufAllocator();
+
   private GatewayMessageCodec gatewayMessageCodec;
+  private GatewayMessageBinaryCodec gatewayMessageBinaryCodec;
+  private GatewayMessageCodec compositeCodec;
 
   private final ObjectMapper objectMapper = objectMapper();
   private GatewayMessage gatewayMessage;
   private ByteBuf byteBufExample;
+  private ByteBuf binaryByteBufExample;
+  private Map<Integer, ByteBuf> payloads;
 
   public GatewayMessageCodecBenchmarkState(BenchmarkSettings settings) {
     super(settings);
@@ -41,9 +55,20 @@ public class GatewayMessageCodecBenchmarkState
 
   @Override
   protected void beforeAll() throws JsonProcessingException {
-    this.gatewayMessageCodec = new GatewayMessageCodec(false);
+    boolean zeroCopyDecode = Boolean.parseBoolean(settings.find(ZERO_COPY_DECODE, "false"));
+    boolean directCodec = Boolean.parseBoolean(settings.find(DIRECT_CODEC, "false"));
+    this.gatewayMessageCodec =
+        new GatewayMessageCodec(false).zeroCopyDecode(zeroCopyDecode).directCodec(directCodec);
     this.gatewayMessage = generateGatewayMessage(generateByteBuf(generateExample()));
     this.byteBufExample = generateByteBuf(generateGatewayMessage(generateExample()));
+    this.gatewayMessageBinaryCodec =
+        new GatewayMessageBinaryCodec(false).zeroCopyDecode(zeroCopyDecode);
+    this.binaryByteBufExample = generateBinaryByteBuf(gatewayMessage);
+    this.compositeCodec = new GatewayMessageCodec(false).compositeEncode(true);
+    this.payloads = new TreeMap<>();
+    for (String size : settings.find(PAYLOAD_SIZES, "64,1024,16384,262144").split(",")) {
+      payloads.put(Integer.valueOf(size.trim()), generatePayload(Integer.parseInt(size.trim())));
+    }
   }
 
   public GatewayMessageCodec codec() {
@@ -54,6 +79,38 @@ public class GatewayMessageCodecBenchmarkState
     return byteBufExample.slice();
   }
 
+  public GatewayMessageBinaryCodec binaryCodec() {
+    return gatewayMessageBinaryCodec;
+  }
+
+  public ByteBuf binaryByteBufExample() {
+    return binaryByteBufExample.slice();
+  }
+
+  public GatewayMessageCodec compositeCodec() {
+    return compositeCodec;
+  }
+
+  /**
+   * Returns JSON string payloads (as direct buffers) of sizes given by {@code payloadSizes}
+   * setting, ordered by size.
+   *
+   * @return payloads by their size in bytes
+   */
+  public Map<Integer, ByteBuf> payloads() {
+    return payloads;
+  }
+
+  /**
+   * Returns number of bytes allocated so far by the allocator of {@link #byteBufExample()}, i.e.
+   * including copies of its regions made by decoder.
+   *
+   * @return allocated bytes
+   */
+  public long exampleAllocatedBytes() {
+    return exampleAllocator.allocatedBytes();
+  }
+
   public GatewayMessage message() {
     return gatewayMessage;
   }
@@ -86,7 +143,7 @@ public class GatewayMessageCodecBenchmarkState
   }
 
   private ByteBuf generateByteBuf(GatewayMessage msg) throws JsonProcessingException {
-    ByteBuf bb = ByteBufAllocator.DEFAULT.buffer();
+    ByteBuf bb = exampleAllocator.buffer();
     String jsonData = objectMapper.writeValueAsString(msg.data());
     String data =
         String.format(MESSAGE_PATTERN, msg.qualifier(), msg.signal(), msg.streamId(), jsonData);
@@ -103,6 +160,27 @@ public class GatewayMessageCodecBenchmarkState
     return bb;
   }
 
+  private ByteBuf generateBinaryByteBuf(GatewayMessage msg) {
+    ByteBuf encoded =
+        gatewayMessageBinaryCodec.encode(
+            GatewayMessage.from(msg).data(((ByteBuf) msg.data()).slice()).build());
+    ByteBuf bb = exampleAllocator.buffer().writeBytes(encoded);
+    encoded.release();
+    LOGGER.info("generated binary ByteBuf: {}", ByteBufUtil.hexDump(bb));
+    return bb;
+  }
+
+  private ByteBuf generatePayload(int size) {
+    ByteBuf bb = ByteBufAllocator.DEFAULT.directBuffer(size);
+    bb.writeByte('"');
+    bb.writeZero(Math.max(0, size - 2));
+    for (int i = 1; i < bb.writerIndex(); i++) {
+      bb.setByte(i, 'a' + i % 26);
+    }
+    bb.writeByte('"');
+    return bb;
+  }
+
   private ObjectMapper objectMapper() {
     ObjectMapper mapper = new ObjectMapper();
     mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
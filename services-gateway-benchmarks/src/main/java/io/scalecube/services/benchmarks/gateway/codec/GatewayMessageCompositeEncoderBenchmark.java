@@ -0,0 +1,65 @@
+package io.scalecube.services.benchmarks.gateway.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.scalecube.benchmarks.BenchmarkSettings;
+import io.scalecube.benchmarks.metrics.BenchmarkMeter;
+import io.scalecube.benchmarks.metrics.BenchmarkTimer;
+import io.scalecube.benchmarks.metrics.BenchmarkTimer.Context;
+import io.scalecube.services.gateway.ws.GatewayMessage;
+import io.scalecube.services.gateway.ws.GatewayMessageCodec;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+public class GatewayMessageCompositeEncoderBenchmark {
+
+  /**
+   * Main runner. Encodes messages with payloads of different sizes (see {@code payloadSizes}
+   * setting) by copying encoder ({@code copy.<size>.timer} timers) and by composite encoder ({@code
+   * composite.<size>.timer} timers).
+   *
+   * @param args program arguments
+   */
+  public static void main(String[] args) {
+    BenchmarkSettings settings =
+        BenchmarkSettings.from(args).durationUnit(TimeUnit.NANOSECONDS).build();
+
+    new GatewayMessageCodecBenchmarkState(settings)
+        .runForSync(
+            state -> {
+              GatewayMessageCodec codec = state.codec();
+              GatewayMessageCodec compositeCodec = state.compositeCodec();
+              GatewayMessage message = state.message();
+              Map<Integer, BenchmarkTimer> copyTimers = new LinkedHashMap<>();
+              Map<Integer, BenchmarkTimer> compositeTimers = new LinkedHashMap<>();
+              for (Integer size : state.payloads().keySet()) {
+                copyTimers.put(size, state.timer("copy." + size + ".timer"));
+                compositeTimers.put(size, state.timer("composite." + size + ".timer"));
+              }
+              BenchmarkMeter meter = state.meter("meter");
+
+              return i -> {
+                ByteBuf bb = null;
+                for (Entry<Integer, ByteBuf> payload : state.payloads().entrySet()) {
+                  // codecs don't release data, copying encoder moves reader index of data though
+                  GatewayMessage copyMessage =
+                      GatewayMessage.from(message).data(payload.getValue().slice()).build();
+                  Context timerContext = copyTimers.get(payload.getKey()).time();
+                  bb = codec.encode(copyMessage);
+                  timerContext.stop();
+                  bb.release();
+
+                  GatewayMessage compositeMessage =
+                      GatewayMessage.from(message).data(payload.getValue()).build();
+                  timerContext = compositeTimers.get(payload.getKey()).time();
+                  bb = compositeCodec.encode(compositeMessage);
+                  timerContext.stop();
+                  bb.release();
+                }
+                meter.mark();
+                return bb;
+              };
+            });
+  }
+}
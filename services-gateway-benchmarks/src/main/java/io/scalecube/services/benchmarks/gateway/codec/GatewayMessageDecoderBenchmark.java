@@ -1,5 +1,6 @@
 package io.scalecube.services.benchmarks.gateway.codec;
 
+import com.codahale.metrics.Histogram;
 import io.scalecube.benchmarks.BenchmarkSettings;
 import io.scalecube.benchmarks.metrics.BenchmarkMeter;
 import io.scalecube.benchmarks.metrics.BenchmarkTimer;
@@ -13,7 +14,10 @@ import java.util.concurrent.TimeUnit;
 public class GatewayMessageDecoderBenchmark {
 
   /**
-   * Main runner.
+   * Main runner. Run it with {@code zeroCopyDecode=true} to compare {@code
+   * histogram.allocated-bytes} (bytes allocated for message data per decoded message) against
+   * default copying decoder. Run it with {@code directCodec=true} to compare hand-written envelope
+   * scanner against Jackson parser.
    *
    * @param args program arguments
    */
@@ -27,13 +31,16 @@ public class GatewayMessageDecoderBenchmark {
               GatewayMessageCodec codec = state.codec();
               BenchmarkTimer timer = state.timer("timer");
               BenchmarkMeter meter = state.meter("meter");
+              Histogram allocatedBytes = state.registry().histogram("histogram.allocated-bytes");
 
               return i -> {
+                final long allocatedBefore = state.exampleAllocatedBytes();
                 Context timerContext = timer.time();
                 GatewayMessage message = codec.decode(state.byteBufExample().retain());
                 Optional.ofNullable(message.data()).ifPresent(ReferenceCountUtil::safestRelease);
                 timerContext.stop();
                 meter.mark();
+                allocatedBytes.update(state.exampleAllocatedBytes() - allocatedBefore);
                 return message;
               };
             });
@@ -12,7 +12,8 @@ import java.util.concurrent.TimeUnit;
 public class GatewayMessageEncoderBenchmark {
 
   /**
-   * Main runner.
+   * Main runner. Run it with {@code directCodec=true} to compare direct envelope writer against
+   * Jackson generator.
    *
    * @param args program arguments
    */
@@ -12,11 +12,13 @@ import io.scalecube.services.gateway.transport.GatewayClient;
 import io.scalecube.services.gateway.ws.WebsocketGateway;
 import io.scalecube.services.transport.rsocket.RSocketServiceTransport;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import reactor.core.publisher.Mono;
 
 public class StandaloneBenchmarkState extends AbstractBenchmarkState<StandaloneBenchmarkState> {
 
   private final String gatewayName;
+  private final UnaryOperator<WebsocketGateway> websocketGatewayConfigurer;
 
   private Microservices microservices;
 
@@ -24,8 +26,25 @@ public class StandaloneBenchmarkState extends AbstractBenchmarkState<StandaloneB
       BenchmarkSettings settings,
       String gatewayName,
       Function<Address, GatewayClient> clientBuilder) {
+    this(settings, gatewayName, clientBuilder, UnaryOperator.identity());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param settings benchmark settings
+   * @param gatewayName name of gateway the client connects to
+   * @param clientBuilder client factory
+   * @param websocketGatewayConfigurer function applying extra settings to websocket gateway
+   */
+  public StandaloneBenchmarkState(
+      BenchmarkSettings settings,
+      String gatewayName,
+      Function<Address, GatewayClient> clientBuilder,
+      UnaryOperator<WebsocketGateway> websocketGatewayConfigurer) {
     super(settings, clientBuilder);
     this.gatewayName = gatewayName;
+    this.websocketGatewayConfigurer = websocketGatewayConfigurer;
   }
 
   @Override
@@ -35,7 +54,8 @@ public class StandaloneBenchmarkState extends AbstractBenchmarkState<StandaloneB
         Microservices.builder()
             .services(new BenchmarkServiceImpl())
             .gateway(opts -> new RSocketGateway(opts.id("rsws")))
-            .gateway(opts -> new WebsocketGateway(opts.id("ws")))
+            .gateway(
+                opts -> websocketGatewayConfigurer.apply(new WebsocketGateway(opts.id("ws"))))
             .gateway(opts -> new HttpGateway(opts.id("http")))
             .discovery(ScalecubeServiceDiscovery::new)
             .transport(RSocketServiceTransport::new)
@@ -0,0 +1,38 @@
+package io.scalecube.services.benchmarks.gateway.standalone.websocket;
+
+import io.scalecube.services.benchmarks.gateway.GatewayClientCodecs;
+import io.scalecube.services.benchmarks.gateway.InfiniteStreamScenario;
+import io.scalecube.services.benchmarks.gateway.standalone.StandaloneBenchmarkState;
+import io.scalecube.services.gateway.transport.GatewayClientSettings;
+import io.scalecube.services.gateway.transport.websocket.WebsocketGatewayClient;
+import io.scalecube.services.gateway.ws.WebsocketWriteCoalescing;
+
+/**
+ * Same as {@link StandaloneInfiniteStreamBenchmark}, but with coalesced writes on both sides.
+ * Compare its throughput and gateway gauges {@code ws-coalesced-flushes} and {@code
+ * ws-coalesced-messages} (messages per flush) with results of the plain benchmark.
+ */
+public class StandaloneCoalescedInfiniteStreamBenchmark {
+
+  /**
+   * Main runner.
+   *
+   * @param args program arguments
+   */
+  public static void main(String[] args) {
+    InfiniteStreamScenario.runWith(
+        args,
+        benchmarkSettings ->
+            new StandaloneBenchmarkState(
+                benchmarkSettings,
+                "ws",
+                address ->
+                    new WebsocketGatewayClient(
+                        GatewayClientSettings.builder()
+                            .address(address)
+                            .writeCoalescing(true)
+                            .build(),
+                        GatewayClientCodecs.WEBSOCKET_CLIENT_CODEC),
+                gateway -> gateway.writeCoalescing(new WebsocketWriteCoalescing())));
+  }
+}
@@ -0,0 +1,35 @@
+package io.scalecube.services.benchmarks.gateway.standalone.websocket;
+
+import io.scalecube.services.benchmarks.gateway.GatewayClientCodecs;
+import io.scalecube.services.benchmarks.gateway.RequestOneScenario;
+import io.scalecube.services.benchmarks.gateway.standalone.StandaloneBenchmarkState;
+import io.scalecube.services.gateway.transport.GatewayClientSettings;
+import io.scalecube.services.gateway.transport.websocket.WebsocketGatewayClient;
+import io.scalecube.services.gateway.ws.WebsocketBatching;
+
+/**
+ * Same as {@link StandaloneRequestOneBenchmark}, but with batching on both sides, so that per-frame
+ * costs are amortized and inbound request dispatch of the gateway (decoding, validation, routing
+ * to service call) dominates the measured latency.
+ */
+public class StandaloneDispatchBenchmark {
+
+  /**
+   * Main runner.
+   *
+   * @param args program arguments
+   */
+  public static void main(String[] args) {
+    RequestOneScenario.runWith(
+        args,
+        benchmarkSettings ->
+            new StandaloneBenchmarkState(
+                benchmarkSettings,
+                "ws",
+                address ->
+                    new WebsocketGatewayClient(
+                        GatewayClientSettings.builder().address(address).batching(true).build(),
+                        GatewayClientCodecs.WEBSOCKET_CLIENT_CODEC),
+                gateway -> gateway.batching(new WebsocketBatching())));
+  }
+}
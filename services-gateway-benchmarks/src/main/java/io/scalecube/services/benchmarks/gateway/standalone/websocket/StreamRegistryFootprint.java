@@ -0,0 +1,54 @@
+package io.scalecube.services.benchmarks.gateway.standalone.websocket;
+
+import io.scalecube.services.gateway.ws.StreamRegistry;
+import java.util.function.Supplier;
+import org.jctools.maps.NonBlockingHashMapLong;
+
+/**
+ * Measures heap retained per idle websocket session by its stream registry: allocates registries
+ * of many sessions and prints retained heap per registry, for the registry previously allocated
+ * by every session (concurrent map presized for 1024 streams) and for both kinds of {@link
+ * StreamRegistry}. Run with fixed heap (e.g. {@code -Xms2g -Xmx2g}) for stable numbers.
+ */
+public class StreamRegistryFootprint {
+
+  private static final int DEFAULT_SESSIONS = 100_000;
+
+  /**
+   * Main runner.
+   *
+   * @param args program arguments: number of sessions (optional)
+   */
+  public static void main(String[] args) {
+    int sessions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+
+    measure("NonBlockingHashMapLong(1024)", sessions, () -> new NonBlockingHashMapLong<>(1024));
+    measure("StreamRegistry.concurrent()", sessions, StreamRegistry::concurrent);
+    measure("StreamRegistry.confined()", sessions, StreamRegistry::confined);
+  }
+
+  private static void measure(String name, int sessions, Supplier<Object> factory) {
+    Object[] registries = new Object[sessions];
+    long before = usedHeap();
+    for (int i = 0; i < sessions; i++) {
+      registries[i] = factory.get();
+    }
+    long after = usedHeap();
+    System.out.printf(
+        "%-30s %,10d bytes per idle session (%,d sessions)%n",
+        name, (after - before) / sessions, registries.length);
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -3,12 +3,17 @@ package io.scalecube.services.gateway.transport;
 import io.scalecube.net.Address;
 import io.scalecube.services.exceptions.DefaultErrorMapper;
 import io.scalecube.services.exceptions.ServiceClientErrorMapper;
+import java.time.Duration;
 import reactor.netty.tcp.SslProvider;
 
 public class GatewayClientSettings {
 
   private static final String DEFAULT_HOST = "localhost";
   private static final String DEFAULT_CONTENT_TYPE = "application/json";
+  private static final int DEFAULT_COMPRESSION_LEVEL = 6;
+  private static final int DEFAULT_COMPRESSION_MIN_SIZE = 1024;
+  private static final int DEFAULT_BATCH_MAX_SIZE = 64;
+  private static final int DEFAULT_MAX_MESSAGE_SIZE = 16 * 1024 * 1024;
 
   private final String host;
   private final int port;
@@ -16,6 +21,15 @@ public class GatewayClientSettings {
   private final boolean followRedirect;
   private final SslProvider sslProvider;
   private final ServiceClientErrorMapper errorMapper;
+  private final boolean compression;
+  private final int compressionLevel;
+  private final int compressionMinSize;
+  private final boolean batching;
+  private final int batchMaxSize;
+  private final Duration batchMaxDelay;
+  private final boolean writeCoalescing;
+  private final boolean flowControl;
+  private final int maxMessageSize;
 
   private GatewayClientSettings(Builder builder) {
     this.host = builder.host;
@@ -24,6 +38,15 @@ public class GatewayClientSettings {
     this.followRedirect = builder.followRedirect;
     this.sslProvider = builder.sslProvider;
     this.errorMapper = builder.errorMapper;
+    this.compression = builder.compression;
+    this.compressionLevel = builder.compressionLevel;
+    this.compressionMinSize = builder.compressionMinSize;
+    this.batching = builder.batching;
+    this.batchMaxSize = builder.batchMaxSize;
+    this.batchMaxDelay = builder.batchMaxDelay;
+    this.writeCoalescing = builder.writeCoalescing;
+    this.flowControl = builder.flowControl;
+    this.maxMessageSize = builder.maxMessageSize;
   }
 
   public String host() {
@@ -50,6 +73,42 @@ public class GatewayClientSettings {
     return errorMapper;
   }
 
+  public boolean compression() {
+    return compression;
+  }
+
+  public int compressionLevel() {
+    return compressionLevel;
+  }
+
+  public int compressionMinSize() {
+    return compressionMinSize;
+  }
+
+  public boolean batching() {
+    return batching;
+  }
+
+  public int batchMaxSize() {
+    return batchMaxSize;
+  }
+
+  public Duration batchMaxDelay() {
+    return batchMaxDelay;
+  }
+
+  public boolean writeCoalescing() {
+    return writeCoalescing;
+  }
+
+  public boolean flowControl() {
+    return flowControl;
+  }
+
+  public int maxMessageSize() {
+    return maxMessageSize;
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -66,6 +125,11 @@ public class GatewayClientSettings {
     sb.append(", contentType='").append(contentType).append('\'');
     sb.append(", followRedirect=").append(followRedirect);
     sb.append(", sslProvider=").append(sslProvider);
+    sb.append(", compression=").append(compression);
+    sb.append(", batching=").append(batching);
+    sb.append(", writeCoalescing=").append(writeCoalescing);
+    sb.append(", flowControl=").append(flowControl);
+    sb.append(", maxMessageSize=").append(maxMessageSize);
     sb.append('}');
     return sb.toString();
   }
@@ -78,6 +142,15 @@ public class GatewayClientSettings {
     private boolean followRedirect = true;
     private SslProvider sslProvider;
     private ServiceClientErrorMapper errorMapper = DefaultErrorMapper.INSTANCE;
+    private boolean compression = false;
+    private int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+    private int compressionMinSize = DEFAULT_COMPRESSION_MIN_SIZE;
+    private boolean batching = false;
+    private int batchMaxSize = DEFAULT_BATCH_MAX_SIZE;
+    private Duration batchMaxDelay = Duration.ZERO;
+    private boolean writeCoalescing = false;
+    private boolean flowControl = false;
+    private int maxMessageSize = DEFAULT_MAX_MESSAGE_SIZE;
 
     private Builder() {}
 
@@ -88,6 +161,15 @@ public class GatewayClientSettings {
       this.followRedirect = originalSettings.followRedirect;
       this.sslProvider = originalSettings.sslProvider;
       this.errorMapper = originalSettings.errorMapper;
+      this.compression = originalSettings.compression;
+      this.compressionLevel = originalSettings.compressionLevel;
+      this.compressionMinSize = originalSettings.compressionMinSize;
+      this.batching = originalSettings.batching;
+      this.batchMaxSize = originalSettings.batchMaxSize;
+      this.batchMaxDelay = originalSettings.batchMaxDelay;
+      this.writeCoalescing = originalSettings.writeCoalescing;
+      this.flowControl = originalSettings.flowControl;
+      this.maxMessageSize = originalSettings.maxMessageSize;
     }
 
     public Builder host(String host) {
@@ -146,6 +228,116 @@ public class GatewayClientSettings {
       return this;
     }
 
+    /**
+     * Specifies whether websocket client offers permessage-deflate extension (RFC 7692) during
+     * the handshake. Disabled by default.
+     *
+     * @param compression if <code>true</code> compression is offered, otherwise not
+     * @return builder
+     */
+    public Builder compression(boolean compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    /**
+     * Compression level of websocket messages (1-9) if compression was negotiated.
+     *
+     * @param compressionLevel compression level
+     * @return builder
+     */
+    public Builder compressionLevel(int compressionLevel) {
+      this.compressionLevel = compressionLevel;
+      return this;
+    }
+
+    /**
+     * Minimal size (in bytes) of websocket message to be compressed if compression was
+     * negotiated, smaller messages are sent as is.
+     *
+     * @param compressionMinSize minimal size of compressed message
+     * @return builder
+     */
+    public Builder compressionMinSize(int compressionMinSize) {
+      this.compressionMinSize = compressionMinSize;
+      return this;
+    }
+
+    /**
+     * Specifies whether websocket client announces during the handshake that it reads batched
+     * frames (several messages in one frame). If gateway confirms it, client also sends batched
+     * frames. Disabled by default.
+     *
+     * @param batching if <code>true</code> batching is announced, otherwise not
+     * @return builder
+     */
+    public Builder batching(boolean batching) {
+      this.batching = batching;
+      return this;
+    }
+
+    /**
+     * Max number of websocket messages in one batched frame if batching was negotiated.
+     *
+     * @param batchMaxSize max number of messages in one frame
+     * @return builder
+     */
+    public Builder batchMaxSize(int batchMaxSize) {
+      this.batchMaxSize = batchMaxSize;
+      return this;
+    }
+
+    /**
+     * Max time an outbound websocket message may wait for more messages to fill a batched frame if
+     * batching was negotiated. Zero by default, i.e. only already queued messages are batched.
+     *
+     * @param batchMaxDelay max delay of outbound message
+     * @return builder
+     */
+    public Builder batchMaxDelay(Duration batchMaxDelay) {
+      this.batchMaxDelay = batchMaxDelay;
+      return this;
+    }
+
+    /**
+     * Specifies whether websocket client coalesces outbound writes: messages queued while event
+     * loop is busy are written together and flushed once. Disabled by default, every message is
+     * flushed on its own.
+     *
+     * @param writeCoalescing if <code>true</code> writes are coalesced, otherwise not
+     * @return builder
+     */
+    public Builder writeCoalescing(boolean writeCoalescing) {
+      this.writeCoalescing = writeCoalescing;
+      return this;
+    }
+
+    /**
+     * Specifies whether websocket client streams are credit-based: gateway sends only as many
+     * responses as subscriber requested, further demand is granted with REQUEST_N messages.
+     * Disabled by default, gateway sends responses as fast as service emits them.
+     *
+     * @param flowControl if <code>true</code> streams are credit-based, otherwise not
+     * @return builder
+     */
+    public Builder flowControl(boolean flowControl) {
+      this.flowControl = flowControl;
+      return this;
+    }
+
+    /**
+     * Max size (in bytes) of inbound websocket message. Gateway may send large responses in
+     * fragments (see {@code WebsocketGateway.chunkSize}), they're aggregated up to this size. 16MB
+     * by default.
+     *
+     * @param maxMessageSize max size of inbound message
+     * @return builder
+     */
+    public Builder maxMessageSize(int maxMessageSize) {
+      this.maxMessageSize = maxMessageSize;
+      return this;
+    }
+
     public GatewayClientSettings build() {
       return new GatewayClientSettings(this);
     }
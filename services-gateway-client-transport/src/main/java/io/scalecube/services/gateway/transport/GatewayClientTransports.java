@@ -7,6 +7,7 @@ import io.scalecube.services.gateway.transport.http.HttpGatewayClientCodec;
 import io.scalecube.services.gateway.transport.rsocket.RSocketGatewayClient;
 import io.scalecube.services.gateway.transport.rsocket.RSocketGatewayClientCodec;
 import io.scalecube.services.gateway.transport.websocket.WebsocketGatewayClient;
+import io.scalecube.services.gateway.transport.websocket.WebsocketGatewayClientBinaryCodec;
 import io.scalecube.services.gateway.transport.websocket.WebsocketGatewayClientCodec;
 import io.scalecube.services.transport.api.ClientTransport;
 import io.scalecube.services.transport.api.DataCodec;
@@ -19,6 +20,8 @@ public class GatewayClientTransports {
 
   public static final GatewayClientCodec<ByteBuf> WEBSOCKET_CLIENT_CODEC =
       new WebsocketGatewayClientCodec(DataCodec.getInstance(CONTENT_TYPE));
+  public static final GatewayClientCodec<ByteBuf> WEBSOCKET_CLIENT_BINARY_CODEC =
+      new WebsocketGatewayClientBinaryCodec(DataCodec.getInstance(CONTENT_TYPE));
   public static final GatewayClientCodec<Payload> RSOCKET_CLIENT_CODEC =
       new RSocketGatewayClientCodec(HEADERS_CODEC, DataCodec.getInstance(CONTENT_TYPE));
   public static final GatewayClientCodec<ByteBuf> HTTP_CLIENT_CODEC =
@@ -52,6 +55,21 @@ public class GatewayClientTransports {
     return new GatewayClientTransport(function.apply(cs));
   }
 
+  /**
+   * ClientTransport that is capable of communicating with Gateway over websocket using binary
+   * sub-protocol (falls back to JSON if gateway doesn't select it).
+   *
+   * @param cs client settings for gateway client transport
+   * @return client transport
+   */
+  public static ClientTransport websocketBinaryGatewayClientTransport(GatewayClientSettings cs) {
+    final java.util.function.Function<GatewayClientSettings, GatewayClient> function =
+        settings ->
+            new WebsocketGatewayClient(
+                settings, WEBSOCKET_CLIENT_CODEC, WEBSOCKET_CLIENT_BINARY_CODEC);
+    return new GatewayClientTransport(function.apply(cs));
+  }
+
   /**
    * ClientTransport that is capable of communicating with Gateway over http.
    *
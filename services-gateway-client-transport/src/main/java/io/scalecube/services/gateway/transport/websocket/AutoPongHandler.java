@@ -0,0 +1,25 @@
+package io.scalecube.services.gateway.transport.websocket;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+
+/**
+ * Channel handler which answers gateway pings (heartbeat) with pongs carrying the same payload
+ * right away, so that pings neither wait for the reactive bridge nor reach session as messages.
+ */
+final class AutoPongHandler extends ChannelInboundHandlerAdapter {
+
+  static final String NAME = "ws-auto-pong";
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) {
+    if (msg instanceof PingWebSocketFrame) {
+      PingWebSocketFrame ping = (PingWebSocketFrame) msg;
+      ctx.writeAndFlush(new PongWebSocketFrame(ping.content()));
+      return;
+    }
+    ctx.fireChannelRead(msg);
+  }
+}
@@ -0,0 +1,207 @@
+package io.scalecube.services.gateway.transport.websocket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.scalecube.services.exceptions.MessageCodecException;
+import io.scalecube.services.transport.api.ReferenceCountUtil;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Layout of batched websocket frames of websocket gateway. A batched frame carries several
+ * envelopes encoded by session codec:
+ *
+ * <pre>
+ * JSON   : [envelope,envelope,...]
+ * binary : flags byte with bit 7 set (never set in envelope flags), then for each envelope its
+ *          varint length and bytes
+ * </pre>
+ *
+ * <p>Frames which are not batched carry a single envelope as before, so a frame of one message is
+ * never wrapped.
+ */
+final class BatchFrames {
+
+  static final int BINARY_BATCH_FLAG = 0x80;
+
+  private BatchFrames() {
+    // Do not instantiate
+  }
+
+  /**
+   * Composes batched frame content of given envelopes. Takes ownership of the envelopes (they're
+   * released by this method).
+   *
+   * @param alloc allocator of the result buffer
+   * @param envelopes encoded envelopes, at least two
+   * @param binary whether envelopes are binary or JSON
+   * @return batched frame content
+   */
+  static ByteBuf compose(ByteBufAllocator alloc, List<ByteBuf> envelopes, boolean binary) {
+    int capacity = 2 + envelopes.size() * (binary ? 5 : 1);
+    for (ByteBuf envelope : envelopes) {
+      capacity += envelope.readableBytes();
+    }
+    ByteBuf byteBuf = alloc.buffer(capacity);
+    try {
+      byteBuf.writeByte(binary ? BINARY_BATCH_FLAG : '[');
+      for (int i = 0; i < envelopes.size(); i++) {
+        ByteBuf envelope = envelopes.get(i);
+        if (binary) {
+          writeVarint(byteBuf, envelope.readableBytes());
+        } else if (i > 0) {
+          byteBuf.writeByte(',');
+        }
+        byteBuf.writeBytes(envelope, envelope.readerIndex(), envelope.readableBytes());
+      }
+      if (!binary) {
+        byteBuf.writeByte(']');
+      }
+    } catch (Throwable th) {
+      ReferenceCountUtil.safestRelease(byteBuf);
+      throw th;
+    } finally {
+      envelopes.forEach(ReferenceCountUtil::safestRelease);
+    }
+    return byteBuf;
+  }
+
+  /**
+   * Splits given frame content into envelopes. Takes ownership of the frame content, every
+   * returned envelope must be released by the consumer.
+   *
+   * @param frame frame content
+   * @param binary whether frame is binary or text
+   * @return the frame itself if it's not batched, or retained slices of its envelopes
+   * @throws MessageCodecException in case of malformed batched frame
+   */
+  static List<ByteBuf> split(ByteBuf frame, boolean binary) throws MessageCodecException {
+    if (!isBatch(frame, binary)) {
+      return Collections.singletonList(frame);
+    }
+    List<ByteBuf> envelopes = new ArrayList<>();
+    try {
+      if (binary) {
+        splitBinary(frame, envelopes);
+      } else {
+        splitJson(frame, envelopes);
+      }
+      return envelopes;
+    } catch (Throwable th) {
+      envelopes.forEach(ReferenceCountUtil::safestRelease);
+      throw new MessageCodecException("Failed to split batched frame", th);
+    } finally {
+      ReferenceCountUtil.safestRelease(frame);
+    }
+  }
+
+  private static boolean isBatch(ByteBuf frame, boolean binary) {
+    if (!frame.isReadable()) {
+      return false;
+    }
+    if (binary) {
+      return (frame.getByte(frame.readerIndex()) & BINARY_BATCH_FLAG) != 0;
+    }
+    int index = skipWhitespace(frame, frame.readerIndex());
+    return index < frame.writerIndex() && frame.getByte(index) == '[';
+  }
+
+  private static void splitBinary(ByteBuf frame, List<ByteBuf> envelopes) {
+    int index = frame.readerIndex() + 1;
+    int end = frame.writerIndex();
+    while (index < end) {
+      long length = 0;
+      int shift = 0;
+      byte b;
+      do {
+        if (shift > 28) {
+          throw new IllegalArgumentException("Malformed varint");
+        }
+        b = frame.getByte(index++);
+        length |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      if (length > end - index) {
+        throw new IllegalArgumentException("Envelope length exceeds frame: " + length);
+      }
+      envelopes.add(frame.retainedSlice(index, (int) length));
+      index += (int) length;
+    }
+  }
+
+  private static void splitJson(ByteBuf frame, List<ByteBuf> envelopes) {
+    int end = frame.writerIndex();
+    int index = skipWhitespace(frame, skipWhitespace(frame, frame.readerIndex()) + 1);
+    if (index < end && frame.getByte(index) == ']') {
+      return; // empty batch
+    }
+    while (true) {
+      int start = index;
+      index = skipObject(frame, start, end);
+      envelopes.add(frame.retainedSlice(start, index - start));
+      index = skipWhitespace(frame, index);
+      if (index >= end) {
+        throw new IllegalArgumentException("Batch is not terminated");
+      }
+      byte b = frame.getByte(index);
+      if (b == ']') {
+        return;
+      }
+      if (b != ',') {
+        throw new IllegalArgumentException("Unexpected character in batch: " + (char) b);
+      }
+      index = skipWhitespace(frame, index + 1);
+    }
+  }
+
+  /**
+   * Returns index right after JSON object which starts at given index. Nested strings and brackets
+   * are tracked, everything else is left to envelope decoder.
+   */
+  private static int skipObject(ByteBuf frame, int start, int end) {
+    if (start >= end || frame.getByte(start) != '{') {
+      throw new IllegalArgumentException("Envelope should be object");
+    }
+    int depth = 0;
+    boolean inString = false;
+    for (int i = start; i < end; i++) {
+      byte b = frame.getByte(i);
+      if (inString) {
+        if (b == '\\') {
+          i++;
+        } else if (b == '"') {
+          inString = false;
+        }
+      } else if (b == '"') {
+        inString = true;
+      } else if (b == '{' || b == '[') {
+        depth++;
+      } else if ((b == '}' || b == ']') && --depth == 0) {
+        return i + 1;
+      }
+    }
+    throw new IllegalArgumentException("Envelope is not terminated");
+  }
+
+  private static int skipWhitespace(ByteBuf frame, int start) {
+    int end = frame.writerIndex();
+    int i = start;
+    while (i < end) {
+      byte b = frame.getByte(i);
+      if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  private static void writeVarint(ByteBuf byteBuf, int value) {
+    while ((value & ~0x7F) != 0) {
+      byteBuf.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    byteBuf.writeByte(value);
+  }
+}
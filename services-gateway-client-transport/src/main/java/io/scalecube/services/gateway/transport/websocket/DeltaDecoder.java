@@ -0,0 +1,109 @@
+package io.scalecube.services.gateway.transport.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.scalecube.services.api.ServiceMessage;
+import io.scalecube.services.transport.api.ReferenceCountUtil;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.jctools.maps.NonBlockingHashMapLong;
+
+/**
+ * Reconstructor of delta-encoded stream responses of websocket gateway. Stream is delta-encoded if
+ * request has {@link #DELTA_HEADER} with period of full snapshots, e.g. {@code "delta":"100"}.
+ * Gateway marks full snapshots by {@code "delta":"s"} header and sends <a
+ * href="https://tools.ietf.org/html/rfc7386">RFC 7386</a> JSON merge patches against the previous
+ * payload marked by {@code "delta":"p"} in between. Decoder keeps the last payload of every stream
+ * and turns patches back into full payloads, so that consumers of the stream don't see the
+ * difference.
+ */
+final class DeltaDecoder {
+
+  public static final String DELTA_HEADER = "delta";
+  public static final String SNAPSHOT = "s";
+  public static final String PATCH = "p";
+
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final Map<Long, JsonNode> lastPayloads = new NonBlockingHashMapLong<>();
+
+  /**
+   * Returns response with full payload. Takes ownership of response data if it's replaced (it's
+   * released by this method).
+   *
+   * @param sid stream id
+   * @param response response
+   * @return given response if it's not delta-encoded, or response with full payload
+   * @throws IOException if payload is malformed
+   * @throws IllegalStateException if patch came before snapshot
+   */
+  ServiceMessage decode(long sid, ServiceMessage response) throws IOException {
+    String delta = response.header(DELTA_HEADER);
+    if (delta == null || !(response.data() instanceof ByteBuf)) {
+      return response;
+    }
+    ByteBuf data = response.data();
+    JsonNode payload = objectMapper.readTree(new ByteBufInputStream(data.duplicate()));
+
+    if (SNAPSHOT.equals(delta)) {
+      lastPayloads.put(sid, payload);
+      return withoutDeltaHeader(response).data(data).build();
+    }
+    if (!PATCH.equals(delta)) {
+      throw new IllegalArgumentException("Unknown delta: " + delta);
+    }
+    JsonNode last = lastPayloads.get(sid);
+    if (last == null) {
+      throw new IllegalStateException("Received delta patch before snapshot, sid=" + sid);
+    }
+    JsonNode current = apply(last, payload);
+    lastPayloads.put(sid, current);
+    ReferenceCountUtil.safestRelease(data);
+    return withoutDeltaHeader(response)
+        .data(Unpooled.wrappedBuffer(objectMapper.writeValueAsBytes(current)))
+        .build();
+  }
+
+  /**
+   * Drops the last payload of given stream.
+   *
+   * @param sid stream id
+   */
+  void remove(long sid) {
+    lastPayloads.remove(sid);
+  }
+
+  /** Applies merge patch to given target, target object is modified in place. */
+  static JsonNode apply(JsonNode target, JsonNode patch) {
+    if (!patch.isObject()) {
+      return patch;
+    }
+    ObjectNode result =
+        target != null && target.isObject()
+            ? (ObjectNode) target
+            : JsonNodeFactory.instance.objectNode();
+    for (Iterator<Entry<String, JsonNode>> it = patch.fields(); it.hasNext(); ) {
+      Entry<String, JsonNode> field = it.next();
+      if (field.getValue().isNull()) {
+        result.remove(field.getKey());
+      } else {
+        result.set(field.getKey(), apply(result.get(field.getKey()), field.getValue()));
+      }
+    }
+    return result;
+  }
+
+  private static ServiceMessage.Builder withoutDeltaHeader(ServiceMessage response) {
+    Map<String, String> headers = new HashMap<>(response.headers());
+    headers.remove(DELTA_HEADER);
+    return ServiceMessage.builder().headers(headers);
+  }
+}
@@ -0,0 +1,190 @@
+package io.scalecube.services.gateway.transport.websocket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.CodecException;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Channel handler of permessage-deflate extension (RFC 7692) negotiated by websocket client.
+ * Inflates inbound messages which have RSV1 bit set (including their continuation frames), and
+ * deflates outbound single-frame messages which are not smaller than min size. Confined to the
+ * event loop of the connection, so deflater and inflater are used without synchronization.
+ */
+final class PerMessageDeflateHandler extends ChannelDuplexHandler {
+
+  static final String NAME = "ws-permessage-deflate";
+
+  private static final int RSV1 = 0x4;
+  private static final byte[] TAIL = {0, 0, (byte) 0xFF, (byte) 0xFF};
+  private static final int CHUNK_SIZE = 8192;
+
+  private final int minSize;
+  private final boolean noContextTakeover;
+  private final Deflater deflater;
+  private final Inflater inflater = new Inflater(true);
+  private final byte[] chunk = new byte[CHUNK_SIZE];
+
+  private boolean inflating; // compressed message is fragmented, continuation frames follow
+
+  PerMessageDeflateHandler(int level, int minSize, boolean noContextTakeover) {
+    this.minSize = minSize;
+    this.noContextTakeover = noContextTakeover;
+    this.deflater = new Deflater(level, true);
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    if (!(msg instanceof WebSocketFrame)) {
+      ctx.fireChannelRead(msg);
+      return;
+    }
+    WebSocketFrame frame = (WebSocketFrame) msg;
+    boolean compressed =
+        frame instanceof ContinuationWebSocketFrame
+            ? inflating
+            : (frame instanceof TextWebSocketFrame || frame instanceof BinaryWebSocketFrame)
+                && (frame.rsv() & RSV1) != 0;
+    if (!compressed) {
+      ctx.fireChannelRead(msg);
+      return;
+    }
+
+    ByteBuf content;
+    try {
+      content = inflate(ctx.alloc(), frame.content(), frame.isFinalFragment());
+    } finally {
+      frame.release();
+    }
+    inflating = !frame.isFinalFragment();
+
+    boolean finalFragment = frame.isFinalFragment();
+    int rsv = frame.rsv() & ~RSV1;
+    if (frame instanceof TextWebSocketFrame) {
+      ctx.fireChannelRead(new TextWebSocketFrame(finalFragment, rsv, content));
+    } else if (frame instanceof BinaryWebSocketFrame) {
+      ctx.fireChannelRead(new BinaryWebSocketFrame(finalFragment, rsv, content));
+    } else {
+      ctx.fireChannelRead(new ContinuationWebSocketFrame(finalFragment, rsv, content));
+    }
+  }
+
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    if (!(msg instanceof TextWebSocketFrame || msg instanceof BinaryWebSocketFrame)) {
+      ctx.write(msg, promise);
+      return;
+    }
+    WebSocketFrame frame = (WebSocketFrame) msg;
+    int size = frame.content().readableBytes();
+    if (!frame.isFinalFragment() || frame.rsv() != 0 || size == 0 || size < minSize) {
+      ctx.write(msg, promise);
+      return;
+    }
+
+    ByteBuf content;
+    try {
+      content = deflate(ctx.alloc(), frame.content());
+    } finally {
+      frame.release();
+    }
+    ctx.write(
+        msg instanceof TextWebSocketFrame
+            ? new TextWebSocketFrame(true, RSV1, content)
+            : new BinaryWebSocketFrame(true, RSV1, content),
+        promise);
+  }
+
+  @Override
+  public void handlerRemoved(ChannelHandlerContext ctx) {
+    deflater.end();
+    inflater.end();
+  }
+
+  private ByteBuf deflate(ByteBufAllocator alloc, ByteBuf input) {
+    ByteBuf output = alloc.buffer(input.readableBytes() / 2 + TAIL.length);
+    try {
+      setInput(input);
+      int length;
+      do {
+        length = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+        output.writeBytes(chunk, 0, length);
+      } while (length == chunk.length);
+      // sync flush ends with empty block 00 00 FF FF which is not sent (RFC 7692, section 7.2.1)
+      output.writerIndex(output.writerIndex() - TAIL.length);
+    } catch (Throwable th) {
+      output.release();
+      throw th;
+    } finally {
+      if (noContextTakeover) {
+        deflater.reset();
+      }
+    }
+    return output;
+  }
+
+  private ByteBuf inflate(ByteBufAllocator alloc, ByteBuf input, boolean finalFragment) {
+    ByteBuf output = alloc.buffer(input.readableBytes() * 2);
+    try {
+      if (input.hasArray()) {
+        int offset = input.arrayOffset() + input.readerIndex();
+        inflate(input.array(), offset, input.readableBytes(), output);
+      } else {
+        byte[] bytes = toArray(input);
+        inflate(bytes, 0, bytes.length, output);
+      }
+      if (finalFragment) {
+        // append empty block which was stripped by sender (RFC 7692, section 7.2.2)
+        inflate(TAIL, 0, TAIL.length, output);
+      }
+    } catch (DataFormatException ex) {
+      output.release();
+      throw new CodecException("Failed to inflate websocket message", ex);
+    } catch (Throwable th) {
+      output.release();
+      throw th;
+    }
+    return output;
+  }
+
+  private void inflate(byte[] input, int offset, int length, ByteBuf output)
+      throws DataFormatException {
+    if (length == 0) {
+      return;
+    }
+    inflater.setInput(input, offset, length);
+    while (true) {
+      int inflated = inflater.inflate(chunk);
+      if (inflated > 0) {
+        output.writeBytes(chunk, 0, inflated);
+      } else if (inflater.needsInput() || inflater.finished() || inflater.needsDictionary()) {
+        return;
+      }
+    }
+  }
+
+  private void setInput(ByteBuf input) {
+    if (input.hasArray()) {
+      deflater.setInput(
+          input.array(), input.arrayOffset() + input.readerIndex(), input.readableBytes());
+    } else {
+      deflater.setInput(toArray(input));
+    }
+  }
+
+  private static byte[] toArray(ByteBuf input) {
+    byte[] bytes = new byte[input.readableBytes()];
+    input.getBytes(input.readerIndex(), bytes);
+    return bytes;
+  }
+}
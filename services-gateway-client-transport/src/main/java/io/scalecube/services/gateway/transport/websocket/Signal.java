@@ -3,7 +3,9 @@ package io.scalecube.services.gateway.transport.websocket;
 public enum Signal {
   COMPLETE(1),
   ERROR(2),
-  CANCEL(3);
+  CANCEL(3),
+  HEADERS(4),
+  REQUEST_N(5);
 
   private final int code;
 
@@ -43,6 +45,10 @@ public enum Signal {
         return ERROR;
       case 3:
         return CANCEL;
+      case 4:
+        return HEADERS;
+      case 5:
+        return REQUEST_N;
       default:
         throw new IllegalArgumentException("Unknown signal: " + code);
     }
@@ -1,6 +1,8 @@
 package io.scalecube.services.gateway.transport.websocket;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.rsocket.transport.netty.client.WebsocketClientTransport;
 import io.scalecube.services.api.ServiceMessage;
 import io.scalecube.services.gateway.transport.GatewayClient;
@@ -14,7 +16,10 @@ import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.MonoProcessor;
+import reactor.netty.Connection;
+import reactor.netty.NettyPipeline;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.websocket.WebsocketInbound;
 import reactor.netty.resources.LoopResources;
 
 public final class WebsocketGatewayClient implements GatewayClient {
@@ -23,13 +28,27 @@ public final class WebsocketGatewayClient implements GatewayClient {
 
   private static final String STREAM_ID = "sid";
   private static final String SIGNAL = "sig";
+  private static final String CREDIT = "credit";
 
   private static final AtomicReferenceFieldUpdater<WebsocketGatewayClient, Mono>
       websocketMonoUpdater =
           AtomicReferenceFieldUpdater.newUpdater(
               WebsocketGatewayClient.class, Mono.class, "websocketMono");
 
+  // binary sub-protocol is preferred, JSON is kept as fallback
+  private static final String SUBPROTOCOLS =
+      WebsocketGatewayClientBinaryCodec.SUBPROTOCOL + "," + WebsocketGatewayClientCodec.SUBPROTOCOL;
+
+  // window size is not offered, JDK deflater always uses 32K window
+  private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+  private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
+  // announces that client reads batched frames, gateway confirms it with the same header
+  private static final String BATCH_HEADER = "X-Scalecube-Batch";
+  private static final String BATCH_VERSION = "1";
+
   private final GatewayClientCodec<ByteBuf> codec;
+  private final GatewayClientCodec<ByteBuf> binaryCodec;
   private final GatewayClientSettings settings;
   private final HttpClient httpClient;
   private final AtomicLong sidCounter = new AtomicLong();
@@ -47,11 +66,29 @@ public final class WebsocketGatewayClient implements GatewayClient {
    * @param codec client codec.
    */
   public WebsocketGatewayClient(GatewayClientSettings settings, GatewayClientCodec<ByteBuf> codec) {
+    this(settings, codec, null);
+  }
+
+  /**
+   * Creates instance of websocket client transport which requests binary sub-protocol during
+   * websocket handshake, and uses {@code binaryCodec} with binary frames if gateway selects it, or
+   * {@code codec} with text frames otherwise.
+   *
+   * @param settings client settings
+   * @param codec client codec
+   * @param binaryCodec client codec of binary sub-protocol (see {@link
+   *     WebsocketGatewayClientBinaryCodec}), or null to not request binary sub-protocol
+   */
+  public WebsocketGatewayClient(
+      GatewayClientSettings settings,
+      GatewayClientCodec<ByteBuf> codec,
+      GatewayClientCodec<ByteBuf> binaryCodec) {
     this.settings = settings;
     this.codec = codec;
+    this.binaryCodec = binaryCodec;
     this.loopResources = LoopResources.create("websocket-gateway-client");
 
-    httpClient =
+    HttpClient client =
         HttpClient.newConnection()
             .followRedirect(settings.followRedirect())
             .tcpConfiguration(
@@ -61,6 +98,15 @@ public final class WebsocketGatewayClient implements GatewayClient {
                   }
                   return tcpClient.runOn(loopResources).host(settings.host()).port(settings.port());
                 });
+    if (settings.compression()) {
+      client =
+          client.headers(
+              headers -> headers.set(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS, PERMESSAGE_DEFLATE));
+    }
+    if (settings.batching()) {
+      client = client.headers(headers -> headers.set(BATCH_HEADER, BATCH_VERSION));
+    }
+    httpClient = client;
 
     // Setup cleanup
     close
@@ -76,12 +122,11 @@ public final class WebsocketGatewayClient implements GatewayClient {
     return Mono.defer(
         () -> {
           long sid = sidCounter.incrementAndGet();
-          ByteBuf byteBuf = encodeRequest(request, sid);
           return getOrConnect()
               .flatMap(
                   session ->
                       session
-                          .send(byteBuf, sid)
+                          .send(encodeRequest(session, request, sid), sid)
                           .then(
                               Mono.<ServiceMessage>create(
                                   sink ->
@@ -97,18 +142,22 @@ public final class WebsocketGatewayClient implements GatewayClient {
     return Flux.defer(
         () -> {
           long sid = sidCounter.incrementAndGet();
-          ByteBuf byteBuf = encodeRequest(request, sid);
           return getOrConnect()
               .flatMapMany(
                   session ->
                       session
-                          .send(byteBuf, sid)
+                          .send(encodeStreamRequest(session, request, sid), sid)
                           .thenMany(
                               Flux.<ServiceMessage>create(
-                                  sink ->
-                                      session
-                                          .receive(sid)
-                                          .subscribe(sink::next, sink::error, sink::complete)))
+                                  sink -> {
+                                    if (settings.flowControl()) {
+                                      // grant gateway credits as subscriber requests responses
+                                      sink.onRequest(n -> handleRequestN(sid, session, n));
+                                    }
+                                    session
+                                        .receive(sid)
+                                        .subscribe(sink::next, sink::error, sink::complete);
+                                  }))
                           .doOnCancel(() -> handleCancel(sid, session)));
         });
   }
@@ -148,13 +197,26 @@ public final class WebsocketGatewayClient implements GatewayClient {
       return prev;
     }
 
-    return httpClient
-        .websocket()
+    return (binaryCodec != null ? httpClient.websocket(SUBPROTOCOLS) : httpClient.websocket())
         .uri("/")
         .connect()
         .map(
             connection -> {
-              WebsocketSession session = new WebsocketSession(codec, connection);
+              WebsocketInbound inbound = (WebsocketInbound) connection.inbound();
+              setupCompression(connection, inbound.headers());
+              connection
+                  .channel()
+                  .pipeline()
+                  .addBefore(
+                      NettyPipeline.ReactiveBridge, AutoPongHandler.NAME, new AutoPongHandler());
+              String subprotocol = inbound.selectedSubprotocol();
+              boolean batched =
+                  settings.batching()
+                      && BATCH_VERSION.equals(inbound.headers().get(BATCH_HEADER));
+              WebsocketSession session =
+                  WebsocketGatewayClientBinaryCodec.SUBPROTOCOL.equals(subprotocol)
+                      ? new WebsocketSession(binaryCodec, connection, true, batched, settings)
+                      : new WebsocketSession(codec, connection, false, batched, settings);
               LOGGER.info("Created {} on {}:{}", session, settings.host(), settings.port());
               // setup shutdown hook
               session
@@ -178,13 +240,34 @@ public final class WebsocketGatewayClient implements GatewayClient {
         .cache();
   }
 
+  private void setupCompression(Connection connection, HttpHeaders responseHeaders) {
+    String extensions = responseHeaders.get(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS);
+    if (!settings.compression() || extensions == null || !extensions.contains(PERMESSAGE_DEFLATE)) {
+      return;
+    }
+    // right after websocket codecs, so that frame aggregator sees inflated frames
+    connection
+        .channel()
+        .pipeline()
+        .addBefore(
+            NettyPipeline.ReactiveBridge,
+            PerMessageDeflateHandler.NAME,
+            new PerMessageDeflateHandler(
+                settings.compressionLevel(),
+                settings.compressionMinSize(),
+                extensions.contains(CLIENT_NO_CONTEXT_TAKEOVER)));
+    LOGGER.debug("Negotiated websocket extension: {}", extensions);
+  }
+
   private Disposable handleCancel(long sid, WebsocketSession session) {
     ByteBuf byteBuf =
-        codec.encode(
-            ServiceMessage.builder()
-                .header(STREAM_ID, sid)
-                .header(SIGNAL, Signal.CANCEL.codeAsString())
-                .build());
+        session
+            .codec()
+            .encode(
+                ServiceMessage.builder()
+                    .header(STREAM_ID, sid)
+                    .header(SIGNAL, Signal.CANCEL.codeAsString())
+                    .build());
     return session
         .send(byteBuf, sid)
         .subscribe(
@@ -194,7 +277,37 @@ public final class WebsocketGatewayClient implements GatewayClient {
                     "Exception on sending CANCEL signal for session={}", session.id(), th));
   }
 
-  private ByteBuf encodeRequest(ServiceMessage message, long sid) {
-    return codec.encode(ServiceMessage.from(message).header(STREAM_ID, sid).build());
+  private Disposable handleRequestN(long sid, WebsocketSession session, long n) {
+    ByteBuf byteBuf =
+        session
+            .codec()
+            .encode(
+                ServiceMessage.builder()
+                    .header(STREAM_ID, sid)
+                    .header(SIGNAL, Signal.REQUEST_N.codeAsString())
+                    .header(CREDIT, n)
+                    .build());
+    return session
+        .sendSignal(byteBuf)
+        .subscribe(
+            null,
+            th ->
+                LOGGER.error(
+                    "Exception on sending REQUEST_N signal for session={}", session.id(), th));
+  }
+
+  private ByteBuf encodeStreamRequest(WebsocketSession session, ServiceMessage message, long sid) {
+    if (!settings.flowControl()) {
+      return encodeRequest(session, message, sid);
+    }
+    // credit-based stream, gateway waits for REQUEST_N before sending responses
+    return session
+        .codec()
+        .encode(ServiceMessage.from(message).header(STREAM_ID, sid).header(CREDIT, 0).build());
+  }
+
+  private ByteBuf encodeRequest(WebsocketSession session, ServiceMessage message, long sid) {
+    // codec depends on sub-protocol negotiated by session
+    return session.codec().encode(ServiceMessage.from(message).header(STREAM_ID, sid).build());
   }
 }
@@ -0,0 +1,230 @@
+package io.scalecube.services.gateway.transport.websocket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.scalecube.services.api.ServiceMessage;
+import io.scalecube.services.exceptions.MessageCodecException;
+import io.scalecube.services.gateway.transport.GatewayClientCodec;
+import io.scalecube.services.transport.api.DataCodec;
+import io.scalecube.services.transport.api.ReferenceCountUtil;
+import java.nio.charset.StandardCharsets;
+import java.util.Map.Entry;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Codec of client messages for binary websocket sub-protocol ({@link #SUBPROTOCOL}) of websocket
+ * gateway. Envelope consists of flags byte, varint {@code sid}, {@code sig}, {@code i} and {@code
+ * rlimit} (if present), length-prefixed qualifier (if present), length-prefixed custom headers and
+ * raw data bytes till the end of frame.
+ */
+public final class WebsocketGatewayClientBinaryCodec implements GatewayClientCodec<ByteBuf> {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(WebsocketGatewayClientBinaryCodec.class);
+
+  public static final String SUBPROTOCOL = "scalecube-binary";
+
+  // special numeric fields
+  private static final String STREAM_ID_FIELD = "sid";
+  private static final String SIGNAL_FIELD = "sig";
+  private static final String INACTIVITY_FIELD = "i";
+  private static final String RATE_LIMIT_FIELD = "rlimit";
+  private static final String QUALIFIER_FIELD = "q";
+
+  private static final int FLAG_STREAM_ID = 1;
+  private static final int FLAG_SIGNAL = 1 << 1;
+  private static final int FLAG_DATA = 1 << 2;
+  private static final int FLAG_QUALIFIER = 1 << 3;
+  private static final int FLAG_INACTIVITY = 1 << 4;
+  private static final int FLAG_RATE_LIMIT = 1 << 5;
+
+  private final DataCodec dataCodec;
+  private final boolean releaseDataOnEncode;
+
+  /**
+   * Constructor for codec which encode/decode client message to/from binary websocket gateway
+   * message.
+   *
+   * @param dataCodec data message codec.
+   */
+  public WebsocketGatewayClientBinaryCodec(DataCodec dataCodec) {
+    this(dataCodec, true /*always release by default*/);
+  }
+
+  /**
+   * Constructor for codec which encode/decode client message to/from binary websocket gateway
+   * message.
+   *
+   * @param dataCodec data message codec.
+   * @param releaseDataOnEncode release data on encode flag.
+   */
+  public WebsocketGatewayClientBinaryCodec(DataCodec dataCodec, boolean releaseDataOnEncode) {
+    this.dataCodec = dataCodec;
+    this.releaseDataOnEncode = releaseDataOnEncode;
+  }
+
+  @Override
+  public DataCodec getDataCodec() {
+    return dataCodec;
+  }
+
+  @Override
+  public ByteBuf encode(ServiceMessage message) {
+    ByteBuf byteBuf = ByteBufAllocator.DEFAULT.buffer();
+    try {
+      String sid = message.header(STREAM_ID_FIELD);
+      String sig = message.header(SIGNAL_FIELD);
+      final String inactivity = message.header(INACTIVITY_FIELD);
+      final String rateLimit = message.header(RATE_LIMIT_FIELD);
+      final String qualifier = message.header(QUALIFIER_FIELD);
+      Object data = message.data();
+      boolean hasData = data instanceof ByteBuf ? ((ByteBuf) data).isReadable() : data != null;
+
+      int flags = 0;
+      flags |= sid != null ? FLAG_STREAM_ID : 0;
+      flags |= sig != null ? FLAG_SIGNAL : 0;
+      flags |= hasData ? FLAG_DATA : 0;
+      flags |= qualifier != null ? FLAG_QUALIFIER : 0;
+      flags |= inactivity != null ? FLAG_INACTIVITY : 0;
+      flags |= rateLimit != null ? FLAG_RATE_LIMIT : 0;
+      byteBuf.writeByte(flags);
+
+      final int count = message.headers().size() - Integer.bitCount(flags & ~FLAG_DATA);
+      if (sid != null) {
+        writeVarint(byteBuf, Long.parseLong(sid));
+      }
+      if (sig != null) {
+        writeVarint(byteBuf, Long.parseLong(sig));
+      }
+      if (inactivity != null) {
+        writeVarint(byteBuf, Long.parseLong(inactivity));
+      }
+      if (rateLimit != null) {
+        writeVarint(byteBuf, Long.parseLong(rateLimit));
+      }
+      if (qualifier != null) {
+        writeString(byteBuf, qualifier);
+      }
+
+      // headers
+      writeVarint(byteBuf, count);
+      for (Entry<String, String> header : message.headers().entrySet()) {
+        if (!isEnvelopeField(header.getKey())) {
+          writeString(byteBuf, header.getKey());
+          writeString(byteBuf, header.getValue());
+        }
+      }
+
+      // data
+      if (data instanceof ByteBuf) {
+        ByteBuf dataBin = (ByteBuf) data;
+        try {
+          if (hasData) {
+            byteBuf.writeBytes(dataBin, dataBin.readerIndex(), dataBin.readableBytes());
+          }
+        } finally {
+          if (releaseDataOnEncode) {
+            ReferenceCountUtil.safestRelease(dataBin);
+          }
+        }
+      } else if (data != null) {
+        dataCodec.encode(new ByteBufOutputStream(byteBuf), data);
+      }
+    } catch (Throwable ex) {
+      ReferenceCountUtil.safestRelease(byteBuf);
+      Optional.ofNullable(message.data()).ifPresent(ReferenceCountUtil::safestRelease);
+      LOGGER.error("Failed to encode message: {}", message, ex);
+      throw new MessageCodecException("Failed to encode message", ex);
+    }
+    return byteBuf;
+  }
+
+  @Override
+  public ServiceMessage decode(ByteBuf encodedMessage) {
+    try {
+      ServiceMessage.Builder result = ServiceMessage.builder();
+
+      int flags = encodedMessage.readUnsignedByte();
+      if ((flags & FLAG_STREAM_ID) != 0) {
+        result.header(STREAM_ID_FIELD, readVarint(encodedMessage));
+      }
+      if ((flags & FLAG_SIGNAL) != 0) {
+        result.header(SIGNAL_FIELD, readVarint(encodedMessage));
+      }
+      if ((flags & FLAG_INACTIVITY) != 0) {
+        result.header(INACTIVITY_FIELD, readVarint(encodedMessage));
+      }
+      if ((flags & FLAG_RATE_LIMIT) != 0) {
+        result.header(RATE_LIMIT_FIELD, readVarint(encodedMessage));
+      }
+      if ((flags & FLAG_QUALIFIER) != 0) {
+        result.qualifier(readString(encodedMessage));
+      }
+
+      // headers
+      long count = readVarint(encodedMessage);
+      for (long i = 0; i < count; i++) {
+        result.header(readString(encodedMessage), readString(encodedMessage));
+      }
+
+      // data
+      if ((flags & FLAG_DATA) != 0) {
+        result.data(encodedMessage.copy());
+      }
+      return result.build();
+    } catch (Throwable ex) {
+      throw new MessageCodecException("Failed to decode message", ex);
+    } finally {
+      ReferenceCountUtil.safestRelease(encodedMessage);
+    }
+  }
+
+  private static boolean isEnvelopeField(String name) {
+    switch (name) {
+      case STREAM_ID_FIELD:
+      case SIGNAL_FIELD:
+      case INACTIVITY_FIELD:
+      case RATE_LIMIT_FIELD:
+      case QUALIFIER_FIELD:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static void writeString(ByteBuf byteBuf, String value) {
+    writeVarint(byteBuf, ByteBufUtil.utf8Bytes(value));
+    byteBuf.writeCharSequence(value, StandardCharsets.UTF_8);
+  }
+
+  private static String readString(ByteBuf byteBuf) {
+    int length = (int) readVarint(byteBuf);
+    String value = byteBuf.toString(byteBuf.readerIndex(), length, StandardCharsets.UTF_8);
+    byteBuf.skipBytes(length);
+    return value;
+  }
+
+  private static void writeVarint(ByteBuf byteBuf, long value) {
+    while ((value & ~0x7FL) != 0) {
+      byteBuf.writeByte((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    byteBuf.writeByte((int) value);
+  }
+
+  private static long readVarint(ByteBuf byteBuf) {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = byteBuf.readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new MessageCodecException("Malformed varint", null);
+  }
+}
@@ -18,6 +18,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBuf;
 import io.scalecube.services.api.ServiceMessage;
 import io.scalecube.services.exceptions.MessageCodecException;
 import io.scalecube.services.gateway.transport.GatewayClientCodec;
@@ -34,6 +35,8 @@ public final class WebsocketGatewayClientCodec implements GatewayClientCodec<Byt
 
   private static final Logger LOGGER = LoggerFactory.getLogger(WebsocketGatewayClientCodec.class);
 
+  public static final String SUBPROTOCOL = "scalecube-json";
+
   private static final MappingJsonFactory jsonFactory = new MappingJsonFactory(objectMapper());
 
   // special numeric fields
@@ -46,6 +49,8 @@ public final class WebsocketGatewayClientCodec implements GatewayClientCodec<Byt
 
   private final DataCodec dataCodec;
   private final boolean releaseDataOnEncode;
+  private boolean zeroCopyDecode = false;
+  private boolean compositeEncode = false;
 
   /**
    * Constructor for codec which encode/decode client message to/from websocket gateway message
@@ -69,6 +74,47 @@ public final class WebsocketGatewayClientCodec implements GatewayClientCodec<Byt
     this.releaseDataOnEncode = releaseDataOnEncode; // always release by default
   }
 
+  private WebsocketGatewayClientCodec(WebsocketGatewayClientCodec other) {
+    this.dataCodec = other.dataCodec;
+    this.releaseDataOnEncode = other.releaseDataOnEncode;
+    this.zeroCopyDecode = other.zeroCopyDecode;
+    this.compositeEncode = other.compositeEncode;
+  }
+
+  /**
+   * Zero-copy decoding. When enabled {@link #decode(ByteBuf)} returns message with data being a
+   * retained slice of the given frame buffer instead of a copy. Consumer of the message data must
+   * release it exactly once, as with copied data.
+   *
+   * @param zeroCopyDecode zero-copy decoding flag
+   * @return new codec instance
+   */
+  public WebsocketGatewayClientCodec zeroCopyDecode(boolean zeroCopyDecode) {
+    WebsocketGatewayClientCodec c = new WebsocketGatewayClientCodec(this);
+    c.zeroCopyDecode = zeroCopyDecode;
+    return c;
+  }
+
+  /**
+   * Composite encoding. When enabled and message data is a readable {@link ByteBuf}, {@link
+   * #encode(ServiceMessage)} doesn't copy data into the output buffer but returns a {@link
+   * CompositeByteBuf} of JSON prefix, data buffer itself and closing brace. Ownership of data
+   * buffer is passed to the composite buffer (data is retained if codec doesn't release data on
+   * encode), so it's released once the frame is written.
+   *
+   * @param compositeEncode composite encoding flag
+   * @return new codec instance
+   */
+  public WebsocketGatewayClientCodec compositeEncode(boolean compositeEncode) {
+    WebsocketGatewayClientCodec c = new WebsocketGatewayClientCodec(this);
+    c.compositeEncode = compositeEncode;
+    return c;
+  }
+
+  public boolean isCompositeEncode() {
+    return compositeEncode;
+  }
+
   @Override
   public DataCodec getDataCodec() {
     return dataCodec;
@@ -77,6 +123,7 @@ public final class WebsocketGatewayClientCodec implements GatewayClientCodec<Byt
   @Override
   public ByteBuf encode(ServiceMessage message) {
     ByteBuf byteBuf = ByteBufAllocator.DEFAULT.buffer();
+    int dataIndex = -1; // index of data in output buffer, in composite encoding mode
 
     try (JsonGenerator generator =
         jsonFactory.createGenerator(
@@ -104,7 +151,12 @@ public final class WebsocketGatewayClientCodec implements GatewayClientCodec<Byt
       if (data != null) {
         if (data instanceof ByteBuf) {
           ByteBuf dataBin = (ByteBuf) data;
-          if (dataBin.isReadable()) {
+          if (dataBin.isReadable() && compositeEncode) {
+            generator.writeFieldName(DATA_FIELD);
+            generator.writeRaw(":");
+            generator.flush();
+            dataIndex = byteBuf.writerIndex();
+          } else if (dataBin.isReadable()) {
             try {
               generator.writeFieldName(DATA_FIELD);
               generator.writeRaw(":");
@@ -128,11 +180,21 @@ public final class WebsocketGatewayClientCodec implements GatewayClientCodec<Byt
       LOGGER.error("Failed to encode message: {}", message, ex);
       throw new MessageCodecException("Failed to encode message", ex);
     }
-    return byteBuf;
+    return dataIndex < 0 ? byteBuf : compose(byteBuf, dataIndex, message.data());
+  }
+
+  private ByteBuf compose(ByteBuf byteBuf, int dataIndex, ByteBuf dataBin) {
+    CompositeByteBuf composite = byteBuf.alloc().compositeBuffer(3);
+    return composite.addComponents(
+        true,
+        byteBuf.retainedSlice(0, dataIndex),
+        releaseDataOnEncode ? dataBin : dataBin.retain(),
+        byteBuf.slice(dataIndex, byteBuf.writerIndex() - dataIndex));
   }
 
   @Override
   public ServiceMessage decode(ByteBuf encodedMessage) {
+    int readerIndex = encodedMessage.readerIndex(); // stream would move it
     try (InputStream stream = new ByteBufInputStream(encodedMessage, true)) {
       JsonParser jp = jsonFactory.createParser(stream);
       ServiceMessage.Builder result = ServiceMessage.builder();
@@ -167,7 +229,12 @@ public final class WebsocketGatewayClientCodec implements GatewayClientCodec<Byt
       }
       // data
       if (dataEnd > dataStart) {
-        result.data(encodedMessage.copy((int) dataStart, (int) (dataEnd - dataStart)));
+        int dataIndex = readerIndex + (int) dataStart;
+        int dataLength = (int) (dataEnd - dataStart);
+        result.data(
+            zeroCopyDecode
+                ? encodedMessage.retainedSlice(dataIndex, dataLength)
+                : encodedMessage.copy(dataIndex, dataLength));
       }
       return result.build();
     } catch (Throwable ex) {
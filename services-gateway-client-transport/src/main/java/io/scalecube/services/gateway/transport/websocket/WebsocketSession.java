@@ -1,21 +1,34 @@
 package io.scalecube.services.gateway.transport.websocket;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.scalecube.services.api.ErrorData;
 import io.scalecube.services.api.ServiceMessage;
 import io.scalecube.services.exceptions.ConnectionClosedException;
 import io.scalecube.services.exceptions.DefaultErrorMapper;
 import io.scalecube.services.gateway.transport.GatewayClientCodec;
+import io.scalecube.services.gateway.transport.GatewayClientSettings;
 import io.scalecube.services.transport.api.ReferenceCountUtil;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import org.jctools.maps.NonBlockingHashMapLong;
+import org.jctools.queues.MpscUnboundedArrayQueue;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
 import reactor.core.publisher.UnicastProcessor;
 import reactor.netty.Connection;
 import reactor.netty.NettyPipeline.SendOptions;
@@ -29,54 +42,64 @@ final class WebsocketSession {
   private static final String STREAM_ID = "sid";
   private static final String SIGNAL = "sig";
 
+  private static final int INITIAL_STREAMS_CAPACITY = 4;
+
   private final String id; // keep id for tracing
   private final GatewayClientCodec<ByteBuf> codec;
   private final Connection connection;
   private final WebsocketOutbound outbound;
+  private final boolean binary;
+  private final GatewayClientSettings batching;
+  private final boolean coalescing;
+
+  // outbound queue of batching or coalescing session, drained by event loop
+  private final Queue<PendingRequest> pendingRequests;
+  private final AtomicInteger pendingCount = new AtomicInteger();
+
+  private final DeltaDecoder deltaDecoder = new DeltaDecoder();
 
-  // processor by sid mapping
-  private final Map<Long, UnicastProcessor<ServiceMessage>> inboundProcessors =
-      new NonBlockingHashMapLong<>(1024);
+  // processor by sid mapping, accessed by caller threads and event loop; sessions mostly have a
+  // few streams at once, so it starts small and grows on demand
+  private final NonBlockingHashMapLong<UnicastProcessor<ServiceMessage>> inboundProcessors =
+      new NonBlockingHashMapLong<>(INITIAL_STREAMS_CAPACITY);
 
-  WebsocketSession(GatewayClientCodec<ByteBuf> codec, Connection connection) {
+  /**
+   * Constructor.
+   *
+   * @param codec codec of negotiated sub-protocol
+   * @param connection connection
+   * @param binary whether binary sub-protocol was negotiated
+   * @param batched whether batched frames were negotiated
+   * @param settings client settings
+   */
+  WebsocketSession(
+      GatewayClientCodec<ByteBuf> codec,
+      Connection connection,
+      boolean binary,
+      boolean batched,
+      GatewayClientSettings settings) {
     this.id = Integer.toHexString(System.identityHashCode(this));
     this.codec = codec;
     this.connection = connection;
-    this.outbound = (WebsocketOutbound) connection.outbound().options(SendOptions::flushOnEach);
+    this.binary = binary;
+    this.batching = batched ? settings : null;
+    this.coalescing = settings.writeCoalescing();
+    this.pendingRequests =
+        batching != null || coalescing ? new MpscUnboundedArrayQueue<>(64) : null;
+    // coalescing session writes frames of one flush as one publisher
+    this.outbound =
+        (WebsocketOutbound)
+            connection
+                .outbound()
+                .options(coalescing ? SendOptions::flushOnBoundary : SendOptions::flushOnEach);
 
     WebsocketInbound inbound = (WebsocketInbound) connection.inbound();
+    // chunked responses arrive as first frame and continuation frames
     inbound
-        .aggregateFrames()
+        .aggregateFrames(settings.maxMessageSize())
         .receive()
         .retain()
-        .subscribe(
-            byteBuf -> {
-              // decode msg
-              ServiceMessage msg;
-              try {
-                msg = codec.decode(byteBuf);
-              } catch (Exception ex) {
-                LOGGER.error("Response decoder failed: " + ex);
-                return;
-              }
-              // ignore msgs w/o sid
-              if (!msg.headers().containsKey(STREAM_ID)) {
-                LOGGER.error("Ignore response: {} with null sid, session={}", msg, id);
-                Optional.ofNullable(msg.data()).ifPresent(ReferenceCountUtil::safestRelease);
-                return;
-              }
-              long sid = Long.valueOf(msg.header(STREAM_ID));
-              // processor?
-              UnicastProcessor<ServiceMessage> processor = inboundProcessors.get(sid);
-              if (processor == null) {
-                LOGGER.error(
-                    "Can't find processor by sid={} for response: {}, session={}", sid, msg, id);
-                Optional.ofNullable(msg.data()).ifPresent(ReferenceCountUtil::safestRelease);
-                return;
-              }
-              // handle response msg
-              handleResponse(msg, processor::onNext, processor::onError, processor::onComplete);
-            });
+        .subscribe(this::handleFrame);
 
     connection.onDispose(
         () ->
@@ -88,15 +111,17 @@ final class WebsocketSession {
     return id;
   }
 
+  public GatewayClientCodec<ByteBuf> codec() {
+    return codec;
+  }
+
   public Mono<Void> send(ByteBuf byteBuf, long sid) {
     return Mono.defer(
         () -> {
           inboundProcessors.computeIfAbsent(sid, key -> UnicastProcessor.create());
           LOGGER.debug("Put sid={}, session={}", sid, id);
 
-          return outbound
-              .sendObject(Mono.just(byteBuf).map(TextWebSocketFrame::new))
-              .then()
+          return write(byteBuf)
               .doOnError(
                   th -> {
                     UnicastProcessor<ServiceMessage> processor = inboundProcessors.remove(sid);
@@ -107,22 +132,41 @@ final class WebsocketSession {
         });
   }
 
+  /**
+   * Sends signal message (e.g. REQUEST_N) of a stream, unlike {@link #send(ByteBuf, long)} it
+   * doesn't open the stream if it's gone already.
+   *
+   * @param byteBuf encoded message
+   * @return mono void
+   */
+  public Mono<Void> sendSignal(ByteBuf byteBuf) {
+    return Mono.defer(() -> write(byteBuf));
+  }
+
+  private Mono<Void> write(ByteBuf byteBuf) {
+    return pendingRequests != null
+        ? enqueue(byteBuf)
+        : outbound.sendObject(Mono.just(byteBuf).map(this::toFrame)).then();
+  }
+
   public Mono<Void> send(Flux<ByteBuf> byteBuf, long sid) {
     return Mono.defer(
         () -> {
           inboundProcessors.computeIfAbsent(sid, key -> UnicastProcessor.create());
           LOGGER.debug("Put sid={}, session={}", sid, id);
 
-          return outbound
-              .sendObject(byteBuf.map(TextWebSocketFrame::new))
-              .then()
-              .doOnError(
-                  th -> {
-                    UnicastProcessor<ServiceMessage> processor = inboundProcessors.remove(sid);
-                    if (processor != null) {
-                      processor.onError(th);
-                    }
-                  });
+          // queued messages go through the queue too, to keep order and flushes of the session
+          Mono<Void> send =
+              pendingRequests != null
+                  ? byteBuf.flatMap(this::enqueue).then()
+                  : outbound.sendObject(byteBuf.map(this::toFrame)).then();
+          return send.doOnError(
+              th -> {
+                UnicastProcessor<ServiceMessage> processor = inboundProcessors.remove(sid);
+                if (processor != null) {
+                  processor.onError(th);
+                }
+              });
         });
   }
 
@@ -137,6 +181,7 @@ final class WebsocketSession {
           return processor.doOnTerminate(
               () -> {
                 inboundProcessors.remove(sid);
+                deltaDecoder.remove(sid);
                 LOGGER.debug("Removed sid={}, session={}", sid, id);
               });
         });
@@ -158,6 +203,132 @@ final class WebsocketSession {
     return connection.onDispose();
   }
 
+  private void handleFrame(ByteBuf frame) {
+    if (batching == null) {
+      handleEnvelope(frame);
+      return;
+    }
+    List<ByteBuf> envelopes;
+    try {
+      envelopes = BatchFrames.split(frame, binary);
+    } catch (Exception ex) {
+      LOGGER.error("Failed to split batched frame: " + ex);
+      return;
+    }
+    envelopes.forEach(this::handleEnvelope);
+  }
+
+  private void handleEnvelope(ByteBuf byteBuf) {
+    // decode msg
+    ServiceMessage msg;
+    try {
+      msg = codec.decode(byteBuf);
+    } catch (Exception ex) {
+      LOGGER.error("Response decoder failed: " + ex);
+      return;
+    }
+    // ignore msgs w/o sid
+    if (!msg.headers().containsKey(STREAM_ID)) {
+      LOGGER.error("Ignore response: {} with null sid, session={}", msg, id);
+      Optional.ofNullable(msg.data()).ifPresent(ReferenceCountUtil::safestRelease);
+      return;
+    }
+    long sid = Long.valueOf(msg.header(STREAM_ID));
+    // processor?
+    UnicastProcessor<ServiceMessage> processor = inboundProcessors.get(sid);
+    if (processor == null) {
+      LOGGER.error("Can't find processor by sid={} for response: {}, session={}", sid, msg, id);
+      Optional.ofNullable(msg.data()).ifPresent(ReferenceCountUtil::safestRelease);
+      return;
+    }
+    // reconstruct full payload of delta-encoded stream
+    try {
+      msg = deltaDecoder.decode(sid, msg);
+    } catch (Exception ex) {
+      Optional.ofNullable(msg.data()).ifPresent(ReferenceCountUtil::safestRelease);
+      processor.onError(ex);
+      return;
+    }
+    // handle response msg
+    handleResponse(msg, processor::onNext, processor::onError, processor::onComplete);
+  }
+
+  private Mono<Void> enqueue(ByteBuf byteBuf) {
+    return Mono.create(sink -> enqueue(new PendingRequest(byteBuf, sink)));
+  }
+
+  private void enqueue(PendingRequest pending) {
+    pendingRequests.offer(pending);
+    int count = pendingCount.incrementAndGet();
+    long maxDelay = batching != null ? batching.batchMaxDelay().toNanos() : 0;
+    EventLoop eventLoop = connection.channel().eventLoop();
+    if (count == 1) {
+      if (maxDelay > 0) {
+        eventLoop.schedule(this::drain, maxDelay, TimeUnit.NANOSECONDS);
+      } else {
+        eventLoop.execute(this::drain);
+      }
+    } else if (maxDelay > 0 && count == batching.batchMaxSize()) {
+      eventLoop.execute(this::drain); // frame is full, don't wait
+    }
+  }
+
+  /**
+   * Writes queued requests, several per frame if batching was negotiated. Runs on event loop only,
+   * till queue is empty. Coalescing session writes all frames of the pass at once, with one flush.
+   */
+  private void drain() {
+    List<WebSocketFrame> frames = coalescing ? new ArrayList<>() : null;
+    List<MonoSink<Void>> coalescedSinks = coalescing ? new ArrayList<>() : null;
+    int count = pendingCount.get();
+    while (count > 0) {
+      int size = batching != null ? Math.min(count, Math.max(1, batching.batchMaxSize())) : 1;
+      List<MonoSink<Void>> sinks = new ArrayList<>(size);
+      List<ByteBuf> envelopes = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        PendingRequest pending = pendingRequests.poll();
+        envelopes.add(pending.byteBuf);
+        sinks.add(pending.sink);
+      }
+      ByteBuf content;
+      try {
+        content =
+            envelopes.size() == 1
+                ? envelopes.get(0)
+                : BatchFrames.compose(connection.outbound().alloc(), envelopes, binary);
+      } catch (Throwable th) {
+        envelopes.forEach(ReferenceCountUtil::safestRelease);
+        sinks.forEach(sink -> sink.error(th));
+        count = pendingCount.addAndGet(-size);
+        continue;
+      }
+      if (coalescing) {
+        frames.add(toFrame(content));
+        coalescedSinks.addAll(sinks);
+      } else {
+        writeFrames(sinks, Mono.just(content).map(this::toFrame));
+      }
+      count = pendingCount.addAndGet(-size);
+    }
+    if (coalescing && !frames.isEmpty()) {
+      writeFrames(coalescedSinks, Flux.fromIterable(frames));
+    }
+  }
+
+  private void writeFrames(List<MonoSink<Void>> sinks, Publisher<WebSocketFrame> frames) {
+    outbound
+        .sendObject(frames)
+        .then()
+        .subscribe(
+            null,
+            th -> sinks.forEach(sink -> sink.error(th)),
+            () -> sinks.forEach(MonoSink::success));
+  }
+
+  private WebSocketFrame toFrame(ByteBuf byteBuf) {
+    return binary ? new BinaryWebSocketFrame(byteBuf) : new TextWebSocketFrame(byteBuf);
+  }
+
   private void handleResponse(
       ServiceMessage response,
       Consumer<ServiceMessage> onNext,
@@ -174,6 +345,10 @@ final class WebsocketSession {
         // handle completion signal
         Signal signal = signalOptional.get();
         if (signal == Signal.COMPLETE) {
+          if (response.data() != null) {
+            // single-frame response of request-response method carries completion inline
+            onNext.accept(withoutSignal(response));
+          }
           onComplete.run();
         }
         if (signal == Signal.ERROR) {
@@ -193,10 +368,30 @@ final class WebsocketSession {
     }
   }
 
+  private static ServiceMessage withoutSignal(ServiceMessage response) {
+    Map<String, String> headers = new HashMap<>(response.headers());
+    headers.remove(SIGNAL);
+    return ServiceMessage.builder().headers(headers).data(response.data()).build();
+  }
+
+  private static final class PendingRequest {
+
+    private final ByteBuf byteBuf;
+    private final MonoSink<Void> sink;
+
+    private PendingRequest(ByteBuf byteBuf, MonoSink<Void> sink) {
+      this.byteBuf = byteBuf;
+      this.sink = sink;
+    }
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder("gateway.client.transport.WebsocketSession{");
     sb.append("id='").append(id).append('\'');
+    sb.append(", binary=").append(binary);
+    sb.append(", batching=").append(batching != null);
+    sb.append(", coalescing=").append(coalescing);
     sb.append('}');
     return sb.toString();
   }
@@ -0,0 +1,56 @@
+package io.scalecube.services.gateway;
+
+import io.netty.buffer.ByteBuf;
+import reactor.core.publisher.Flux;
+
+/**
+ * Splitting of large outbound payloads into bounded chunks. Chunks are retained slices of the
+ * payload, generated lazily on demand: reactor-netty requests next chunk only while channel is
+ * writable, so only a bounded window of the payload sits in channel outbound buffer (instead of
+ * the whole payload written at once), and the payload is released right after its last chunk is
+ * generated.
+ */
+public final class ByteBufChunks {
+
+  private ByteBufChunks() {
+    // Do not instantiate
+  }
+
+  /**
+   * Returns number of chunks of given payload.
+   *
+   * @param content payload
+   * @param chunkSize max size of chunk
+   * @return number of chunks (at least one)
+   */
+  public static int count(ByteBuf content, int chunkSize) {
+    return Math.max(1, (content.readableBytes() + chunkSize - 1) / chunkSize);
+  }
+
+  /**
+   * Splits given payload into chunks. Takes ownership of the payload (it's released once all
+   * chunks are generated or subscription is cancelled), every emitted chunk must be released by the
+   * consumer.
+   *
+   * @param content payload
+   * @param chunkSize max size of chunk
+   * @return flux of chunks
+   */
+  public static Flux<ByteBuf> split(ByteBuf content, int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+    }
+    final int end = content.writerIndex();
+    return Flux.<ByteBuf, Integer>generate(
+            content::readerIndex,
+            (index, sink) -> {
+              int length = Math.min(chunkSize, end - index);
+              sink.next(content.retainedSlice(index, length));
+              if (index + length >= end) {
+                sink.complete();
+              }
+              return index + length;
+            })
+        .doFinally(signalType -> ReferenceCountUtil.safestRelease(content));
+  }
+}
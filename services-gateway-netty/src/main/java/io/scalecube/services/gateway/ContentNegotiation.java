@@ -0,0 +1,163 @@
+package io.scalecube.services.gateway;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.scalecube.services.exceptions.MessageCodecException;
+import io.scalecube.services.transport.api.DataCodec;
+import java.util.Locale;
+
+/**
+ * Negotiation of data format between gateway clients and services. Data formats are content types
+ * of {@link DataCodec} instances found on classpath, so a compact format (MessagePack, protobuf,
+ * etc.) becomes available to clients once its codec is added to the gateway and service nodes.
+ *
+ * <p>Client declares format of request data with {@code Content-Type} and desired format of
+ * response data with {@code Accept} (HTTP gateway) or with {@code Content-Type} of websocket
+ * handshake request (websocket gateway, both directions). Request data is passed to services as
+ * is, marked with client format; response data is transcoded by the gateway only if service
+ * responded in another format.
+ */
+public final class ContentNegotiation {
+
+  public static final String DEFAULT_CONTENT_TYPE = "application/json";
+
+  private static final String ANY_TYPE = "*/*";
+  private static final String ANY_APPLICATION_TYPE = "application/*";
+
+  private ContentNegotiation() {
+    // Do not instantiate
+  }
+
+  /**
+   * Returns media type of given header value, i.e. lower-cased value without parameters.
+   *
+   * @param value value of Content-Type header (may be null)
+   * @return media type, or null if value is missing
+   */
+  public static String mediaType(String value) {
+    if (value == null) {
+      return null;
+    }
+    int end = value.indexOf(';');
+    String type = (end < 0 ? value : value.substring(0, end)).trim().toLowerCase(Locale.ROOT);
+    return type.isEmpty() ? null : type;
+  }
+
+  /**
+   * Returns data format of request by value of its Content-Type header.
+   *
+   * @param value value of Content-Type header (may be null)
+   * @return data format, {@link #DEFAULT_CONTENT_TYPE} if header is missing, or null if format is
+   *     not supported
+   */
+  public static String contentType(String value) {
+    String type = mediaType(value);
+    if (type == null) {
+      return DEFAULT_CONTENT_TYPE;
+    }
+    return isSupported(type) ? type : null;
+  }
+
+  /**
+   * Returns the most preferred supported data format listed in value of Accept header. Wildcards
+   * {@code *}{@code /*} and {@code application/*} stand for given fallback format.
+   *
+   * @param value value of Accept header (may be null)
+   * @param fallback format to use if header is missing or has wildcard
+   * @return data format, or null if none of listed formats is supported
+   */
+  public static String accept(String value, String fallback) {
+    if (value == null || value.trim().isEmpty()) {
+      return fallback;
+    }
+    String result = null;
+    float resultQuality = 0;
+    for (String range : value.split(",")) {
+      String[] params = range.split(";");
+      float quality = quality(params);
+      if (quality <= resultQuality) {
+        continue; // ranges of equal quality keep listed order
+      }
+      String type = mediaType(params[0]);
+      if (ANY_TYPE.equals(type) || ANY_APPLICATION_TYPE.equals(type)) {
+        type = fallback;
+      }
+      if (type != null && isSupported(type)) {
+        result = type;
+        resultQuality = quality;
+      }
+    }
+    return result;
+  }
+
+  private static float quality(String[] params) {
+    for (int i = 1; i < params.length; i++) {
+      String param = params[i].trim();
+      if (param.startsWith("q=")) {
+        try {
+          return Float.parseFloat(param.substring(2));
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  /**
+   * Returns whether there's a {@link DataCodec} for given data format.
+   *
+   * @param type data format
+   * @return true if format is supported
+   */
+  public static boolean isSupported(String type) {
+    try {
+      return DataCodec.getInstance(type) != null;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns whether given data format is JSON, i.e. may be embedded into JSON envelope.
+   *
+   * @param type data format
+   * @return true if format is JSON
+   */
+  public static boolean isJson(String type) {
+    return DEFAULT_CONTENT_TYPE.equals(type) || type.endsWith("+json");
+  }
+
+  /**
+   * Transcodes data from one format to another. Data is decoded into generic value (maps, lists,
+   * etc.) with codec of source format and encoded with codec of target format. Takes ownership of
+   * given data if it's transcoded (it's released by this method).
+   *
+   * @param data encoded data
+   * @param from format of the data
+   * @param to target format
+   * @param alloc allocator of the result buffer
+   * @return given data if formats are the same, or transcoded data
+   * @throws MessageCodecException if data can't be transcoded
+   */
+  public static ByteBuf transcode(ByteBuf data, String from, String to, ByteBufAllocator alloc)
+      throws MessageCodecException {
+    if (from.equals(to) || !data.isReadable()) {
+      return data;
+    }
+    ByteBuf byteBuf = alloc.buffer(data.readableBytes());
+    try {
+      ByteBufInputStream input = new ByteBufInputStream(data.duplicate());
+      Object value = DataCodec.getInstance(from).decode(input, Object.class);
+      DataCodec.getInstance(to).encode(new ByteBufOutputStream(byteBuf), value);
+    } catch (Throwable th) {
+      ReferenceCountUtil.safestRelease(byteBuf);
+      throw new MessageCodecException("Failed to transcode data from " + from + " to " + to, th);
+    } finally {
+      ReferenceCountUtil.safestRelease(data);
+    }
+    return byteBuf;
+  }
+}
@@ -0,0 +1,100 @@
+package io.scalecube.services.gateway;
+
+import io.netty.buffer.ByteBuf;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running estimate of encoded message size per qualifier. Encoders allocate output buffer with
+ * estimated capacity (see {@link #initialCapacity(String)}) and report actual encoded size back
+ * (see {@link #record(String, ByteBuf, int)}), so that buffers of large messages are not grown
+ * (i.e. reallocated and copied) over and over again.
+ *
+ * <p>Estimate grows to a bigger size at most twofold per message (like {@code
+ * AdaptiveRecvByteBufAllocator}), so that single large message doesn't inflate buffers of the
+ * following small ones, and decays slowly (by 1/8 of the difference) to a smaller one. Updates are
+ * racy on purpose, estimate is just a hint. Number of tracked qualifiers is bounded, messages of
+ * other qualifiers share one estimate.
+ */
+public final class EncodedSizeEstimator {
+
+  public static final int DEFAULT_INITIAL_CAPACITY = 256;
+
+  private static final int MAX_QUALIFIERS = 1024;
+  private static final int MAX_ESTIMATE = 4 * 1024 * 1024;
+
+  private final Map<String, Estimate> estimates = new ConcurrentHashMap<>();
+  private final Estimate defaultEstimate = new Estimate();
+  private final LongAdder encodeCount = new LongAdder();
+  private final LongAdder resizeCount = new LongAdder();
+
+  /**
+   * Returns initial capacity of output buffer for given qualifier.
+   *
+   * @param qualifier message qualifier (may be null)
+   * @return initial capacity
+   */
+  public int initialCapacity(String qualifier) {
+    int value = estimate(qualifier).value;
+    return value > 0 ? value + (value >> 4) : DEFAULT_INITIAL_CAPACITY;
+  }
+
+  /**
+   * Updates estimate for given qualifier by actual size of encoded message.
+   *
+   * @param qualifier message qualifier (may be null)
+   * @param byteBuf output buffer
+   * @param initialCapacity capacity the output buffer was allocated with
+   */
+  public void record(String qualifier, ByteBuf byteBuf, int initialCapacity) {
+    int size = byteBuf.writerIndex();
+    encodeCount.increment();
+    if (size > initialCapacity) {
+      resizeCount.increment();
+    }
+    Estimate estimate = estimate(qualifier);
+    int value = estimate.value;
+    int next =
+        size >= value
+            ? Math.min(size, Math.max(value, DEFAULT_INITIAL_CAPACITY) << 1)
+            : value - ((value - size) >> 3);
+    estimate.value = Math.min(MAX_ESTIMATE, next);
+  }
+
+  /**
+   * Returns number of encoded messages, buffers of which had to be grown.
+   *
+   * @return number of resized buffers
+   */
+  public long resizeCount() {
+    return resizeCount.sum();
+  }
+
+  /**
+   * Returns number of encoded messages.
+   *
+   * @return number of encoded messages
+   */
+  public long encodeCount() {
+    return encodeCount.sum();
+  }
+
+  private Estimate estimate(String qualifier) {
+    if (qualifier == null) {
+      return defaultEstimate;
+    }
+    Estimate estimate = estimates.get(qualifier);
+    if (estimate == null) {
+      if (estimates.size() >= MAX_QUALIFIERS) {
+        return defaultEstimate;
+      }
+      estimate = estimates.computeIfAbsent(qualifier, q -> new Estimate());
+    }
+    return estimate;
+  }
+
+  private static final class Estimate {
+    private volatile int value;
+  }
+}
@@ -1,6 +1,9 @@
 package io.scalecube.services.gateway;
 
+import com.codahale.metrics.Gauge;
+import io.scalecube.services.metrics.Metrics;
 import java.net.InetSocketAddress;
+import java.util.Arrays;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Mono;
@@ -12,6 +15,11 @@ public abstract class GatewayTemplate implements Gateway {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(GatewayTemplate.class);
 
+  public static final String METRIC_BUFFER_ENCODE = "buffer-encode";
+  public static final String METRIC_BUFFER_RESIZE = "buffer-resize";
+  public static final String METRIC_ACTIVE_STREAMS = "active-streams";
+  public static final String METRIC_REJECTED_STREAMS = "rejected-streams";
+
   protected final GatewayOptions options;
   protected final GatewayMetrics gatewayMetrics;
 
@@ -53,6 +61,53 @@ public abstract class GatewayTemplate implements Gateway {
             });
   }
 
+  /**
+   * Registers gauges of output buffer sizing by given estimators: number of encoded messages
+   * ({@link #METRIC_BUFFER_ENCODE}) and number of them which buffers had to be grown ({@link
+   * #METRIC_BUFFER_RESIZE}). Does nothing if metrics are not configured.
+   *
+   * @param estimators size estimators of gateway encoders
+   */
+  protected final void registerBufferMetrics(EncodedSizeEstimator... estimators) {
+    Gauge<Long> encodeGauge =
+        () -> Arrays.stream(estimators).mapToLong(EncodedSizeEstimator::encodeCount).sum();
+    Gauge<Long> resizeGauge =
+        () -> Arrays.stream(estimators).mapToLong(EncodedSizeEstimator::resizeCount).sum();
+    registerGauge(METRIC_BUFFER_ENCODE, encodeGauge);
+    registerGauge(METRIC_BUFFER_RESIZE, resizeGauge);
+  }
+
+  /**
+   * Registers gauges of stream admission: number of active streams ({@link
+   * #METRIC_ACTIVE_STREAMS}) and number of rejected streams ({@link #METRIC_REJECTED_STREAMS}).
+   * Does nothing if metrics are not configured.
+   *
+   * @param admission stream admission of the gateway
+   */
+  protected final void registerAdmissionMetrics(StreamAdmission admission) {
+    registerGauge(METRIC_ACTIVE_STREAMS, admission::activeStreams);
+    registerGauge(METRIC_REJECTED_STREAMS, admission::rejectedStreams);
+  }
+
+  /**
+   * Registers gauge of this gateway under given name. Does nothing if metrics are not configured,
+   * or if gauge with the same name is already registered (e.g. gateway was restarted).
+   *
+   * @param name metric name
+   * @param gauge gauge
+   */
+  protected final void registerGauge(String name, Gauge<?> gauge) {
+    Metrics metrics = options.metrics();
+    if (metrics == null) {
+      return;
+    }
+    try {
+      metrics.register(options.id(), name, gauge);
+    } catch (IllegalArgumentException ex) {
+      LOGGER.warn("Metric {} of gateway {} is already registered: {}", name, options.id(), ex);
+    }
+  }
+
   /**
    * Shutting down loopResources if it's not null.
    *
@@ -18,9 +18,21 @@ public final class ServiceMessageCodec {
   private static final Logger LOGGER = LoggerFactory.getLogger(ServiceMessageCodec.class);
 
   private final HeadersCodec headersCodec;
+  private final EncodedSizeEstimator sizeEstimator;
 
   public ServiceMessageCodec(HeadersCodec headersCodec) {
+    this(headersCodec, new EncodedSizeEstimator());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param headersCodec headers codec
+   * @param sizeEstimator estimator of encoded data size, may be shared by several codecs
+   */
+  public ServiceMessageCodec(HeadersCodec headersCodec, EncodedSizeEstimator sizeEstimator) {
     this.headersCodec = headersCodec;
+    this.sizeEstimator = sizeEstimator;
   }
 
   /**
@@ -35,16 +47,35 @@ public final class ServiceMessageCodec {
   public <T> T encodeAndTransform(
       ServiceMessage message, BiFunction<ByteBuf, ByteBuf, T> transformer)
       throws MessageCodecException {
+    return encodeAndTransform(message, ByteBufAllocator.DEFAULT, transformer);
+  }
+
+  /**
+   * Encode a message to buffers allocated by given allocator, transform it to T. Initial capacity
+   * of data buffer is estimated by size estimator of the codec.
+   *
+   * @param message the message to transform
+   * @param alloc allocator of data and headers buffers
+   * @param transformer a function that accepts data and header {@link ByteBuf} and return the
+   *     required T
+   * @return the object (transformed message)
+   * @throws MessageCodecException when encoding cannot be done.
+   */
+  public <T> T encodeAndTransform(
+      ServiceMessage message, ByteBufAllocator alloc, BiFunction<ByteBuf, ByteBuf, T> transformer)
+      throws MessageCodecException {
     ByteBuf dataBuffer = Unpooled.EMPTY_BUFFER;
     ByteBuf headersBuffer = Unpooled.EMPTY_BUFFER;
 
     if (message.hasData(ByteBuf.class)) {
       dataBuffer = message.data();
     } else if (message.hasData()) {
-      dataBuffer = ByteBufAllocator.DEFAULT.buffer();
+      int initialCapacity = sizeEstimator.initialCapacity(message.qualifier());
+      dataBuffer = alloc.buffer(initialCapacity);
       try {
         DataCodec dataCodec = DataCodec.getInstance(message.dataFormatOrDefault());
         dataCodec.encode(new ByteBufOutputStream(dataBuffer), message.data());
+        sizeEstimator.record(message.qualifier(), dataBuffer, initialCapacity);
       } catch (Throwable ex) {
         ReferenceCountUtil.safestRelease(dataBuffer);
         LOGGER.error("Failed to encode data on: {}, cause: {}", message, ex);
@@ -54,7 +85,7 @@ public final class ServiceMessageCodec {
     }
 
     if (!message.headers().isEmpty()) {
-      headersBuffer = ByteBufAllocator.DEFAULT.buffer();
+      headersBuffer = alloc.buffer();
       try {
         headersCodec.encode(new ByteBufOutputStream(headersBuffer), message.headers());
       } catch (Throwable ex) {
@@ -0,0 +1,213 @@
+package io.scalecube.services.gateway;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control of concurrent streams (request-response and request-stream calls) of gateway
+ * clients. Gateway admits a stream only while number of active streams of the client session, of
+ * the called qualifier and of the whole gateway are below their limits, otherwise the stream is
+ * rejected with prebuilt error before service is called. Every limit is disabled (0) by default.
+ *
+ * <p>Admitted stream must be released once it terminates, see {@link #release(String)}.
+ *
+ * <p>Counters of active and rejected streams ({@link #activeStreams()}, {@link
+ * #activeStreams(String)}, {@link #rejectedStreams()}) are shared by all instances derived from
+ * this one.
+ */
+public final class StreamAdmission {
+
+  /** Limit which rejected a stream. */
+  public enum Rejection {
+    SESSION("Too many streams of session"),
+    QUALIFIER("Too many streams of qualifier"),
+    GATEWAY("Too many streams of gateway");
+
+    private final String message;
+
+    Rejection(String message) {
+      this.message = message;
+    }
+
+    public String message() {
+      return message;
+    }
+  }
+
+  private int maxStreamsPerSession;
+  private int maxStreamsPerQualifier;
+  private int maxStreams;
+
+  private final AtomicInteger activeStreams;
+  private final ConcurrentMap<String, Integer> activeStreamsByQualifier;
+  private final LongAdder rejectedStreams;
+
+  public StreamAdmission() {
+    this.activeStreams = new AtomicInteger();
+    this.activeStreamsByQualifier = new ConcurrentHashMap<>();
+    this.rejectedStreams = new LongAdder();
+  }
+
+  private StreamAdmission(StreamAdmission other) {
+    this.maxStreamsPerSession = other.maxStreamsPerSession;
+    this.maxStreamsPerQualifier = other.maxStreamsPerQualifier;
+    this.maxStreams = other.maxStreams;
+    this.activeStreams = other.activeStreams;
+    this.activeStreamsByQualifier = other.activeStreamsByQualifier;
+    this.rejectedStreams = other.rejectedStreams;
+  }
+
+  /**
+   * Setter for max number of active streams of one client session.
+   *
+   * @param maxStreamsPerSession max number of streams, or 0 for no limit
+   * @return new StreamAdmission instance
+   */
+  public StreamAdmission maxStreamsPerSession(int maxStreamsPerSession) {
+    StreamAdmission a = new StreamAdmission(this);
+    a.maxStreamsPerSession = checkLimit(maxStreamsPerSession);
+    return a;
+  }
+
+  public int maxStreamsPerSession() {
+    return maxStreamsPerSession;
+  }
+
+  /**
+   * Setter for max number of active streams of one qualifier, across all sessions.
+   *
+   * @param maxStreamsPerQualifier max number of streams, or 0 for no limit
+   * @return new StreamAdmission instance
+   */
+  public StreamAdmission maxStreamsPerQualifier(int maxStreamsPerQualifier) {
+    StreamAdmission a = new StreamAdmission(this);
+    a.maxStreamsPerQualifier = checkLimit(maxStreamsPerQualifier);
+    return a;
+  }
+
+  public int maxStreamsPerQualifier() {
+    return maxStreamsPerQualifier;
+  }
+
+  /**
+   * Setter for max number of active streams of the gateway.
+   *
+   * @param maxStreams max number of streams, or 0 for no limit
+   * @return new StreamAdmission instance
+   */
+  public StreamAdmission maxStreams(int maxStreams) {
+    StreamAdmission a = new StreamAdmission(this);
+    a.maxStreams = checkLimit(maxStreams);
+    return a;
+  }
+
+  public int maxStreams() {
+    return maxStreams;
+  }
+
+  private static int checkLimit(int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("Invalid limit: " + limit);
+    }
+    return limit;
+  }
+
+  /**
+   * Admits new stream if limits allow it.
+   *
+   * @param qualifier qualifier of stream request
+   * @param sessionStreams number of active streams of client session
+   * @return null if stream is admitted (it must be released then), or rejecting limit
+   */
+  public Rejection tryAcquire(String qualifier, int sessionStreams) {
+    if (maxStreamsPerSession > 0 && sessionStreams >= maxStreamsPerSession) {
+      return reject(Rejection.SESSION);
+    }
+    int active = activeStreams.incrementAndGet(); // counted even if there's no limit
+    if (maxStreams > 0 && active > maxStreams) {
+      activeStreams.decrementAndGet();
+      return reject(Rejection.GATEWAY);
+    }
+    if (maxStreamsPerQualifier > 0) {
+      boolean[] admitted = {false};
+      activeStreamsByQualifier.compute(
+          key(qualifier),
+          (key, count) -> {
+            int value = count != null ? count : 0;
+            if (value >= maxStreamsPerQualifier) {
+              return count;
+            }
+            admitted[0] = true;
+            return value + 1;
+          });
+      if (!admitted[0]) {
+        activeStreams.decrementAndGet();
+        return reject(Rejection.QUALIFIER);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Releases admitted stream.
+   *
+   * @param qualifier qualifier of stream request
+   */
+  public void release(String qualifier) {
+    activeStreams.decrementAndGet();
+    if (maxStreamsPerQualifier > 0) {
+      activeStreamsByQualifier.computeIfPresent(
+          key(qualifier), (key, count) -> count > 1 ? count - 1 : null);
+    }
+  }
+
+  private Rejection reject(Rejection rejection) {
+    rejectedStreams.increment();
+    return rejection;
+  }
+
+  /**
+   * Returns number of active streams of the gateway.
+   *
+   * @return number of streams
+   */
+  public int activeStreams() {
+    return activeStreams.get();
+  }
+
+  /**
+   * Returns number of active streams of given qualifier. Streams are counted by qualifier only if
+   * {@link #maxStreamsPerQualifier(int)} is set.
+   *
+   * @param qualifier qualifier
+   * @return number of streams
+   */
+  public int activeStreams(String qualifier) {
+    return activeStreamsByQualifier.getOrDefault(key(qualifier), 0);
+  }
+
+  private static String key(String qualifier) {
+    return qualifier != null ? qualifier : "";
+  }
+
+  /**
+   * Returns number of rejected streams.
+   *
+   * @return number of streams
+   */
+  public long rejectedStreams() {
+    return rejectedStreams.sum();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("StreamAdmission{");
+    sb.append("maxStreamsPerSession=").append(maxStreamsPerSession);
+    sb.append(", maxStreamsPerQualifier=").append(maxStreamsPerQualifier);
+    sb.append(", maxStreams=").append(maxStreams);
+    sb.append('}');
+    return sb.toString();
+  }
+}
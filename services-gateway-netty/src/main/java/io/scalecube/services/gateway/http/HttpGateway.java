@@ -28,6 +28,7 @@ public class HttpGateway extends GatewayTemplate {
   private LoopResources loopResources;
 
   private boolean corsEnabled = false;
+  private int chunkSize;
   private CorsConfigBuilder corsConfigBuilder =
       CorsConfigBuilder.forAnyOrigin()
           .allowNullOrigin()
@@ -43,6 +44,7 @@ public class HttpGateway extends GatewayTemplate {
     this.server = other.server;
     this.loopResources = other.loopResources;
     this.corsEnabled = other.corsEnabled;
+    this.chunkSize = other.chunkSize;
     this.corsConfigBuilder = copy(other.corsConfigBuilder);
   }
 
@@ -70,6 +72,24 @@ public class HttpGateway extends GatewayTemplate {
     return g;
   }
 
+  /**
+   * Setter for max size of response body chunk. Response bodies larger than that are sent with
+   * chunked transfer encoding, chunk by chunk as channel gets writable, so that large responses
+   * don't pile up in channel outbound buffer. Disabled (0) by default, every response body is sent
+   * at once.
+   *
+   * @param chunkSize max size of response body chunk in bytes, or 0 to disable chunking
+   * @return HttpGateway with chunking settings.
+   */
+  public HttpGateway chunkSize(int chunkSize) {
+    if (chunkSize < 0) {
+      throw new IllegalArgumentException("chunkSize must be non-negative");
+    }
+    HttpGateway g = new HttpGateway(this);
+    g.chunkSize = chunkSize;
+    return g;
+  }
+
   private CorsConfigBuilder copy(CorsConfigBuilder other) {
     CorsConfig config = other.build();
     CorsConfigBuilder corsConfigBuilder;
@@ -114,7 +134,9 @@ public class HttpGateway extends GatewayTemplate {
         () -> {
           ServiceCall serviceCall =
               options.call().requestReleaser(ReferenceCountUtil::safestRelease);
-          HttpGatewayAcceptor acceptor = new HttpGatewayAcceptor(serviceCall, gatewayMetrics);
+          HttpGatewayAcceptor acceptor =
+              new HttpGatewayAcceptor(serviceCall, gatewayMetrics, chunkSize);
+          registerBufferMetrics(acceptor.sizeEstimator());
 
           if (options.workerPool() != null) {
             loopResources = new GatewayLoopResources((EventLoopGroup) options.workerPool());
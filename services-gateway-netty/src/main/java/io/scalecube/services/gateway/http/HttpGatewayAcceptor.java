@@ -1,13 +1,16 @@
 package io.scalecube.services.gateway.http;
 
+import static io.netty.handler.codec.http.HttpHeaderNames.ACCEPT;
 import static io.netty.handler.codec.http.HttpHeaderNames.ALLOW;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
 import static io.netty.handler.codec.http.HttpMethod.POST;
 import static io.netty.handler.codec.http.HttpResponseStatus.METHOD_NOT_ALLOWED;
+import static io.netty.handler.codec.http.HttpResponseStatus.NOT_ACCEPTABLE;
 import static io.netty.handler.codec.http.HttpResponseStatus.NO_CONTENT;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpResponseStatus.UNSUPPORTED_MEDIA_TYPE;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufOutputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -17,6 +20,9 @@ import io.scalecube.services.api.ErrorData;
 import io.scalecube.services.api.ServiceMessage;
 import io.scalecube.services.api.ServiceMessage.Builder;
 import io.scalecube.services.exceptions.DefaultErrorMapper;
+import io.scalecube.services.gateway.ByteBufChunks;
+import io.scalecube.services.gateway.ContentNegotiation;
+import io.scalecube.services.gateway.EncodedSizeEstimator;
 import io.scalecube.services.gateway.GatewayMetrics;
 import io.scalecube.services.gateway.ReferenceCountUtil;
 import io.scalecube.services.transport.api.DataCodec;
@@ -42,10 +48,17 @@ public class HttpGatewayAcceptor
 
   private final ServiceCall serviceCall;
   private final GatewayMetrics metrics;
+  private final int chunkSize;
+  private final EncodedSizeEstimator sizeEstimator = new EncodedSizeEstimator();
 
-  HttpGatewayAcceptor(ServiceCall serviceCall, GatewayMetrics metrics) {
+  HttpGatewayAcceptor(ServiceCall serviceCall, GatewayMetrics metrics, int chunkSize) {
     this.serviceCall = serviceCall;
     this.metrics = metrics;
+    this.chunkSize = chunkSize;
+  }
+
+  EncodedSizeEstimator sizeEstimator() {
+    return sizeEstimator;
   }
 
   @Override
@@ -61,22 +74,42 @@ public class HttpGatewayAcceptor
       return methodNotAllowed(httpResponse);
     }
 
+    HttpHeaders requestHeaders = httpRequest.requestHeaders();
+    String contentType = ContentNegotiation.contentType(requestHeaders.get(CONTENT_TYPE));
+    if (contentType == null) {
+      LOGGER.error("Unsupported Content-Type: {}", requestHeaders.get(CONTENT_TYPE));
+      return httpResponse.status(UNSUPPORTED_MEDIA_TYPE).send();
+    }
+    String accept = ContentNegotiation.accept(requestHeaders.get(ACCEPT), contentType);
+    if (accept == null) {
+      LOGGER.error("Unsupported Accept: {}", requestHeaders.get(ACCEPT));
+      return httpResponse.status(NOT_ACCEPTABLE).send();
+    }
+    httpResponse.header(CONTENT_TYPE, accept);
+
     return httpRequest
         .receive()
         .aggregate()
         .switchIfEmpty(Mono.defer(() -> ByteBufMono.just(Unpooled.EMPTY_BUFFER)))
         .map(ByteBuf::retain)
         .doOnNext(content -> metrics.markRequest())
-        .flatMap(content -> handleRequest(content, httpRequest, httpResponse))
+        .flatMap(
+            content -> handleRequest(content, contentType, accept, httpRequest, httpResponse))
         .doOnSuccess(avoid -> metrics.markResponse())
-        .onErrorResume(t -> error(httpResponse, DefaultErrorMapper.INSTANCE.toMessage(t)));
+        .onErrorResume(
+            t -> error(httpResponse, DefaultErrorMapper.INSTANCE.toMessage(t), accept));
   }
 
   private Mono<Void> handleRequest(
-      ByteBuf content, HttpServerRequest httpRequest, HttpServerResponse httpResponse) {
+      ByteBuf content,
+      String contentType,
+      String accept,
+      HttpServerRequest httpRequest,
+      HttpServerResponse httpResponse) {
 
     String qualifier = httpRequest.uri();
-    Builder builder = ServiceMessage.builder().qualifier(qualifier).data(content);
+    Builder builder =
+        ServiceMessage.builder().qualifier(qualifier).data(content).dataFormat(contentType);
     enrichRequest(httpRequest.requestHeaders(), builder);
 
     return serviceCall
@@ -90,9 +123,9 @@ public class HttpGatewayAcceptor
               return Mono.defer(
                   () ->
                       response.isError() // check error
-                          ? error(httpResponse, response)
+                          ? error(httpResponse, response, accept)
                           : response.hasData() // check data
-                              ? ok(httpResponse, response)
+                              ? ok(httpResponse, response, accept)
                               : noContent(httpResponse));
             });
   }
@@ -101,14 +134,15 @@ public class HttpGatewayAcceptor
     return httpResponse.addHeader(ALLOW, POST.name()).status(METHOD_NOT_ALLOWED).send();
   }
 
-  private Mono<Void> error(HttpServerResponse httpResponse, ServiceMessage response) {
+  private Mono<Void> error(
+      HttpServerResponse httpResponse, ServiceMessage response, String accept) {
     int code = response.errorType();
     HttpResponseStatus status = HttpResponseStatus.valueOf(code);
 
     ByteBuf content =
         response.hasData(ErrorData.class)
-            ? encodeData(response.data(), response.dataFormatOrDefault())
-            : ((ByteBuf) response.data()).retain();
+            ? encodeData(httpResponse, response, accept)
+            : transcodeData(httpResponse, response, accept);
 
     return httpResponse.status(status).sendObject(content).then();
   }
@@ -117,26 +151,45 @@ public class HttpGatewayAcceptor
     return httpResponse.status(NO_CONTENT).send();
   }
 
-  private Mono<Void> ok(HttpServerResponse httpResponse, ServiceMessage response) {
+  private Mono<Void> ok(HttpServerResponse httpResponse, ServiceMessage response, String accept) {
     ByteBuf content =
         response.hasData(ByteBuf.class)
-            ? ((ByteBuf) response.data()).retain()
-            : encodeData(response.data(), response.dataFormatOrDefault());
+            ? transcodeData(httpResponse, response, accept)
+            : encodeData(httpResponse, response, accept);
 
+    if (chunkSize > 0 && content.readableBytes() > chunkSize) {
+      // no content length, so body goes with chunked transfer encoding
+      return httpResponse.status(OK).send(ByteBufChunks.split(content, chunkSize)).then();
+    }
     return httpResponse.status(OK).sendObject(content).then();
   }
 
-  private ByteBuf encodeData(Object data, String dataFormat) {
-    ByteBuf byteBuf = ByteBufAllocator.DEFAULT.buffer();
+  /**
+   * Returns encoded response data in accepted format, transcoding it if service responded in
+   * another format. Response data stays owned by response.
+   */
+  private ByteBuf transcodeData(
+      HttpServerResponse httpResponse, ServiceMessage response, String accept) {
+    ByteBuf data = ((ByteBuf) response.data()).retain();
+    return ContentNegotiation.transcode(
+        data, response.dataFormatOrDefault(), accept, httpResponse.alloc());
+  }
+
+  private ByteBuf encodeData(
+      HttpServerResponse httpResponse, ServiceMessage response, String accept) {
+    Object data = response.data();
+    int initialCapacity = sizeEstimator.initialCapacity(response.qualifier());
+    ByteBuf byteBuf = httpResponse.alloc().buffer(initialCapacity);
 
     try {
-      DataCodec.getInstance(dataFormat).encode(new ByteBufOutputStream(byteBuf), data);
+      DataCodec.getInstance(accept).encode(new ByteBufOutputStream(byteBuf), data);
     } catch (Throwable t) {
       ReferenceCountUtil.safestRelease(byteBuf);
       LOGGER.error("Failed to encode data: {}", data, t);
       return Unpooled.EMPTY_BUFFER;
     }
 
+    sizeEstimator.record(response.qualifier(), byteBuf, initialCapacity);
     return byteBuf;
   }
 
@@ -12,6 +12,7 @@ import io.scalecube.services.gateway.GatewayLoopResources;
 import io.scalecube.services.gateway.GatewayOptions;
 import io.scalecube.services.gateway.GatewayTemplate;
 import io.scalecube.services.gateway.ReferenceCountUtil;
+import io.scalecube.services.gateway.StreamAdmission;
 import java.net.InetSocketAddress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +24,8 @@ public class RSocketGateway extends GatewayTemplate {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(RSocketGateway.class);
 
+  private StreamAdmission admission;
+
   private CloseableChannel server;
   private LoopResources loopResources;
 
@@ -30,13 +33,39 @@ public class RSocketGateway extends GatewayTemplate {
     super(options);
   }
 
+  private RSocketGateway(RSocketGateway other) {
+    super(other.options);
+    this.admission = other.admission;
+    this.server = other.server;
+    this.loopResources = other.loopResources;
+  }
+
+  /**
+   * Setter for admission control of streams. Streams over limits of active streams per session,
+   * per qualifier or per gateway are rejected with error before service is called. Disabled (null)
+   * by default, any number of streams is admitted.
+   *
+   * @param admission stream admission, or null to disable admission control
+   * @return new RSocketGateway instance
+   */
+  public RSocketGateway admission(StreamAdmission admission) {
+    RSocketGateway g = new RSocketGateway(this);
+    g.admission = admission;
+    return g;
+  }
+
   @Override
   public Mono<Gateway> start() {
     return Mono.defer(
         () -> {
           ServiceCall serviceCall =
               options.call().requestReleaser(ReferenceCountUtil::safestRelease);
-          RSocketGatewayAcceptor acceptor = new RSocketGatewayAcceptor(serviceCall, gatewayMetrics);
+          RSocketGatewayAcceptor acceptor =
+              new RSocketGatewayAcceptor(serviceCall, gatewayMetrics, admission);
+          registerBufferMetrics(acceptor.sizeEstimator());
+          if (admission != null) {
+            registerAdmissionMetrics(admission);
+          }
 
           if (options.workerPool() != null) {
             loopResources = new GatewayLoopResources((EventLoopGroup) options.workerPool());
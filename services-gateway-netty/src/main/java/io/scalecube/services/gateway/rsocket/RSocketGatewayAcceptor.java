@@ -8,9 +8,18 @@ import io.rsocket.SocketAcceptor;
 import io.rsocket.util.ByteBufPayload;
 import io.scalecube.services.ServiceCall;
 import io.scalecube.services.api.ServiceMessage;
+import io.scalecube.services.exceptions.ServiceUnavailableException;
+import io.scalecube.services.gateway.EncodedSizeEstimator;
 import io.scalecube.services.gateway.GatewayMetrics;
+import io.scalecube.services.gateway.ReferenceCountUtil;
 import io.scalecube.services.gateway.ServiceMessageCodec;
+import io.scalecube.services.gateway.StreamAdmission;
+import io.scalecube.services.gateway.StreamAdmission.Rejection;
 import io.scalecube.services.transport.api.HeadersCodec;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
@@ -22,10 +31,35 @@ public class RSocketGatewayAcceptor implements SocketAcceptor {
 
   private final ServiceCall serviceCall;
   private final GatewayMetrics metrics;
+  private final StreamAdmission admission;
+  private final EncodedSizeEstimator sizeEstimator = new EncodedSizeEstimator();
+  // prebuilt errors of rejected streams, see StreamAdmission
+  private final Map<Rejection, ServiceUnavailableException> rejections =
+      new EnumMap<>(Rejection.class);
 
   public RSocketGatewayAcceptor(ServiceCall serviceCall, GatewayMetrics metrics) {
+    this(serviceCall, metrics, null);
+  }
+
+  /**
+   * Constructor for rsocket acceptor.
+   *
+   * @param serviceCall service call
+   * @param metrics metrics instance
+   * @param admission admission control of streams, or null to admit any number of streams
+   */
+  public RSocketGatewayAcceptor(
+      ServiceCall serviceCall, GatewayMetrics metrics, StreamAdmission admission) {
     this.serviceCall = serviceCall;
     this.metrics = metrics;
+    this.admission = admission;
+    for (Rejection rejection : Rejection.values()) {
+      rejections.put(rejection, new ServiceUnavailableException(rejection.message()));
+    }
+  }
+
+  EncodedSizeEstimator sizeEstimator() {
+    return sizeEstimator;
   }
 
   @Override
@@ -39,9 +73,10 @@ public class RSocketGatewayAcceptor implements SocketAcceptor {
 
     // Prepare message codec together with headers from metainfo
     HeadersCodec headersCodec = HeadersCodec.getInstance(setup.metadataMimeType());
-    ServiceMessageCodec messageCodec = new ServiceMessageCodec(headersCodec);
+    ServiceMessageCodec messageCodec = new ServiceMessageCodec(headersCodec, sizeEstimator);
 
-    return Mono.just(new GatewayRSocket(serviceCall, metrics, messageCodec));
+    return Mono.just(
+        new GatewayRSocket(serviceCall, metrics, messageCodec, admission, rejections));
   }
 
   /**
@@ -54,6 +89,9 @@ public class RSocketGatewayAcceptor implements SocketAcceptor {
     private final ServiceCall serviceCall;
     private final GatewayMetrics metrics;
     private final ServiceMessageCodec messageCodec;
+    private final StreamAdmission admission;
+    private final Map<Rejection, ServiceUnavailableException> rejections;
+    private final AtomicInteger activeStreams = new AtomicInteger();
 
     /**
      * Constructor for gateway rsocket.
@@ -61,12 +99,20 @@ public class RSocketGatewayAcceptor implements SocketAcceptor {
      * @param serviceCall service call coming from microservices.
      * @param metrics gateway metrics.
      * @param messageCodec message messageCodec.
+     * @param admission admission control of streams, or null.
+     * @param rejections prebuilt errors of rejected streams.
      */
     private GatewayRSocket(
-        ServiceCall serviceCall, GatewayMetrics metrics, ServiceMessageCodec messageCodec) {
+        ServiceCall serviceCall,
+        GatewayMetrics metrics,
+        ServiceMessageCodec messageCodec,
+        StreamAdmission admission,
+        Map<Rejection, ServiceUnavailableException> rejections) {
       this.serviceCall = serviceCall;
       this.metrics = metrics;
       this.messageCodec = messageCodec;
+      this.admission = admission;
+      this.rejections = rejections;
     }
 
     @Override
@@ -83,10 +129,16 @@ public class RSocketGatewayAcceptor implements SocketAcceptor {
       return Mono.defer(
           () -> {
             metrics.markRequest();
+            ServiceMessage message = toMessage(payload);
+            ServiceUnavailableException rejection = tryAcquire(message);
+            if (rejection != null) {
+              return Mono.error(rejection);
+            }
             return serviceCall
-                .requestOne(toMessage(payload))
+                .requestOne(message)
                 .map(this::toPayload)
-                .doOnNext(payload1 -> metrics.markServiceResponse());
+                .doOnNext(payload1 -> metrics.markServiceResponse())
+                .doFinally(signalType -> release(message));
           });
     }
 
@@ -95,13 +147,48 @@ public class RSocketGatewayAcceptor implements SocketAcceptor {
       return Flux.defer(
           () -> {
             metrics.markRequest();
+            ServiceMessage message = toMessage(payload);
+            ServiceUnavailableException rejection = tryAcquire(message);
+            if (rejection != null) {
+              return Flux.error(rejection);
+            }
             return serviceCall
-                .requestMany(toMessage(payload))
+                .requestMany(message)
                 .map(this::toPayload)
-                .doOnNext(payload1 -> metrics.markServiceResponse());
+                .doOnNext(payload1 -> metrics.markServiceResponse())
+                .doFinally(signalType -> release(message));
           });
     }
 
+    /**
+     * Admits stream of given request, see {@link StreamAdmission}. Releases request data if
+     * stream is rejected.
+     *
+     * @return null if stream is admitted, or prebuilt error to reject it with
+     */
+    private ServiceUnavailableException tryAcquire(ServiceMessage request) {
+      if (admission == null) {
+        return null;
+      }
+      // session slot is reserved first, concurrent requests of the connection aren't confined
+      int sessionStreams = activeStreams.getAndIncrement();
+      Rejection rejection = admission.tryAcquire(request.qualifier(), sessionStreams);
+      if (rejection != null) {
+        activeStreams.decrementAndGet();
+        LOGGER.debug("Reject request: {}, {}", request, rejection);
+        Optional.ofNullable(request.data()).ifPresent(ReferenceCountUtil::safestRelease);
+        return rejections.get(rejection);
+      }
+      return null;
+    }
+
+    private void release(ServiceMessage request) {
+      if (admission != null) {
+        activeStreams.decrementAndGet();
+        admission.release(request.qualifier());
+      }
+    }
+
     private ServiceMessage toMessage(Payload payload) {
       return messageCodec.decode(payload.sliceData(), payload.sliceMetadata());
     }
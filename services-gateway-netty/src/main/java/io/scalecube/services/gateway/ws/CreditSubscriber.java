@@ -0,0 +1,99 @@
+package io.scalecube.services.gateway.ws;
+
+import java.util.function.Consumer;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+/**
+ * Subscriber of service stream which requests responses only as client grants credits. Stream is
+ * credit-based if request has {@link #CREDIT_HEADER} with initial number of responses the client
+ * is ready for (possibly 0), e.g. {@code "credit":"16"}. Client grants more with {@link
+ * Signal#REQUEST_N} message carrying the same header, e.g. {@code {"sid":1,"sig":5,"credit":"8"}}
+ * (see {@link WebsocketSession#request(long, long)}), much like {@link Subscription#request(long)}
+ * of reactive streams. Credits accumulate, service stream isn't pulled beyond them, so responses
+ * don't pile up in outbound buffer of slow client.
+ *
+ * @param <T> type of responses
+ */
+final class CreditSubscriber<T> extends BaseSubscriber<T> {
+
+  public static final String CREDIT_HEADER = "credit";
+
+  private final long initialCredit;
+  private final Consumer<? super T> onNext;
+  private final Consumer<? super Throwable> onError;
+  private final Runnable onComplete;
+
+  CreditSubscriber(
+      long initialCredit,
+      Consumer<? super T> onNext,
+      Consumer<? super Throwable> onError,
+      Runnable onComplete) {
+    this.initialCredit = initialCredit;
+    this.onNext = onNext;
+    this.onError = onError;
+    this.onComplete = onComplete;
+  }
+
+  /**
+   * Returns initial credit of stream if given request asks for credit-based flow control.
+   *
+   * @param request request
+   * @return initial credit, or -1 if stream is not credit-based
+   * @throws IllegalArgumentException if credit is not a non-negative number
+   */
+  static long initialCredit(GatewayMessage request) {
+    String value = request.customHeaders().get(CREDIT_HEADER);
+    return value != null ? parse(value, 0) : -1;
+  }
+
+  /**
+   * Returns credit granted by given {@link Signal#REQUEST_N} message.
+   *
+   * @param message REQUEST_N message
+   * @return credit
+   * @throws IllegalArgumentException if credit is missing or not a positive number
+   */
+  static long credit(GatewayMessage message) {
+    String value = message.customHeaders().get(CREDIT_HEADER);
+    if (value == null) {
+      throw new IllegalArgumentException("credit is missing");
+    }
+    return parse(value, 1);
+  }
+
+  private static long parse(String value, long min) {
+    long credit;
+    try {
+      credit = Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid credit: " + value);
+    }
+    if (credit < min) {
+      throw new IllegalArgumentException("Invalid credit: " + value);
+    }
+    return credit;
+  }
+
+  @Override
+  protected void hookOnSubscribe(Subscription subscription) {
+    if (initialCredit > 0) {
+      subscription.request(initialCredit);
+    }
+  }
+
+  @Override
+  protected void hookOnNext(T value) {
+    onNext.accept(value);
+  }
+
+  @Override
+  protected void hookOnError(Throwable throwable) {
+    onError.accept(throwable);
+  }
+
+  @Override
+  protected void hookOnComplete() {
+    onComplete.run();
+  }
+}
@@ -0,0 +1,169 @@
+package io.scalecube.services.gateway.ws;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.scalecube.services.gateway.ReferenceCountUtil;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delta encoder of responses of one stream. Stream is delta-encoded if request has {@link
+ * #DELTA_HEADER} with period of full snapshots, e.g. {@code "delta":"100"}. Then the gateway keeps
+ * the last emitted payload and sends <a href="https://tools.ietf.org/html/rfc7386">RFC 7386</a>
+ * JSON merge patch of the next payload against it, marked by {@code "delta":"p"} header. Every
+ * period-th response (and the first one) is a full snapshot marked by {@code "delta":"s"}.
+ *
+ * <p>Full snapshot is also sent if payload is not a JSON object, if the patch isn't smaller than
+ * the payload, or if payload has null values which merge patch can't carry. Once payload turns out
+ * to be not JSON the encoder passes responses of the stream as is, the same applies to payloads
+ * which are not encoded at all (e.g. responses of local services).
+ *
+ * <p>Encoder is used by one stream only, which emits responses sequentially, so it's not
+ * thread-safe.
+ */
+final class DeltaEncoder {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DeltaEncoder.class);
+
+  public static final String DELTA_HEADER = "delta";
+  public static final String SNAPSHOT = "s";
+  public static final String PATCH = "p";
+
+  private static final ObjectMapper objectMapper = GatewayMessageCodec.objectMapper();
+
+  private final int period;
+  private JsonNode last;
+  private int count;
+  private boolean disabled;
+
+  private DeltaEncoder(int period) {
+    this.period = period;
+  }
+
+  /**
+   * Creates encoder if given request asks for delta encoding.
+   *
+   * @param request request
+   * @return encoder, or null if request doesn't ask for delta encoding
+   * @throws IllegalArgumentException if period of snapshots is not a positive number
+   */
+  static DeltaEncoder of(GatewayMessage request) {
+    String value = request.customHeaders().get(DELTA_HEADER);
+    if (value == null) {
+      return null;
+    }
+    int period;
+    try {
+      period = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid delta period: " + value);
+    }
+    if (period < 1) {
+      throw new IllegalArgumentException("Invalid delta period: " + value);
+    }
+    return new DeltaEncoder(period);
+  }
+
+  /**
+   * Replaces data of given response by patch against previous response, or marks it as snapshot.
+   * Takes ownership of response data if it's replaced (it's released by this method).
+   *
+   * @param response response builder
+   * @param data data of the response (encoded payload of service response)
+   * @return given builder
+   */
+  GatewayMessage.Builder encode(GatewayMessage.Builder response, Object data) {
+    if (disabled || !(data instanceof ByteBuf)) {
+      return response;
+    }
+    ByteBuf dataBin = (ByteBuf) data;
+    JsonNode current;
+    try {
+      current = objectMapper.readTree(new ByteBufInputStream(dataBin.duplicate()));
+    } catch (Exception e) {
+      LOGGER.warn("Delta encoding is disabled for stream, payload is not JSON: {}", e.toString());
+      disabled = true;
+      return response;
+    }
+
+    JsonNode previous = last;
+    last = current;
+    if (previous == null || ++count >= period || !current.isObject() || !previous.isObject()) {
+      return snapshot(response);
+    }
+    JsonNode patch = diff((ObjectNode) previous, (ObjectNode) current);
+    if (patch == null) {
+      return snapshot(response);
+    }
+    byte[] patchBytes;
+    try {
+      patchBytes = objectMapper.writeValueAsBytes(patch);
+    } catch (Exception e) {
+      return snapshot(response);
+    }
+    if (patchBytes.length >= dataBin.readableBytes()) {
+      return snapshot(response);
+    }
+    ReferenceCountUtil.safestRelease(dataBin);
+    return response.header(DELTA_HEADER, PATCH).data(Unpooled.wrappedBuffer(patchBytes));
+  }
+
+  private GatewayMessage.Builder snapshot(GatewayMessage.Builder response) {
+    count = 0;
+    return response.header(DELTA_HEADER, SNAPSHOT);
+  }
+
+  /**
+   * Returns merge patch which turns source object into target object, or null if there's a null
+   * value in target which can't be carried by merge patch.
+   */
+  static ObjectNode diff(ObjectNode source, ObjectNode target) {
+    ObjectNode patch = JsonNodeFactory.instance.objectNode();
+    for (Iterator<Entry<String, JsonNode>> it = target.fields(); it.hasNext(); ) {
+      Entry<String, JsonNode> field = it.next();
+      JsonNode targetValue = field.getValue();
+      JsonNode sourceValue = source.get(field.getKey());
+      if (targetValue.equals(sourceValue)) {
+        continue;
+      }
+      if (targetValue.isNull()) {
+        return null;
+      }
+      if (targetValue.isObject() && sourceValue != null && sourceValue.isObject()) {
+        ObjectNode nested = diff((ObjectNode) sourceValue, (ObjectNode) targetValue);
+        if (nested == null) {
+          return null;
+        }
+        patch.set(field.getKey(), nested);
+      } else {
+        if (targetValue.isObject() && hasNull(targetValue)) {
+          return null;
+        }
+        patch.set(field.getKey(), targetValue);
+      }
+    }
+    for (Iterator<String> it = source.fieldNames(); it.hasNext(); ) {
+      String name = it.next();
+      if (!target.has(name)) {
+        patch.putNull(name);
+      }
+    }
+    return patch;
+  }
+
+  private static boolean hasNull(JsonNode node) {
+    for (JsonNode value : node) {
+      if (value.isNull() || (value.isObject() && hasNull(value))) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
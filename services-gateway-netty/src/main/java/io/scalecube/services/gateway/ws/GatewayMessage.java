@@ -7,6 +7,12 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
+/**
+ * Websocket gateway message. Envelope fields ({@code sid}, {@code sig}, {@code i}, {@code rlimit})
+ * are kept as primitives, only custom headers are kept in a map which is allocated lazily. Use
+ * {@code has*()} and {@code *AsLong()/*AsInt()} accessors on hot paths, they neither parse nor
+ * box.
+ */
 public class GatewayMessage {
 
   public static final String QUALIFIER_FIELD = "q";
@@ -16,7 +22,19 @@ public class GatewayMessage {
   public static final String INACTIVITY_FIELD = "i";
   public static final String RATE_LIMIT_FIELD = "rlimit";
 
-  private final Map<String, String> headers;
+  // presence bits of primitive fields
+  private static final int STREAM_ID_BIT = 1;
+  private static final int SIGNAL_BIT = 1 << 1;
+  private static final int INACTIVITY_BIT = 1 << 2;
+  private static final int RATE_LIMIT_BIT = 1 << 3;
+
+  private final String qualifier;
+  private final int presence;
+  private final long streamId;
+  private final int signal;
+  private final int inactivity;
+  private final int rateLimit;
+  private final Map<String, String> customHeaders;
   private final Object data;
 
   public static Builder builder() {
@@ -30,7 +48,18 @@ public class GatewayMessage {
    * @return builder with fields copied from given {@link GatewayMessage}
    */
   public static Builder from(GatewayMessage message) {
-    return new Builder().headers(message.headers).data(message.data);
+    Builder builder = new Builder();
+    builder.qualifier = message.qualifier;
+    builder.presence = message.presence;
+    builder.streamId = message.streamId;
+    builder.signal = message.signal;
+    builder.inactivity = message.inactivity;
+    builder.rateLimit = message.rateLimit;
+    if (!message.customHeaders.isEmpty()) {
+      builder.customHeaders = new HashMap<>(message.customHeaders);
+    }
+    builder.data = message.data;
+    return builder;
   }
 
   /**
@@ -44,8 +73,17 @@ public class GatewayMessage {
   }
 
   private GatewayMessage(Builder builder) {
+    this.qualifier = builder.qualifier;
+    this.presence = builder.presence;
+    this.streamId = builder.streamId;
+    this.signal = builder.signal;
+    this.inactivity = builder.inactivity;
+    this.rateLimit = builder.rateLimit;
+    this.customHeaders =
+        builder.customHeaders != null
+            ? Collections.unmodifiableMap(builder.customHeaders)
+            : Collections.emptyMap();
     this.data = builder.data;
-    this.headers = Collections.unmodifiableMap(new HashMap<>(builder.headers));
   }
 
   /**
@@ -55,21 +93,55 @@ public class GatewayMessage {
    * @return service message
    */
   public static ServiceMessage toServiceMessage(GatewayMessage message) {
-    return ServiceMessage.builder().headers(message.headers).data(message.data).build();
+    ServiceMessage.Builder builder = ServiceMessage.builder().headers(message.customHeaders);
+    if (message.qualifier != null) {
+      builder.qualifier(message.qualifier);
+    }
+    if (message.hasStreamId()) {
+      builder.header(STREAM_ID_FIELD, Long.toString(message.streamId));
+    }
+    if (message.hasSignal()) {
+      builder.header(SIGNAL_FIELD, Integer.toString(message.signal));
+    }
+    if (message.hasInactivity()) {
+      builder.header(INACTIVITY_FIELD, Integer.toString(message.inactivity));
+    }
+    if (message.hasRateLimit()) {
+      builder.header(RATE_LIMIT_FIELD, Integer.toString(message.rateLimit));
+    }
+    return builder.data(message.data).build();
   }
 
   public String qualifier() {
-    return headers.get(QUALIFIER_FIELD);
+    return qualifier;
+  }
+
+  public boolean hasStreamId() {
+    return (presence & STREAM_ID_BIT) != 0;
+  }
+
+  public long streamIdAsLong() {
+    return streamId;
   }
 
   public Long streamId() {
-    String value = headers.get(STREAM_ID_FIELD);
-    return value != null ? Long.parseLong(value) : null;
+    return hasStreamId() ? streamId : null;
+  }
+
+  public boolean hasSignal() {
+    return (presence & SIGNAL_BIT) != 0;
+  }
+
+  public boolean hasSignal(Signal signal) {
+    return hasSignal() && this.signal == signal.code();
+  }
+
+  public int signalAsInt() {
+    return signal;
   }
 
   public Integer signal() {
-    String value = headers.get(SIGNAL_FIELD);
-    return value != null ? Integer.valueOf(value) : null;
+    return hasSignal() ? signal : null;
   }
 
   public <T> T data() {
@@ -77,32 +149,91 @@ public class GatewayMessage {
     return (T) data;
   }
 
+  public boolean hasInactivity() {
+    return (presence & INACTIVITY_BIT) != 0;
+  }
+
+  public int inactivityAsInt() {
+    return inactivity;
+  }
+
   public Integer inactivity() {
-    String value = headers.get(INACTIVITY_FIELD);
-    return value != null ? Integer.valueOf(value) : null;
+    return hasInactivity() ? inactivity : null;
+  }
+
+  public boolean hasRateLimit() {
+    return (presence & RATE_LIMIT_BIT) != 0;
+  }
+
+  public int rateLimitAsInt() {
+    return rateLimit;
   }
 
   public Integer rateLimit() {
-    String value = headers.get(RATE_LIMIT_FIELD);
-    return value != null ? Integer.valueOf(value) : null;
+    return hasRateLimit() ? rateLimit : null;
   }
 
-  public boolean hasSignal(Signal signal) {
-    String value = headers.get(SIGNAL_FIELD);
-    return value != null && Integer.parseInt(value) == signal.code();
+  /**
+   * Returns custom headers, i.e. all headers except qualifier and envelope fields.
+   *
+   * @return unmodifiable map of custom headers
+   */
+  public Map<String, String> customHeaders() {
+    return customHeaders;
   }
 
+  /**
+   * Returns all headers including qualifier and envelope fields. Allocates a new map on every
+   * call, see {@link #customHeaders()} and primitive accessors.
+   *
+   * @return unmodifiable map of headers
+   */
   public Map<String, String> headers() {
-    return headers;
+    Map<String, String> headers = new HashMap<>(customHeaders);
+    if (qualifier != null) {
+      headers.put(QUALIFIER_FIELD, qualifier);
+    }
+    if (hasStreamId()) {
+      headers.put(STREAM_ID_FIELD, Long.toString(streamId));
+    }
+    if (hasSignal()) {
+      headers.put(SIGNAL_FIELD, Integer.toString(signal));
+    }
+    if (hasInactivity()) {
+      headers.put(INACTIVITY_FIELD, Integer.toString(inactivity));
+    }
+    if (hasRateLimit()) {
+      headers.put(RATE_LIMIT_FIELD, Integer.toString(rateLimit));
+    }
+    return Collections.unmodifiableMap(headers);
   }
 
+  /**
+   * Returns whether message has given header.
+   *
+   * @param name header name
+   * @return true if header is present
+   */
   public boolean hasHeader(String name) {
-    return headers.containsKey(name);
+    switch (name) {
+      case QUALIFIER_FIELD:
+        return qualifier != null;
+      case STREAM_ID_FIELD:
+        return hasStreamId();
+      case SIGNAL_FIELD:
+        return hasSignal();
+      case INACTIVITY_FIELD:
+        return hasInactivity();
+      case RATE_LIMIT_FIELD:
+        return hasRateLimit();
+      default:
+        return customHeaders.containsKey(name);
+    }
   }
 
   @Override
   public String toString() {
-    return "GatewayMessage {headers: " + headers + ", data: " + dataToString() + '}';
+    return "GatewayMessage {headers: " + headers() + ", data: " + dataToString() + '}';
   }
 
   private Object dataToString() {
@@ -116,33 +247,89 @@ public class GatewayMessage {
   }
 
   public static class Builder {
-    private Map<String, String> headers = new HashMap<>(1);
+    private String qualifier;
+    private int presence;
+    private long streamId;
+    private int signal;
+    private int inactivity;
+    private int rateLimit;
+    private Map<String, String> customHeaders; // allocated on first custom header
+    private boolean customHeadersShared; // handed over to built message
     private Object data;
 
     Builder() {}
 
     public Builder qualifier(String qualifier) {
-      return header(QUALIFIER_FIELD, qualifier);
+      this.qualifier = Objects.requireNonNull(qualifier);
+      return this;
+    }
+
+    /**
+     * Setter for stream id.
+     *
+     * @param streamId stream id
+     * @return self
+     */
+    public Builder streamId(long streamId) {
+      this.streamId = streamId;
+      this.presence |= STREAM_ID_BIT;
+      return this;
     }
 
     public Builder streamId(Long streamId) {
-      return header(STREAM_ID_FIELD, streamId);
+      return streamId(Objects.requireNonNull(streamId).longValue());
+    }
+
+    /**
+     * Setter for signal.
+     *
+     * @param signal signal code
+     * @return self
+     */
+    public Builder signal(int signal) {
+      this.signal = signal;
+      this.presence |= SIGNAL_BIT;
+      return this;
     }
 
     public Builder signal(Integer signal) {
-      return header(SIGNAL_FIELD, signal);
+      return signal(Objects.requireNonNull(signal).intValue());
     }
 
     public Builder signal(Signal signal) {
       return signal(signal.code());
     }
 
+    /**
+     * Setter for inactivity.
+     *
+     * @param inactivity inactivity
+     * @return self
+     */
+    public Builder inactivity(int inactivity) {
+      this.inactivity = inactivity;
+      this.presence |= INACTIVITY_BIT;
+      return this;
+    }
+
     public Builder inactivity(Integer inactivity) {
-      return header(INACTIVITY_FIELD, inactivity);
+      return inactivity(Objects.requireNonNull(inactivity).intValue());
+    }
+
+    /**
+     * Setter for rate limit.
+     *
+     * @param rateLimit rate limit
+     * @return self
+     */
+    public Builder rateLimit(int rateLimit) {
+      this.rateLimit = rateLimit;
+      this.presence |= RATE_LIMIT_BIT;
+      return this;
     }
 
     public Builder rateLimit(Integer rateLimit) {
-      return header(RATE_LIMIT_FIELD, rateLimit);
+      return rateLimit(Objects.requireNonNull(rateLimit).intValue());
     }
 
     public Builder data(Object data) {
@@ -151,7 +338,7 @@ public class GatewayMessage {
     }
 
     /**
-     * Add a header.
+     * Add a header. Qualifier and envelope fields are parsed into their dedicated fields.
      *
      * @param key header name
      * @param value header value
@@ -160,8 +347,27 @@ public class GatewayMessage {
     public Builder header(String key, String value) {
       Objects.requireNonNull(key);
       Objects.requireNonNull(value);
-      headers.put(key, value);
-      return this;
+      switch (key) {
+        case QUALIFIER_FIELD:
+          return qualifier(value);
+        case STREAM_ID_FIELD:
+          return streamId(Long.parseLong(value));
+        case SIGNAL_FIELD:
+          return signal(Integer.parseInt(value));
+        case INACTIVITY_FIELD:
+          return inactivity(Integer.parseInt(value));
+        case RATE_LIMIT_FIELD:
+          return rateLimit(Integer.parseInt(value));
+        default:
+          if (customHeaders == null) {
+            customHeaders = new HashMap<>(4);
+          } else if (customHeadersShared) {
+            customHeaders = new HashMap<>(customHeaders);
+          }
+          customHeadersShared = false;
+          customHeaders.put(key, value);
+          return this;
+      }
     }
 
     /**
@@ -174,8 +380,7 @@ public class GatewayMessage {
     public Builder header(String key, Object value) {
       Objects.requireNonNull(key);
       Objects.requireNonNull(value);
-      headers.put(key, value.toString());
-      return this;
+      return header(key, value.toString());
     }
 
     /**
@@ -190,11 +395,13 @@ public class GatewayMessage {
     }
 
     /**
-     * Finally build the {@link GatewayMessage} from current builder.
+     * Finally build the {@link GatewayMessage} from current builder. Custom headers are handed over
+     * to the message without copying, builder copies them on next modification.
      *
      * @return {@link GatewayMessage} with parameters from current builder.
      */
     public GatewayMessage build() {
+      customHeadersShared = customHeaders != null;
       return new GatewayMessage(this);
     }
   }
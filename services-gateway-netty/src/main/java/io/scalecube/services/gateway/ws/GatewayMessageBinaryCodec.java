@@ -0,0 +1,290 @@
+package io.scalecube.services.gateway.ws;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.scalecube.services.exceptions.MessageCodecException;
+import io.scalecube.services.gateway.EncodedSizeEstimator;
+import io.scalecube.services.gateway.ReferenceCountUtil;
+import java.nio.charset.StandardCharsets;
+import java.util.Map.Entry;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Codec of {@link GatewayMessage} for binary websocket sub-protocol ({@link #SUBPROTOCOL}). A
+ * message is carried by a single binary websocket frame of the following layout:
+ *
+ * <pre>
+ * flags   : 1 byte (bit 0 - sid present, bit 1 - sig present, bit 2 - data present,
+ *           bit 3 - q present, bit 4 - i present, bit 5 - rlimit present)
+ * sid     : varint, if present
+ * sig     : varint, if present
+ * i       : varint, if present
+ * rlimit  : varint, if present
+ * q       : varint length and UTF-8 bytes, if present
+ * headers : varint count, then for each header varint length and UTF-8 bytes of name, varint
+ *           length and UTF-8 bytes of value
+ * data    : raw data bytes till the end of frame, if present
+ * </pre>
+ *
+ * <p>Varint is unsigned LEB128 encoding of a long value (7 bits per byte, least significant group
+ * first). Data bytes are the same as in {@code d} field of JSON envelope (see {@link
+ * GatewayMessageCodec}), i.e. they are passed to/from services as is.
+ */
+public class GatewayMessageBinaryCodec {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(GatewayMessageBinaryCodec.class);
+
+  public static final String SUBPROTOCOL = "scalecube-binary";
+
+  private static final ObjectMapper objectMapper = GatewayMessageCodec.objectMapper();
+
+  private static final int FLAG_STREAM_ID = 1;
+  private static final int FLAG_SIGNAL = 1 << 1;
+  private static final int FLAG_DATA = 1 << 2;
+  private static final int FLAG_QUALIFIER = 1 << 3;
+  private static final int FLAG_INACTIVITY = 1 << 4;
+  private static final int FLAG_RATE_LIMIT = 1 << 5;
+
+  private final boolean releaseDataOnEncode;
+  private final EncodedSizeEstimator sizeEstimator;
+  private boolean zeroCopyDecode = false;
+
+  public GatewayMessageBinaryCodec() {
+    this(true /*always release by default*/);
+  }
+
+  public GatewayMessageBinaryCodec(boolean releaseDataOnEncode) {
+    this.releaseDataOnEncode = releaseDataOnEncode;
+    this.sizeEstimator = new EncodedSizeEstimator();
+  }
+
+  private GatewayMessageBinaryCodec(GatewayMessageBinaryCodec other) {
+    this.releaseDataOnEncode = other.releaseDataOnEncode;
+    this.sizeEstimator = other.sizeEstimator;
+    this.zeroCopyDecode = other.zeroCopyDecode;
+  }
+
+  /**
+   * Zero-copy decoding, see {@link GatewayMessageCodec#zeroCopyDecode(boolean)}.
+   *
+   * @param zeroCopyDecode zero-copy decoding flag
+   * @return new codec instance
+   */
+  public GatewayMessageBinaryCodec zeroCopyDecode(boolean zeroCopyDecode) {
+    GatewayMessageBinaryCodec c = new GatewayMessageBinaryCodec(this);
+    c.zeroCopyDecode = zeroCopyDecode;
+    return c;
+  }
+
+  /**
+   * Returns estimator of encoded message size, it's shared by all codec instances derived from
+   * this one.
+   *
+   * @return size estimator
+   */
+  public EncodedSizeEstimator sizeEstimator() {
+    return sizeEstimator;
+  }
+
+  public boolean isZeroCopyDecode() {
+    return zeroCopyDecode;
+  }
+
+  /**
+   * Encode given {@code message} to buffer allocated by {@link ByteBufAllocator#DEFAULT}, see
+   * {@link #encode(GatewayMessage, ByteBufAllocator)}.
+   *
+   * @param message - input message to be encoded.
+   * @return buffer with encoded message
+   * @throws MessageCodecException in case of issues during encoding.
+   */
+  public ByteBuf encode(GatewayMessage message) throws MessageCodecException {
+    return encode(message, ByteBufAllocator.DEFAULT);
+  }
+
+  /**
+   * Encode given {@code message} to buffer allocated by given allocator (normally allocator of the
+   * connection). Initial capacity of the buffer is estimated by {@link #sizeEstimator()}.
+   *
+   * @param message - input message to be encoded.
+   * @param alloc - allocator of output buffer.
+   * @return buffer with encoded message
+   * @throws MessageCodecException in case of issues during encoding.
+   */
+  public ByteBuf encode(GatewayMessage message, ByteBufAllocator alloc)
+      throws MessageCodecException {
+    int initialCapacity = sizeEstimator.initialCapacity(message.qualifier());
+    ByteBuf byteBuf = alloc.buffer(initialCapacity);
+    try {
+      final String qualifier = message.qualifier();
+      Object data = message.data();
+      boolean hasData = data instanceof ByteBuf ? ((ByteBuf) data).isReadable() : data != null;
+
+      int flags = 0;
+      flags |= message.hasStreamId() ? FLAG_STREAM_ID : 0;
+      flags |= message.hasSignal() ? FLAG_SIGNAL : 0;
+      flags |= hasData ? FLAG_DATA : 0;
+      flags |= qualifier != null ? FLAG_QUALIFIER : 0;
+      flags |= message.hasInactivity() ? FLAG_INACTIVITY : 0;
+      flags |= message.hasRateLimit() ? FLAG_RATE_LIMIT : 0;
+      byteBuf.writeByte(flags);
+
+      if (message.hasStreamId()) {
+        writeVarint(byteBuf, message.streamIdAsLong());
+      }
+      if (message.hasSignal()) {
+        writeVarint(byteBuf, message.signalAsInt());
+      }
+      if (message.hasInactivity()) {
+        writeVarint(byteBuf, message.inactivityAsInt());
+      }
+      if (message.hasRateLimit()) {
+        writeVarint(byteBuf, message.rateLimitAsInt());
+      }
+      if (qualifier != null) {
+        writeString(byteBuf, qualifier);
+      }
+
+      // headers
+      writeVarint(byteBuf, message.customHeaders().size());
+      for (Entry<String, String> header : message.customHeaders().entrySet()) {
+        writeString(byteBuf, header.getKey());
+        writeString(byteBuf, header.getValue());
+      }
+
+      // data
+      if (data instanceof ByteBuf) {
+        ByteBuf dataBin = (ByteBuf) data;
+        try {
+          if (hasData) {
+            byteBuf.writeBytes(dataBin, dataBin.readerIndex(), dataBin.readableBytes());
+          }
+        } finally {
+          if (releaseDataOnEncode) {
+            ReferenceCountUtil.safestRelease(dataBin);
+          }
+        }
+      } else if (data != null) {
+        byteBuf.writeBytes(objectMapper.writeValueAsBytes(data));
+      }
+    } catch (Throwable ex) {
+      ReferenceCountUtil.safestRelease(byteBuf);
+      Optional.ofNullable(message.data()).ifPresent(ReferenceCountUtil::safestRelease);
+      LOGGER.error("Failed to encode message: {}", message, ex);
+      throw new MessageCodecException("Failed to encode message", ex);
+    }
+    sizeEstimator.record(message.qualifier(), byteBuf, initialCapacity);
+    return byteBuf;
+  }
+
+  /**
+   * Patches stream id into given message encoded without it, see {@link
+   * GatewayMessageCodec#encodeStreamId(ByteBuf, long, ByteBufAllocator)}. Takes ownership of the
+   * given buffer.
+   *
+   * @param content message encoded without stream id
+   * @param streamId stream id
+   * @param alloc allocator of flags and stream id
+   * @return buffer with encoded message with stream id
+   */
+  public ByteBuf encodeStreamId(ByteBuf content, long streamId, ByteBufAllocator alloc) {
+    ByteBuf head = alloc.buffer(1 + 10);
+    try {
+      head.writeByte(content.readUnsignedByte() | FLAG_STREAM_ID);
+      writeVarint(head, streamId); // stream id goes first, right after flags
+    } catch (Throwable ex) {
+      ReferenceCountUtil.safestRelease(head);
+      ReferenceCountUtil.safestRelease(content);
+      throw new MessageCodecException("Failed to encode stream id", ex);
+    }
+    return alloc.compositeBuffer(2).addComponents(true, head, content);
+  }
+
+  /**
+   * Decodes {@link GatewayMessage} from given binary envelope. Takes ownership of the given buffer
+   * (it's released by this method). Data of the result message (if any) is a separate {@link
+   * ByteBuf} which must be released by the consumer, see {@link
+   * GatewayMessageCodec#decode(ByteBuf)}.
+   *
+   * @param byteBuf - contains binary envelope to be decoded.
+   * @return Decoded {@link GatewayMessage}.
+   * @throws MessageCodecException - in case of malformed envelope.
+   */
+  public GatewayMessage decode(ByteBuf byteBuf) throws MessageCodecException {
+    try {
+      GatewayMessage.Builder result = GatewayMessage.builder();
+
+      int flags = byteBuf.readUnsignedByte();
+      if ((flags & FLAG_STREAM_ID) != 0) {
+        result.streamId(readVarint(byteBuf));
+      }
+      if ((flags & FLAG_SIGNAL) != 0) {
+        result.signal((int) readVarint(byteBuf));
+      }
+      if ((flags & FLAG_INACTIVITY) != 0) {
+        result.inactivity((int) readVarint(byteBuf));
+      }
+      if ((flags & FLAG_RATE_LIMIT) != 0) {
+        result.rateLimit((int) readVarint(byteBuf));
+      }
+      if ((flags & FLAG_QUALIFIER) != 0) {
+        result.qualifier(readString(byteBuf));
+      }
+
+      // headers
+      long count = readVarint(byteBuf);
+      for (long i = 0; i < count; i++) {
+        result.header(readString(byteBuf), readString(byteBuf));
+      }
+
+      // data
+      if ((flags & FLAG_DATA) != 0) {
+        int index = byteBuf.readerIndex();
+        int length = byteBuf.readableBytes();
+        result.data(
+            zeroCopyDecode ? byteBuf.retainedSlice(index, length) : byteBuf.copy(index, length));
+      }
+      return result.build();
+    } catch (Throwable ex) {
+      throw new MessageCodecException("Failed to decode message", ex);
+    } finally {
+      ReferenceCountUtil.safestRelease(byteBuf);
+    }
+  }
+
+  private static void writeString(ByteBuf byteBuf, String value) {
+    writeVarint(byteBuf, ByteBufUtil.utf8Bytes(value));
+    byteBuf.writeCharSequence(value, StandardCharsets.UTF_8);
+  }
+
+  private static String readString(ByteBuf byteBuf) {
+    int length = (int) readVarint(byteBuf);
+    String value = byteBuf.toString(byteBuf.readerIndex(), length, StandardCharsets.UTF_8);
+    byteBuf.skipBytes(length);
+    return value;
+  }
+
+  private static void writeVarint(ByteBuf byteBuf, long value) {
+    while ((value & ~0x7FL) != 0) {
+      byteBuf.writeByte((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    byteBuf.writeByte((int) value);
+  }
+
+  private static long readVarint(ByteBuf byteBuf) {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = byteBuf.readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new MessageCodecException("Malformed varint", null);
+  }
+}
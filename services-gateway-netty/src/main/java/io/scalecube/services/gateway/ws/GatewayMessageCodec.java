@@ -3,6 +3,7 @@ package io.scalecube.services.gateway.ws;
 import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
 import static io.scalecube.services.gateway.ws.GatewayMessage.DATA_FIELD;
 import static io.scalecube.services.gateway.ws.GatewayMessage.INACTIVITY_FIELD;
+import static io.scalecube.services.gateway.ws.GatewayMessage.QUALIFIER_FIELD;
 import static io.scalecube.services.gateway.ws.GatewayMessage.RATE_LIMIT_FIELD;
 import static io.scalecube.services.gateway.ws.GatewayMessage.SIGNAL_FIELD;
 import static io.scalecube.services.gateway.ws.GatewayMessage.STREAM_ID_FIELD;
@@ -23,10 +24,14 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBuf;
 import io.scalecube.services.exceptions.MessageCodecException;
+import io.scalecube.services.gateway.EncodedSizeEstimator;
 import io.scalecube.services.gateway.ReferenceCountUtil;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Map.Entry;
 import java.util.Optional;
 import org.slf4j.Logger;
@@ -35,11 +40,22 @@ import org.slf4j.LoggerFactory;
 public class GatewayMessageCodec {
   private static final Logger LOGGER = LoggerFactory.getLogger(GatewayMessageCodec.class);
 
+  public static final String SUBPROTOCOL = "scalecube-json";
+
+  // same as default max content length of websocket frame aggregator
+  public static final int DEFAULT_MAX_MESSAGE_SIZE = 65536;
+
   private static final ObjectMapper objectMapper = objectMapper();
 
   private static final MappingJsonFactory jsonFactory = new MappingJsonFactory(objectMapper);
 
   private final boolean releaseDataOnEncode;
+  private final EncodedSizeEstimator sizeEstimator;
+  private boolean zeroCopyDecode = false;
+  private boolean compositeEncode = false;
+  private boolean incrementalDecode = false;
+  private boolean directCodec = false;
+  private int maxMessageSize = DEFAULT_MAX_MESSAGE_SIZE;
 
   public GatewayMessageCodec() {
     this(true /*always release by default*/);
@@ -47,35 +63,201 @@ public class GatewayMessageCodec {
 
   public GatewayMessageCodec(boolean releaseDataOnEncode) {
     this.releaseDataOnEncode = releaseDataOnEncode;
+    this.sizeEstimator = new EncodedSizeEstimator();
+  }
+
+  private GatewayMessageCodec(GatewayMessageCodec other) {
+    this.releaseDataOnEncode = other.releaseDataOnEncode;
+    this.sizeEstimator = other.sizeEstimator;
+    this.zeroCopyDecode = other.zeroCopyDecode;
+    this.compositeEncode = other.compositeEncode;
+    this.incrementalDecode = other.incrementalDecode;
+    this.directCodec = other.directCodec;
+    this.maxMessageSize = other.maxMessageSize;
+  }
+
+  /**
+   * Zero-copy decoding. When enabled {@link #decode(ByteBuf)} doesn't copy {@code d} field into a
+   * new buffer but returns a retained slice of the given frame buffer instead. The slice keeps
+   * whole frame buffer alive until it's released, so whoever consumes the message data (normally
+   * {@code ServiceCall} request releaser) must release it exactly once.
+   *
+   * @param zeroCopyDecode zero-copy decoding flag
+   * @return new codec instance
+   */
+  public GatewayMessageCodec zeroCopyDecode(boolean zeroCopyDecode) {
+    GatewayMessageCodec c = new GatewayMessageCodec(this);
+    c.zeroCopyDecode = zeroCopyDecode;
+    return c;
+  }
+
+  /**
+   * Returns estimator of encoded message size, it's shared by all codec instances derived from
+   * this one.
+   *
+   * @return size estimator
+   */
+  public EncodedSizeEstimator sizeEstimator() {
+    return sizeEstimator;
+  }
+
+  public boolean isZeroCopyDecode() {
+    return zeroCopyDecode;
+  }
+
+  /**
+   * Composite encoding. When enabled and message data is a readable {@link ByteBuf}, {@link
+   * #encode(GatewayMessage)} doesn't copy data into the output buffer but returns a {@link
+   * CompositeByteBuf} of JSON prefix, data buffer itself and closing brace. Ownership of data
+   * buffer is passed to the composite buffer (data is retained if codec doesn't release data on
+   * encode), so it's released once the frame is written.
+   *
+   * @param compositeEncode composite encoding flag
+   * @return new codec instance
+   */
+  public GatewayMessageCodec compositeEncode(boolean compositeEncode) {
+    GatewayMessageCodec c = new GatewayMessageCodec(this);
+    c.compositeEncode = compositeEncode;
+    return c;
+  }
+
+  public boolean isCompositeEncode() {
+    return compositeEncode;
+  }
+
+  /**
+   * Incremental decoding. When enabled websocket messages are not aggregated before decoding,
+   * instead every frame fragment is fed to {@link GatewayMessageIncrementalDecoder} (see {@link
+   * #newIncrementalDecoder()}) as soon as it arrives.
+   *
+   * @param incrementalDecode incremental decoding flag
+   * @return new codec instance
+   */
+  public GatewayMessageCodec incrementalDecode(boolean incrementalDecode) {
+    GatewayMessageCodec c = new GatewayMessageCodec(this);
+    c.incrementalDecode = incrementalDecode;
+    return c;
+  }
+
+  public boolean isIncrementalDecode() {
+    return incrementalDecode;
+  }
+
+  /**
+   * Max size of websocket message decoded incrementally (see {@link #incrementalDecode(boolean)}),
+   * summed across its fragments. Larger message fails the session, which is closed with status
+   * 1009 (message too big). Default is {@link #DEFAULT_MAX_MESSAGE_SIZE}.
+   *
+   * @param maxMessageSize max message size in bytes
+   * @return new codec instance
+   */
+  public GatewayMessageCodec maxMessageSize(int maxMessageSize) {
+    if (maxMessageSize < 1) {
+      throw new IllegalArgumentException("Invalid maxMessageSize: " + maxMessageSize);
+    }
+    GatewayMessageCodec c = new GatewayMessageCodec(this);
+    c.maxMessageSize = maxMessageSize;
+    return c;
+  }
+
+  public int maxMessageSize() {
+    return maxMessageSize;
+  }
+
+  /**
+   * Direct envelope codec. When enabled {@link #decode(ByteBuf)} scans envelope bytes by
+   * hand-written single-pass scanner instead of Jackson parser (data field is only delimited, not
+   * parsed), and {@link #encode(GatewayMessage, ByteBufAllocator)} writes envelope fields directly
+   * to the output buffer. Decoder falls back to Jackson on unusual input (escaped strings,
+   * non-integer or huge numbers, etc.). Doesn't affect incremental decoding.
+   *
+   * @param directCodec direct envelope codec flag
+   * @return new codec instance
+   */
+  public GatewayMessageCodec directCodec(boolean directCodec) {
+    GatewayMessageCodec c = new GatewayMessageCodec(this);
+    c.directCodec = directCodec;
+    return c;
+  }
+
+  public boolean isDirectCodec() {
+    return directCodec;
   }
 
   /**
-   * Encode given {@code message} to given {@code byteBuf}.
+   * Creates new stateful decoder which decodes messages from websocket frame fragments, honoring
+   * {@link #zeroCopyDecode(boolean)} and {@link #maxMessageSize(int)} settings. A decoder must be
+   * used by one connection only.
+   *
+   * @return new incremental decoder
+   */
+  public GatewayMessageIncrementalDecoder newIncrementalDecoder() {
+    return new GatewayMessageIncrementalDecoder(jsonFactory, zeroCopyDecode, maxMessageSize);
+  }
+
+  /**
+   * Encode given {@code message} to buffer allocated by {@link ByteBufAllocator#DEFAULT}, see
+   * {@link #encode(GatewayMessage, ByteBufAllocator)}.
    *
    * @param message - input message to be encoded.
+   * @return buffer with encoded message
    * @throws MessageCodecException in case of issues during encoding.
    */
   public ByteBuf encode(GatewayMessage message) throws MessageCodecException {
-    ByteBuf byteBuf = ByteBufAllocator.DEFAULT.buffer();
+    return encode(message, ByteBufAllocator.DEFAULT);
+  }
+
+  /**
+   * Encode given {@code message} to buffer allocated by given allocator (normally allocator of the
+   * connection). Initial capacity of the buffer is estimated by {@link #sizeEstimator()}.
+   *
+   * @param message - input message to be encoded.
+   * @param alloc - allocator of output buffer.
+   * @return buffer with encoded message
+   * @throws MessageCodecException in case of issues during encoding.
+   */
+  public ByteBuf encode(GatewayMessage message, ByteBufAllocator alloc)
+      throws MessageCodecException {
+    int initialCapacity = sizeEstimator.initialCapacity(message.qualifier());
+    ByteBuf byteBuf = alloc.buffer(initialCapacity);
+    int dataIndex; // index of data in output buffer in composite encoding mode, or -1
+    try {
+      dataIndex = directCodec ? encodeDirect(message, byteBuf) : encodeJackson(message, byteBuf);
+    } catch (Throwable ex) {
+      ReferenceCountUtil.safestRelease(byteBuf);
+      Optional.ofNullable(message.data()).ifPresent(ReferenceCountUtil::safestRelease);
+      LOGGER.error("Failed to encode message: {}", message, ex);
+      throw new MessageCodecException("Failed to encode message", ex);
+    }
+    sizeEstimator.record(message.qualifier(), byteBuf, initialCapacity);
+    return dataIndex < 0 ? byteBuf : compose(byteBuf, dataIndex, message.data());
+  }
+
+  private int encodeJackson(GatewayMessage message, ByteBuf byteBuf) throws IOException {
+    int dataIndex = -1;
     try (JsonGenerator generator =
         jsonFactory.createGenerator(
             (OutputStream) new ByteBufOutputStream(byteBuf), JsonEncoding.UTF8)) {
       generator.writeStartObject();
 
       // headers
-      for (Entry<String, String> header : message.headers().entrySet()) {
-        String fieldName = header.getKey();
-        String value = header.getValue();
-        switch (fieldName) {
-          case STREAM_ID_FIELD:
-          case SIGNAL_FIELD:
-          case INACTIVITY_FIELD:
-          case RATE_LIMIT_FIELD:
-            generator.writeNumberField(fieldName, Long.parseLong(value));
-            break;
-          default:
-            generator.writeStringField(fieldName, value);
-        }
+      if (message.qualifier() != null) {
+        generator.writeStringField(QUALIFIER_FIELD, message.qualifier());
+      }
+      if (message.hasStreamId()) {
+        generator.writeNumberField(STREAM_ID_FIELD, message.streamIdAsLong());
+      }
+      if (message.hasSignal()) {
+        generator.writeNumberField(SIGNAL_FIELD, message.signalAsInt());
+      }
+      if (message.hasInactivity()) {
+        generator.writeNumberField(INACTIVITY_FIELD, message.inactivityAsInt());
+      }
+      if (message.hasRateLimit()) {
+        generator.writeNumberField(RATE_LIMIT_FIELD, message.rateLimitAsInt());
+      }
+      for (Entry<String, String> header : message.customHeaders().entrySet()) {
+        generator.writeStringField(header.getKey(), header.getValue());
       }
 
       // data
@@ -83,7 +265,12 @@ public class GatewayMessageCodec {
       if (data != null) {
         if (data instanceof ByteBuf) {
           ByteBuf dataBin = (ByteBuf) data;
-          if (dataBin.isReadable()) {
+          if (dataBin.isReadable() && compositeEncode) {
+            generator.writeFieldName(DATA_FIELD);
+            generator.writeRaw(":");
+            generator.flush();
+            dataIndex = byteBuf.writerIndex();
+          } else if (dataBin.isReadable()) {
             try {
               generator.writeFieldName(DATA_FIELD);
               generator.writeRaw(":");
@@ -101,23 +288,103 @@ public class GatewayMessageCodec {
       }
 
       generator.writeEndObject();
+    }
+    return dataIndex;
+  }
+
+  private int encodeDirect(GatewayMessage message, ByteBuf byteBuf) throws IOException {
+    int dataIndex = -1;
+    boolean hasFields = GatewayMessageDirectCodec.writeHeaders(message, byteBuf);
+
+    // data
+    Object data = message.data();
+    if (data != null) {
+      if (data instanceof ByteBuf) {
+        ByteBuf dataBin = (ByteBuf) data;
+        if (dataBin.isReadable() && compositeEncode) {
+          GatewayMessageDirectCodec.writeDataFieldName(byteBuf, hasFields);
+          dataIndex = byteBuf.writerIndex();
+        } else if (dataBin.isReadable()) {
+          try {
+            GatewayMessageDirectCodec.writeDataFieldName(byteBuf, hasFields);
+            byteBuf.writeBytes(dataBin, dataBin.readerIndex(), dataBin.readableBytes());
+          } finally {
+            if (releaseDataOnEncode) {
+              ReferenceCountUtil.safestRelease(dataBin);
+            }
+          }
+        }
+      } else {
+        GatewayMessageDirectCodec.writeDataFieldName(byteBuf, hasFields);
+        objectMapper.writeValue((OutputStream) new ByteBufOutputStream(byteBuf), data);
+      }
+    }
+
+    byteBuf.writeByte('}');
+    return dataIndex;
+  }
+
+  /**
+   * Patches stream id into given message encoded without it. Encoded message may be shared by many
+   * sessions (see {@link WebsocketStreamSharing}), so it's not modified: result is composite of
+   * stream id field and the rest of given buffer. Takes ownership of the given buffer.
+   *
+   * @param content message encoded without stream id
+   * @param streamId stream id
+   * @param alloc allocator of stream id field
+   * @return buffer with encoded message with stream id
+   */
+  public ByteBuf encodeStreamId(ByteBuf content, long streamId, ByteBufAllocator alloc) {
+    ByteBuf streamIdField = alloc.buffer(32);
+    try {
+      boolean hasFields = content.getByte(content.readerIndex() + 1) != '}';
+      streamIdField.writeCharSequence(
+          "{\"" + STREAM_ID_FIELD + "\":" + streamId + (hasFields ? "," : ""),
+          StandardCharsets.US_ASCII);
+      content.skipBytes(1); // '{'
     } catch (Throwable ex) {
-      ReferenceCountUtil.safestRelease(byteBuf);
-      Optional.ofNullable(message.data()).ifPresent(ReferenceCountUtil::safestRelease);
-      LOGGER.error("Failed to encode message: {}", message, ex);
-      throw new MessageCodecException("Failed to encode message", ex);
+      ReferenceCountUtil.safestRelease(streamIdField);
+      ReferenceCountUtil.safestRelease(content);
+      throw new MessageCodecException("Failed to encode stream id", ex);
     }
-    return byteBuf;
+    return alloc.compositeBuffer(2).addComponents(true, streamIdField, content);
+  }
+
+  private ByteBuf compose(ByteBuf byteBuf, int dataIndex, ByteBuf dataBin) {
+    CompositeByteBuf composite = byteBuf.alloc().compositeBuffer(3);
+    return composite.addComponents(
+        true,
+        byteBuf.retainedSlice(0, dataIndex),
+        releaseDataOnEncode ? dataBin : dataBin.retain(),
+        byteBuf.slice(dataIndex, byteBuf.writerIndex() - dataIndex));
   }
 
   /**
-   * Decodes {@link GatewayMessage} from given {@code byteBuf}.
+   * Decodes {@link GatewayMessage} from given {@code byteBuf}. Takes ownership of the given buffer
+   * (it's released by this method). Data of the result message (if any) is a separate {@link
+   * ByteBuf}: either a copy or, in {@link #zeroCopyDecode(boolean)} mode, a retained slice of the
+   * given buffer. In both cases data must be released by the consumer.
    *
    * @param byteBuf - contains raw {@link GatewayMessage} to be decoded.
    * @return Decoded {@link GatewayMessage}.
    * @throws MessageCodecException - in case of issues during deserialization.
    */
   public GatewayMessage decode(ByteBuf byteBuf) throws MessageCodecException {
+    if (directCodec) {
+      GatewayMessage message;
+      try {
+        message = GatewayMessageDirectCodec.decode(byteBuf, zeroCopyDecode);
+      } catch (Throwable ex) {
+        ReferenceCountUtil.safestRelease(byteBuf);
+        throw new MessageCodecException("Failed to decode message", ex);
+      }
+      if (message != null) {
+        ReferenceCountUtil.safestRelease(byteBuf);
+        return message;
+      }
+      // unusual envelope, fall back to Jackson
+    }
+    int readerIndex = byteBuf.readerIndex(); // stream would move it
     try (InputStream stream = new ByteBufInputStream(byteBuf, true)) {
       JsonParser jp = jsonFactory.createParser(stream);
       GatewayMessage.Builder result = GatewayMessage.builder();
@@ -147,12 +414,13 @@ public class GatewayMessageCodec {
           dataEnd = jp.getCurrentLocation().getByteOffset();
         } else {
           // headers
-          result.header(fieldName, jp.getValueAsString());
+          readHeader(result, fieldName, jp);
         }
       }
       // data
       if (dataEnd > dataStart) {
-        result.data(byteBuf.copy((int) dataStart, (int) (dataEnd - dataStart)));
+        int dataIndex = readerIndex + (int) dataStart;
+        result.data(extractData(byteBuf, dataIndex, (int) (dataEnd - dataStart)));
       }
       return result.build();
     } catch (Throwable ex) {
@@ -160,7 +428,38 @@ public class GatewayMessageCodec {
     }
   }
 
-  private static ObjectMapper objectMapper() {
+  /**
+   * Reads header value at current token of given parser into given builder. Numeric envelope
+   * fields are read as primitives, without intermediate string.
+   */
+  static void readHeader(GatewayMessage.Builder result, String fieldName, JsonParser jp)
+      throws IOException {
+    if (jp.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+      switch (fieldName) {
+        case STREAM_ID_FIELD:
+          result.streamId(jp.getLongValue());
+          return;
+        case SIGNAL_FIELD:
+          result.signal(jp.getIntValue());
+          return;
+        case INACTIVITY_FIELD:
+          result.inactivity(jp.getIntValue());
+          return;
+        case RATE_LIMIT_FIELD:
+          result.rateLimit(jp.getIntValue());
+          return;
+        default:
+          break;
+      }
+    }
+    result.header(fieldName, jp.getValueAsString());
+  }
+
+  private ByteBuf extractData(ByteBuf byteBuf, int index, int length) {
+    return zeroCopyDecode ? byteBuf.retainedSlice(index, length) : byteBuf.copy(index, length);
+  }
+
+  static ObjectMapper objectMapper() {
     ObjectMapper mapper = new ObjectMapper();
     mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
     mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
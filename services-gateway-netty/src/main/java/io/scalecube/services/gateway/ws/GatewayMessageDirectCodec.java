@@ -0,0 +1,513 @@
+package io.scalecube.services.gateway.ws;
+
+import static io.scalecube.services.gateway.ws.GatewayMessage.DATA_FIELD;
+import static io.scalecube.services.gateway.ws.GatewayMessage.INACTIVITY_FIELD;
+import static io.scalecube.services.gateway.ws.GatewayMessage.QUALIFIER_FIELD;
+import static io.scalecube.services.gateway.ws.GatewayMessage.RATE_LIMIT_FIELD;
+import static io.scalecube.services.gateway.ws.GatewayMessage.SIGNAL_FIELD;
+import static io.scalecube.services.gateway.ws.GatewayMessage.STREAM_ID_FIELD;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import java.nio.charset.StandardCharsets;
+import java.util.Map.Entry;
+
+/**
+ * Hand-written codec of JSON envelope of {@link GatewayMessage}, see {@link
+ * GatewayMessageCodec#directCodec(boolean)}.
+ *
+ * <p>Decoder scans UTF-8 bytes of the buffer in a single pass: envelope fields are parsed in place,
+ * custom headers are read as strings, and {@code d} field is only delimited (its bytes are neither
+ * parsed nor validated). Decoder handles envelopes produced by gateway clients, i.e. plain string
+ * and integer values without escape sequences. On any other input it gives up (returns null) and
+ * caller falls back to Jackson, which decodes the message or reports the error.
+ *
+ * <p>Encoder writes envelope fields directly to the output buffer, strings are escaped only if
+ * they contain characters which must be escaped.
+ */
+final class GatewayMessageDirectCodec {
+
+  private static final int FIELD_CUSTOM = 0;
+  private static final int FIELD_QUALIFIER = 1;
+  private static final int FIELD_STREAM_ID = 2;
+  private static final int FIELD_SIGNAL = 3;
+  private static final int FIELD_INACTIVITY = 4;
+  private static final int FIELD_RATE_LIMIT = 5;
+  private static final int FIELD_DATA = 6;
+
+  private static final byte[] MAX_LONG = Long.toString(Long.MAX_VALUE).getBytes();
+
+  private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+  private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+  private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+  private GatewayMessageDirectCodec() {
+    // Do not instantiate
+  }
+
+  /**
+   * Decodes envelope from readable bytes of given buffer. Doesn't release the buffer.
+   *
+   * @param byteBuf buffer with JSON envelope
+   * @param zeroCopyDecode whether data is a retained slice of the buffer or its copy
+   * @return decoded message, or null if envelope has to be decoded by Jackson
+   */
+  static GatewayMessage decode(ByteBuf byteBuf, boolean zeroCopyDecode) {
+    // scan heap array in place, copy of direct buffer is cheaper than per-byte access to it
+    final int readerIndex = byteBuf.readerIndex();
+    final byte[] bytes;
+    final int base;
+    if (byteBuf.hasArray()) {
+      bytes = byteBuf.array();
+      base = byteBuf.arrayOffset() + readerIndex;
+    } else {
+      bytes = ByteBufUtil.getBytes(byteBuf, readerIndex, byteBuf.readableBytes());
+      base = 0;
+    }
+    final int end = base + byteBuf.readableBytes();
+    GatewayMessage.Builder result = GatewayMessage.builder();
+    int dataStart = -1;
+    int dataEnd = -1;
+
+    int i = skipWhitespace(bytes, base, end);
+    if (i >= end || bytes[i] != '{') {
+      return null;
+    }
+    i = skipWhitespace(bytes, i + 1, end);
+    if (i < end && bytes[i] == '}') {
+      return result.build();
+    }
+
+    while (true) {
+      // field name
+      if (i >= end || bytes[i] != '"') {
+        return null;
+      }
+      int nameStart = i + 1;
+      int nameEnd = scanPlainString(bytes, nameStart, end);
+      if (nameEnd < 0) {
+        return null;
+      }
+      i = skipWhitespace(bytes, nameEnd + 1, end);
+      if (i >= end || bytes[i] != ':') {
+        return null;
+      }
+      i = skipWhitespace(bytes, i + 1, end);
+      if (i >= end) {
+        return null;
+      }
+
+      // field value
+      int field = field(bytes, nameStart, nameEnd - nameStart);
+      byte b = bytes[i];
+      if (b == 'n') {
+        // null is the same as absent field
+        if (!matches(bytes, i, end, NULL)) {
+          return null;
+        }
+        i += NULL.length;
+      } else if (field == FIELD_DATA) {
+        dataStart = i;
+        dataEnd = skipValue(bytes, i, end);
+        if (dataEnd < 0) {
+          return null;
+        }
+        i = dataEnd;
+      } else if (b == '"') {
+        int valueEnd = scanPlainString(bytes, i + 1, end);
+        if (valueEnd < 0) {
+          return null;
+        }
+        String value = new String(bytes, i + 1, valueEnd - i - 1, StandardCharsets.UTF_8);
+        if (field == FIELD_QUALIFIER) {
+          result.qualifier(value);
+        } else if (field == FIELD_CUSTOM) {
+          result.header(fieldName(bytes, nameStart, nameEnd), value);
+        } else {
+          return null; // numeric field given as string
+        }
+        i = valueEnd + 1;
+      } else if (b == '-' || (b >= '0' && b <= '9')) {
+        int numberEnd = scanInteger(bytes, i, end);
+        if (numberEnd < 0) {
+          return null;
+        }
+        if (!readNumber(result, field, bytes, nameStart, nameEnd, i, numberEnd)) {
+          return null;
+        }
+        i = numberEnd;
+      } else if (field == FIELD_CUSTOM && (b == 't' || b == 'f')) {
+        byte[] literal = b == 't' ? TRUE : FALSE;
+        if (!matches(bytes, i, end, literal)) {
+          return null;
+        }
+        result.header(fieldName(bytes, nameStart, nameEnd), b == 't' ? "true" : "false");
+        i += literal.length;
+      } else {
+        return null;
+      }
+
+      // next field or end of envelope
+      i = skipWhitespace(bytes, i, end);
+      if (i >= end) {
+        return null;
+      }
+      b = bytes[i];
+      if (b == '}') {
+        break;
+      }
+      if (b != ',') {
+        return null;
+      }
+      i = skipWhitespace(bytes, i + 1, end);
+    }
+
+    if (dataStart >= 0) {
+      int index = readerIndex + dataStart - base;
+      int length = dataEnd - dataStart;
+      result.data(
+          zeroCopyDecode ? byteBuf.retainedSlice(index, length) : byteBuf.copy(index, length));
+    }
+    return result.build();
+  }
+
+  private static boolean readNumber(
+      GatewayMessage.Builder result,
+      int field,
+      byte[] bytes,
+      int nameStart,
+      int nameEnd,
+      int start,
+      int end) {
+    switch (field) {
+      case FIELD_STREAM_ID:
+        result.streamId(parseLong(bytes, start, end));
+        return true;
+      case FIELD_SIGNAL:
+      case FIELD_INACTIVITY:
+      case FIELD_RATE_LIMIT:
+        long value = parseLong(bytes, start, end);
+        if (value != (int) value) {
+          return false;
+        }
+        if (field == FIELD_SIGNAL) {
+          result.signal((int) value);
+        } else if (field == FIELD_INACTIVITY) {
+          result.inactivity((int) value);
+        } else {
+          result.rateLimit((int) value);
+        }
+        return true;
+      case FIELD_CUSTOM:
+        result.header(
+            fieldName(bytes, nameStart, nameEnd),
+            new String(bytes, start, end - start, StandardCharsets.US_ASCII));
+        return true;
+      default:
+        return false; // e.g. numeric qualifier
+    }
+  }
+
+  private static int field(byte[] bytes, int start, int length) {
+    switch (length) {
+      case 1:
+        byte b = bytes[start];
+        if (b == 'q') {
+          return FIELD_QUALIFIER;
+        }
+        if (b == 'd') {
+          return FIELD_DATA;
+        }
+        return b == 'i' ? FIELD_INACTIVITY : FIELD_CUSTOM;
+      case 3:
+        if (bytes[start] == 's' && bytes[start + 1] == 'i') {
+          byte last = bytes[start + 2];
+          return last == 'd' ? FIELD_STREAM_ID : last == 'g' ? FIELD_SIGNAL : FIELD_CUSTOM;
+        }
+        return FIELD_CUSTOM;
+      case 6:
+        return matches(bytes, start, start + length, RATE_LIMIT_FIELD)
+            ? FIELD_RATE_LIMIT
+            : FIELD_CUSTOM;
+      default:
+        return FIELD_CUSTOM;
+    }
+  }
+
+  private static String fieldName(byte[] bytes, int start, int end) {
+    return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+  }
+
+  private static boolean matches(byte[] bytes, int start, int end, String ascii) {
+    if (end - start < ascii.length()) {
+      return false;
+    }
+    for (int j = 0; j < ascii.length(); j++) {
+      if (bytes[start + j] != ascii.charAt(j)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean matches(byte[] bytes, int start, int end, byte[] literal) {
+    if (end - start < literal.length) {
+      return false;
+    }
+    for (int j = 0; j < literal.length; j++) {
+      if (bytes[start + j] != literal[j]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int skipWhitespace(byte[] bytes, int start, int end) {
+    int i = start;
+    while (i < end) {
+      byte b = bytes[i];
+      if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Returns index of closing quote of a string without escape sequences which starts at given
+   * index (right after opening quote), or -1 if string has escape sequences or isn't terminated.
+   */
+  private static int scanPlainString(byte[] bytes, int start, int end) {
+    for (int i = start; i < end; i++) {
+      byte b = bytes[i];
+      if (b == '"') {
+        return i;
+      }
+      if (b == '\\') {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns index right after integer which starts at given index, or -1 if the number is not a
+   * plain integer or doesn't fit into long.
+   */
+  private static int scanInteger(byte[] bytes, int start, int end) {
+    boolean negative = bytes[start] == '-';
+    int i = negative ? start + 1 : start;
+    int digitsStart = i;
+    while (i < end) {
+      byte b = bytes[i];
+      if (b < '0' || b > '9') {
+        if (b == '.' || b == 'e' || b == 'E') {
+          return -1;
+        }
+        break;
+      }
+      i++;
+    }
+    int digits = i - digitsStart;
+    if (digits == 0 || digits > MAX_LONG.length) {
+      return -1;
+    }
+    if (digits == MAX_LONG.length) {
+      // compare with max long digit by digit, min long is one greater by absolute value
+      for (int j = 0; j < digits; j++) {
+        int limit = MAX_LONG[j] + (negative && j == digits - 1 ? 1 : 0);
+        if (bytes[digitsStart + j] != limit) {
+          return bytes[digitsStart + j] < limit ? i : -1;
+        }
+      }
+    }
+    return i;
+  }
+
+  private static long parseLong(byte[] bytes, int start, int end) {
+    // accumulate negatively, as Long.parseLong does, to fit min long
+    boolean negative = bytes[start] == '-';
+    long value = 0;
+    for (int i = negative ? start + 1 : start; i < end; i++) {
+      value = value * 10 - (bytes[i] - '0');
+    }
+    return negative ? value : -value;
+  }
+
+  /**
+   * Returns index right after JSON value which starts at given index, or -1 if value isn't
+   * terminated. Nested strings and brackets are tracked, everything else is skipped as is.
+   */
+  private static int skipValue(byte[] bytes, int start, int end) {
+    byte first = bytes[start];
+    if (first == '"') {
+      return skipString(bytes, start + 1, end);
+    }
+    if (first != '{' && first != '[') {
+      // number or literal
+      int i = start;
+      while (i < end) {
+        byte b = bytes[i];
+        if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+          break;
+        }
+        i++;
+      }
+      return i;
+    }
+    int depth = 0;
+    int i = start;
+    while (i < end) {
+      byte b = bytes[i];
+      if (b == '"') {
+        i = skipString(bytes, i + 1, end);
+        if (i < 0) {
+          return -1;
+        }
+        continue;
+      }
+      if (b == '{' || b == '[') {
+        depth++;
+      } else if (b == '}' || b == ']') {
+        if (--depth == 0) {
+          return i + 1;
+        }
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  /**
+   * Returns index right after closing quote of a string which starts at given index (right after
+   * opening quote), or -1 if string isn't terminated.
+   */
+  private static int skipString(byte[] bytes, int start, int end) {
+    int i = start;
+    while (i < end) {
+      byte b = bytes[i];
+      if (b == '"') {
+        return i + 1;
+      }
+      i += b == '\\' ? 2 : 1;
+    }
+    return -1;
+  }
+
+  /**
+   * Writes opening brace and header fields of given message, i.e. everything but data field and
+   * closing brace.
+   *
+   * @param message message
+   * @param byteBuf output buffer
+   * @return whether any field was written (i.e. comma is needed before next field)
+   */
+  static boolean writeHeaders(GatewayMessage message, ByteBuf byteBuf) {
+    byteBuf.writeByte('{');
+    boolean hasFields = false;
+    if (message.qualifier() != null) {
+      writeFieldName(byteBuf, QUALIFIER_FIELD, false);
+      writeString(byteBuf, message.qualifier());
+      hasFields = true;
+    }
+    if (message.hasStreamId()) {
+      writeFieldName(byteBuf, STREAM_ID_FIELD, hasFields);
+      writeLong(byteBuf, message.streamIdAsLong());
+      hasFields = true;
+    }
+    if (message.hasSignal()) {
+      writeFieldName(byteBuf, SIGNAL_FIELD, hasFields);
+      writeLong(byteBuf, message.signalAsInt());
+      hasFields = true;
+    }
+    if (message.hasInactivity()) {
+      writeFieldName(byteBuf, INACTIVITY_FIELD, hasFields);
+      writeLong(byteBuf, message.inactivityAsInt());
+      hasFields = true;
+    }
+    if (message.hasRateLimit()) {
+      writeFieldName(byteBuf, RATE_LIMIT_FIELD, hasFields);
+      writeLong(byteBuf, message.rateLimitAsInt());
+      hasFields = true;
+    }
+    for (Entry<String, String> header : message.customHeaders().entrySet()) {
+      if (hasFields) {
+        byteBuf.writeByte(',');
+      }
+      writeString(byteBuf, header.getKey());
+      byteBuf.writeByte(':');
+      writeString(byteBuf, header.getValue());
+      hasFields = true;
+    }
+    return hasFields;
+  }
+
+  /**
+   * Writes name of data field followed by colon.
+   *
+   * @param byteBuf output buffer
+   * @param comma whether comma is needed before the field
+   */
+  static void writeDataFieldName(ByteBuf byteBuf, boolean comma) {
+    writeFieldName(byteBuf, DATA_FIELD, comma);
+  }
+
+  private static void writeFieldName(ByteBuf byteBuf, String name, boolean comma) {
+    if (comma) {
+      byteBuf.writeByte(',');
+    }
+    byteBuf.writeByte('"');
+    ByteBufUtil.writeAscii(byteBuf, name);
+    byteBuf.writeByte('"');
+    byteBuf.writeByte(':');
+  }
+
+  private static void writeString(ByteBuf byteBuf, String value) {
+    byteBuf.writeByte('"');
+    if (needsEscaping(value)) {
+      byteBuf.writeBytes(JsonStringEncoder.getInstance().quoteAsUTF8(value));
+    } else {
+      ByteBufUtil.writeUtf8(byteBuf, value);
+    }
+    byteBuf.writeByte('"');
+  }
+
+  private static boolean needsEscaping(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < 0x20 || c == '"' || c == '\\') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void writeLong(ByteBuf byteBuf, long value) {
+    if (value == Long.MIN_VALUE) {
+      ByteBufUtil.writeAscii(byteBuf, Long.toString(value));
+      return;
+    }
+    if (value < 0) {
+      byteBuf.writeByte('-');
+      value = -value;
+    }
+    // digits are written from the last one, divisions by constant are cheap
+    int digits = 1;
+    for (long bound = 10; digits < 19 && value >= bound; bound *= 10) {
+      digits++;
+    }
+    int index = byteBuf.writerIndex();
+    byteBuf.ensureWritable(digits);
+    int position = index + digits - 1;
+    while (value > Integer.MAX_VALUE) {
+      byteBuf.setByte(position--, '0' + (int) (value % 10));
+      value /= 10;
+    }
+    for (int intValue = (int) value; position >= index; intValue /= 10) {
+      byteBuf.setByte(position--, '0' + intValue % 10);
+    }
+    byteBuf.writerIndex(index + digits);
+  }
+}
@@ -0,0 +1,248 @@
+package io.scalecube.services.gateway.ws;
+
+import static io.scalecube.services.gateway.ws.GatewayMessage.DATA_FIELD;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.scalecube.services.exceptions.MessageCodecException;
+import io.scalecube.services.gateway.ReferenceCountUtil;
+
+/**
+ * Stateful decoder of {@link GatewayMessage} which consumes websocket frame fragments (first frame
+ * and its continuation frames) as they arrive, using Jackson non-blocking parser. Envelope fields
+ * are parsed on the fly, only the byte span of {@code d} field is retained (as slices of the
+ * fragments it's located in), so that at most one fragment plus the data span is held at a time.
+ * Size of a message is bounded by max message size, see {@link
+ * GatewayMessageCodec#maxMessageSize(int)}.
+ *
+ * <p>Not thread-safe, an instance is supposed to be used by one connection on its event loop.
+ */
+public final class GatewayMessageIncrementalDecoder {
+
+  // parser consumes all fed bytes before asking for more input, so scratch array can be shared
+  // by all decoders running on the same thread
+  private static final FastThreadLocal<byte[]> SCRATCH =
+      new FastThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+          return new byte[8192];
+        }
+      };
+
+  private final JsonFactory jsonFactory;
+  private final boolean zeroCopy;
+  private final int maxMessageSize;
+
+  private JsonParser parser;
+  private GatewayMessage.Builder result;
+  private boolean skipUntilFinalFragment;
+  private boolean rootOpened;
+  private boolean rootClosed;
+  private long fragmentOffset; // absolute offset of current fragment
+
+  // d field state
+  private boolean dataFieldName;
+  private CompositeByteBuf dataSpan; // retained from dataSpanOffset
+  private long dataSpanOffset;
+  private boolean dataValue;
+  private int dataDepth;
+  private ByteBuf data;
+
+  GatewayMessageIncrementalDecoder(JsonFactory jsonFactory, boolean zeroCopy, int maxMessageSize) {
+    this.jsonFactory = jsonFactory;
+    this.zeroCopy = zeroCopy;
+    this.maxMessageSize = maxMessageSize;
+  }
+
+  /**
+   * Feeds next fragment of websocket message. Takes ownership of the given buffer.
+   *
+   * @param fragment fragment content
+   * @param finalFragment whether given fragment is the last one of websocket message
+   * @return decoded message if given fragment was the last one, or null otherwise
+   * @throws MessageCodecException in case of malformed message, rest of its fragments are skipped
+   * @throws TooLongFrameException if message exceeds max message size, buffers retained so far are
+   *     released and rest of its fragments are skipped
+   */
+  public GatewayMessage feed(ByteBuf fragment, boolean finalFragment)
+      throws MessageCodecException {
+    try {
+      if (skipUntilFinalFragment) {
+        skipUntilFinalFragment = !finalFragment;
+        return null;
+      }
+      if (fragmentOffset + fragment.readableBytes() > maxMessageSize) {
+        throw new TooLongFrameException(
+            "Websocket message exceeds max size of " + maxMessageSize + " bytes");
+      }
+      if (parser == null) {
+        parser = jsonFactory.createNonBlockingByteArrayParser();
+        result = GatewayMessage.builder();
+      }
+      if (dataSpan != null) {
+        dataSpan.addComponent(true, fragment.retainedSlice());
+      }
+
+      parse(fragment);
+      fragmentOffset += fragment.readableBytes();
+
+      if (!finalFragment) {
+        return null;
+      }
+      if (!rootClosed) {
+        throw new MessageCodecException("Unexpected end of message", null);
+      }
+      GatewayMessage message = result.data(data).build();
+      data = null; // owned by message now
+      reset();
+      return message;
+    } catch (Throwable ex) {
+      reset();
+      skipUntilFinalFragment = !finalFragment;
+      if (ex instanceof TooLongFrameException) {
+        throw (TooLongFrameException) ex;
+      }
+      throw ex instanceof MessageCodecException
+          ? (MessageCodecException) ex
+          : new MessageCodecException("Failed to decode message", ex);
+    } finally {
+      ReferenceCountUtil.safestRelease(fragment);
+    }
+  }
+
+  /** Resets decoder state and releases all retained buffers. */
+  public void reset() {
+    if (parser != null) {
+      try {
+        parser.close();
+      } catch (Exception ignore) {
+        // no-op
+      }
+    }
+    ReferenceCountUtil.safestRelease(data);
+    releaseDataSpan();
+    parser = null;
+    result = null;
+    data = null;
+    rootOpened = false;
+    rootClosed = false;
+    fragmentOffset = 0;
+  }
+
+  private void parse(ByteBuf fragment) throws Exception {
+    ByteArrayFeeder feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    int remaining = fragment.readableBytes();
+    int index = fragment.readerIndex();
+    byte[] scratch = SCRATCH.get();
+    while (remaining > 0) {
+      int length = Math.min(remaining, scratch.length);
+      fragment.getBytes(index, scratch, 0, length);
+      feeder.feedInput(scratch, 0, length);
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE) {
+        if (token == null) {
+          break;
+        }
+        onToken(token, fragment);
+      }
+      index += length;
+      remaining -= length;
+    }
+  }
+
+  private void onToken(JsonToken token, ByteBuf fragment) throws Exception {
+    if (rootClosed) {
+      throw new MessageCodecException("Unexpected content after root object", null);
+    }
+
+    // inside d field value
+    if (dataValue) {
+      if (token.isStructStart()) {
+        dataDepth++;
+      } else if (token.isStructEnd()) {
+        dataDepth--;
+      }
+      if (dataDepth == 0) {
+        completeData();
+      }
+      return;
+    }
+
+    if (!rootOpened) {
+      if (token != JsonToken.START_OBJECT) {
+        throw new MessageCodecException("Root should be object", null);
+      }
+      rootOpened = true;
+      return;
+    }
+
+    switch (token) {
+      case END_OBJECT:
+        rootClosed = true;
+        return;
+      case FIELD_NAME:
+        dataFieldName = DATA_FIELD.equals(parser.getCurrentName());
+        if (dataFieldName) {
+          // value may span several fragments, start retaining from here
+          dataSpanOffset = parser.getCurrentLocation().getByteOffset();
+          int sliceIndex = (int) (dataSpanOffset - fragmentOffset);
+          dataSpan = fragment.alloc().compositeBuffer(Integer.MAX_VALUE);
+          dataSpan.addComponent(
+              true,
+              fragment.retainedSlice(
+                  fragment.readerIndex() + sliceIndex, fragment.readableBytes() - sliceIndex));
+        }
+        return;
+      case VALUE_NULL:
+        if (dataFieldName) {
+          releaseDataSpan();
+        }
+        return;
+      default:
+        break;
+    }
+
+    if (dataFieldName) {
+      dataValue = true;
+      dataDepth = token.isStructStart() ? 1 : 0;
+      if (dataDepth == 0) {
+        completeData();
+      }
+    } else {
+      // headers
+      if (!token.isScalarValue()) {
+        throw new MessageCodecException("Header should be scalar value", null);
+      }
+      GatewayMessageCodec.readHeader(result, parser.getCurrentName(), parser);
+    }
+  }
+
+  private void completeData() {
+    // token start location of non-blocking parser isn't reliable (points past the first byte of
+    // token), so value start is found by skipping name separator and whitespace in data span
+    int end = (int) (parser.getCurrentLocation().getByteOffset() - dataSpanOffset);
+    int index = dataSpan.forEachByte(0, end, GatewayMessageIncrementalDecoder::isSeparator);
+    int length = end - index;
+    ReferenceCountUtil.safestRelease(data); // in case of duplicated d field
+    data = zeroCopy ? dataSpan.retainedSlice(index, length) : dataSpan.copy(index, length);
+    releaseDataSpan();
+  }
+
+  private static boolean isSeparator(byte b) {
+    return b == ':' || b == ' ' || b == '\t' || b == '\n' || b == '\r';
+  }
+
+  private void releaseDataSpan() {
+    ReferenceCountUtil.safestRelease(dataSpan);
+    dataSpan = null;
+    dataValue = false;
+    dataDepth = 0;
+    dataFieldName = false;
+  }
+}
@@ -0,0 +1,139 @@
+package io.scalecube.services.gateway.ws;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Bounded per-session table of header values registered by client with {@link Signal#HEADERS}
+ * request. Registered value is referred to by its index in a header whose name has {@link
+ * #REFERENCE_SUFFIX}, e.g. {@code "q@":0} instead of {@code "q":"/service/method"}, and is resolved
+ * to the very same (interned) string instance on every request.
+ *
+ * <p>Table is used by inbound processing of one session only, which happens sequentially, so it's
+ * not thread-safe.
+ */
+final class HeaderDictionary {
+
+  public static final String REFERENCE_SUFFIX = "@";
+
+  /** Index returned for a value which can't be registered because table is full. */
+  public static final int NO_INDEX = -1;
+
+  private final int maxSize;
+  private final Map<String, Integer> indexes = new HashMap<>();
+  private String[] values = new String[8];
+  private int size;
+
+  /**
+   * Constructor.
+   *
+   * @param maxSize max number of registered values
+   */
+  HeaderDictionary(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+    }
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Registers given value if it's not registered yet.
+   *
+   * @param value header value
+   * @return index of the value, or {@link #NO_INDEX} if table is full
+   */
+  int register(String value) {
+    Integer index = indexes.get(value);
+    if (index != null) {
+      return index;
+    }
+    if (size == maxSize) {
+      return NO_INDEX;
+    }
+    if (size == values.length) {
+      values = Arrays.copyOf(values, Math.min(maxSize, values.length * 2));
+    }
+    values[size] = value.intern();
+    indexes.put(values[size], size);
+    return size++;
+  }
+
+  /**
+   * Returns registered value by its index.
+   *
+   * @param index index
+   * @return value, or null if there's no value with given index
+   */
+  String value(int index) {
+    return index >= 0 && index < size ? values[index] : null;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Replaces header references in given message by registered values.
+   *
+   * @param message message
+   * @return message with resolved references, or the same message if it has no references
+   * @throws IllegalArgumentException if message refers to unknown index
+   */
+  GatewayMessage resolve(GatewayMessage message) {
+    if (!hasReferences(message)) {
+      return message;
+    }
+    GatewayMessage.Builder builder = GatewayMessage.builder().data(message.data());
+    if (message.qualifier() != null) {
+      builder.qualifier(message.qualifier());
+    }
+    if (message.hasStreamId()) {
+      builder.streamId(message.streamIdAsLong());
+    }
+    if (message.hasSignal()) {
+      builder.signal(message.signalAsInt());
+    }
+    if (message.hasInactivity()) {
+      builder.inactivity(message.inactivityAsInt());
+    }
+    if (message.hasRateLimit()) {
+      builder.rateLimit(message.rateLimitAsInt());
+    }
+    for (Entry<String, String> header : message.customHeaders().entrySet()) {
+      String name = header.getKey();
+      if (isReference(name)) {
+        String value = value(parseIndex(header.getValue()));
+        if (value == null) {
+          throw new IllegalArgumentException("Unknown header index: " + header.getValue());
+        }
+        builder.header(name.substring(0, name.length() - REFERENCE_SUFFIX.length()), value);
+      } else {
+        builder.header(name, header.getValue());
+      }
+    }
+    return builder.build();
+  }
+
+  private static boolean hasReferences(GatewayMessage message) {
+    for (String name : message.customHeaders().keySet()) {
+      if (isReference(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isReference(String name) {
+    return name.length() > REFERENCE_SUFFIX.length() && name.endsWith(REFERENCE_SUFFIX);
+  }
+
+  private static int parseIndex(String index) {
+    try {
+      return Integer.parseInt(index);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid header index: " + index);
+    }
+  }
+}
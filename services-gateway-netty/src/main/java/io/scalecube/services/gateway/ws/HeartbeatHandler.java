@@ -0,0 +1,64 @@
+package io.scalecube.services.gateway.ws;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Heartbeat of one websocket connection, see {@link WebsocketHeartbeat}. Consumes inbound pongs,
+ * sends pings on {@link #heartbeat()} which is called by periodic task of the event loop (see
+ * {@link HeartbeatScheduler}). Accessed by event loop only.
+ */
+final class HeartbeatHandler extends ChannelInboundHandlerAdapter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HeartbeatHandler.class);
+
+  static final String NAME = "ws-heartbeat";
+
+  private final WebsocketHeartbeat settings;
+  private ChannelHandlerContext ctx;
+  private int missedPongs;
+
+  HeartbeatHandler(WebsocketHeartbeat settings) {
+    this.settings = settings;
+  }
+
+  @Override
+  public void handlerAdded(ChannelHandlerContext ctx) {
+    this.ctx = ctx;
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) {
+    if (msg instanceof PongWebSocketFrame) {
+      missedPongs = 0;
+      ((PongWebSocketFrame) msg).release();
+      return;
+    }
+    ctx.fireChannelRead(msg);
+  }
+
+  /**
+   * Pings the peer, or closes the connection if the peer missed too many pongs.
+   *
+   * @return false if connection is closed, i.e. heartbeat is over
+   */
+  boolean heartbeat() {
+    if (ctx == null || !ctx.channel().isActive()) {
+      return false;
+    }
+    if (missedPongs >= settings.maxMissedPongs()) {
+      LOGGER.warn("Close connection {} after {} missed pongs", ctx.channel(), missedPongs);
+      settings.recordReapedSession();
+      ctx.channel().close();
+      return false;
+    }
+    missedPongs++;
+    settings.recordPing();
+    ctx.writeAndFlush(new PingWebSocketFrame());
+    return true;
+  }
+}
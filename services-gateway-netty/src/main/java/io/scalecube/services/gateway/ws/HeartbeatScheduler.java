@@ -0,0 +1,63 @@
+package io.scalecube.services.gateway.ws;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives heartbeats of websocket connections with one periodic task per event loop, which pings
+ * all connections of the loop. The task is cancelled once the loop has no connections left.
+ */
+final class HeartbeatScheduler {
+
+  private final WebsocketHeartbeat settings;
+  private final Map<EventLoop, LoopHeartbeats> loops = new ConcurrentHashMap<>();
+
+  HeartbeatScheduler(WebsocketHeartbeat settings) {
+    this.settings = settings;
+  }
+
+  /**
+   * Starts heartbeat of given connection.
+   *
+   * @param channel channel of the connection
+   * @param handler heartbeat handler in pipeline of the channel
+   */
+  void register(Channel channel, HeartbeatHandler handler) {
+    EventLoop eventLoop = channel.eventLoop();
+    eventLoop.execute(() -> loops.computeIfAbsent(eventLoop, LoopHeartbeats::new).add(handler));
+  }
+
+  private final class LoopHeartbeats implements Runnable {
+
+    private final EventLoop eventLoop;
+    private final List<HeartbeatHandler> handlers = new ArrayList<>();
+    private ScheduledFuture<?> task;
+
+    private LoopHeartbeats(EventLoop eventLoop) {
+      this.eventLoop = eventLoop;
+    }
+
+    private void add(HeartbeatHandler handler) {
+      handlers.add(handler);
+      if (task == null) {
+        long interval = settings.interval().toNanos();
+        task = eventLoop.scheduleAtFixedRate(this, interval, interval, TimeUnit.NANOSECONDS);
+      }
+    }
+
+    @Override
+    public void run() {
+      handlers.removeIf(handler -> !handler.heartbeat());
+      if (handlers.isEmpty()) {
+        task.cancel(false);
+        task = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package io.scalecube.services.gateway.ws;
+
+import io.netty.util.collection.LongObjectHashMap;
+import java.util.ArrayDeque;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Deficit round-robin over outbound messages of session streams, see {@link
+ * WebsocketOutboundScheduling}. Messages are queued per stream, {@link #poll()} returns them in
+ * fair order. Stream state is dropped after its terminal message, or once its queue is empty if
+ * it has default priority. Accessed from event loop of the session only.
+ *
+ * @param <T> type of message
+ */
+final class OutboundScheduler<T> {
+
+  private final int quantum;
+  private final ToLongFunction<T> streamId;
+  private final ToIntFunction<T> size;
+  private final Predicate<T> terminal;
+
+  private final LongObjectHashMap<StreamQueue<T>> streams =
+      new LongObjectHashMap<>(StreamRegistry.INITIAL_CAPACITY);
+  private final ArrayDeque<StreamQueue<T>> active = new ArrayDeque<>();
+  private StreamQueue<T> current;
+  private int queued;
+
+  /**
+   * Constructor.
+   *
+   * @param quantum number of bytes stream of priority 1 may write per round
+   * @param streamId function which returns stream id of message
+   * @param size function which returns estimated size of message
+   * @param terminal predicate which tells whether message is the last one of its stream
+   */
+  OutboundScheduler(
+      int quantum, ToLongFunction<T> streamId, ToIntFunction<T> size, Predicate<T> terminal) {
+    this.quantum = quantum;
+    this.streamId = streamId;
+    this.size = size;
+    this.terminal = terminal;
+  }
+
+  /**
+   * Sets priority of stream, i.e. number of quanta it may write per round.
+   *
+   * @param sid stream id
+   * @param priority priority (at least 1)
+   */
+  void priority(long sid, int priority) {
+    stream(sid).priority = priority;
+  }
+
+  void offer(T message) {
+    StreamQueue<T> stream = stream(streamId.applyAsLong(message));
+    stream.messages.add(message);
+    if (!stream.active) {
+      stream.active = true;
+      active.add(stream);
+    }
+    queued++;
+  }
+
+  /**
+   * Returns next message to write.
+   *
+   * @return message, or null if there're no queued messages
+   */
+  T poll() {
+    while (true) {
+      if (current == null) {
+        current = active.poll();
+        if (current == null) {
+          return null;
+        }
+        current.deficit += (long) quantum * current.priority;
+      }
+      StreamQueue<T> stream = current;
+      T message = stream.messages.peek();
+      int messageSize = size.applyAsInt(message);
+      if (messageSize > stream.deficit) {
+        // round of this stream is over, it's continued in the next one
+        active.add(stream);
+        current = null;
+        continue;
+      }
+      stream.messages.poll();
+      stream.deficit -= messageSize;
+      queued--;
+      if (terminal.test(message)) {
+        stream.terminated = true;
+      }
+      if (stream.messages.isEmpty()) {
+        finish(stream);
+      }
+      return message;
+    }
+  }
+
+  boolean isEmpty() {
+    return queued == 0;
+  }
+
+  private void finish(StreamQueue<T> stream) {
+    stream.active = false;
+    stream.deficit = 0; // idle stream doesn't accumulate credit
+    current = null;
+    if (stream.terminated || stream.priority == 1) {
+      streams.remove(stream.sid);
+    }
+  }
+
+  private StreamQueue<T> stream(long sid) {
+    StreamQueue<T> stream = streams.get(sid);
+    if (stream == null) {
+      stream = new StreamQueue<>(sid);
+      streams.put(sid, stream);
+    }
+    return stream;
+  }
+
+  private static final class StreamQueue<T> {
+
+    private final long sid;
+    private final ArrayDeque<T> messages = new ArrayDeque<>(4);
+    private int priority = 1;
+    private long deficit;
+    private boolean active;
+    private boolean terminated;
+
+    private StreamQueue(long sid) {
+      this.sid = sid;
+    }
+  }
+}
@@ -0,0 +1,265 @@
+package io.scalecube.services.gateway.ws;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.CodecException;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Channel handler of negotiated permessage-deflate extension (see {@link WebsocketCompression}).
+ * Inflates inbound messages which have RSV1 bit set (including their continuation frames), and
+ * deflates outbound single-frame messages which are not smaller than min size and are not marked
+ * as {@link Uncompressed}. Inbound message which inflates to more than max size fails the
+ * connection with {@link CorruptedFrameException}, after close frame with status 1009 (message too
+ * big) is sent. Confined to the event loop of the connection, so deflater and inflater
+ * are used without synchronization.
+ */
+final class PerMessageDeflateHandler extends ChannelDuplexHandler {
+
+  static final String NAME = "ws-permessage-deflate";
+
+  private static final int RSV1 = 0x4;
+  private static final byte[] TAIL = {0, 0, (byte) 0xFF, (byte) 0xFF};
+  private static final int CHUNK_SIZE = 8192;
+  private static final int MESSAGE_TOO_BIG = 1009;
+
+  private final int minSize;
+  private final int maxInflatedSize;
+  private final boolean noContextTakeover;
+  private final LongAdder uncompressedBytes;
+  private final LongAdder compressedBytes;
+  private final Deflater deflater;
+  private final Inflater inflater = new Inflater(true);
+  private final byte[] chunk = new byte[CHUNK_SIZE];
+
+  private boolean inflating; // compressed message is fragmented, continuation frames follow
+  private int inflatedSize; // of fragments of the message inflated so far
+  private boolean tooBig; // connection is being closed, inbound frames are dropped
+
+  PerMessageDeflateHandler(
+      int level,
+      int minSize,
+      int maxInflatedSize,
+      boolean noContextTakeover,
+      LongAdder uncompressedBytes,
+      LongAdder compressedBytes) {
+    this.minSize = minSize;
+    this.maxInflatedSize = maxInflatedSize;
+    this.noContextTakeover = noContextTakeover;
+    this.uncompressedBytes = uncompressedBytes;
+    this.compressedBytes = compressedBytes;
+    this.deflater = new Deflater(level, true);
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    if (!(msg instanceof WebSocketFrame)) {
+      ctx.fireChannelRead(msg);
+      return;
+    }
+    WebSocketFrame frame = (WebSocketFrame) msg;
+    boolean compressed =
+        frame instanceof ContinuationWebSocketFrame
+            ? inflating
+            : (frame instanceof TextWebSocketFrame || frame instanceof BinaryWebSocketFrame)
+                && (frame.rsv() & RSV1) != 0;
+    if (tooBig) {
+      frame.release();
+      return;
+    }
+    if (!compressed) {
+      ctx.fireChannelRead(msg);
+      return;
+    }
+    if (!inflating) {
+      inflatedSize = 0; // first frame of the message
+    }
+
+    ByteBuf content;
+    try {
+      content =
+          inflate(
+              ctx.alloc(),
+              frame.content(),
+              frame.isFinalFragment(),
+              maxInflatedSize - inflatedSize);
+    } catch (CorruptedFrameException ex) {
+      tooBig = true;
+      ctx.writeAndFlush(new CloseWebSocketFrame(MESSAGE_TOO_BIG, ex.getMessage()))
+          .addListener(ChannelFutureListener.CLOSE);
+      throw ex;
+    } finally {
+      frame.release();
+    }
+    inflating = !frame.isFinalFragment();
+    inflatedSize += content.readableBytes();
+
+    boolean finalFragment = frame.isFinalFragment();
+    int rsv = frame.rsv() & ~RSV1;
+    if (frame instanceof TextWebSocketFrame) {
+      ctx.fireChannelRead(new TextWebSocketFrame(finalFragment, rsv, content));
+    } else if (frame instanceof BinaryWebSocketFrame) {
+      ctx.fireChannelRead(new BinaryWebSocketFrame(finalFragment, rsv, content));
+    } else {
+      ctx.fireChannelRead(new ContinuationWebSocketFrame(finalFragment, rsv, content));
+    }
+  }
+
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    if (!(msg instanceof TextWebSocketFrame || msg instanceof BinaryWebSocketFrame)) {
+      ctx.write(msg, promise);
+      return;
+    }
+    WebSocketFrame frame = (WebSocketFrame) msg;
+    int size = frame.content().readableBytes();
+    uncompressedBytes.add(size);
+
+    if (msg instanceof Uncompressed
+        || !frame.isFinalFragment()
+        || frame.rsv() != 0
+        || size == 0
+        || size < minSize) {
+      compressedBytes.add(size);
+      ctx.write(msg, promise);
+      return;
+    }
+
+    ByteBuf content;
+    try {
+      content = deflate(ctx.alloc(), frame.content());
+    } finally {
+      frame.release();
+    }
+    compressedBytes.add(content.readableBytes());
+
+    ctx.write(
+        msg instanceof TextWebSocketFrame
+            ? new TextWebSocketFrame(true, RSV1, content)
+            : new BinaryWebSocketFrame(true, RSV1, content),
+        promise);
+  }
+
+  @Override
+  public void handlerRemoved(ChannelHandlerContext ctx) {
+    deflater.end();
+    inflater.end();
+  }
+
+  private ByteBuf deflate(ByteBufAllocator alloc, ByteBuf input) {
+    ByteBuf output = alloc.buffer(input.readableBytes() / 2 + TAIL.length);
+    try {
+      setInput(input);
+      int length;
+      do {
+        length = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+        output.writeBytes(chunk, 0, length);
+      } while (length == chunk.length);
+      // sync flush ends with empty block 00 00 FF FF which is not sent (RFC 7692, section 7.2.1)
+      output.writerIndex(output.writerIndex() - TAIL.length);
+    } catch (Throwable th) {
+      output.release();
+      throw th;
+    } finally {
+      if (noContextTakeover) {
+        deflater.reset();
+      }
+    }
+    return output;
+  }
+
+  private ByteBuf inflate(
+      ByteBufAllocator alloc, ByteBuf input, boolean finalFragment, int maxSize) {
+    ByteBuf output = alloc.buffer(Math.min(input.readableBytes() * 2, maxSize));
+    try {
+      if (input.hasArray()) {
+        int offset = input.arrayOffset() + input.readerIndex();
+        inflate(input.array(), offset, input.readableBytes(), output, maxSize);
+      } else {
+        byte[] bytes = toArray(input);
+        inflate(bytes, 0, bytes.length, output, maxSize);
+      }
+      if (finalFragment) {
+        // append empty block which was stripped by sender (RFC 7692, section 7.2.2)
+        inflate(TAIL, 0, TAIL.length, output, maxSize);
+      }
+    } catch (DataFormatException ex) {
+      output.release();
+      throw new CodecException("Failed to inflate websocket message", ex);
+    } catch (Throwable th) {
+      output.release();
+      throw th;
+    }
+    return output;
+  }
+
+  private void inflate(byte[] input, int offset, int length, ByteBuf output, int maxSize)
+      throws DataFormatException {
+    if (length == 0) {
+      return;
+    }
+    inflater.setInput(input, offset, length);
+    while (true) {
+      int inflated = inflater.inflate(chunk);
+      if (inflated > 0) {
+        if (output.writerIndex() + inflated > maxSize) {
+          throw new CorruptedFrameException(
+              "Inflated message exceeds max size: " + maxInflatedSize);
+        }
+        output.writeBytes(chunk, 0, inflated);
+      } else if (inflater.needsInput() || inflater.finished() || inflater.needsDictionary()) {
+        return;
+      }
+    }
+  }
+
+  private void setInput(ByteBuf input) {
+    if (input.hasArray()) {
+      deflater.setInput(
+          input.array(), input.arrayOffset() + input.readerIndex(), input.readableBytes());
+    } else {
+      deflater.setInput(toArray(input));
+    }
+  }
+
+  private static byte[] toArray(ByteBuf input) {
+    byte[] bytes = new byte[input.readableBytes()];
+    input.getBytes(input.readerIndex(), bytes);
+    return bytes;
+  }
+
+  /**
+   * Marker of outbound frames which must be sent uncompressed (see {@link
+   * WebsocketCompression#excludeQualifiers(String...)}).
+   */
+  interface Uncompressed {}
+
+  static final class UncompressedTextFrame extends TextWebSocketFrame implements Uncompressed {
+
+    UncompressedTextFrame(ByteBuf content) {
+      super(content);
+    }
+  }
+
+  static final class UncompressedBinaryFrame extends BinaryWebSocketFrame
+      implements Uncompressed {
+
+    UncompressedBinaryFrame(ByteBuf content) {
+      super(content);
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package io.scalecube.services.gateway.ws;
+
+import io.netty.util.collection.LongObjectHashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Outbound messages of detached resumable session (see {@link WebsocketResumption}), kept in order
+ * of their arrival for replay on resume. Every stream may buffer at most given number of messages;
+ * on overflow messages of the stream are dropped and stream is marked overflowed, its further
+ * messages are dropped as well. Not thread-safe, session guards it.
+ *
+ * @param <T> type of message
+ */
+final class ResumeBuffer<T> {
+
+  private final int maxStreamMessages;
+  private final ToLongFunction<T> streamId;
+  private final Consumer<T> release;
+
+  private final ArrayDeque<T> messages = new ArrayDeque<>();
+  private final LongObjectHashMap<int[]> counts =
+      new LongObjectHashMap<>(StreamRegistry.INITIAL_CAPACITY);
+  private final List<Long> overflowedStreams = new ArrayList<>(1);
+
+  /**
+   * Constructor.
+   *
+   * @param maxStreamMessages max number of buffered messages of one stream
+   * @param streamId function which returns stream id of message
+   * @param release function which releases dropped message
+   */
+  ResumeBuffer(int maxStreamMessages, ToLongFunction<T> streamId, Consumer<T> release) {
+    this.maxStreamMessages = maxStreamMessages;
+    this.streamId = streamId;
+    this.release = release;
+  }
+
+  /**
+   * Buffers given message, or drops (releases) it if its stream is overflowed.
+   *
+   * @param message message
+   * @return false if message was dropped, i.e. its stream overflowed with this or earlier message
+   */
+  boolean offer(T message) {
+    long sid = streamId.applyAsLong(message);
+    if (overflowedStreams.contains(sid)) {
+      release.accept(message);
+      return false;
+    }
+    int[] count = counts.get(sid);
+    if (count == null) {
+      count = new int[1];
+      counts.put(sid, count);
+    }
+    if (count[0] == maxStreamMessages) {
+      overflowedStreams.add(sid);
+      counts.remove(sid);
+      release.accept(message);
+      for (Iterator<T> it = messages.iterator(); it.hasNext(); ) {
+        T buffered = it.next();
+        if (streamId.applyAsLong(buffered) == sid) {
+          it.remove();
+          release.accept(buffered);
+        }
+      }
+      return false;
+    }
+    count[0]++;
+    messages.add(message);
+    return true;
+  }
+
+  /**
+   * Returns buffered messages in order of their arrival, buffer is empty afterwards.
+   *
+   * @return messages
+   */
+  List<T> drain() {
+    List<T> result = new ArrayList<>(messages);
+    messages.clear();
+    counts.clear();
+    return result;
+  }
+
+  /**
+   * Returns ids of overflowed streams, they're forgotten afterwards.
+   *
+   * @return stream ids
+   */
+  List<Long> drainOverflowedStreams() {
+    List<Long> result = new ArrayList<>(overflowedStreams);
+    overflowedStreams.clear();
+    return result;
+  }
+
+  /** Releases and drops all buffered messages. */
+  void release() {
+    drain().forEach(release);
+    overflowedStreams.clear();
+  }
+
+  int size() {
+    return messages.size();
+  }
+}
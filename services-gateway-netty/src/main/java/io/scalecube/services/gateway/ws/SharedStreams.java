@@ -0,0 +1,361 @@
+package io.scalecube.services.gateway.ws;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.scalecube.services.api.ServiceMessage;
+import io.scalecube.services.gateway.ContentNegotiation;
+import io.scalecube.services.gateway.ReferenceCountUtil;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+
+/**
+ * Registry of upstream streams shared by identical requests of sessions, see {@link
+ * WebsocketStreamSharing}. Upstream stream is subscribed by the first subscriber of its {@link
+ * Key} and cancelled once the last one is gone; its responses are passed to every subscriber as
+ * retained duplicate of the one encoded message. Responses are passed to subscriber callbacks
+ * directly, not through a buffering sink, so that no duplicate is dropped unreleased.
+ */
+final class SharedStreams {
+
+  private final WebsocketStreamSharing sharing;
+  private final ConcurrentMap<Key, Upstream> upstreams = new ConcurrentHashMap<>();
+
+  SharedStreams(WebsocketStreamSharing sharing) {
+    this.sharing = Objects.requireNonNull(sharing, "sharing");
+  }
+
+  /**
+   * Subscribes to upstream stream of given key. Upstream stream is created by given supplier,
+   * unless there's one already. Subscriber owns content of every message passed to {@code onNext}
+   * and must release it. Exactly one of {@code onError}, {@code onComplete} or dispose of returned
+   * subscription ends the subscription, {@code onFinally} is called after that.
+   *
+   * @param key key of upstream stream
+   * @param upstream supplier of upstream stream of encoded responses
+   * @param onNext consumer of encoded responses
+   * @param onError consumer of upstream error
+   * @param onComplete callback of upstream completion
+   * @param onFinally callback called once subscription is ended by any means
+   * @return subscription
+   */
+  Disposable subscribe(
+      Key key,
+      Supplier<Flux<Message>> upstream,
+      Consumer<Message> onNext,
+      Consumer<Throwable> onError,
+      Runnable onComplete,
+      Runnable onFinally) {
+    Subscriber subscriber = new Subscriber(onNext, onError, onComplete, onFinally);
+    join(key, upstream, subscriber);
+    return subscriber;
+  }
+
+  private void join(Key key, Supplier<Flux<Message>> supplier, Subscriber subscriber) {
+    Upstream[] created = {null};
+    Upstream upstream =
+        upstreams.compute(
+            key,
+            (k, current) -> {
+              Upstream result = current;
+              if (result == null) {
+                result = created[0] = new Upstream(k);
+              }
+              subscriber.upstream = result; // before it may receive any signal
+              result.subscribers.add(subscriber);
+              return result;
+            });
+    sharing.recordSubscriber(1);
+    if (created[0] != null) {
+      sharing.recordUpstream(1);
+      upstream.connect(supplier.get());
+    }
+  }
+
+  private void leave(Upstream upstream, Subscriber subscriber) {
+    sharing.recordSubscriber(-1);
+    boolean[] last = {false};
+    upstreams.computeIfPresent(
+        upstream.key,
+        (k, current) -> {
+          if (current != upstream) {
+            return current; // upstream is terminated already
+          }
+          upstream.subscribers.remove(subscriber);
+          if (!upstream.subscribers.isEmpty()) {
+            return upstream;
+          }
+          last[0] = true;
+          return null;
+        });
+    if (last[0]) {
+      sharing.recordUpstream(-1);
+      upstream.subscription.dispose();
+    }
+  }
+
+  /**
+   * Returns number of active upstream streams.
+   *
+   * @return number of upstreams
+   */
+  int size() {
+    return upstreams.size();
+  }
+
+  /** Encoded response of upstream stream. */
+  static final class Message {
+
+    private final GatewayMessage message;
+    private final ByteBuf content;
+
+    /**
+     * Constructor.
+     *
+     * @param message response without stream id and data
+     * @param content response encoded without stream id
+     */
+    Message(GatewayMessage message, ByteBuf content) {
+      this.message = message;
+      this.content = content;
+    }
+
+    GatewayMessage message() {
+      return message;
+    }
+
+    ByteBuf content() {
+      return content;
+    }
+  }
+
+  /**
+   * Key of upstream stream: qualifier, custom headers and data of request, and content type and
+   * sub-protocol of session, as responses are transcoded and encoded for those.
+   */
+  static final class Key {
+
+    private final String qualifier;
+    private final Map<String, String> headers;
+    private final String contentType;
+    private final boolean binary;
+    private final byte[] data;
+    private final int hash;
+
+    private Key(
+        String qualifier,
+        Map<String, String> headers,
+        String contentType,
+        boolean binary,
+        byte[] data) {
+      this.qualifier = qualifier;
+      this.headers = headers;
+      this.contentType = contentType;
+      this.binary = binary;
+      this.data = data;
+      int result = Objects.hash(qualifier, headers, contentType, binary);
+      this.hash = 31 * result + Arrays.hashCode(data);
+    }
+
+    /**
+     * Creates key of given request. Request data is copied to the key and released.
+     *
+     * @param request request
+     * @param contentType content type of session
+     * @param binary whether session speaks binary sub-protocol
+     * @return key
+     */
+    static Key of(GatewayMessage request, String contentType, boolean binary) {
+      Object data = request.data();
+      byte[] bytes = null;
+      if (data instanceof ByteBuf) {
+        try {
+          bytes = ByteBufUtil.getBytes((ByteBuf) data);
+        } finally {
+          ReferenceCountUtil.safestRelease(data);
+        }
+      }
+      return new Key(request.qualifier(), request.customHeaders(), contentType, binary, bytes);
+    }
+
+    String contentType() {
+      return contentType;
+    }
+
+    boolean isBinary() {
+      return binary;
+    }
+
+    /**
+     * Returns request of upstream stream (without stream id, which differs by subscriber).
+     *
+     * @return service request
+     */
+    ServiceMessage toServiceMessage() {
+      GatewayMessage.Builder request = GatewayMessage.builder().headers(headers);
+      if (qualifier != null) {
+        request.qualifier(qualifier);
+      }
+      if (data != null) {
+        request.data(Unpooled.wrappedBuffer(data));
+      }
+      ServiceMessage serviceRequest = GatewayMessage.toServiceMessage(request.build());
+      if (!ContentNegotiation.DEFAULT_CONTENT_TYPE.equals(contentType)) {
+        serviceRequest = ServiceMessage.from(serviceRequest).dataFormat(contentType).build();
+      }
+      return serviceRequest;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return hash == other.hash
+          && binary == other.binary
+          && Objects.equals(qualifier, other.qualifier)
+          && Objects.equals(contentType, other.contentType)
+          && headers.equals(other.headers)
+          && Arrays.equals(data, other.data);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      final StringBuilder sb = new StringBuilder("Key{");
+      sb.append("qualifier='").append(qualifier).append('\'');
+      sb.append(", headers=").append(headers);
+      sb.append(", contentType='").append(contentType).append('\'');
+      sb.append(", binary=").append(binary);
+      sb.append(", data=").append(data != null ? data.length + " bytes" : null);
+      sb.append('}');
+      return sb.toString();
+    }
+  }
+
+  private final class Subscriber implements Disposable {
+
+    private final Consumer<Message> onNext;
+    private final Consumer<Throwable> onError;
+    private final Runnable onComplete;
+    private final Runnable onFinally;
+    private final AtomicBoolean done = new AtomicBoolean();
+    private volatile Upstream upstream; // set on join
+
+    private Subscriber(
+        Consumer<Message> onNext,
+        Consumer<Throwable> onError,
+        Runnable onComplete,
+        Runnable onFinally) {
+      this.onNext = onNext;
+      this.onError = onError;
+      this.onComplete = onComplete;
+      this.onFinally = onFinally;
+    }
+
+    /** Passes given message to subscriber, or releases it if subscription is ended. */
+    private boolean next(Message message) {
+      if (done.get()) {
+        ReferenceCountUtil.safestRelease(message.content);
+        return false;
+      }
+      onNext.accept(message); // subscriber owns content even if it's disposed meanwhile
+      return true;
+    }
+
+    private void error(Throwable th) {
+      if (done.compareAndSet(false, true)) {
+        leave(upstream, this);
+        onError.accept(th);
+        onFinally.run();
+      }
+    }
+
+    private void complete() {
+      if (done.compareAndSet(false, true)) {
+        leave(upstream, this);
+        onComplete.run();
+        onFinally.run();
+      }
+    }
+
+    @Override
+    public void dispose() {
+      if (done.compareAndSet(false, true)) {
+        leave(upstream, this);
+        onFinally.run();
+      }
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return done.get();
+    }
+  }
+
+  private final class Upstream {
+
+    private final Key key;
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Disposable.Swap subscription = Disposables.swap();
+
+    private Upstream(Key key) {
+      this.key = key;
+    }
+
+    private void connect(Flux<Message> upstream) {
+      // if the last subscriber is gone already, swap is disposed and disposes this subscription
+      subscription.replace(upstream.subscribe(this::onNext, this::onError, this::onComplete));
+    }
+
+    private void onNext(Message message) {
+      int delivered = 0;
+      try {
+        for (Subscriber subscriber : subscribers) {
+          if (subscriber.next(
+              new Message(message.message, message.content.retainedDuplicate()))) {
+            delivered++;
+          }
+        }
+      } finally {
+        ReferenceCountUtil.safestRelease(message.content);
+      }
+      sharing.recordMessage(delivered);
+    }
+
+    private void onError(Throwable th) {
+      terminate();
+      subscribers.forEach(subscriber -> subscriber.error(th));
+    }
+
+    private void onComplete() {
+      terminate();
+      subscribers.forEach(Subscriber::complete);
+    }
+
+    /** Unregisters upstream, so that new subscribers create new upstream stream. */
+    private void terminate() {
+      if (upstreams.remove(key, this)) {
+        sharing.recordUpstream(-1);
+      }
+    }
+  }
+}
@@ -3,7 +3,9 @@ package io.scalecube.services.gateway.ws;
 public enum Signal {
   COMPLETE(1),
   ERROR(2),
-  CANCEL(3);
+  CANCEL(3),
+  HEADERS(4),
+  REQUEST_N(5);
 
   private final int code;
 
@@ -0,0 +1,74 @@
+package io.scalecube.services.gateway.ws;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inactivity timeout of one stream, requested with {@code i} field of request (see {@link
+ * GatewayMessage#inactivity()}) as max number of milliseconds between responses. Timeouts of all
+ * streams run on one shared {@link HashedWheelTimer}, activity only updates a timestamp: on expiry
+ * the timeout re-arms itself for the remaining time if the stream was active meanwhile, so a busy
+ * stream costs one timer entry per inactivity period rather than one per response.
+ */
+final class StreamInactivity implements TimerTask {
+
+  private static final HashedWheelTimer TIMER =
+      new HashedWheelTimer(new DefaultThreadFactory("ws-stream-inactivity", true));
+
+  private final long timeoutNanos;
+  private final Runnable onTimeout;
+
+  private volatile long lastActivity;
+  private volatile Timeout timeout;
+  private volatile boolean cancelled;
+
+  private StreamInactivity(long timeoutNanos, Runnable onTimeout) {
+    this.timeoutNanos = timeoutNanos;
+    this.onTimeout = onTimeout;
+  }
+
+  /**
+   * Starts inactivity timeout of stream if given request asks for it.
+   *
+   * @param request request
+   * @param onTimeout action to run (on timer thread) once stream timed out
+   * @return started timeout, or null if request doesn't have positive inactivity
+   */
+  static StreamInactivity start(GatewayMessage request, Runnable onTimeout) {
+    if (!request.hasInactivity() || request.inactivityAsInt() <= 0) {
+      return null;
+    }
+    long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(request.inactivityAsInt());
+    StreamInactivity inactivity = new StreamInactivity(timeoutNanos, onTimeout);
+    inactivity.lastActivity = System.nanoTime();
+    inactivity.timeout = TIMER.newTimeout(inactivity, timeoutNanos, TimeUnit.NANOSECONDS);
+    return inactivity;
+  }
+
+  /** Marks activity on the stream, i.e. postpones its timeout. */
+  void touch() {
+    lastActivity = System.nanoTime();
+  }
+
+  /** Cancels timeout of terminated stream. */
+  void cancel() {
+    cancelled = true;
+    timeout.cancel();
+  }
+
+  @Override
+  public void run(Timeout timeout) {
+    if (cancelled) {
+      return;
+    }
+    long idle = System.nanoTime() - lastActivity;
+    if (idle >= timeoutNanos) {
+      onTimeout.run();
+    } else {
+      this.timeout = TIMER.newTimeout(this, timeoutNanos - idle, TimeUnit.NANOSECONDS);
+    }
+  }
+}
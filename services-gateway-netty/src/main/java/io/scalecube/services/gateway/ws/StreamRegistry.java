@@ -0,0 +1,194 @@
+package io.scalecube.services.gateway.ws;
+
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
+import java.util.ArrayList;
+import java.util.List;
+import org.jctools.maps.NonBlockingHashMapLong;
+
+/**
+ * Registry of streams of websocket session by stream id. Sessions mostly have a handful of active
+ * streams, so registry starts tiny and grows on demand instead of preallocating for many streams.
+ *
+ * <p>Confined registry (see {@link #confined()}) is a plain open-addressing map with primitive
+ * keys, it must be accessed from event loop of the session only. Concurrent registry (see {@link
+ * #concurrent()}) may be accessed from any thread at the cost of CAS on every update.
+ *
+ * @param <V> type of stream
+ */
+public abstract class StreamRegistry<V> {
+
+  /** Initial capacity of registry, enough for a few streams without growing. */
+  public static final int INITIAL_CAPACITY = 4;
+
+  private StreamRegistry() {
+    // Do not instantiate outside
+  }
+
+  /**
+   * Returns registry which must be accessed from single thread (event loop of the session).
+   *
+   * @param <V> type of stream
+   * @return new registry
+   */
+  public static <V> StreamRegistry<V> confined() {
+    return new Confined<>();
+  }
+
+  /**
+   * Returns registry which may be accessed from any thread.
+   *
+   * @param <V> type of stream
+   * @return new registry
+   */
+  public static <V> StreamRegistry<V> concurrent() {
+    return new Concurrent<>();
+  }
+
+  /**
+   * Returns whether registry may be accessed from any thread.
+   *
+   * @return true if registry is concurrent
+   */
+  public abstract boolean isConcurrent();
+
+  public abstract V get(long streamId);
+
+  public abstract boolean containsKey(long streamId);
+
+  /**
+   * Registers stream by given stream id unless another one is registered already.
+   *
+   * @param streamId stream id
+   * @param stream stream
+   * @return true if stream was registered
+   */
+  public abstract boolean putIfAbsent(long streamId, V stream);
+
+  public abstract V remove(long streamId);
+
+  public abstract int size();
+
+  /**
+   * Returns ids of registered streams.
+   *
+   * @return stream ids
+   */
+  public abstract long[] streamIds();
+
+  /**
+   * Removes all streams.
+   *
+   * @return removed streams
+   */
+  public abstract List<V> clear();
+
+  private static final class Confined<V> extends StreamRegistry<V> {
+
+    private final LongObjectHashMap<V> streams = new LongObjectHashMap<>(INITIAL_CAPACITY);
+
+    @Override
+    public boolean isConcurrent() {
+      return false;
+    }
+
+    @Override
+    public V get(long streamId) {
+      return streams.get(streamId);
+    }
+
+    @Override
+    public boolean containsKey(long streamId) {
+      return streams.containsKey(streamId);
+    }
+
+    @Override
+    public boolean putIfAbsent(long streamId, V stream) {
+      if (streams.containsKey(streamId)) {
+        return false;
+      }
+      streams.put(streamId, stream);
+      return true;
+    }
+
+    @Override
+    public V remove(long streamId) {
+      return streams.remove(streamId);
+    }
+
+    @Override
+    public int size() {
+      return streams.size();
+    }
+
+    @Override
+    public long[] streamIds() {
+      long[] result = new long[streams.size()];
+      int i = 0;
+      for (LongObjectMap.PrimitiveEntry<V> entry : streams.entries()) {
+        result[i++] = entry.key();
+      }
+      return result;
+    }
+
+    @Override
+    public List<V> clear() {
+      List<V> result = new ArrayList<>(streams.values());
+      streams.clear();
+      return result;
+    }
+  }
+
+  private static final class Concurrent<V> extends StreamRegistry<V> {
+
+    private final NonBlockingHashMapLong<V> streams =
+        new NonBlockingHashMapLong<>(INITIAL_CAPACITY);
+
+    @Override
+    public boolean isConcurrent() {
+      return true;
+    }
+
+    @Override
+    public V get(long streamId) {
+      return streams.get(streamId);
+    }
+
+    @Override
+    public boolean containsKey(long streamId) {
+      return streams.containsKey(streamId);
+    }
+
+    @Override
+    public boolean putIfAbsent(long streamId, V stream) {
+      return streams.putIfAbsent(streamId, stream) == null;
+    }
+
+    @Override
+    public V remove(long streamId) {
+      return streams.remove(streamId);
+    }
+
+    @Override
+    public int size() {
+      return streams.size();
+    }
+
+    @Override
+    public long[] streamIds() {
+      return streams.keySetLong();
+    }
+
+    @Override
+    public List<V> clear() {
+      List<V> result = new ArrayList<>(streams.size());
+      for (long streamId : streams.keySetLong()) {
+        V stream = streams.remove(streamId);
+        if (stream != null) {
+          result.add(stream);
+        }
+      }
+      return result;
+    }
+  }
+}
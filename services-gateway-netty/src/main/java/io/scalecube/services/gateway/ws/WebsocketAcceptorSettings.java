@@ -0,0 +1,254 @@
+package io.scalecube.services.gateway.ws;
+
+import io.scalecube.services.gateway.StreamAdmission;
+import io.scalecube.services.registry.api.ServiceRegistry;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Settings of {@link WebsocketGatewayAcceptor} and its sessions, built by {@link WebsocketGateway}.
+ * Features are disabled by default (null settings, zero sizes), see setters of {@link
+ * WebsocketGateway} for their description.
+ */
+final class WebsocketAcceptorSettings {
+
+  private final GatewayMessageCodec messageCodec;
+  private final GatewayMessageBinaryCodec binaryMessageCodec;
+  private final WebsocketCompression compression;
+  private final int headerDictionarySize;
+  private final WebsocketBatching batching;
+  private final ServiceRegistry serviceRegistry;
+  private final int chunkSize;
+  private final WebsocketWriteCoalescing writeCoalescing;
+  private final WebsocketHeartbeat heartbeat;
+  private final boolean concurrentStreams;
+  private final WebsocketOutboundScheduling outboundScheduling;
+  private final StreamAdmission admission;
+  private final WebsocketStreamSharing streamSharing;
+  private final WebsocketResumption resumption;
+  private final WebsocketBackpressure backpressure;
+  private final BiFunction<WebsocketSession, GatewayMessage, GatewayMessage> onMessage;
+  private final Consumer<WebsocketSession> onOpen;
+  private final Consumer<WebsocketSession> onClose;
+
+  private WebsocketAcceptorSettings(Builder builder) {
+    this.messageCodec = builder.messageCodec;
+    this.binaryMessageCodec = builder.binaryMessageCodec;
+    this.compression = builder.compression;
+    this.headerDictionarySize = builder.headerDictionarySize;
+    this.batching = builder.batching;
+    this.serviceRegistry = builder.serviceRegistry;
+    this.chunkSize = builder.chunkSize;
+    this.writeCoalescing = builder.writeCoalescing;
+    this.heartbeat = builder.heartbeat;
+    this.concurrentStreams = builder.concurrentStreams;
+    this.outboundScheduling = builder.outboundScheduling;
+    this.admission = builder.admission;
+    this.streamSharing = builder.streamSharing;
+    this.resumption = builder.resumption;
+    this.backpressure = builder.backpressure;
+    this.onMessage = builder.onMessage;
+    this.onOpen = builder.onOpen;
+    this.onClose = builder.onClose;
+  }
+
+  static Builder builder() {
+    return new Builder();
+  }
+
+  GatewayMessageCodec messageCodec() {
+    return messageCodec;
+  }
+
+  GatewayMessageBinaryCodec binaryMessageCodec() {
+    return binaryMessageCodec;
+  }
+
+  WebsocketCompression compression() {
+    return compression;
+  }
+
+  int headerDictionarySize() {
+    return headerDictionarySize;
+  }
+
+  WebsocketBatching batching() {
+    return batching;
+  }
+
+  ServiceRegistry serviceRegistry() {
+    return serviceRegistry;
+  }
+
+  int chunkSize() {
+    return chunkSize;
+  }
+
+  WebsocketWriteCoalescing writeCoalescing() {
+    return writeCoalescing;
+  }
+
+  WebsocketHeartbeat heartbeat() {
+    return heartbeat;
+  }
+
+  boolean concurrentStreams() {
+    return concurrentStreams;
+  }
+
+  WebsocketOutboundScheduling outboundScheduling() {
+    return outboundScheduling;
+  }
+
+  StreamAdmission admission() {
+    return admission;
+  }
+
+  WebsocketStreamSharing streamSharing() {
+    return streamSharing;
+  }
+
+  WebsocketResumption resumption() {
+    return resumption;
+  }
+
+  WebsocketBackpressure backpressure() {
+    return backpressure;
+  }
+
+  BiFunction<WebsocketSession, GatewayMessage, GatewayMessage> onMessage() {
+    return onMessage;
+  }
+
+  Consumer<WebsocketSession> onOpen() {
+    return onOpen;
+  }
+
+  Consumer<WebsocketSession> onClose() {
+    return onClose;
+  }
+
+  static final class Builder {
+
+    private GatewayMessageCodec messageCodec = new GatewayMessageCodec();
+    private GatewayMessageBinaryCodec binaryMessageCodec = new GatewayMessageBinaryCodec();
+    private WebsocketCompression compression;
+    private int headerDictionarySize;
+    private WebsocketBatching batching;
+    private ServiceRegistry serviceRegistry;
+    private int chunkSize;
+    private WebsocketWriteCoalescing writeCoalescing;
+    private WebsocketHeartbeat heartbeat;
+    private boolean concurrentStreams;
+    private WebsocketOutboundScheduling outboundScheduling;
+    private StreamAdmission admission;
+    private WebsocketStreamSharing streamSharing;
+    private WebsocketResumption resumption;
+    private WebsocketBackpressure backpressure;
+    private BiFunction<WebsocketSession, GatewayMessage, GatewayMessage> onMessage;
+    private Consumer<WebsocketSession> onOpen;
+    private Consumer<WebsocketSession> onClose;
+
+    private Builder() {}
+
+    Builder messageCodec(GatewayMessageCodec messageCodec) {
+      this.messageCodec = messageCodec;
+      return this;
+    }
+
+    Builder binaryMessageCodec(GatewayMessageBinaryCodec binaryMessageCodec) {
+      this.binaryMessageCodec = binaryMessageCodec;
+      return this;
+    }
+
+    Builder compression(WebsocketCompression compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    Builder headerDictionarySize(int headerDictionarySize) {
+      this.headerDictionarySize = headerDictionarySize;
+      return this;
+    }
+
+    Builder batching(WebsocketBatching batching) {
+      this.batching = batching;
+      return this;
+    }
+
+    Builder serviceRegistry(ServiceRegistry serviceRegistry) {
+      this.serviceRegistry = serviceRegistry;
+      return this;
+    }
+
+    Builder chunkSize(int chunkSize) {
+      this.chunkSize = chunkSize;
+      return this;
+    }
+
+    Builder writeCoalescing(WebsocketWriteCoalescing writeCoalescing) {
+      this.writeCoalescing = writeCoalescing;
+      return this;
+    }
+
+    Builder heartbeat(WebsocketHeartbeat heartbeat) {
+      this.heartbeat = heartbeat;
+      return this;
+    }
+
+    Builder concurrentStreams(boolean concurrentStreams) {
+      this.concurrentStreams = concurrentStreams;
+      return this;
+    }
+
+    Builder outboundScheduling(WebsocketOutboundScheduling outboundScheduling) {
+      this.outboundScheduling = outboundScheduling;
+      return this;
+    }
+
+    Builder admission(StreamAdmission admission) {
+      this.admission = admission;
+      return this;
+    }
+
+    Builder streamSharing(WebsocketStreamSharing streamSharing) {
+      this.streamSharing = streamSharing;
+      return this;
+    }
+
+    Builder resumption(WebsocketResumption resumption) {
+      this.resumption = resumption;
+      return this;
+    }
+
+    Builder backpressure(WebsocketBackpressure backpressure) {
+      this.backpressure = backpressure;
+      return this;
+    }
+
+    Builder onMessage(BiFunction<WebsocketSession, GatewayMessage, GatewayMessage> onMessage) {
+      this.onMessage = onMessage;
+      return this;
+    }
+
+    Builder onOpen(Consumer<WebsocketSession> onOpen) {
+      this.onOpen = onOpen;
+      return this;
+    }
+
+    Builder onClose(Consumer<WebsocketSession> onClose) {
+      this.onClose = onClose;
+      return this;
+    }
+
+    WebsocketAcceptorSettings build() {
+      if (headerDictionarySize < 0) {
+        throw new IllegalArgumentException("headerDictionarySize must be non-negative");
+      }
+      if (chunkSize < 0) {
+        throw new IllegalArgumentException("chunkSize must be non-negative");
+      }
+      return new WebsocketAcceptorSettings(this);
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package io.scalecube.services.gateway.ws;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Settings of writability-aware backpressure of service streams. By default gateway requests
+ * responses of service stream as fast as service emits them, so responses of slow client pile up
+ * in outbound buffer of its channel. With backpressure, channel of every session gets given {@link
+ * #waterMarks(int, int) water marks}, and service stream is pulled {@link #prefetch(int)}
+ * responses at a time only while channel is writable: once outbound buffer exceeds high water
+ * mark, streams of the session stop requesting, and they request again once buffer drops below
+ * low water mark.
+ *
+ * <p>Credit-based streams (see {@link CreditSubscriber}) are pulled by client credits and shared
+ * streams (see {@link WebsocketStreamSharing}) by upstream stream, backpressure doesn't apply to
+ * them.
+ *
+ * <p>Registry of sessions ({@link #bufferedBytes()}, {@link #maxSessionBufferedBytes()}) and
+ * counter of pauses ({@link #pauses()}) are shared by all instances derived from this one.
+ */
+public final class WebsocketBackpressure {
+
+  public static final int DEFAULT_LOW_WATER_MARK = 32 * 1024;
+  public static final int DEFAULT_HIGH_WATER_MARK = 64 * 1024;
+  public static final int DEFAULT_PREFETCH = 32;
+
+  private int lowWaterMark = DEFAULT_LOW_WATER_MARK;
+  private int highWaterMark = DEFAULT_HIGH_WATER_MARK;
+  private int prefetch = DEFAULT_PREFETCH;
+
+  private final Set<WebsocketSession> sessions;
+  private final LongAdder pauses;
+
+  public WebsocketBackpressure() {
+    this.sessions = ConcurrentHashMap.newKeySet();
+    this.pauses = new LongAdder();
+  }
+
+  private WebsocketBackpressure(WebsocketBackpressure other) {
+    this.lowWaterMark = other.lowWaterMark;
+    this.highWaterMark = other.highWaterMark;
+    this.prefetch = other.prefetch;
+    this.sessions = other.sessions;
+    this.pauses = other.pauses;
+  }
+
+  /**
+   * Setter for write buffer water marks of session channel. Default are {@link
+   * #DEFAULT_LOW_WATER_MARK} and {@link #DEFAULT_HIGH_WATER_MARK}.
+   *
+   * @param lowWaterMark number of buffered bytes below which channel gets writable again
+   * @param highWaterMark number of buffered bytes above which channel gets non-writable
+   * @return new WebsocketBackpressure instance
+   */
+  public WebsocketBackpressure waterMarks(int lowWaterMark, int highWaterMark) {
+    if (lowWaterMark < 0 || highWaterMark < 1 || lowWaterMark > highWaterMark) {
+      throw new IllegalArgumentException(
+          "Invalid water marks: low=" + lowWaterMark + ", high=" + highWaterMark);
+    }
+    WebsocketBackpressure b = new WebsocketBackpressure(this);
+    b.lowWaterMark = lowWaterMark;
+    b.highWaterMark = highWaterMark;
+    return b;
+  }
+
+  public int lowWaterMark() {
+    return lowWaterMark;
+  }
+
+  public int highWaterMark() {
+    return highWaterMark;
+  }
+
+  /**
+   * Setter for number of responses requested from service stream at a time. Stream requests more
+   * once 3/4 of them are received, if channel is writable. Default is {@link #DEFAULT_PREFETCH}.
+   *
+   * @param prefetch number of responses
+   * @return new WebsocketBackpressure instance
+   */
+  public WebsocketBackpressure prefetch(int prefetch) {
+    if (prefetch < 1) {
+      throw new IllegalArgumentException("Invalid prefetch: " + prefetch);
+    }
+    WebsocketBackpressure b = new WebsocketBackpressure(this);
+    b.prefetch = prefetch;
+    return b;
+  }
+
+  public int prefetch() {
+    return prefetch;
+  }
+
+  /**
+   * Returns number of bytes buffered in outbound buffers of all connected sessions.
+   *
+   * @return number of bytes
+   */
+  public long bufferedBytes() {
+    long result = 0;
+    for (WebsocketSession session : sessions) {
+      result += session.bufferedBytes();
+    }
+    return result;
+  }
+
+  /**
+   * Returns max number of bytes buffered in outbound buffer of one connected session.
+   *
+   * @return number of bytes
+   */
+  public long maxSessionBufferedBytes() {
+    long result = 0;
+    for (WebsocketSession session : sessions) {
+      result = Math.max(result, session.bufferedBytes());
+    }
+    return result;
+  }
+
+  /**
+   * Returns number of times streams stopped requesting responses because channel of their session
+   * was not writable.
+   *
+   * @return number of pauses
+   */
+  public long pauses() {
+    return pauses.sum();
+  }
+
+  void register(WebsocketSession session) {
+    sessions.add(session);
+  }
+
+  void unregister(WebsocketSession session) {
+    sessions.remove(session);
+  }
+
+  void recordPause() {
+    pauses.increment();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("WebsocketBackpressure{");
+    sb.append("lowWaterMark=").append(lowWaterMark);
+    sb.append(", highWaterMark=").append(highWaterMark);
+    sb.append(", prefetch=").append(prefetch);
+    sb.append('}');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,131 @@
+package io.scalecube.services.gateway.ws;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Settings of batched websocket frames, i.e. frames carrying several message envelopes (see {@link
+ * BatchFrames} for the layout). Batching is enabled for a session only if client announces that it
+ * reads batched frames with {@link #HEADER} handshake request header; gateway confirms it with the
+ * same response header, after that both sides may send batched frames.
+ *
+ * <p>Outbound messages of a session are queued and written by the event loop of the session: all
+ * messages queued at that moment (but not more than {@link #maxSize(int)}) go into one frame and
+ * one flush. By default messages are written as soon as the event loop gets to them, {@link
+ * #maxDelay(Duration)} lets them wait for more messages.
+ *
+ * <p>Batching is declined if gateway codec is in {@link
+ * GatewayMessageCodec#incrementalDecode(boolean)} mode, which doesn't decode whole frames.
+ *
+ * <p>Counters of outbound frames and messages ({@link #frames()}, {@link #messages()}) are shared
+ * by all instances derived from this one.
+ */
+public final class WebsocketBatching {
+
+  public static final String HEADER = "X-Scalecube-Batch";
+  public static final String VERSION = "1";
+
+  public static final int DEFAULT_MAX_SIZE = 64;
+
+  private int maxSize = DEFAULT_MAX_SIZE;
+  private Duration maxDelay = Duration.ZERO;
+
+  private final LongAdder frames;
+  private final LongAdder messages;
+
+  public WebsocketBatching() {
+    this.frames = new LongAdder();
+    this.messages = new LongAdder();
+  }
+
+  private WebsocketBatching(WebsocketBatching other) {
+    this.maxSize = other.maxSize;
+    this.maxDelay = other.maxDelay;
+    this.frames = other.frames;
+    this.messages = other.messages;
+  }
+
+  /**
+   * Setter for max number of messages in one frame. Default is {@link #DEFAULT_MAX_SIZE}.
+   *
+   * @param maxSize max number of messages in one frame
+   * @return new WebsocketBatching instance
+   */
+  public WebsocketBatching maxSize(int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Invalid max size: " + maxSize);
+    }
+    WebsocketBatching b = new WebsocketBatching(this);
+    b.maxSize = maxSize;
+    return b;
+  }
+
+  public int maxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Setter for max time a queued message may wait for more messages to fill the frame. The frame
+   * is written earlier if it's full. Default is zero, i.e. only messages which are already queued
+   * get into the frame.
+   *
+   * @param maxDelay max delay of outbound message
+   * @return new WebsocketBatching instance
+   */
+  public WebsocketBatching maxDelay(Duration maxDelay) {
+    Objects.requireNonNull(maxDelay, "maxDelay");
+    if (maxDelay.isNegative()) {
+      throw new IllegalArgumentException("Invalid max delay: " + maxDelay);
+    }
+    WebsocketBatching b = new WebsocketBatching(this);
+    b.maxDelay = maxDelay;
+    return b;
+  }
+
+  public Duration maxDelay() {
+    return maxDelay;
+  }
+
+  /**
+   * Returns number of outbound frames written by batching sessions.
+   *
+   * @return number of frames
+   */
+  public long frames() {
+    return frames.sum();
+  }
+
+  /**
+   * Returns number of outbound messages written by batching sessions.
+   *
+   * @return number of messages
+   */
+  public long messages() {
+    return messages.sum();
+  }
+
+  /**
+   * Negotiates batching by value of {@link #HEADER} request header.
+   *
+   * @param offer value of request header (may be null)
+   * @return value of response header, or null if client doesn't read batched frames
+   */
+  String negotiate(String offer) {
+    return offer != null && VERSION.equals(offer.trim()) ? VERSION : null;
+  }
+
+  void recordFrame(int messages) {
+    this.frames.increment();
+    this.messages.add(messages);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("WebsocketBatching{");
+    sb.append("maxSize=").append(maxSize);
+    sb.append(", maxDelay=").append(maxDelay);
+    sb.append('}');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,255 @@
+package io.scalecube.services.gateway.ws;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+/**
+ * Settings of <a href="https://tools.ietf.org/html/rfc7692">RFC 7692</a> permessage-deflate
+ * websocket extension. Extension is enabled for a session only if client offers it during the
+ * handshake. Messages smaller than {@link #minSize(int)} and messages of {@link
+ * #excludeQualifiers(String...) excluded} qualifiers are sent uncompressed, inbound messages are
+ * inflated regardless of these settings. Inbound message which inflates to more than {@link
+ * #maxInflatedSize(int)} bytes fails the session, which is closed with status 1009 (message too
+ * big).
+ *
+ * <p>Compression window is always 32K (JDK {@link Deflater} doesn't allow smaller one), the
+ * window can only be dropped after every message, see {@link #noContextTakeover(boolean)}. Offers
+ * asking for smaller server window are declined, i.e. such sessions are not compressed.
+ *
+ * <p>Counters of outbound bytes ({@link #uncompressedBytes()}, {@link #compressedBytes()}) are
+ * shared by all instances derived from this one.
+ */
+public final class WebsocketCompression {
+
+  public static final String EXTENSION = "permessage-deflate";
+
+  public static final int DEFAULT_LEVEL = 6;
+  public static final int DEFAULT_MIN_SIZE = 1024;
+  // max length of aggregated inbound message, see WebsocketInbound#aggregateFrames()
+  public static final int DEFAULT_MAX_INFLATED_SIZE = 65536;
+
+  static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+  static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+  static final String SERVER_MAX_WINDOW_BITS = "server_max_window_bits";
+  static final String CLIENT_MAX_WINDOW_BITS = "client_max_window_bits";
+
+  private static final int MAX_WINDOW_BITS = 15;
+
+  private int level = DEFAULT_LEVEL;
+  private int minSize = DEFAULT_MIN_SIZE;
+  private int maxInflatedSize = DEFAULT_MAX_INFLATED_SIZE;
+  private boolean noContextTakeover = false;
+  private Set<String> excludedQualifiers = Collections.emptySet();
+
+  private final LongAdder uncompressedBytes;
+  private final LongAdder compressedBytes;
+
+  public WebsocketCompression() {
+    this.uncompressedBytes = new LongAdder();
+    this.compressedBytes = new LongAdder();
+  }
+
+  private WebsocketCompression(WebsocketCompression other) {
+    this.level = other.level;
+    this.minSize = other.minSize;
+    this.maxInflatedSize = other.maxInflatedSize;
+    this.noContextTakeover = other.noContextTakeover;
+    this.excludedQualifiers = other.excludedQualifiers;
+    this.uncompressedBytes = other.uncompressedBytes;
+    this.compressedBytes = other.compressedBytes;
+  }
+
+  /**
+   * Setter for compression level, from {@link Deflater#BEST_SPEED} to {@link
+   * Deflater#BEST_COMPRESSION}. Default is {@link #DEFAULT_LEVEL}.
+   *
+   * @param level compression level
+   * @return new WebsocketCompression instance
+   */
+  public WebsocketCompression level(int level) {
+    if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid compression level: " + level);
+    }
+    WebsocketCompression c = new WebsocketCompression(this);
+    c.level = level;
+    return c;
+  }
+
+  public int level() {
+    return level;
+  }
+
+  /**
+   * Setter for minimal size (in bytes) of encoded message to be compressed, smaller messages are
+   * sent as is. Default is {@link #DEFAULT_MIN_SIZE}.
+   *
+   * @param minSize minimal size of compressed message
+   * @return new WebsocketCompression instance
+   */
+  public WebsocketCompression minSize(int minSize) {
+    if (minSize < 0) {
+      throw new IllegalArgumentException("Invalid min size: " + minSize);
+    }
+    WebsocketCompression c = new WebsocketCompression(this);
+    c.minSize = minSize;
+    return c;
+  }
+
+  public int minSize() {
+    return minSize;
+  }
+
+  /**
+   * Setter for max size (in bytes) of inflated inbound message, including all its fragments.
+   * Default is {@link #DEFAULT_MAX_INFLATED_SIZE}, the max size of aggregated message.
+   *
+   * @param maxInflatedSize max size of inflated message
+   * @return new WebsocketCompression instance
+   */
+  public WebsocketCompression maxInflatedSize(int maxInflatedSize) {
+    if (maxInflatedSize < 1) {
+      throw new IllegalArgumentException("Invalid max inflated size: " + maxInflatedSize);
+    }
+    WebsocketCompression c = new WebsocketCompression(this);
+    c.maxInflatedSize = maxInflatedSize;
+    return c;
+  }
+
+  public int maxInflatedSize() {
+    return maxInflatedSize;
+  }
+
+  /**
+   * Setter for server_no_context_takeover, i.e. whether compression window is dropped after every
+   * message. It saves memory of idle sessions at the cost of compression ratio of small repetitive
+   * messages. Applied also if client asks for it. Disabled by default.
+   *
+   * @param noContextTakeover no context takeover flag
+   * @return new WebsocketCompression instance
+   */
+  public WebsocketCompression noContextTakeover(boolean noContextTakeover) {
+    WebsocketCompression c = new WebsocketCompression(this);
+    c.noContextTakeover = noContextTakeover;
+    return c;
+  }
+
+  /**
+   * Setter for qualifiers, responses of which are never compressed (e.g. already compressed
+   * payloads, or latency sensitive streams).
+   *
+   * @param qualifiers excluded qualifiers
+   * @return new WebsocketCompression instance
+   */
+  public WebsocketCompression excludeQualifiers(String... qualifiers) {
+    WebsocketCompression c = new WebsocketCompression(this);
+    c.excludedQualifiers = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(qualifiers)));
+    return c;
+  }
+
+  public boolean isNoContextTakeover() {
+    return noContextTakeover;
+  }
+
+  public boolean isExcluded(String qualifier) {
+    return qualifier != null && excludedQualifiers.contains(qualifier);
+  }
+
+  /**
+   * Returns number of outbound message bytes before compression.
+   *
+   * @return number of uncompressed bytes
+   */
+  public long uncompressedBytes() {
+    return uncompressedBytes.sum();
+  }
+
+  /**
+   * Returns number of outbound message bytes actually sent, i.e. after compression (messages which
+   * were not compressed are counted as is).
+   *
+   * @return number of compressed bytes
+   */
+  public long compressedBytes() {
+    return compressedBytes.sum();
+  }
+
+  /**
+   * Negotiates permessage-deflate extension by value of Sec-WebSocket-Extensions request header.
+   *
+   * @param offers value of request header (may be null)
+   * @return value of Sec-WebSocket-Extensions response header, or null if extension was not
+   *     offered or none of the offers can be accepted
+   */
+  String negotiate(String offers) {
+    if (offers == null) {
+      return null;
+    }
+    for (String offer : offers.split(",")) {
+      String[] params = offer.split(";");
+      if (!EXTENSION.equalsIgnoreCase(params[0].trim())) {
+        continue;
+      }
+      boolean accepted = true;
+      boolean serverNoContextTakeover = noContextTakeover;
+      boolean clientNoContextTakeover = false;
+      for (int i = 1; i < params.length; i++) {
+        String[] param = params[i].split("=", 2);
+        String name = param[0].trim();
+        String value = param.length > 1 ? param[1].trim().replace("\"", "") : null;
+        if (SERVER_NO_CONTEXT_TAKEOVER.equalsIgnoreCase(name)) {
+          serverNoContextTakeover = true;
+        } else if (CLIENT_NO_CONTEXT_TAKEOVER.equalsIgnoreCase(name)) {
+          clientNoContextTakeover = true;
+        } else if (SERVER_MAX_WINDOW_BITS.equalsIgnoreCase(name)) {
+          accepted &= Integer.toString(MAX_WINDOW_BITS).equals(value);
+        } else if (!CLIENT_MAX_WINDOW_BITS.equalsIgnoreCase(name)) {
+          accepted = false; // unknown parameter
+        }
+      }
+      if (accepted) {
+        StringBuilder sb = new StringBuilder(EXTENSION);
+        if (serverNoContextTakeover) {
+          sb.append("; ").append(SERVER_NO_CONTEXT_TAKEOVER);
+        }
+        if (clientNoContextTakeover) {
+          sb.append("; ").append(CLIENT_NO_CONTEXT_TAKEOVER);
+        }
+        return sb.toString();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Creates channel handler of negotiated extension.
+   *
+   * @param extension value of Sec-WebSocket-Extensions response header (see {@link
+   *     #negotiate(String)})
+   * @return channel handler
+   */
+  PerMessageDeflateHandler newHandler(String extension) {
+    return new PerMessageDeflateHandler(
+        level,
+        minSize,
+        maxInflatedSize,
+        extension.contains(SERVER_NO_CONTEXT_TAKEOVER),
+        uncompressedBytes,
+        compressedBytes);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("WebsocketCompression{");
+    sb.append("level=").append(level);
+    sb.append(", minSize=").append(minSize);
+    sb.append(", maxInflatedSize=").append(maxInflatedSize);
+    sb.append(", noContextTakeover=").append(noContextTakeover);
+    sb.append(", excludedQualifiers=").append(excludedQualifiers);
+    sb.append('}');
+    return sb.toString();
+  }
+}
@@ -8,7 +8,10 @@ import io.scalecube.services.gateway.GatewayLoopResources;
 import io.scalecube.services.gateway.GatewayOptions;
 import io.scalecube.services.gateway.GatewayTemplate;
 import io.scalecube.services.gateway.ReferenceCountUtil;
+import io.scalecube.services.gateway.StreamAdmission;
+import io.scalecube.services.registry.api.ServiceRegistry;
 import java.net.InetSocketAddress;
+import java.util.Objects;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import reactor.core.publisher.Flux;
@@ -18,9 +21,44 @@ import reactor.netty.resources.LoopResources;
 
 public class WebsocketGateway extends GatewayTemplate {
 
+  public static final String METRIC_UNCOMPRESSED_BYTES = "ws-uncompressed-bytes";
+  public static final String METRIC_COMPRESSED_BYTES = "ws-compressed-bytes";
+  public static final String METRIC_BATCHED_FRAMES = "ws-batched-frames";
+  public static final String METRIC_BATCHED_MESSAGES = "ws-batched-messages";
+  public static final String METRIC_COALESCED_FLUSHES = "ws-coalesced-flushes";
+  public static final String METRIC_COALESCED_MESSAGES = "ws-coalesced-messages";
+  public static final String METRIC_TIMED_OUT_STREAMS = "ws-timed-out-streams";
+  public static final String METRIC_HEARTBEAT_PINGS = "ws-heartbeat-pings";
+  public static final String METRIC_REAPED_SESSIONS = "ws-reaped-sessions";
+  public static final String METRIC_SCHEDULED_MESSAGES = "ws-scheduled-messages";
+  public static final String METRIC_SCHEDULER_STALLS = "ws-scheduler-stalls";
+  public static final String METRIC_SHARED_UPSTREAMS = "ws-shared-upstreams";
+  public static final String METRIC_SHARED_SUBSCRIBERS = "ws-shared-subscribers";
+  public static final String METRIC_RESUMABLE_SESSIONS = "ws-resumable-sessions";
+  public static final String METRIC_RESUMED_SESSIONS = "ws-resumed-sessions";
+  public static final String METRIC_EXPIRED_SESSIONS = "ws-expired-sessions";
+  public static final String METRIC_BUFFERED_BYTES = "ws-buffered-bytes";
+  public static final String METRIC_MAX_SESSION_BUFFERED_BYTES = "ws-max-session-buffered-bytes";
+  public static final String METRIC_BACKPRESSURE_PAUSES = "ws-backpressure-pauses";
+
   private BiFunction<WebsocketSession, GatewayMessage, GatewayMessage> onMessage;
   private Consumer<WebsocketSession> onOpen;
   private Consumer<WebsocketSession> onClose;
+  private GatewayMessageCodec messageCodec = new GatewayMessageCodec();
+  private GatewayMessageBinaryCodec binaryMessageCodec = new GatewayMessageBinaryCodec();
+  private WebsocketCompression compression;
+  private int headerDictionarySize;
+  private WebsocketBatching batching;
+  private ServiceRegistry serviceRegistry;
+  private int chunkSize;
+  private WebsocketWriteCoalescing writeCoalescing;
+  private WebsocketHeartbeat heartbeat;
+  private boolean concurrentStreams;
+  private WebsocketOutboundScheduling outboundScheduling;
+  private StreamAdmission admission;
+  private WebsocketStreamSharing streamSharing;
+  private WebsocketResumption resumption;
+  private WebsocketBackpressure backpressure;
 
   private DisposableServer server;
   private LoopResources loopResources;
@@ -53,14 +91,324 @@ public class WebsocketGateway extends GatewayTemplate {
     this.onClose = onClose;
   }
 
+  private WebsocketGateway(WebsocketGateway other) {
+    super(other.options);
+    this.onMessage = other.onMessage;
+    this.onOpen = other.onOpen;
+    this.onClose = other.onClose;
+    this.messageCodec = other.messageCodec;
+    this.binaryMessageCodec = other.binaryMessageCodec;
+    this.compression = other.compression;
+    this.headerDictionarySize = other.headerDictionarySize;
+    this.batching = other.batching;
+    this.serviceRegistry = other.serviceRegistry;
+    this.chunkSize = other.chunkSize;
+    this.writeCoalescing = other.writeCoalescing;
+    this.heartbeat = other.heartbeat;
+    this.concurrentStreams = other.concurrentStreams;
+    this.outboundScheduling = other.outboundScheduling;
+    this.admission = other.admission;
+    this.streamSharing = other.streamSharing;
+    this.resumption = other.resumption;
+    this.backpressure = other.backpressure;
+    this.server = other.server;
+    this.loopResources = other.loopResources;
+  }
+
+  /**
+   * Setter for message codec, for example with enabled {@link
+   * GatewayMessageCodec#zeroCopyDecode(boolean)} or {@link
+   * GatewayMessageCodec#directCodec(boolean)}.
+   *
+   * @param messageCodec message codec
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway messageCodec(GatewayMessageCodec messageCodec) {
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.messageCodec = Objects.requireNonNull(messageCodec, "messageCodec");
+    return g;
+  }
+
+  /**
+   * Setter for message codec of binary sub-protocol, which is used for sessions negotiated {@link
+   * GatewayMessageBinaryCodec#SUBPROTOCOL} during websocket handshake.
+   *
+   * @param binaryMessageCodec binary message codec
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway binaryMessageCodec(GatewayMessageBinaryCodec binaryMessageCodec) {
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.binaryMessageCodec = Objects.requireNonNull(binaryMessageCodec, "binaryMessageCodec");
+    return g;
+  }
+
+  /**
+   * Setter for settings of permessage-deflate extension, which is used for sessions of clients
+   * offering it during websocket handshake. Disabled (null) by default.
+   *
+   * @param compression compression settings, or null to disable compression
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway compression(WebsocketCompression compression) {
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.compression = compression;
+    return g;
+  }
+
+  /**
+   * Setter for max size of per-session header dictionary. Clients may register header values
+   * (qualifiers, tokens, etc.) with {@link Signal#HEADERS} request and then refer to them by index,
+   * see {@link HeaderDictionary}. Disabled (0) by default.
+   *
+   * @param headerDictionarySize max number of registered values per session, or 0 to disable
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway headerDictionarySize(int headerDictionarySize) {
+    if (headerDictionarySize < 0) {
+      throw new IllegalArgumentException("headerDictionarySize must be non-negative");
+    }
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.headerDictionarySize = headerDictionarySize;
+    return g;
+  }
+
+  /**
+   * Setter for settings of batched frames, which are used for sessions of clients announcing them
+   * during websocket handshake. Disabled (null) by default.
+   *
+   * @param batching batching settings, or null to disable batching
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway batching(WebsocketBatching batching) {
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.batching = batching;
+    return g;
+  }
+
+  /**
+   * Setter for service registry to recognise request-response service methods by, normally the
+   * same registry the gateway node was built with. Requests to such methods are served with {@link
+   * io.scalecube.services.ServiceCall#requestOne(io.scalecube.services.api.ServiceMessage)} and the
+   * response is sent in single frame carrying {@link Signal#COMPLETE} inline, instead of response
+   * frame followed by completion frame. Clients must accept data in COMPLETE frames. Credit-based
+   * requests (see {@link CreditSubscriber}) are called as request-stream regardless. Disabled
+   * (null) by default, all methods are called as request-stream then.
+   *
+   * @param serviceRegistry service registry, or null to disable single-frame responses
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway serviceRegistry(ServiceRegistry serviceRegistry) {
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.serviceRegistry = serviceRegistry;
+    return g;
+  }
+
+  /**
+   * Setter for max size of outbound frame. Messages larger than that are sent in fragments (first
+   * frame and continuation frames) written as channel gets writable, so that large responses don't
+   * pile up in channel outbound buffer. Fragmented messages are not compressed. Disabled (0) by
+   * default, every message is sent in one frame.
+   *
+   * @param chunkSize max size of outbound frame in bytes, or 0 to disable fragmentation
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway chunkSize(int chunkSize) {
+    if (chunkSize < 0) {
+      throw new IllegalArgumentException("chunkSize must be non-negative");
+    }
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.chunkSize = chunkSize;
+    return g;
+  }
+
+  /**
+   * Setter for settings of write coalescing. Outbound messages of a session queued while its event
+   * loop is busy are written together and flushed once, instead of a flush (and a syscall) per
+   * message. Disabled (null) by default, every message is flushed on its own.
+   *
+   * @param writeCoalescing write coalescing settings, or null to disable coalescing
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway writeCoalescing(WebsocketWriteCoalescing writeCoalescing) {
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.writeCoalescing = writeCoalescing;
+    return g;
+  }
+
+  /**
+   * Setter for settings of heartbeat. Gateway pings sessions periodically and closes connections
+   * of sessions which stopped answering, releasing their service subscriptions. Disabled (null) by
+   * default, connections are closed only when TCP notices it.
+   *
+   * @param heartbeat heartbeat settings, or null to disable heartbeat
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway heartbeat(WebsocketHeartbeat heartbeat) {
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.heartbeat = heartbeat;
+    return g;
+  }
+
+  /**
+   * Setter for whether streams of sessions may be accessed from any thread. By default stream
+   * registry of a session is confined to its event loop (no CAS on access), code calling {@link
+   * WebsocketSession#register(long, reactor.core.Disposable)}, {@link
+   * WebsocketSession#dispose(long)}, etc. off event loop must go through {@link
+   * WebsocketSession#execute(Runnable)}. Enable it if such code (e.g. in onOpen or onClose
+   * functions) can't be changed.
+   *
+   * @param concurrentStreams whether streams of sessions may be accessed from any thread
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway concurrentStreams(boolean concurrentStreams) {
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.concurrentStreams = concurrentStreams;
+    return g;
+  }
+
+  /**
+   * Setter for settings of fair outbound scheduling. Outbound messages of a session are queued per
+   * stream and written by deficit round-robin while channel is writable, so that a burst of one
+   * stream doesn't hold back replies of other streams of the session. Disabled (null) by default,
+   * messages are written in order of their arrival.
+   *
+   * @param outboundScheduling outbound scheduling settings, or null to disable scheduling
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway outboundScheduling(WebsocketOutboundScheduling outboundScheduling) {
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.outboundScheduling = outboundScheduling;
+    return g;
+  }
+
+  /**
+   * Setter for admission control of streams. Streams over limits of active streams per session,
+   * per qualifier or per gateway are rejected with ERROR signal before service is called. Disabled
+   * (null) by default, any number of streams is admitted.
+   *
+   * @param admission stream admission, or null to disable admission control
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway admission(StreamAdmission admission) {
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.admission = admission;
+    return g;
+  }
+
+  /**
+   * Setter for sharing of identical streams across sessions. Identical request-stream calls of
+   * shared qualifiers subscribe to one service stream, its responses are encoded once for all
+   * subscribed sessions. Disabled (null) by default, every stream calls service on its own.
+   *
+   * @param streamSharing stream sharing settings, or null to disable sharing
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway streamSharing(WebsocketStreamSharing streamSharing) {
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.streamSharing = streamSharing;
+    return g;
+  }
+
+  /**
+   * Setter for resumption of sessions. Streams of session are kept running for a grace period once
+   * its connection is lost, and their responses are buffered, so that client which reconnects with
+   * resume token of the session continues them instead of subscribing again. Disabled (null) by
+   * default, streams are cancelled once connection is lost.
+   *
+   * @param resumption resumption settings, or null to disable resumption
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway resumption(WebsocketResumption resumption) {
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.resumption = resumption;
+    return g;
+  }
+
+  /**
+   * Setter for writability-aware backpressure. Channels of sessions get given write buffer water
+   * marks, and service streams are pulled in small batches only while channel of their session is
+   * writable, so that responses of slow client don't pile up in its outbound buffer. Disabled
+   * (null) by default, service streams are pulled regardless of writability.
+   *
+   * @param backpressure backpressure settings, or null to disable backpressure
+   * @return new WebsocketGateway instance
+   */
+  public WebsocketGateway backpressure(WebsocketBackpressure backpressure) {
+    WebsocketGateway g = new WebsocketGateway(this);
+    g.backpressure = backpressure;
+    return g;
+  }
+
   @Override
   public Mono<Gateway> start() {
     return Mono.defer(
         () -> {
           ServiceCall serviceCall =
               options.call().requestReleaser(ReferenceCountUtil::safestRelease);
-          WebsocketGatewayAcceptor acceptor =
-              new WebsocketGatewayAcceptor(serviceCall, gatewayMetrics, onMessage, onOpen, onClose);
+          final WebsocketGatewayAcceptor acceptor =
+              new WebsocketGatewayAcceptor(
+                  serviceCall,
+                  gatewayMetrics,
+                  WebsocketAcceptorSettings.builder()
+                      .messageCodec(messageCodec)
+                      .binaryMessageCodec(binaryMessageCodec)
+                      .compression(compression)
+                      .headerDictionarySize(headerDictionarySize)
+                      .batching(batching)
+                      .serviceRegistry(serviceRegistry)
+                      .chunkSize(chunkSize)
+                      .writeCoalescing(writeCoalescing)
+                      .heartbeat(heartbeat)
+                      .concurrentStreams(concurrentStreams)
+                      .outboundScheduling(outboundScheduling)
+                      .admission(admission)
+                      .streamSharing(streamSharing)
+                      .resumption(resumption)
+                      .backpressure(backpressure)
+                      .onMessage(onMessage)
+                      .onOpen(onOpen)
+                      .onClose(onClose)
+                      .build());
+
+          registerBufferMetrics(messageCodec.sizeEstimator(), binaryMessageCodec.sizeEstimator());
+          registerGauge(METRIC_TIMED_OUT_STREAMS, acceptor::timedOutStreams);
+          if (compression != null) {
+            registerGauge(METRIC_UNCOMPRESSED_BYTES, compression::uncompressedBytes);
+            registerGauge(METRIC_COMPRESSED_BYTES, compression::compressedBytes);
+          }
+          if (batching != null) {
+            registerGauge(METRIC_BATCHED_FRAMES, batching::frames);
+            registerGauge(METRIC_BATCHED_MESSAGES, batching::messages);
+          }
+          if (writeCoalescing != null) {
+            registerGauge(METRIC_COALESCED_FLUSHES, writeCoalescing::flushes);
+            registerGauge(METRIC_COALESCED_MESSAGES, writeCoalescing::messages);
+          }
+          if (heartbeat != null) {
+            registerGauge(METRIC_HEARTBEAT_PINGS, heartbeat::pings);
+            registerGauge(METRIC_REAPED_SESSIONS, heartbeat::reapedSessions);
+          }
+          if (outboundScheduling != null) {
+            registerGauge(METRIC_SCHEDULED_MESSAGES, outboundScheduling::messages);
+            registerGauge(METRIC_SCHEDULER_STALLS, outboundScheduling::stalls);
+          }
+          if (admission != null) {
+            registerAdmissionMetrics(admission);
+          }
+          if (streamSharing != null) {
+            registerGauge(METRIC_SHARED_UPSTREAMS, streamSharing::upstreams);
+            registerGauge(METRIC_SHARED_SUBSCRIBERS, streamSharing::subscribers);
+          }
+          if (resumption != null) {
+            registerGauge(METRIC_RESUMABLE_SESSIONS, resumption::resumableSessions);
+            registerGauge(METRIC_RESUMED_SESSIONS, resumption::resumedSessions);
+            registerGauge(METRIC_EXPIRED_SESSIONS, resumption::expiredSessions);
+          }
+          if (backpressure != null) {
+            registerGauge(METRIC_BUFFERED_BYTES, backpressure::bufferedBytes);
+            registerGauge(METRIC_MAX_SESSION_BUFFERED_BYTES, backpressure::maxSessionBufferedBytes);
+            registerGauge(METRIC_BACKPRESSURE_PAUSES, backpressure::pauses);
+          }
 
           if (options.workerPool() != null) {
             loopResources = new GatewayLoopResources((EventLoopGroup) options.workerPool());
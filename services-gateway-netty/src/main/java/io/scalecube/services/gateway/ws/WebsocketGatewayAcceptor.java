@@ -1,14 +1,36 @@
 package io.scalecube.services.gateway.ws;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.scalecube.services.CommunicationMode;
 import io.scalecube.services.ServiceCall;
+import io.scalecube.services.ServiceReference;
 import io.scalecube.services.api.ServiceMessage;
 import io.scalecube.services.exceptions.DefaultErrorMapper;
+import io.scalecube.services.exceptions.MessageCodecException;
+import io.scalecube.services.exceptions.ServiceUnavailableException;
+import io.scalecube.services.gateway.ContentNegotiation;
 import io.scalecube.services.gateway.GatewayMetrics;
 import io.scalecube.services.gateway.ReferenceCountUtil;
+import io.scalecube.services.gateway.StreamAdmission;
+import io.scalecube.services.gateway.StreamAdmission.Rejection;
 import io.scalecube.services.gateway.ws.GatewayMessage.Builder;
+import io.scalecube.services.registry.api.ServiceRegistry;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import org.reactivestreams.Publisher;
@@ -17,6 +39,7 @@ import org.slf4j.LoggerFactory;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.NettyPipeline;
 import reactor.netty.http.server.HttpServerRequest;
 import reactor.netty.http.server.HttpServerResponse;
 import reactor.netty.http.websocket.WebsocketInbound;
@@ -27,9 +50,34 @@ public class WebsocketGatewayAcceptor
 
   private static final Logger LOGGER = LoggerFactory.getLogger(WebsocketGatewayAcceptor.class);
 
-  private final GatewayMessageCodec messageCodec = new GatewayMessageCodec();
+  private static final ObjectMapper objectMapper = GatewayMessageCodec.objectMapper();
+
+  private static final int MESSAGE_TOO_BIG = 1009;
+
+  // preferred sub-protocol comes first, clients not requesting any of them fall back to JSON
+  private static final String SUBPROTOCOLS =
+      GatewayMessageBinaryCodec.SUBPROTOCOL + "," + GatewayMessageCodec.SUBPROTOCOL;
+
+  private final WebsocketAcceptorSettings settings;
+  private final GatewayMessageCodec messageCodec;
+  private final GatewayMessageBinaryCodec binaryMessageCodec;
+  private final WebsocketCompression compression;
+  private final int headerDictionarySize;
+  private final WebsocketBatching batching;
+  private final ServiceRegistry serviceRegistry;
+  private final WebsocketHeartbeat heartbeat;
+  private final HeartbeatScheduler heartbeatScheduler;
+  private final WebsocketOutboundScheduling outboundScheduling;
+  private final StreamAdmission admission;
+  // prebuilt errors of rejected streams, see StreamAdmission
+  private final Map<Rejection, ServiceMessage> rejections = new EnumMap<>(Rejection.class);
+  private final WebsocketStreamSharing streamSharing;
+  private final SharedStreams sharedStreams;
+  private final WebsocketResumption resumption;
+  private final WebsocketBackpressure backpressure;
   private final ServiceCall serviceCall;
   private final GatewayMetrics metrics;
+  private final LongAdder timedOutStreams = new LongAdder();
 
   private BiFunction<WebsocketSession, GatewayMessage, GatewayMessage> onMessage =
       (session, msg) -> msg;
@@ -58,30 +106,237 @@ public class WebsocketGatewayAcceptor
       BiFunction<WebsocketSession, GatewayMessage, GatewayMessage> onMessage,
       Consumer<WebsocketSession> onOpen,
       Consumer<WebsocketSession> onClose) {
+    this(
+        serviceCall,
+        metrics,
+        WebsocketAcceptorSettings.builder()
+            .onMessage(onMessage)
+            .onOpen(onOpen)
+            .onClose(onClose)
+            .build());
+  }
+
+  /**
+   * Constructor for websocket acceptor.
+   *
+   * @param serviceCall service call
+   * @param metrics metrics instance
+   * @param settings acceptor settings
+   */
+  WebsocketGatewayAcceptor(
+      ServiceCall serviceCall, GatewayMetrics metrics, WebsocketAcceptorSettings settings) {
     this.serviceCall = Objects.requireNonNull(serviceCall, "serviceCall");
     this.metrics = Objects.requireNonNull(metrics, "metrics");
+    this.settings = settings;
+    this.messageCodec = Objects.requireNonNull(settings.messageCodec(), "messageCodec");
+    this.binaryMessageCodec =
+        Objects.requireNonNull(settings.binaryMessageCodec(), "binaryMessageCodec");
+    this.compression = settings.compression();
+    this.headerDictionarySize = settings.headerDictionarySize();
+    this.batching = settings.batching();
+    this.serviceRegistry = settings.serviceRegistry();
+    this.heartbeat = settings.heartbeat();
+    this.heartbeatScheduler = heartbeat != null ? new HeartbeatScheduler(heartbeat) : null;
+    this.outboundScheduling = settings.outboundScheduling();
+    this.admission = settings.admission();
+    this.streamSharing = settings.streamSharing();
+    this.sharedStreams = streamSharing != null ? new SharedStreams(streamSharing) : null;
+    this.resumption = settings.resumption();
+    this.backpressure = settings.backpressure();
+    for (Rejection rejection : Rejection.values()) {
+      rejections.put(
+          rejection,
+          DefaultErrorMapper.INSTANCE.toMessage(
+              new ServiceUnavailableException(rejection.message())));
+    }
 
-    if (onMessage != null) {
-      this.onMessage = onMessage;
+    if (settings.onMessage() != null) {
+      this.onMessage = settings.onMessage();
     }
 
-    if (onOpen != null) {
-      this.onOpen = onOpen;
+    if (settings.onOpen() != null) {
+      this.onOpen = settings.onOpen();
     }
 
-    if (onClose != null) {
-      this.onClose = onClose;
+    if (settings.onClose() != null) {
+      this.onClose = settings.onClose();
     }
   }
 
   @Override
   public Publisher<Void> apply(HttpServerRequest httpRequest, HttpServerResponse httpResponse) {
+    final String extension = negotiateCompression(httpRequest);
+    if (extension != null) {
+      // response headers are sent along with handshake response
+      httpResponse.header(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS, extension);
+    }
+    final boolean batched = negotiateBatching(httpRequest, httpResponse);
+    final String contentType = negotiateContentType(httpRequest, httpResponse);
+    final String resumeToken = resumption != null ? WebsocketResumption.newToken() : null;
+    final WebsocketSession resumed =
+        negotiateResumption(httpRequest, httpResponse, contentType, resumeToken);
     return httpResponse.sendWebsocket(
-        (WebsocketInbound inbound, WebsocketOutbound outbound) ->
-            onConnect(new WebsocketSession(messageCodec, httpRequest, inbound, outbound)));
+        subprotocols(httpRequest),
+        (WebsocketInbound inbound, WebsocketOutbound outbound) -> {
+          if (extension != null) {
+            // right after websocket codecs, so that frame aggregator sees inflated frames
+            inbound.withConnection(
+                connection ->
+                    connection
+                        .channel()
+                        .pipeline()
+                        .addBefore(
+                            NettyPipeline.ReactiveBridge,
+                            PerMessageDeflateHandler.NAME,
+                            compression.newHandler(extension)));
+          }
+          if (heartbeat != null) {
+            inbound.withConnection(
+                connection -> {
+                  HeartbeatHandler handler = new HeartbeatHandler(heartbeat);
+                  connection
+                      .channel()
+                      .pipeline()
+                      .addBefore(NettyPipeline.ReactiveBridge, HeartbeatHandler.NAME, handler);
+                  heartbeatScheduler.register(connection.channel(), handler);
+                });
+          }
+          return onConnect(
+              new WebsocketSession(
+                  settings,
+                  extension != null,
+                  batched,
+                  contentType,
+                  resumeToken,
+                  httpRequest,
+                  inbound,
+                  outbound),
+              resumed);
+        });
+  }
+
+  /**
+   * Returns value of Sec-WebSocket-Extensions response header if permessage-deflate extension is
+   * enabled and was offered by client, or null otherwise.
+   */
+  private String negotiateCompression(HttpServerRequest httpRequest) {
+    if (compression == null) {
+      return null;
+    }
+    return compression.negotiate(
+        httpRequest.requestHeaders().get(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS));
+  }
+
+  /**
+   * Returns whether batching is enabled and client announced that it reads batched frames, sets
+   * response header in that case.
+   */
+  private boolean negotiateBatching(
+      HttpServerRequest httpRequest, HttpServerResponse httpResponse) {
+    if (batching == null || messageCodec.isIncrementalDecode()) {
+      return false;
+    }
+    String version = batching.negotiate(httpRequest.requestHeaders().get(WebsocketBatching.HEADER));
+    if (version == null) {
+      return false;
+    }
+    httpResponse.header(WebsocketBatching.HEADER, version);
+    return true;
+  }
+
+  /**
+   * Returns data format of the session by Content-Type header of handshake request, sets it as
+   * Content-Type response header. Unsupported formats fall back to default one, so do formats other
+   * than JSON on sessions of JSON sub-protocol (where data is embedded into JSON envelope).
+   */
+  private static String negotiateContentType(
+      HttpServerRequest httpRequest, HttpServerResponse httpResponse) {
+    String requested = httpRequest.requestHeaders().get(HttpHeaderNames.CONTENT_TYPE);
+    String contentType = ContentNegotiation.contentType(requested);
+    if (contentType == null
+        || !(ContentNegotiation.isJson(contentType)
+            || GatewayMessageBinaryCodec.SUBPROTOCOL.equals(selectedSubprotocol(httpRequest)))) {
+      LOGGER.warn(
+          "Data format {} is not supported, falling back to {}",
+          requested,
+          ContentNegotiation.DEFAULT_CONTENT_TYPE);
+      contentType = ContentNegotiation.DEFAULT_CONTENT_TYPE;
+    }
+    httpResponse.header(HttpHeaderNames.CONTENT_TYPE, contentType);
+    return contentType;
+  }
+
+  /**
+   * Returns session to be resumed by the new connection if resumption is enabled and client
+   * presented resume token of a session of the same sub-protocol and content type (see {@link
+   * WebsocketResumption}), or null otherwise. Sets resume token response header, and resumed one if
+   * session is resumed.
+   */
+  private WebsocketSession negotiateResumption(
+      HttpServerRequest httpRequest,
+      HttpServerResponse httpResponse,
+      String contentType,
+      String resumeToken) {
+    if (resumption == null) {
+      return null;
+    }
+    httpResponse.header(WebsocketResumption.TOKEN_HEADER, resumeToken);
+    String token = httpRequest.requestHeaders().get(WebsocketResumption.TOKEN_HEADER);
+    WebsocketSession session = resumption.claim(token);
+    if (session == null) {
+      return null;
+    }
+    boolean binary =
+        GatewayMessageBinaryCodec.SUBPROTOCOL.equals(selectedSubprotocol(httpRequest));
+    if (session.isBinary() != binary || !session.contentType().equals(contentType)) {
+      LOGGER.warn("Can't resume session={} with another data format", session.id());
+      resumption.register(token, session); // it's still resumable
+      return null;
+    }
+    if (!session.claim()) {
+      return null; // expired
+    }
+    httpResponse.header(WebsocketResumption.RESUMED_HEADER, "true");
+    return session;
   }
 
-  private Mono<Void> onConnect(WebsocketSession session) {
+  /**
+   * Returns supported sub-protocols if client requested any of them, or null otherwise (server
+   * which declares sub-protocols doesn't accept session without selected one).
+   */
+  private static String subprotocols(HttpServerRequest httpRequest) {
+    return selectedSubprotocol(httpRequest) != null ? SUBPROTOCOLS : null;
+  }
+
+  /**
+   * Returns sub-protocol which will be selected during handshake, i.e. the first supported one
+   * requested by client, or null if client didn't request any of them.
+   */
+  private static String selectedSubprotocol(HttpServerRequest httpRequest) {
+    String requested = httpRequest.requestHeaders().get(HttpHeaderNames.SEC_WEBSOCKET_PROTOCOL);
+    if (requested != null) {
+      for (String subprotocol : requested.split(",")) {
+        String trimmed = subprotocol.trim();
+        if (GatewayMessageBinaryCodec.SUBPROTOCOL.equals(trimmed)
+            || GatewayMessageCodec.SUBPROTOCOL.equals(trimmed)) {
+          return trimmed;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns number of streams disposed on inactivity timeout (see {@link
+   * GatewayMessage#inactivity()}).
+   *
+   * @return number of timed out streams
+   */
+  public long timedOutStreams() {
+    return timedOutStreams.sum();
+  }
+
+  private Mono<Void> onConnect(WebsocketSession session, WebsocketSession resumed) {
     LOGGER.info("Session opened: " + session);
 
     try {
@@ -90,55 +345,467 @@ public class WebsocketGatewayAcceptor
       return session.close(e.getMessage());
     }
 
-    session
-        .receive()
-        .subscribe(
-            byteBuf ->
-                Mono.fromCallable(() -> messageCodec.decode(byteBuf))
-                    .doOnNext(message -> metrics.markRequest())
-                    .map(this::checkSid)
-                    .flatMap(msg -> handleCancel(session, msg))
-                    .map(msg -> checkSidNonce(session, (GatewayMessage) msg))
-                    .map(this::checkQualifier)
-                    .map(msg -> onMessage.apply(session, msg))
-                    .subscribe(
-                        request -> handleMessage(session, request),
-                        th -> {
-                          if (th instanceof WebsocketRequestException) {
-                            WebsocketRequestException ex = (WebsocketRequestException) th;
-                            ex.releaseRequest(); // release
-                            handleError(session, ex.request(), th);
-                          } else {
-                            LOGGER.error(
-                                "Exception occurred on processing request, session={}",
-                                session.id(),
-                                th);
-                          }
-                        }),
-            th ->
-                LOGGER.error(
-                    "Exception occurred on session.receive(), session={}", session.id(), th));
+    if (resumption != null) {
+      resumption.register(session.resumeToken(), session);
+    }
+    if (resumed != null) {
+      // streams of resumed session continue here, before requests of this connection come in
+      resumed.resume(session);
+    }
+
+    final HeaderDictionary dictionary =
+        headerDictionarySize > 0 ? new HeaderDictionary(headerDictionarySize) : null;
+
+    if (session.isBinary()) {
+      session
+          .receive()
+          .subscribe(
+              frame ->
+                  forEachEnvelope(
+                      session,
+                      frame,
+                      byteBuf ->
+                          handleRequest(
+                              session, dictionary, () -> binaryMessageCodec.decode(byteBuf))),
+              th ->
+                  LOGGER.error(
+                      "Exception occurred on session.receive(), session={}", session.id(), th));
+    } else if (messageCodec.isIncrementalDecode()) {
+      GatewayMessageIncrementalDecoder decoder = messageCodec.newIncrementalDecoder();
+      session
+          .receiveFrames()
+          .doFinally(signalType -> decoder.reset())
+          .subscribe(
+              frame ->
+                  handleRequest(
+                      session,
+                      dictionary,
+                      () -> decodeFragment(session, decoder, frame)),
+              th ->
+                  LOGGER.error(
+                      "Exception occurred on session.receiveFrames(), session={}",
+                      session.id(),
+                      th));
+    } else {
+      session
+          .receive()
+          .subscribe(
+              frame ->
+                  forEachEnvelope(
+                      session,
+                      frame,
+                      byteBuf ->
+                          handleRequest(session, dictionary, () -> messageCodec.decode(byteBuf))),
+              th ->
+                  LOGGER.error(
+                      "Exception occurred on session.receive(), session={}", session.id(), th));
+    }
 
     return session
         .onClose(() -> onClose.accept(session))
         .doOnTerminate(() -> LOGGER.info("Session closed: " + session));
   }
 
+  /**
+   * Feeds given frame fragment to incremental decoder of the session. Session whose message exceeds
+   * max message size is closed with status 1009 (message too big), like the one whose message
+   * exceeds max inflated size (see {@link PerMessageDeflateHandler}).
+   */
+  private static GatewayMessage decodeFragment(
+      WebsocketSession session, GatewayMessageIncrementalDecoder decoder, WebSocketFrame frame)
+      throws MessageCodecException {
+    try {
+      return decoder.feed(frame.content(), frame.isFinalFragment());
+    } catch (TooLongFrameException ex) {
+      session
+          .close(MESSAGE_TOO_BIG, ex.getMessage())
+          .subscribe(
+              null,
+              th -> LOGGER.debug("Failed to close session={}: {}", session.id(), th.toString()));
+      throw ex;
+    }
+  }
+
+  /**
+   * Passes envelopes of given frame to given consumer one by one, splitting batched frame if
+   * batching was negotiated for the session.
+   */
+  private static void forEachEnvelope(
+      WebsocketSession session, ByteBuf frame, Consumer<ByteBuf> consumer) {
+    if (!session.isBatching()) {
+      consumer.accept(frame);
+      return;
+    }
+    List<ByteBuf> envelopes;
+    try {
+      envelopes = BatchFrames.split(frame, session.isBinary());
+    } catch (Exception e) {
+      LOGGER.error("Failed to split inbound frame, session={}", session.id(), e);
+      return;
+    }
+    envelopes.forEach(consumer);
+  }
+
+  /**
+   * Handles inbound request: decodes, validates and dispatches it in straight-line code on the
+   * event loop of the session, reactive chain begins only at service call. Invalid request is
+   * rejected with bad request ERROR signal right away.
+   *
+   * @param session websocket session
+   * @param dictionary header dictionary of the session, or null if it's disabled
+   * @param decoder function which returns decoded request, or null if request is not complete yet
+   */
+  private void handleRequest(
+      WebsocketSession session, HeaderDictionary dictionary, Callable<GatewayMessage> decoder) {
+    GatewayMessage msg;
+    try {
+      msg = decoder.call();
+    } catch (Throwable th) {
+      LOGGER.error("Exception occurred on processing request, session={}", session.id(), th);
+      return;
+    }
+    if (msg == null) {
+      return; // request is not complete yet
+    }
+    metrics.markRequest();
+
+    if (!msg.hasStreamId()) {
+      rejectRequest(session, msg, "sid is missing");
+      return;
+    }
+    if (msg.hasSignal(Signal.CANCEL)) {
+      handleCancel(session, msg);
+      return;
+    }
+    if (msg.hasSignal(Signal.REQUEST_N)) {
+      handleRequestN(session, msg);
+      return;
+    }
+    if (msg.hasSignal(Signal.HEADERS)) {
+      handleHeaders(session, dictionary, msg);
+      return;
+    }
+    if (session.containsSid(msg.streamIdAsLong())) {
+      rejectRequest(session, msg, "sid=" + msg.streamIdAsLong() + " is already registered");
+      return;
+    }
+    if (dictionary != null) {
+      try {
+        msg = dictionary.resolve(msg);
+      } catch (IllegalArgumentException e) {
+        rejectRequest(session, msg, e.getMessage());
+        return;
+      }
+    }
+    if (msg.qualifier() == null) {
+      rejectRequest(session, msg, "qualifier is missing");
+      return;
+    }
+    try {
+      DeltaEncoder.of(msg);
+      CreditSubscriber.initialCredit(msg);
+      if (outboundScheduling != null) {
+        outboundScheduling.priority(msg);
+      }
+    } catch (IllegalArgumentException e) {
+      rejectRequest(session, msg, e.getMessage());
+      return;
+    }
+
+    GatewayMessage request;
+    try {
+      request = onMessage.apply(session, msg);
+    } catch (Throwable th) {
+      // request wouldn't go any further, so release its data here, exactly once: a zero-copy
+      // slice shares reference count of inbound frame
+      if (th instanceof WebsocketRequestException) {
+        WebsocketRequestException ex = (WebsocketRequestException) th;
+        ex.releaseRequest(); // release
+        handleError(session, ex.request(), th);
+      } else {
+        Optional.ofNullable(msg.data()).ifPresent(ReferenceCountUtil::safestRelease);
+        LOGGER.error("Exception occurred on processing request, session={}", session.id(), th);
+      }
+      return;
+    }
+
+    handleMessage(session, request);
+  }
+
+  /** Rejects invalid request with bad request ERROR signal, releasing request data. */
+  private void rejectRequest(WebsocketSession session, GatewayMessage request, String reason) {
+    WebsocketRequestException ex = WebsocketRequestException.newBadRequest(reason, request);
+    ex.releaseRequest(); // release
+    handleError(session, request, ex);
+  }
+
   private void handleMessage(WebsocketSession session, GatewayMessage request) {
-    Long sid = request.streamId();
+    long sid = request.streamIdAsLong();
+
+    if (admission != null) {
+      Rejection rejection = admission.tryAcquire(request.qualifier(), session.activeStreams());
+      if (rejection != null) {
+        rejectStream(session, request, rejection);
+        return;
+      }
+    }
+
+    // from here request data (copy or slice of inbound frame) is owned by service call, it's
+    // released by request releaser once request is sent or failed
+
+    if (outboundScheduling != null) {
+      int priority = outboundScheduling.priority(request); // validated by handleRequest
+      if (priority > 0) {
+        session.prioritize(sid, priority);
+      }
+    }
+
+    ServiceMessage serviceRequest = GatewayMessage.toServiceMessage(request);
+    if (!ContentNegotiation.DEFAULT_CONTENT_TYPE.equals(session.contentType())) {
+      serviceRequest =
+          ServiceMessage.from(serviceRequest).dataFormat(session.contentType()).build();
+    }
+    long initialCredit = CreditSubscriber.initialCredit(request); // validated by handleRequest
+
+    // credit-based request goes on as stream, client grants credits to it with REQUEST_N
+    if (initialCredit < 0 && isRequestResponse(serviceRequest)) {
+      handleRequestResponse(session, request, serviceRequest);
+      return;
+    }
+
+    AtomicBoolean receivedError = new AtomicBoolean(false);
+    DeltaEncoder deltaEncoder = DeltaEncoder.of(request); // validated by handleRequest
+
+    if (deltaEncoder == null && initialCredit < 0 && isShared(request)) {
+      handleSharedStream(session, request);
+      return;
+    }
+
+    Flux<ServiceMessage> serviceStream = serviceCall.requestMany(serviceRequest);
+    if (initialCredit < 0 && request.hasRateLimit()) {
+      // credit-based stream is pulled by client credits only
+      serviceStream = serviceStream.limitRate(request.rateLimitAsInt());
+    }
+
+    StreamInactivity inactivity =
+        StreamInactivity.start(
+            request, () -> session.execute(() -> handleInactivity(session, request)));
+
+    Flux<GatewayMessage> responses =
+        serviceStream
+            .map(response -> prepareResponse(session, sid, response, receivedError, deltaEncoder))
+            .doOnNext(
+                response -> {
+                  metrics.markServiceResponse();
+                  if (inactivity != null) {
+                    inactivity.touch();
+                  }
+                })
+            .doFinally(
+                signalType -> {
+                  if (inactivity != null) {
+                    inactivity.cancel();
+                  }
+                  if (admission != null) {
+                    admission.release(request.qualifier());
+                  }
+                  // service call may terminate off event loop
+                  session.execute(() -> session.dispose(sid));
+                });
+
+    Consumer<GatewayMessage> onNext =
+        response ->
+            session
+                .send(response)
+                .subscribe(
+                    avoid -> metrics.markResponse(),
+                    th ->
+                        LOGGER.error(
+                            "Exception occurred on sending response: "
+                                + "{} for request: {}, session={}",
+                            response,
+                            request,
+                            session.id(),
+                            th));
+    Consumer<Throwable> onError = th -> handleError(session, request, th);
+    Runnable onComplete = () -> handleCompletion(session, sid, receivedError);
+
+    Disposable disposable;
+    if (initialCredit >= 0) {
+      disposable =
+          responses.subscribeWith(
+              new CreditSubscriber<>(initialCredit, onNext, onError, onComplete));
+    } else if (backpressure != null) {
+      disposable =
+          responses.subscribeWith(
+              new WritabilitySubscriber<>(
+                  backpressure.prefetch(),
+                  session::isWritable,
+                  backpressure::recordPause,
+                  onNext,
+                  onError,
+                  onComplete));
+    } else {
+      disposable = responses.subscribe(onNext, onError, onComplete);
+    }
+
+    session.register(sid, disposable);
+  }
+
+  /**
+   * Returns true if request-stream call of given request may share upstream stream with identical
+   * calls of other sessions, see {@link WebsocketStreamSharing}.
+   */
+  private boolean isShared(GatewayMessage request) {
+    return streamSharing != null
+        && streamSharing.isShared(request.qualifier())
+        && !request.hasRateLimit()
+        && !request.hasInactivity();
+  }
 
+  /**
+   * Handles request-stream call by subscribing to upstream stream shared by identical calls (see
+   * {@link SharedStreams}). Responses are encoded once by upstream stream, every subscriber only
+   * patches its stream id into the encoded response.
+   */
+  private void handleSharedStream(WebsocketSession session, GatewayMessage request) {
+    long sid = request.streamIdAsLong();
     AtomicBoolean receivedError = new AtomicBoolean(false);
+    SharedStreams.Key key =
+        SharedStreams.Key.of(request, session.contentType(), session.isBinary()); // releases data
 
-    final Flux<ServiceMessage> serviceStream =
-        serviceCall.requestMany(GatewayMessage.toServiceMessage(request));
+    Consumer<SharedStreams.Message> onNext =
+        shared -> {
+          GatewayMessage response = GatewayMessage.from(shared.message()).streamId(sid).build();
+          if (response.hasSignal(Signal.ERROR)) {
+            receivedError.set(true);
+          }
+          ByteBuf content =
+              session.isBinary()
+                  ? binaryMessageCodec.encodeStreamId(shared.content(), sid, session.alloc())
+                  : messageCodec.encodeStreamId(shared.content(), sid, session.alloc());
+          session
+              .send(response, content)
+              .subscribe(
+                  avoid -> metrics.markResponse(),
+                  th ->
+                      LOGGER.error(
+                          "Exception occurred on sending response: "
+                              + "{} for request: {}, session={}",
+                          response,
+                          request,
+                          session.id(),
+                          th));
+        };
+    Consumer<Throwable> onError = th -> handleError(session, request, th);
+    Runnable onComplete = () -> handleCompletion(session, sid, receivedError);
+    Runnable onFinally =
+        () -> {
+          if (admission != null) {
+            admission.release(request.qualifier());
+          }
+          // upstream stream may terminate off event loop
+          session.execute(() -> session.dispose(sid));
+        };
 
     Disposable disposable =
-        Optional.ofNullable(request.rateLimit())
-            .map(serviceStream::limitRate)
-            .orElse(serviceStream)
-            .map(response -> prepareResponse(sid, response, receivedError))
+        sharedStreams.subscribe(
+            key, () -> sharedUpstream(key), onNext, onError, onComplete, onFinally);
+
+    session.register(sid, disposable);
+  }
+
+  /**
+   * Returns upstream stream of given key, its responses are transcoded and encoded once for all
+   * subscribers, without stream id.
+   */
+  private Flux<SharedStreams.Message> sharedUpstream(SharedStreams.Key key) {
+    return serviceCall
+        .requestMany(key.toServiceMessage())
+        .map(
+            message -> {
+              metrics.markServiceResponse();
+              ServiceMessage transcoded = transcode(key.contentType(), message);
+              GatewayMessage.Builder builder = GatewayMessage.from(transcoded);
+              if (message.isError()) {
+                builder.signal(Signal.ERROR);
+              }
+              GatewayMessage response = builder.build();
+              ByteBuf content =
+                  key.isBinary()
+                      ? binaryMessageCodec.encode(response)
+                      : messageCodec.encode(response);
+              // data is released by encoding, it's not needed by subscribers anyway
+              return new SharedStreams.Message(
+                  GatewayMessage.from(response).data(null).build(), content);
+            });
+  }
+
+  /**
+   * Rejects stream over limits of {@link StreamAdmission} with prebuilt ERROR signal, before
+   * service is called.
+   */
+  private void rejectStream(WebsocketSession session, GatewayMessage request, Rejection rejection) {
+    Optional.ofNullable(request.data()).ifPresent(ReferenceCountUtil::safestRelease);
+    LOGGER.debug("Reject request: {}, {}, session={}", request, rejection, session.id());
+    GatewayMessage response =
+        GatewayMessage.from(rejections.get(rejection))
+            .streamId(request.streamIdAsLong())
+            .signal(Signal.ERROR)
+            .build();
+    sendSignal(session, response);
+  }
+
+  /**
+   * Returns true if request is addressed to request-response method, i.e. all service references
+   * of its qualifier known to service registry are of request-response mode.
+   */
+  private boolean isRequestResponse(ServiceMessage request) {
+    if (serviceRegistry == null) {
+      return false;
+    }
+    List<ServiceReference> references = serviceRegistry.lookupService(request);
+    if (references.isEmpty()) {
+      return false;
+    }
+    for (ServiceReference reference : references) {
+      if (reference.mode() != CommunicationMode.REQUEST_RESPONSE) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Handles request to request-response method. Response with data is sent in single frame with
+   * completion signal inline, empty response (or response without data) is followed by separate
+   * COMPLETE frame as on request-stream.
+   */
+  private void handleRequestResponse(
+      WebsocketSession session, GatewayMessage request, ServiceMessage serviceRequest) {
+    long sid = request.streamIdAsLong();
+
+    StreamInactivity inactivity =
+        StreamInactivity.start(
+            request, () -> session.execute(() -> handleInactivity(session, request)));
+
+    Disposable disposable =
+        serviceCall
+            .requestOne(serviceRequest)
             .doOnNext(response -> metrics.markServiceResponse())
-            .doFinally(signalType -> session.dispose(sid))
+            .flatMapMany(response -> prepareSingleResponse(session, sid, response))
+            .switchIfEmpty(Mono.fromCallable(() -> completion(sid)))
+            .doFinally(
+                signalType -> {
+                  if (inactivity != null) {
+                    inactivity.cancel();
+                  }
+                  if (admission != null) {
+                    admission.release(request.qualifier());
+                  }
+                  // service call may terminate off event loop
+                  session.execute(() -> session.dispose(sid));
+                })
             .subscribe(
                 response ->
                     session
@@ -156,20 +823,36 @@ public class WebsocketGatewayAcceptor
                 th -> {
                   // handle error
                   handleError(session, request, th);
-                },
-                () -> {
-                  // handle complete
-                  handleCompletion(session, sid, receivedError);
                 });
 
     session.register(sid, disposable);
   }
 
+  private Flux<GatewayMessage> prepareSingleResponse(
+      WebsocketSession session, long streamId, ServiceMessage message) {
+    GatewayMessage.Builder response =
+        GatewayMessage.from(transcode(session, message)).streamId(streamId);
+    if (message.isError()) {
+      return Flux.just(response.signal(Signal.ERROR).build());
+    }
+    if (message.data() != null) {
+      return Flux.just(response.signal(Signal.COMPLETE).build()); // inline completion
+    }
+    // nothing to put completion on, client expects response message itself
+    return Flux.just(response.build(), completion(streamId));
+  }
+
+  private static GatewayMessage completion(long streamId) {
+    return GatewayMessage.builder().streamId(streamId).signal(Signal.COMPLETE).build();
+  }
+
   private void handleError(WebsocketSession session, GatewayMessage req, Throwable th) {
     LOGGER.error("Exception occurred on request: {}, session={}", req, session.id(), th);
 
     Builder builder = GatewayMessage.from(DefaultErrorMapper.INSTANCE.toMessage(th));
-    Optional.ofNullable(req.streamId()).ifPresent(builder::streamId);
+    if (req.hasStreamId()) {
+      builder.streamId(req.streamIdAsLong());
+    }
     GatewayMessage response = builder.signal(Signal.ERROR).build();
 
     session
@@ -184,11 +867,26 @@ public class WebsocketGatewayAcceptor
                     throwable));
   }
 
-  private void handleCompletion(WebsocketSession session, Long sid, AtomicBoolean receivedError) {
+  /**
+   * Handles inactivity timeout of stream: disposes service subscription and sends ERROR signal
+   * with {@link TimeoutException}, unless stream has terminated meanwhile.
+   */
+  private void handleInactivity(WebsocketSession session, GatewayMessage request) {
+    long sid = request.streamIdAsLong();
+    if (!session.dispose(sid)) {
+      return;
+    }
+    timedOutStreams.increment();
+    handleError(
+        session,
+        request,
+        new TimeoutException(
+            "No response on sid=" + sid + " within " + request.inactivityAsInt() + "ms"));
+  }
+
+  private void handleCompletion(WebsocketSession session, long sid, AtomicBoolean receivedError) {
     if (!receivedError.get()) {
-      Builder builder = GatewayMessage.builder();
-      Optional.ofNullable(sid).ifPresent(builder::streamId);
-      GatewayMessage response = builder.signal(Signal.COMPLETE).build();
+      GatewayMessage response = completion(sid);
       session
           .send(response)
           .subscribe(
@@ -202,53 +900,128 @@ public class WebsocketGatewayAcceptor
     }
   }
 
-  private GatewayMessage checkQualifier(GatewayMessage msg) {
-    if (msg.qualifier() == null) {
-      throw WebsocketRequestException.newBadRequest("qualifier is missing", msg);
+  private void handleCancel(WebsocketSession session, GatewayMessage msg) {
+    if (!session.dispose(msg.streamIdAsLong())) {
+      rejectRequest(session, msg, "Failed CANCEL request");
+      return;
     }
-    return msg;
+    // release data if CANCEL contains data (it shouldn't normally), just in case
+    Optional.ofNullable(msg.data()).ifPresent(ReferenceCountUtil::safestRelease);
+
+    GatewayMessage cancelAck =
+        GatewayMessage.builder().streamId(msg.streamIdAsLong()).signal(Signal.CANCEL).build();
+    sendSignal(session, cancelAck);
   }
 
-  private GatewayMessage checkSidNonce(WebsocketSession session, GatewayMessage msg) {
-    if (session.containsSid(msg.streamId())) {
-      throw WebsocketRequestException.newBadRequest(
-          "sid=" + msg.streamId() + " is already registered", msg);
-    } else {
-      return msg;
+  private void handleRequestN(WebsocketSession session, GatewayMessage msg) {
+    long credit;
+    try {
+      credit = CreditSubscriber.credit(msg);
+    } catch (IllegalArgumentException e) {
+      rejectRequest(session, msg, e.getMessage());
+      return;
+    }
+    long sid = msg.streamIdAsLong();
+    if (!session.request(sid, credit)) {
+      if (session.containsSid(sid)) {
+        rejectRequest(session, msg, "sid=" + sid + " is not credit-based");
+        return;
+      }
+      // stream has just terminated, credit isn't needed anymore
+      LOGGER.debug("Ignore REQUEST_N for unknown sid={}, session={}", sid, session.id());
     }
+    // release data if REQUEST_N contains data (it shouldn't normally), just in case
+    Optional.ofNullable(msg.data()).ifPresent(ReferenceCountUtil::safestRelease);
+    // no acknowledgement, like request(n) of reactive streams
   }
 
-  private Mono<?> handleCancel(WebsocketSession session, GatewayMessage msg) {
-    if (!msg.hasSignal(Signal.CANCEL)) {
-      return Mono.just(msg);
+  private void handleHeaders(
+      WebsocketSession session, HeaderDictionary dictionary, GatewayMessage msg) {
+    if (dictionary == null) {
+      rejectRequest(session, msg, "Header dictionary is disabled");
+      return;
     }
+    String[] values;
+    try {
+      values = readHeaderValues(msg.data());
+    } catch (Exception e) {
+      rejectRequest(session, msg, "Failed HEADERS request");
+      return;
+    }
+    ReferenceCountUtil.safestRelease(msg.data());
 
-    if (!session.dispose(msg.streamId())) {
-      throw WebsocketRequestException.newBadRequest("Failed CANCEL request", msg);
+    int[] indexes = new int[values.length];
+    for (int i = 0; i < values.length; i++) {
+      indexes[i] = dictionary.register(values[i]);
     }
-    // release data if CANCEL contains data (it shouldn't normally), just in case
-    Optional.ofNullable(msg.data()).ifPresent(ReferenceCountUtil::safestRelease);
 
-    GatewayMessage cancelAck =
-        GatewayMessage.builder().streamId(msg.streamId()).signal(Signal.CANCEL).build();
-    return session.send(cancelAck); // no need to subscribe here since flatMap will do
+    GatewayMessage headersAck =
+        GatewayMessage.builder()
+            .streamId(msg.streamIdAsLong())
+            .signal(Signal.HEADERS)
+            .data(indexes)
+            .build();
+    sendSignal(session, headersAck);
   }
 
-  private GatewayMessage checkSid(GatewayMessage msg) {
-    if (msg.streamId() == null) {
-      throw WebsocketRequestException.newBadRequest("sid is missing", msg);
-    } else {
-      return msg;
+  private static String[] readHeaderValues(Object data) throws IOException {
+    if (!(data instanceof ByteBuf)) {
+      throw new IllegalArgumentException("data is missing");
     }
+    String[] values =
+        objectMapper.readValue(new ByteBufInputStream((ByteBuf) data), String[].class);
+    for (String value : values) {
+      Objects.requireNonNull(value, "header value");
+    }
+    return values;
+  }
+
+  private void sendSignal(WebsocketSession session, GatewayMessage signal) {
+    session
+        .send(signal)
+        .subscribe(
+            null,
+            th ->
+                LOGGER.error(
+                    "Exception occurred on sending signal: {}, session={}",
+                    signal,
+                    session.id(),
+                    th));
   }
 
   private GatewayMessage prepareResponse(
-      Long streamId, ServiceMessage message, AtomicBoolean receivedErrorMessage) {
-    GatewayMessage.Builder response = GatewayMessage.from(message).streamId(streamId);
+      WebsocketSession session,
+      long streamId,
+      ServiceMessage message,
+      AtomicBoolean receivedErrorMessage,
+      DeltaEncoder deltaEncoder) {
+    ServiceMessage transcoded = transcode(session, message);
+    GatewayMessage.Builder response = GatewayMessage.from(transcoded).streamId(streamId);
     if (message.isError()) {
       receivedErrorMessage.set(true);
       response.signal(Signal.ERROR);
+    } else if (deltaEncoder != null) {
+      deltaEncoder.encode(response, transcoded.data());
     }
     return response.build();
   }
+
+  /**
+   * Transcodes encoded response data into data format of the session if service responded in
+   * another format.
+   */
+  private static ServiceMessage transcode(WebsocketSession session, ServiceMessage message) {
+    return transcode(session.contentType(), message);
+  }
+
+  private static ServiceMessage transcode(String contentType, ServiceMessage message) {
+    String dataFormat = message.dataFormatOrDefault();
+    if (!message.hasData(ByteBuf.class) || dataFormat.equals(contentType)) {
+      return message;
+    }
+    ByteBuf data =
+        ContentNegotiation.transcode(
+            message.data(), dataFormat, contentType, ByteBufAllocator.DEFAULT);
+    return ServiceMessage.from(message).data(data).dataFormat(contentType).build();
+  }
 }
@@ -0,0 +1,116 @@
+package io.scalecube.services.gateway.ws;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Settings of server-driven websocket heartbeat. Gateway pings every session once per {@link
+ * #interval(Duration)}, and closes the connection of a session which didn't answer {@link
+ * #maxMissedPongs(int)} pings in a row, so that half-open connections (e.g. of mobile clients
+ * which dropped off the network) don't keep their service streams running until TCP notices the
+ * drop. Subscriptions of reaped session are cleared as on any other connection close.
+ *
+ * <p>Sessions are pinged by one periodic task per event loop, not by a timer per session.
+ *
+ * <p>Counters of pings and reaped sessions ({@link #pings()}, {@link #reapedSessions()}) are
+ * shared by all instances derived from this one.
+ */
+public final class WebsocketHeartbeat {
+
+  public static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(30);
+  public static final int DEFAULT_MAX_MISSED_PONGS = 3;
+
+  private Duration interval = DEFAULT_INTERVAL;
+  private int maxMissedPongs = DEFAULT_MAX_MISSED_PONGS;
+
+  private final LongAdder pings;
+  private final LongAdder reapedSessions;
+
+  public WebsocketHeartbeat() {
+    this.pings = new LongAdder();
+    this.reapedSessions = new LongAdder();
+  }
+
+  private WebsocketHeartbeat(WebsocketHeartbeat other) {
+    this.interval = other.interval;
+    this.maxMissedPongs = other.maxMissedPongs;
+    this.pings = other.pings;
+    this.reapedSessions = other.reapedSessions;
+  }
+
+  /**
+   * Setter for interval between pings of a session. Default is {@link #DEFAULT_INTERVAL}.
+   *
+   * @param interval ping interval
+   * @return new WebsocketHeartbeat instance
+   */
+  public WebsocketHeartbeat interval(Duration interval) {
+    Objects.requireNonNull(interval, "interval");
+    if (interval.isZero() || interval.isNegative()) {
+      throw new IllegalArgumentException("Invalid interval: " + interval);
+    }
+    WebsocketHeartbeat h = new WebsocketHeartbeat(this);
+    h.interval = interval;
+    return h;
+  }
+
+  public Duration interval() {
+    return interval;
+  }
+
+  /**
+   * Setter for number of pings in a row a session may leave unanswered, the session is closed on
+   * the next heartbeat. Default is {@link #DEFAULT_MAX_MISSED_PONGS}.
+   *
+   * @param maxMissedPongs max number of missed pongs
+   * @return new WebsocketHeartbeat instance
+   */
+  public WebsocketHeartbeat maxMissedPongs(int maxMissedPongs) {
+    if (maxMissedPongs < 1) {
+      throw new IllegalArgumentException("Invalid max missed pongs: " + maxMissedPongs);
+    }
+    WebsocketHeartbeat h = new WebsocketHeartbeat(this);
+    h.maxMissedPongs = maxMissedPongs;
+    return h;
+  }
+
+  public int maxMissedPongs() {
+    return maxMissedPongs;
+  }
+
+  /**
+   * Returns number of pings sent.
+   *
+   * @return number of pings
+   */
+  public long pings() {
+    return pings.sum();
+  }
+
+  /**
+   * Returns number of sessions closed for missing pongs.
+   *
+   * @return number of reaped sessions
+   */
+  public long reapedSessions() {
+    return reapedSessions.sum();
+  }
+
+  void recordPing() {
+    pings.increment();
+  }
+
+  void recordReapedSession() {
+    reapedSessions.increment();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("WebsocketHeartbeat{");
+    sb.append("interval=").append(interval);
+    sb.append(", maxMissedPongs=").append(maxMissedPongs);
+    sb.append('}');
+    return sb.toString();
+  }
+}
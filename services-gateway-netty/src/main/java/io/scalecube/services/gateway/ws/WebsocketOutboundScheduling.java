@@ -0,0 +1,146 @@
+package io.scalecube.services.gateway.ws;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Settings of fair outbound scheduling across streams of a session. By default outbound messages
+ * of a session are written in order of their arrival, so a burst of one stream delays messages of
+ * all other streams queued behind it. With scheduling, messages are queued per stream and written
+ * by deficit round-robin: every round an active stream may write up to {@link #quantum(int)}
+ * bytes times its priority, and messages are written only while channel is writable, the rest
+ * waits in stream queues. So an interactive call sharing a connection with bulk streams waits for
+ * at most one round of them.
+ *
+ * <p>Priority of stream is taken from {@link #PRIORITY_HEADER} of its request (from 1 to {@link
+ * #maxPriority(int)}, 1 by default), e.g. {@code "prio":"4"}. Size of message is estimated by size
+ * of its data.
+ *
+ * <p>Counters of scheduled messages and stalls ({@link #messages()}, {@link #stalls()}) are shared
+ * by all instances derived from this one.
+ */
+public final class WebsocketOutboundScheduling {
+
+  public static final String PRIORITY_HEADER = "prio";
+
+  public static final int DEFAULT_QUANTUM = 16 * 1024;
+  public static final int DEFAULT_MAX_PRIORITY = 8;
+
+  private int quantum = DEFAULT_QUANTUM;
+  private int maxPriority = DEFAULT_MAX_PRIORITY;
+
+  private final LongAdder messages;
+  private final LongAdder stalls;
+
+  public WebsocketOutboundScheduling() {
+    this.messages = new LongAdder();
+    this.stalls = new LongAdder();
+  }
+
+  private WebsocketOutboundScheduling(WebsocketOutboundScheduling other) {
+    this.quantum = other.quantum;
+    this.maxPriority = other.maxPriority;
+    this.messages = other.messages;
+    this.stalls = other.stalls;
+  }
+
+  /**
+   * Setter for number of bytes stream of priority 1 may write per round. Default is {@link
+   * #DEFAULT_QUANTUM}.
+   *
+   * @param quantum number of bytes per round
+   * @return new WebsocketOutboundScheduling instance
+   */
+  public WebsocketOutboundScheduling quantum(int quantum) {
+    if (quantum < 1) {
+      throw new IllegalArgumentException("Invalid quantum: " + quantum);
+    }
+    WebsocketOutboundScheduling s = new WebsocketOutboundScheduling(this);
+    s.quantum = quantum;
+    return s;
+  }
+
+  public int quantum() {
+    return quantum;
+  }
+
+  /**
+   * Setter for max priority of stream, requests with greater priority are rejected. Default is
+   * {@link #DEFAULT_MAX_PRIORITY}.
+   *
+   * @param maxPriority max priority
+   * @return new WebsocketOutboundScheduling instance
+   */
+  public WebsocketOutboundScheduling maxPriority(int maxPriority) {
+    if (maxPriority < 1) {
+      throw new IllegalArgumentException("Invalid max priority: " + maxPriority);
+    }
+    WebsocketOutboundScheduling s = new WebsocketOutboundScheduling(this);
+    s.maxPriority = maxPriority;
+    return s;
+  }
+
+  public int maxPriority() {
+    return maxPriority;
+  }
+
+  /**
+   * Returns priority of stream requested by given request.
+   *
+   * @param request request
+   * @return priority, or 0 if request doesn't have {@link #PRIORITY_HEADER}
+   * @throws IllegalArgumentException if priority is not a number from 1 to {@link #maxPriority()}
+   */
+  public int priority(GatewayMessage request) {
+    String value = request.customHeaders().get(PRIORITY_HEADER);
+    if (value == null) {
+      return 0;
+    }
+    int priority;
+    try {
+      priority = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid prio: " + value);
+    }
+    if (priority < 1 || priority > maxPriority) {
+      throw new IllegalArgumentException(
+          "Invalid prio: " + value + ", must be from 1 to " + maxPriority);
+    }
+    return priority;
+  }
+
+  /**
+   * Returns number of messages written by scheduling sessions.
+   *
+   * @return number of messages
+   */
+  public long messages() {
+    return messages.sum();
+  }
+
+  /**
+   * Returns number of times scheduling sessions stopped writing because channel was not writable,
+   * with messages left in stream queues.
+   *
+   * @return number of stalls
+   */
+  public long stalls() {
+    return stalls.sum();
+  }
+
+  void recordMessages(int messages) {
+    this.messages.add(messages);
+  }
+
+  void recordStall() {
+    this.stalls.increment();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("WebsocketOutboundScheduling{");
+    sb.append("quantum=").append(quantum);
+    sb.append(", maxPriority=").append(maxPriority);
+    sb.append('}');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,198 @@
+package io.scalecube.services.gateway.ws;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Settings of resumable websocket sessions. Gateway issues resume token to every session with
+ * {@link #TOKEN_HEADER} handshake response header. Once connection of the session is lost, its
+ * streams are kept running for {@link #gracePeriod(Duration)} and their responses are buffered.
+ * Client which reconnects within grace period with the token in {@link #TOKEN_HEADER} handshake
+ * request header resumes the session: streams of the session continue on the new connection
+ * (under the same stream ids), buffered responses are replayed in order of their arrival, and
+ * gateway confirms it with {@link #RESUMED_HEADER} response header. Otherwise client gets a new
+ * session and has to subscribe again. Token is good for one resume only, resumed session gets a
+ * new one.
+ *
+ * <p>Every stream buffers at most {@link #bufferSize(int)} responses, stream which overflows it is
+ * cancelled and gets ERROR signal on resume. Connection which is still open (e.g. half-open one,
+ * not detected by the gateway yet) is closed on resume. Session can be resumed only with the same
+ * sub-protocol and content type.
+ *
+ * <p>Streams of resumable sessions may be accessed from any thread (see {@link
+ * WebsocketGateway#concurrentStreams(boolean)}), as they move to event loop of the new connection
+ * on resume.
+ *
+ * <p>Registry of resumable sessions and counters ({@link #resumableSessions()}, {@link
+ * #resumedSessions()}, {@link #expiredSessions()}, {@link #replayedMessages()}, {@link
+ * #overflowedStreams()}) are shared by all instances derived from this one.
+ */
+public final class WebsocketResumption {
+
+  public static final String TOKEN_HEADER = "X-Scalecube-Resume-Token";
+  public static final String RESUMED_HEADER = "X-Scalecube-Resumed";
+
+  public static final Duration DEFAULT_GRACE_PERIOD = Duration.ofSeconds(30);
+  public static final int DEFAULT_BUFFER_SIZE = 256;
+
+  private Duration gracePeriod = DEFAULT_GRACE_PERIOD;
+  private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+  private final ConcurrentMap<String, WebsocketSession> sessions;
+  private final LongAdder resumedSessions;
+  private final LongAdder expiredSessions;
+  private final LongAdder replayedMessages;
+  private final LongAdder overflowedStreams;
+
+  public WebsocketResumption() {
+    this.sessions = new ConcurrentHashMap<>();
+    this.resumedSessions = new LongAdder();
+    this.expiredSessions = new LongAdder();
+    this.replayedMessages = new LongAdder();
+    this.overflowedStreams = new LongAdder();
+  }
+
+  private WebsocketResumption(WebsocketResumption other) {
+    this.gracePeriod = other.gracePeriod;
+    this.bufferSize = other.bufferSize;
+    this.sessions = other.sessions;
+    this.resumedSessions = other.resumedSessions;
+    this.expiredSessions = other.expiredSessions;
+    this.replayedMessages = other.replayedMessages;
+    this.overflowedStreams = other.overflowedStreams;
+  }
+
+  /**
+   * Setter for time streams of session are kept running after its connection is lost. Default is
+   * {@link #DEFAULT_GRACE_PERIOD}.
+   *
+   * @param gracePeriod grace period
+   * @return new WebsocketResumption instance
+   */
+  public WebsocketResumption gracePeriod(Duration gracePeriod) {
+    Objects.requireNonNull(gracePeriod, "gracePeriod");
+    if (gracePeriod.isNegative() || gracePeriod.isZero()) {
+      throw new IllegalArgumentException("Invalid grace period: " + gracePeriod);
+    }
+    WebsocketResumption r = new WebsocketResumption(this);
+    r.gracePeriod = gracePeriod;
+    return r;
+  }
+
+  public Duration gracePeriod() {
+    return gracePeriod;
+  }
+
+  /**
+   * Setter for max number of buffered responses of one stream. Default is {@link
+   * #DEFAULT_BUFFER_SIZE}.
+   *
+   * @param bufferSize max number of responses
+   * @return new WebsocketResumption instance
+   */
+  public WebsocketResumption bufferSize(int bufferSize) {
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("Invalid buffer size: " + bufferSize);
+    }
+    WebsocketResumption r = new WebsocketResumption(this);
+    r.bufferSize = bufferSize;
+    return r;
+  }
+
+  public int bufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * Returns number of sessions which may be resumed, connected or detached ones.
+   *
+   * @return number of sessions
+   */
+  public int resumableSessions() {
+    return sessions.size();
+  }
+
+  /**
+   * Returns number of resumed sessions.
+   *
+   * @return number of sessions
+   */
+  public long resumedSessions() {
+    return resumedSessions.sum();
+  }
+
+  /**
+   * Returns number of detached sessions which were not resumed within grace period.
+   *
+   * @return number of sessions
+   */
+  public long expiredSessions() {
+    return expiredSessions.sum();
+  }
+
+  /**
+   * Returns number of buffered responses replayed on resume.
+   *
+   * @return number of messages
+   */
+  public long replayedMessages() {
+    return replayedMessages.sum();
+  }
+
+  /**
+   * Returns number of streams cancelled because their buffer overflowed.
+   *
+   * @return number of streams
+   */
+  public long overflowedStreams() {
+    return overflowedStreams.sum();
+  }
+
+  static String newToken() {
+    return UUID.randomUUID().toString();
+  }
+
+  void register(String token, WebsocketSession session) {
+    sessions.put(token, session);
+  }
+
+  /**
+   * Removes session by given token, so that it can be resumed only once.
+   *
+   * @param token resume token
+   * @return session, or null if there's no such session
+   */
+  WebsocketSession claim(String token) {
+    return token != null ? sessions.remove(token) : null;
+  }
+
+  void unregister(String token, WebsocketSession session) {
+    sessions.remove(token, session);
+  }
+
+  void recordResumed(int replayedMessages) {
+    this.resumedSessions.increment();
+    this.replayedMessages.add(replayedMessages);
+  }
+
+  void recordExpired() {
+    this.expiredSessions.increment();
+  }
+
+  void recordOverflow() {
+    this.overflowedStreams.increment();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("WebsocketResumption{");
+    sb.append("gracePeriod=").append(gracePeriod);
+    sb.append(", bufferSize=").append(bufferSize);
+    sb.append('}');
+    return sb.toString();
+  }
+}
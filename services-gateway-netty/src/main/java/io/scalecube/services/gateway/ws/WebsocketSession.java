@@ -1,17 +1,42 @@
 package io.scalecube.services.gateway.ws;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
-import java.util.Map;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.scalecube.services.exceptions.DefaultErrorMapper;
+import io.scalecube.services.exceptions.ServiceUnavailableException;
+import io.scalecube.services.gateway.ByteBufChunks;
+import io.scalecube.services.gateway.ContentNegotiation;
+import io.scalecube.services.gateway.ReferenceCountUtil;
+import io.scalecube.services.gateway.ws.PerMessageDeflateHandler.UncompressedBinaryFrame;
+import io.scalecube.services.gateway.ws.PerMessageDeflateHandler.UncompressedTextFrame;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import org.jctools.maps.NonBlockingHashMapLong;
+import org.jctools.queues.MpscUnboundedArrayQueue;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.netty.NettyPipeline;
 import reactor.netty.NettyPipeline.SendOptions;
 import reactor.netty.http.server.HttpServerRequest;
 import reactor.netty.http.websocket.WebsocketInbound;
@@ -21,18 +46,58 @@ public final class WebsocketSession {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(WebsocketSession.class);
 
-  private static final String DEFAULT_CONTENT_TYPE = "application/json";
+  // estimated size of message without data, see WebsocketOutboundScheduling
+  private static final int MESSAGE_OVERHEAD = 64;
 
   private static final AtomicLong SESSION_ID_GENERATOR = new AtomicLong(System.currentTimeMillis());
 
-  private final Map<Long, Disposable> subscriptions = new NonBlockingHashMapLong<>(1024);
+  // subscriptions by sid, confined to event loop unless concurrent access was configured
+  private final StreamRegistry<Disposable> subscriptions;
 
   private final WebsocketInbound inbound;
   private final WebsocketOutbound outbound;
   private final GatewayMessageCodec codec;
+  private final GatewayMessageBinaryCodec binaryCodec;
+  private final WebsocketCompression compression;
+  private final WebsocketBatching batching;
+  private final int chunkSize;
+  private final WebsocketWriteCoalescing coalescing;
+  private final WebsocketOutboundScheduling scheduling;
+
+  // outbound queue of batching, coalescing or scheduling session, drained by event loop
+  private final Queue<PendingResponse> pendingResponses;
+  private final AtomicInteger pendingCount = new AtomicInteger();
+  private EventLoop eventLoop;
+  private Channel channel;
+
+  // stream queues of scheduling session, accessed by event loop only
+  private final OutboundScheduler<PendingResponse> scheduler;
+
+  // frames written by coalescing session since last flush, accessed by event loop only
+  private List<WebSocketFrame> coalescedFrames = new ArrayList<>();
+  private final List<PendingResponse> coalescedResponses = new ArrayList<>();
+  private int coalescedBytes;
 
   private final String id;
   private final String contentType;
+  private final boolean binary;
+
+  // resumption of the session, see WebsocketResumption; state changes are guarded by the session
+  private static final int ATTACHED = 0;
+  private static final int DETACHED = 1;
+  private static final int RESUMING = 2;
+  private static final int RESUMED = 3;
+  private static final int EXPIRED = 4;
+
+  private final WebsocketResumption resumption;
+  private final String resumeToken;
+  private final ResumeBuffer<PendingResponse> resumeBuffer;
+  private volatile int resumeState = ATTACHED;
+  private volatile WebsocketSession successor;
+  private ScheduledFuture<?> expiry;
+
+  // writability-aware backpressure of service streams, see WebsocketBackpressure
+  private final WebsocketBackpressure backpressure;
 
   /**
    * Create a new websocket session with given handshake, inbound and outbound channels.
@@ -47,28 +112,199 @@ public final class WebsocketSession {
       HttpServerRequest httpRequest,
       WebsocketInbound inbound,
       WebsocketOutbound outbound) {
-    this.codec = codec;
+    this(
+        WebsocketAcceptorSettings.builder().messageCodec(codec).build(),
+        false,
+        false,
+        Optional.ofNullable(
+                ContentNegotiation.mediaType(
+                    httpRequest.requestHeaders().get(HttpHeaderNames.CONTENT_TYPE)))
+            .orElse(ContentNegotiation.DEFAULT_CONTENT_TYPE),
+        null,
+        httpRequest,
+        inbound,
+        outbound);
+  }
+
+  /**
+   * Create a new websocket session with given settings and results of handshake negotiation. Chunk
+   * size is not applied if writes are coalesced; streams of resumable session may be accessed from
+   * any thread regardless of concurrent streams setting.
+   *
+   * @param settings - settings of the acceptor
+   * @param compressed - whether permessage-deflate was negotiated during the handshake
+   * @param batched - whether batched frames were negotiated during the handshake
+   * @param contentType - data format negotiated during the handshake, see {@link
+   *     ContentNegotiation}
+   * @param resumeToken - resume token of the session, or null if session is not resumable
+   * @param httpRequest - Init session HTTP request
+   * @param inbound - Websocket inbound
+   * @param outbound - Websocket outbound
+   */
+  WebsocketSession(
+      WebsocketAcceptorSettings settings,
+      boolean compressed,
+      boolean batched,
+      String contentType,
+      String resumeToken,
+      HttpServerRequest httpRequest,
+      WebsocketInbound inbound,
+      WebsocketOutbound outbound) {
+    this.codec = settings.messageCodec();
+    this.binaryCodec = settings.binaryMessageCodec();
+    this.compression = compressed ? settings.compression() : null;
+    this.batching = batched ? settings.batching() : null;
+    this.chunkSize = settings.chunkSize();
+    this.coalescing = settings.writeCoalescing();
+    this.scheduling = settings.outboundScheduling();
+    this.resumption = settings.resumption();
+    this.backpressure = settings.backpressure();
+    this.pendingResponses =
+        batching != null || coalescing != null || scheduling != null
+            ? new MpscUnboundedArrayQueue<PendingResponse>(64)
+            : null;
+    this.scheduler =
+        scheduling != null
+            ? new OutboundScheduler<>(
+                scheduling.quantum(),
+                pending -> pending.response.streamIdAsLong(),
+                WebsocketSession::estimateSize,
+                pending -> isTerminal(pending.response))
+            : null;
+    this.resumeToken =
+        resumption != null ? Objects.requireNonNull(resumeToken, "resumeToken") : null;
+    this.resumeBuffer =
+        resumption != null
+            ? new ResumeBuffer<>(
+                resumption.bufferSize(),
+                pending -> pending.response.streamIdAsLong(),
+                WebsocketSession::release)
+            : null;
+    this.subscriptions =
+        settings.concurrentStreams() || resumption != null
+            ? StreamRegistry.concurrent()
+            : StreamRegistry.confined();
     this.id = "" + SESSION_ID_GENERATOR.incrementAndGet();
 
-    String contentType = httpRequest.requestHeaders().get(HttpHeaderNames.CONTENT_TYPE);
-    this.contentType = Optional.ofNullable(contentType).orElse(DEFAULT_CONTENT_TYPE);
+    this.contentType = Objects.requireNonNull(contentType, "contentType");
+    this.binary = GatewayMessageBinaryCodec.SUBPROTOCOL.equals(inbound.selectedSubprotocol());
 
     this.inbound =
-        (WebsocketInbound) inbound.withConnection(c -> c.onDispose(this::clearSubscriptions));
+        (WebsocketInbound) inbound.withConnection(c -> c.onDispose(this::onDisconnect));
 
-    this.outbound = (WebsocketOutbound) outbound.options(SendOptions::flushOnEach);
+    // coalescing session writes frames of one flush as one publisher
+    this.outbound =
+        (WebsocketOutbound)
+            outbound.options(
+                coalescing != null ? SendOptions::flushOnBoundary : SendOptions::flushOnEach);
+    this.outbound.withConnection(
+        c -> {
+          this.channel = c.channel();
+          this.eventLoop = c.channel().eventLoop();
+          if (backpressure != null) {
+            c.channel()
+                .config()
+                .setWriteBufferWaterMark(
+                    new WriteBufferWaterMark(
+                        backpressure.lowWaterMark(), backpressure.highWaterMark()));
+            backpressure.register(this);
+          }
+          if (scheduling != null || backpressure != null) {
+            // resume writing stream queues and requesting responses once channel gets writable
+            // (or closed)
+            c.channel()
+                .pipeline()
+                .addBefore(
+                    NettyPipeline.ReactiveBridge,
+                    WritabilityHandler.NAME,
+                    new WritabilityHandler(this::onWritable));
+          }
+        });
   }
 
   public String id() {
     return id;
   }
 
+  /**
+   * Returns data format of the session, in which client sends request data and receives response
+   * data.
+   *
+   * @return data format
+   */
   public String contentType() {
     return contentType;
   }
 
   /**
-   * Method for receiving request messages coming a form of websocket frames.
+   * Returns whether binary sub-protocol was negotiated for this session.
+   *
+   * @return true if messages are exchanged in binary frames
+   */
+  public boolean isBinary() {
+    return binary;
+  }
+
+  /**
+   * Returns whether permessage-deflate extension was negotiated for this session.
+   *
+   * @return true if messages may be compressed
+   */
+  public boolean isCompressed() {
+    return compression != null;
+  }
+
+  /**
+   * Returns whether batched frames were negotiated for this session, i.e. inbound frames may carry
+   * several messages (see {@link BatchFrames#split(ByteBuf, boolean)}) and outbound messages are
+   * batched.
+   *
+   * @return true if messages may be batched
+   */
+  public boolean isBatching() {
+    return batching != null;
+  }
+
+  /**
+   * Returns allocator of outbound buffers of the session.
+   *
+   * @return allocator
+   */
+  ByteBufAllocator alloc() {
+    return outbound.alloc();
+  }
+
+  /**
+   * Returns whether channel of the session is writable, i.e. its outbound buffer didn't exceed high
+   * water mark (see {@link WebsocketBackpressure}).
+   *
+   * @return true if channel is writable
+   */
+  public boolean isWritable() {
+    WebsocketSession successor = this.successor;
+    if (successor != null) {
+      return successor.isWritable();
+    }
+    Channel channel = this.channel;
+    return channel == null || channel.isWritable();
+  }
+
+  /**
+   * Returns number of bytes written by the session but not sent to the socket yet, i.e. buffered in
+   * outbound buffer of its channel.
+   *
+   * @return number of bytes
+   */
+  public long bufferedBytes() {
+    Channel channel = this.channel;
+    ChannelOutboundBuffer buffer = channel != null ? channel.unsafe().outboundBuffer() : null;
+    return buffer != null ? buffer.totalPendingWriteBytes() : 0;
+  }
+
+  /**
+   * Method for receiving request messages coming a form of websocket frames. Every emitted {@link
+   * ByteBuf} is retained, subscriber is responsible for releasing it (see {@link
+   * GatewayMessageCodec#decode(ByteBuf)}).
    *
    * @return flux websocket {@link ByteBuf}
    */
@@ -76,6 +312,25 @@ public final class WebsocketSession {
     return inbound.aggregateFrames().receive().retain();
   }
 
+  /**
+   * Method for receiving request messages coming in a form of websocket frame fragments, i.e. first
+   * frame of a message followed by its continuation frames, without aggregation. Every emitted
+   * {@link WebSocketFrame} is retained, subscriber is responsible for releasing it (see {@link
+   * GatewayMessageIncrementalDecoder#feed(ByteBuf, boolean)}).
+   *
+   * @return flux of websocket frames
+   */
+  public Flux<WebSocketFrame> receiveFrames() {
+    return inbound
+        .receiveFrames()
+        .filter(
+            frame ->
+                frame instanceof TextWebSocketFrame
+                    || frame instanceof BinaryWebSocketFrame
+                    || frame instanceof ContinuationWebSocketFrame)
+        .map(WebSocketFrame::retain);
+  }
+
   /**
    * Method to send normal response.
    *
@@ -83,14 +338,313 @@ public final class WebsocketSession {
    * @return mono void
    */
   public Mono<Void> send(GatewayMessage response) {
+    if (resumption != null && resumeState != ATTACHED) {
+      return sendDetached(new PendingResponse(response, null, null));
+    }
+    if (pendingResponses != null) {
+      return Mono.<Void>create(sink -> enqueue(new PendingResponse(response, sink)))
+          .doOnSuccessOrError((avoid, th) -> logSend(response, th));
+    }
+    return Mono.defer(
+        () ->
+            outbound
+                .sendObject(Mono.just(response).flatMapMany(this::encode))
+                .then()
+                .doOnSuccessOrError((avoid, th) -> logSend(response, th)));
+  }
+
+  /**
+   * Method to send response encoded already, e.g. response of upstream stream shared by many
+   * sessions (see {@link WebsocketStreamSharing}). Takes ownership of given content.
+   *
+   * @param response response, it's used for logging and scheduling only (its data is ignored)
+   * @param content encoded response
+   * @return mono void
+   */
+  public Mono<Void> send(GatewayMessage response, ByteBuf content) {
+    if (resumption != null && resumeState != ATTACHED) {
+      return sendDetached(new PendingResponse(response, content, null));
+    }
+    if (pendingResponses != null) {
+      return Mono.<Void>create(sink -> enqueue(new PendingResponse(response, content, sink)))
+          .doOnSuccessOrError((avoid, th) -> logSend(response, th));
+    }
     return Mono.defer(
         () ->
             outbound
-                .sendObject(Mono.just(response).map(codec::encode).map(TextWebSocketFrame::new))
+                .sendObject(encode(response, content))
                 .then()
                 .doOnSuccessOrError((avoid, th) -> logSend(response, th)));
   }
 
+  private Publisher<WebSocketFrame> encode(GatewayMessage response) {
+    return encode(response, encodeContent(response));
+  }
+
+  private Publisher<WebSocketFrame> encode(GatewayMessage response, ByteBuf content) {
+    return isUncompressed(response) ? Mono.just(uncompressedFrame(content)) : frames(content);
+  }
+
+  private ByteBuf encodeContent(PendingResponse pending) {
+    return pending.content != null ? pending.content : encodeContent(pending.response);
+  }
+
+  private ByteBuf encodeContent(GatewayMessage response) {
+    return binary
+        ? binaryCodec.encode(response, outbound.alloc())
+        : codec.encode(response, outbound.alloc());
+  }
+
+  private boolean isUncompressed(GatewayMessage response) {
+    return compression != null && compression.isExcluded(response.qualifier());
+  }
+
+  private WebSocketFrame frame(ByteBuf content) {
+    return binary ? new BinaryWebSocketFrame(content) : new TextWebSocketFrame(content);
+  }
+
+  private WebSocketFrame uncompressedFrame(ByteBuf content) {
+    return binary ? new UncompressedBinaryFrame(content) : new UncompressedTextFrame(content);
+  }
+
+  /**
+   * Returns frames of given message content: one frame, or fragments of at most {@link
+   * #chunkSize} bytes if content is larger. Fragments are generated on demand, as channel gets
+   * writable (see {@link ByteBufChunks}); they're not compressed.
+   */
+  private Publisher<WebSocketFrame> frames(ByteBuf content) {
+    if (chunkSize == 0 || content.readableBytes() <= chunkSize) {
+      return Mono.just(frame(content));
+    }
+    final int last = ByteBufChunks.count(content, chunkSize) - 1;
+    return ByteBufChunks.split(content, chunkSize)
+        .index()
+        .map(
+            tuple -> {
+              int index = tuple.getT1().intValue();
+              ByteBuf chunk = tuple.getT2();
+              boolean finalFragment = index == last;
+              if (index > 0) {
+                return new ContinuationWebSocketFrame(finalFragment, 0, chunk);
+              }
+              return binary
+                  ? new BinaryWebSocketFrame(false, 0, chunk)
+                  : new TextWebSocketFrame(false, 0, chunk);
+            });
+  }
+
+  private void enqueue(PendingResponse pending) {
+    pendingResponses.offer(pending);
+    int count = pendingCount.incrementAndGet();
+    long maxDelay = batching != null ? batching.maxDelay().toNanos() : 0;
+    if (count == 1) {
+      if (maxDelay > 0) {
+        eventLoop.schedule(this::drain, maxDelay, TimeUnit.NANOSECONDS);
+      } else {
+        eventLoop.execute(this::drain);
+      }
+    } else if (maxDelay > 0 && count == batching.maxSize()) {
+      eventLoop.execute(this::drain); // frame is full, don't wait
+    }
+  }
+
+  /**
+   * Writes stream queues of scheduling session and resumes streams paused by backpressure once
+   * channel gets writable (or closed). Runs on event loop only.
+   */
+  private void onWritable() {
+    if (scheduler != null) {
+      drainScheduled();
+    }
+    if (backpressure != null) {
+      resumeStreams();
+    }
+  }
+
+  /** Resumes streams paused by backpressure (see {@link WritabilitySubscriber}) if writable. */
+  private void resumeStreams() {
+    if (!isWritable()) {
+      return;
+    }
+    for (long sid : subscriptions.streamIds()) {
+      Disposable disposable = subscriptions.get(sid);
+      if (disposable instanceof WritabilitySubscriber) {
+        ((WritabilitySubscriber<?>) disposable).resume();
+      }
+    }
+  }
+
+  /**
+   * Writes queued responses. Runs on event loop only, till the queue is empty. Batching session
+   * puts at most {@link WebsocketBatching#maxSize()} responses per frame, coalescing session
+   * flushes written frames once in the end (or on reaching {@link WebsocketWriteCoalescing}
+   * limits).
+   */
+  private void drain() {
+    if (scheduler != null) {
+      drainScheduled();
+      return;
+    }
+    int count = pendingCount.get();
+    while (count > 0) {
+      int size = batching != null ? Math.min(count, batching.maxSize()) : count;
+      List<PendingResponse> batch = new ArrayList<>(size);
+      List<ByteBuf> envelopes = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        writePending(pendingResponses.poll(), batch, envelopes);
+      }
+      writeBatch(batch, envelopes);
+      count = pendingCount.addAndGet(-size);
+    }
+    flush();
+  }
+
+  /**
+   * Writes given response, or adds it to the batch being collected by batching session. Response
+   * excluded from compression goes in its own uncompressed frame, after responses collected
+   * before it.
+   */
+  private void writePending(
+      PendingResponse pending, List<PendingResponse> batch, List<ByteBuf> envelopes) {
+    GatewayMessage response = pending.response;
+    try {
+      if (isUncompressed(response)) {
+        writeBatch(batch, envelopes);
+        if (batching != null) {
+          batching.recordFrame(1);
+        }
+        write(Collections.singletonList(pending), encodeContent(pending), true);
+      } else if (batching == null) {
+        write(Collections.singletonList(pending), encodeContent(pending), false);
+      } else {
+        envelopes.add(encodeContent(pending));
+        batch.add(pending);
+      }
+    } catch (Throwable th) {
+      pending.sink.error(th);
+    }
+  }
+
+  /**
+   * Moves queued responses to queues of their streams and writes them in order given by {@link
+   * OutboundScheduler} while channel is writable (or closed, then writes fail and release
+   * responses). Runs on event loop only.
+   */
+  private void drainScheduled() {
+    int count = pendingCount.get();
+    while (count > 0) {
+      for (int i = 0; i < count; i++) {
+        scheduler.offer(pendingResponses.poll());
+      }
+      count = pendingCount.addAndGet(-count);
+    }
+
+    List<PendingResponse> batch = new ArrayList<>();
+    List<ByteBuf> envelopes = new ArrayList<>();
+    int written = 0;
+    while (!scheduler.isEmpty() && (channel.isWritable() || !channel.isActive())) {
+      writePending(scheduler.poll(), batch, envelopes);
+      written++;
+      if (batching != null && batch.size() == batching.maxSize()) {
+        writeBatch(batch, envelopes);
+      }
+    }
+    writeBatch(batch, envelopes);
+    flush();
+
+    scheduling.recordMessages(written);
+    if (!scheduler.isEmpty()) {
+      scheduling.recordStall(); // WritabilityHandler resumes
+    }
+  }
+
+  /**
+   * Sets priority of stream for outbound scheduling, see {@link WebsocketOutboundScheduling}. Has
+   * no effect if scheduling is disabled. Must be called on event loop of the session, before the
+   * first response of the stream.
+   *
+   * @param streamId stream id
+   * @param priority priority
+   */
+  public void prioritize(long streamId, int priority) {
+    if (scheduler != null) {
+      scheduler.priority(streamId, priority);
+    }
+  }
+
+  private static int estimateSize(PendingResponse pending) {
+    if (pending.content != null) {
+      return pending.content.readableBytes();
+    }
+    Object data = pending.response.data();
+    return MESSAGE_OVERHEAD + (data instanceof ByteBuf ? ((ByteBuf) data).readableBytes() : 0);
+  }
+
+  private static boolean isTerminal(GatewayMessage response) {
+    return response.hasSignal(Signal.COMPLETE)
+        || response.hasSignal(Signal.ERROR)
+        || response.hasSignal(Signal.CANCEL);
+  }
+
+  private void writeBatch(List<PendingResponse> batch, List<ByteBuf> envelopes) {
+    if (envelopes.isEmpty()) {
+      return;
+    }
+    ByteBuf content;
+    try {
+      content =
+          envelopes.size() == 1
+              ? envelopes.get(0)
+              : BatchFrames.compose(outbound.alloc(), envelopes, binary);
+    } catch (Throwable th) {
+      envelopes.forEach(ReferenceCountUtil::safestRelease);
+      batch.forEach(pending -> pending.sink.error(th));
+      batch.clear();
+      envelopes.clear();
+      return;
+    }
+    batching.recordFrame(batch.size());
+    write(new ArrayList<>(batch), content, false);
+    batch.clear();
+    envelopes.clear();
+  }
+
+  private void write(List<PendingResponse> batch, ByteBuf content, boolean uncompressed) {
+    if (coalescing == null) {
+      sendFrames(batch, uncompressed ? Mono.just(uncompressedFrame(content)) : frames(content));
+      return;
+    }
+    coalescedFrames.add(uncompressed ? uncompressedFrame(content) : frame(content));
+    coalescedResponses.addAll(batch);
+    coalescedBytes += content.readableBytes();
+    if (coalescedResponses.size() >= coalescing.maxMessages()
+        || coalescedBytes >= coalescing.maxBytes()) {
+      flush();
+    }
+  }
+
+  /** Writes frames collected by coalescing session, they're flushed once after the last one. */
+  private void flush() {
+    if (coalescing == null || coalescedFrames.isEmpty()) {
+      return;
+    }
+    coalescing.recordFlush(coalescedResponses.size());
+    sendFrames(new ArrayList<>(coalescedResponses), Flux.fromIterable(coalescedFrames));
+    coalescedFrames = new ArrayList<>();
+    coalescedResponses.clear();
+    coalescedBytes = 0;
+  }
+
+  private void sendFrames(List<PendingResponse> batch, Publisher<WebSocketFrame> frames) {
+    outbound
+        .sendObject(frames)
+        .then()
+        .subscribe(
+            null,
+            th -> batch.forEach(pending -> pending.sink.error(th)),
+            () -> batch.forEach(pending -> pending.sink.success()));
+  }
+
   private void logSend(GatewayMessage response, Throwable th) {
     if (th == null) {
       LOGGER.debug("<< SEND success: {}, session={}", response, id);
@@ -118,6 +672,17 @@ public final class WebsocketSession {
     return outbound.sendClose(1000, reason).then();
   }
 
+  /**
+   * Closes websocket session with given status.
+   *
+   * @param status close status
+   * @param reason close reason
+   * @return mono void
+   */
+  Mono<Void> close(int status, String reason) {
+    return outbound.sendClose(status, reason).then();
+  }
+
   /**
    * Lambda setter for reacting on channel close occurrence.
    *
@@ -140,21 +705,78 @@ public final class WebsocketSession {
    * @param streamId stream id
    * @return true of subscription was disposed
    */
-  public boolean dispose(Long streamId) {
-    boolean result = false;
-    if (streamId != null) {
-      Disposable disposable = subscriptions.remove(streamId);
-      result = disposable != null;
-      if (result) {
-        LOGGER.debug("Dispose subscription by sid={}, session={}", streamId, id);
-        disposable.dispose();
-      }
+  public boolean dispose(long streamId) {
+    WebsocketSession successor = this.successor;
+    if (successor != null) {
+      return successor.dispose(streamId);
+    }
+    checkStreamAccess();
+    Disposable disposable = subscriptions.remove(streamId);
+    boolean result = disposable != null;
+    if (result) {
+      LOGGER.debug("Dispose subscription by sid={}, session={}", streamId, id);
+      disposable.dispose();
     }
     return result;
   }
 
+  /**
+   * Disposing stored subscription by given stream id, see {@link #dispose(long)}.
+   *
+   * @param streamId stream id, may be null
+   * @return true of subscription was disposed
+   */
+  public boolean dispose(Long streamId) {
+    return streamId != null && dispose(streamId.longValue());
+  }
+
+  /**
+   * Grants credit to credit-based stream, see {@link CreditSubscriber}.
+   *
+   * @param streamId stream id
+   * @param n number of responses the client is ready for
+   * @return true if stream was found and it's credit-based
+   */
+  public boolean request(long streamId, long n) {
+    WebsocketSession successor = this.successor;
+    if (successor != null) {
+      return successor.request(streamId, n);
+    }
+    checkStreamAccess();
+    Disposable disposable = subscriptions.get(streamId);
+    if (!(disposable instanceof CreditSubscriber)) {
+      return false;
+    }
+    LOGGER.debug("Request {} by sid={}, session={}", n, streamId, id);
+    ((CreditSubscriber<?>) disposable).request(n);
+    return true;
+  }
+
+  /**
+   * Returns number of registered subscriptions, i.e. active streams of the session.
+   *
+   * @return number of streams
+   */
+  public int activeStreams() {
+    WebsocketSession successor = this.successor;
+    if (successor != null) {
+      return successor.activeStreams();
+    }
+    checkStreamAccess();
+    return subscriptions.size();
+  }
+
+  public boolean containsSid(long streamId) {
+    WebsocketSession successor = this.successor;
+    if (successor != null) {
+      return successor.containsSid(streamId);
+    }
+    checkStreamAccess();
+    return subscriptions.containsKey(streamId);
+  }
+
   public boolean containsSid(Long streamId) {
-    return streamId != null && subscriptions.containsKey(streamId);
+    return streamId != null && containsSid(streamId.longValue());
   }
 
   /**
@@ -165,10 +787,15 @@ public final class WebsocketSession {
    * @param disposable service subscription
    * @return true if disposable subscription was stored
    */
-  public boolean register(Long streamId, Disposable disposable) {
+  public boolean register(long streamId, Disposable disposable) {
+    WebsocketSession successor = this.successor;
+    if (successor != null) {
+      return successor.register(streamId, disposable);
+    }
+    checkStreamAccess();
     boolean result = false;
     if (!disposable.isDisposed()) {
-      result = subscriptions.putIfAbsent(streamId, disposable) == null;
+      result = subscriptions.putIfAbsent(streamId, disposable);
     }
     if (result) {
       LOGGER.debug("Registered subscription with sid={}, session={}", streamId, id);
@@ -176,14 +803,248 @@ public final class WebsocketSession {
     return result;
   }
 
+  /**
+   * Saves (if not already saved) by stream id a subscription of service call, see {@link
+   * #register(long, Disposable)}.
+   *
+   * @param streamId stream id
+   * @param disposable service subscription
+   * @return true if disposable subscription was stored
+   */
+  public boolean register(Long streamId, Disposable disposable) {
+    return register(streamId.longValue(), disposable);
+  }
+
+  /**
+   * Executes given task on event loop of the session: right away if called on event loop or if
+   * streams of the session may be accessed from any thread, otherwise later. Code which accesses
+   * streams of the session off event loop (e.g. on completion of service call) goes through here.
+   *
+   * @param task task
+   */
+  public void execute(Runnable task) {
+    WebsocketSession successor = this.successor;
+    if (successor != null) {
+      successor.execute(task);
+      return;
+    }
+    if (subscriptions.isConcurrent() || eventLoop == null || eventLoop.inEventLoop()) {
+      task.run();
+    } else {
+      eventLoop.execute(task);
+    }
+  }
+
+  /**
+   * Returns resume token of the session, see {@link WebsocketResumption}.
+   *
+   * @return resume token, or null if session is not resumable
+   */
+  public String resumeToken() {
+    return resumeToken;
+  }
+
+  /**
+   * Buffers response of detached session till it's resumed, or passes it to the session which
+   * resumed this one. Stream which overflows its buffer is cancelled.
+   */
+  private Mono<Void> sendDetached(PendingResponse pending) {
+    return Mono.defer(
+        () -> {
+          WebsocketSession successor;
+          boolean buffered = false;
+          synchronized (this) {
+            successor = this.successor;
+            if (successor == null && resumeState != EXPIRED) {
+              buffered = resumeBuffer.offer(pending); // or released on overflow
+            } else if (successor == null) {
+              release(pending);
+            }
+          }
+          if (successor != null) {
+            return pending.content != null
+                ? successor.send(pending.response, pending.content)
+                : successor.send(pending.response);
+          }
+          long sid = pending.response.streamIdAsLong();
+          if (!buffered && resumeState != EXPIRED && dispose(sid)) {
+            LOGGER.warn("Resume buffer of sid={} overflowed, session={}", sid, id);
+            resumption.recordOverflow();
+          }
+          return Mono.empty();
+        });
+  }
+
+  /** Keeps streams of resumable session running once its connection is lost. */
+  private void onDisconnect() {
+    if (backpressure != null) {
+      backpressure.unregister(this);
+    }
+    if (resumption == null) {
+      clearSubscriptions();
+      return;
+    }
+    boolean idle;
+    synchronized (this) {
+      if (resumeState != ATTACHED) {
+        return; // closed on resume
+      }
+      idle = subscriptions.size() == 0;
+      resumeState = idle ? EXPIRED : DETACHED; // idle session has nothing to resume
+      if (!idle) {
+        scheduleExpiry();
+      }
+    }
+    if (idle) {
+      resumption.unregister(resumeToken, this);
+      return;
+    }
+    LOGGER.info("Session detached: {}, streams: {}", this, subscriptions.size());
+  }
+
+  private void scheduleExpiry() {
+    expiry =
+        eventLoop.schedule(this::expire, resumption.gracePeriod().toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /** Cancels streams of detached session which was not resumed within grace period. */
+  private void expire() {
+    synchronized (this) {
+      if (resumeState != DETACHED && resumeState != RESUMING) {
+        return;
+      }
+      resumeState = EXPIRED;
+      resumeBuffer.release();
+    }
+    resumption.unregister(resumeToken, this);
+    resumption.recordExpired();
+    LOGGER.info("Session expired: {}", this);
+    clearSubscriptions();
+  }
+
+  /**
+   * Claims this session for resume by another connection. Responses are buffered till {@link
+   * #resume(WebsocketSession)}, connection of this session is closed if it's still open.
+   *
+   * @return false if session can't be resumed anymore
+   */
+  boolean claim() {
+    boolean connected;
+    synchronized (this) {
+      if (resumeState != ATTACHED && resumeState != DETACHED) {
+        return false;
+      }
+      connected = resumeState == ATTACHED;
+      if (connected) {
+        scheduleExpiry(); // in case resuming connection fails
+      }
+      resumeState = RESUMING;
+    }
+    if (connected) {
+      close("Resumed by another connection")
+          .subscribe(null, th -> LOGGER.debug("Failed to close session={}: {}", id, th.toString()));
+    }
+    return true;
+  }
+
+  /**
+   * Moves streams of this claimed session to given session and replays buffered responses to it.
+   * This session passes everything to given one afterwards.
+   *
+   * @param successor session of new connection
+   * @return false if session expired meanwhile
+   */
+  boolean resume(WebsocketSession successor) {
+    int replayed;
+    synchronized (this) {
+      if (resumeState != RESUMING) {
+        return false;
+      }
+      expiry.cancel(false);
+      this.successor = successor;
+      resumeState = RESUMED;
+      for (long sid : subscriptions.streamIds()) {
+        Disposable disposable = subscriptions.remove(sid);
+        if (disposable != null
+            && successor.register(sid, disposable)
+            && disposable.isDisposed()) {
+          successor.dispose(sid); // terminated meanwhile
+        }
+      }
+      if (backpressure != null) {
+        successor.resumeStreams(); // paused while detached
+      }
+      List<PendingResponse> replay = resumeBuffer.drain();
+      for (PendingResponse pending : replay) {
+        (pending.content != null
+                ? successor.send(pending.response, pending.content)
+                : successor.send(pending.response))
+            .subscribe(null, th -> LOGGER.debug("Failed to replay response: {}", th.toString()));
+      }
+      for (long sid : resumeBuffer.drainOverflowedStreams()) {
+        successor
+            .send(overflowError(sid))
+            .subscribe(null, th -> LOGGER.debug("Failed to send error: {}", th.toString()));
+      }
+      replayed = replay.size();
+    }
+    resumption.recordResumed(replayed);
+    LOGGER.info("Session resumed: {} by session={}, replayed: {}", this, successor.id, replayed);
+    return true;
+  }
+
+  private static GatewayMessage overflowError(long streamId) {
+    return GatewayMessage.from(
+            DefaultErrorMapper.INSTANCE.toMessage(
+                new ServiceUnavailableException("Resume buffer overflow")))
+        .streamId(streamId)
+        .signal(Signal.ERROR)
+        .build();
+  }
+
+  private static void release(PendingResponse pending) {
+    if (pending.content != null) {
+      ReferenceCountUtil.safestRelease(pending.content);
+    } else {
+      Optional.ofNullable(pending.response.data()).ifPresent(ReferenceCountUtil::safestRelease);
+    }
+  }
+
+  private void checkStreamAccess() {
+    if (!subscriptions.isConcurrent() && eventLoop != null && !eventLoop.inEventLoop()) {
+      throw new IllegalStateException(
+          "Streams of session=" + id + " are confined to its event loop, see execute()");
+    }
+  }
+
   private void clearSubscriptions() {
-    if (subscriptions.size() > 1) {
-      LOGGER.info("Clear all {} subscriptions on session={}", subscriptions.size(), id);
-    } else if (subscriptions.size() == 1) {
-      LOGGER.info("Clear 1 subscription on session={}", id);
+    execute(
+        () -> {
+          List<Disposable> disposables = subscriptions.clear();
+          if (disposables.size() > 1) {
+            LOGGER.info("Clear all {} subscriptions on session={}", disposables.size(), id);
+          } else if (disposables.size() == 1) {
+            LOGGER.info("Clear 1 subscription on session={}", id);
+          }
+          disposables.forEach(Disposable::dispose);
+        });
+  }
+
+  private static final class PendingResponse {
+
+    private final GatewayMessage response;
+    private final ByteBuf content; // encoded response, or null to encode it on write
+    private final MonoSink<Void> sink;
+
+    private PendingResponse(GatewayMessage response, MonoSink<Void> sink) {
+      this(response, null, sink);
+    }
+
+    private PendingResponse(GatewayMessage response, ByteBuf content, MonoSink<Void> sink) {
+      this.response = response;
+      this.content = content;
+      this.sink = sink;
     }
-    subscriptions.forEach((sid, disposable) -> disposable.dispose());
-    subscriptions.clear();
   }
 
   @Override
@@ -191,6 +1052,9 @@ public final class WebsocketSession {
     final StringBuilder sb = new StringBuilder("WebsocketSession{");
     sb.append("id='").append(id).append('\'');
     sb.append(", contentType='").append(contentType).append('\'');
+    sb.append(", binary=").append(binary);
+    sb.append(", compressed=").append(compression != null);
+    sb.append(", batching=").append(batching != null);
     sb.append('}');
     return sb.toString();
   }
@@ -0,0 +1,123 @@
+package io.scalecube.services.gateway.ws;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Settings of sharing of identical streams across sessions. By default every request-stream call
+ * of every session gets its own service stream, and every response is encoded once per session.
+ * With sharing, request-stream calls of {@link #qualifiers(String...) shared} qualifiers with the
+ * same request (qualifier, headers and data) subscribe to one upstream service stream: its
+ * responses are encoded once and the encoded message is written to every subscribed session with
+ * only {@code sid} patched in. Upstream stream is cancelled once its last subscriber is gone.
+ *
+ * <p>Subscriber joining running upstream stream receives responses from that moment on, so
+ * sharing fits streams of updates (e.g. market data) rather than streams which start with a
+ * snapshot. Requests with {@code rlimit}, {@code inactivity}, credit or delta headers are never
+ * shared. Sessions of different sub-protocols or content types don't share streams.
+ *
+ * <p>Counters of shared streams ({@link #upstreams()}, {@link #subscribers()}, {@link
+ * #encodedMessages()}, {@link #sharedMessages()}) are shared by all instances derived from this
+ * one.
+ */
+public final class WebsocketStreamSharing {
+
+  private Set<String> qualifiers = Collections.emptySet();
+
+  private final AtomicInteger upstreams;
+  private final AtomicInteger subscribers;
+  private final LongAdder encodedMessages;
+  private final LongAdder sharedMessages;
+
+  public WebsocketStreamSharing() {
+    this.upstreams = new AtomicInteger();
+    this.subscribers = new AtomicInteger();
+    this.encodedMessages = new LongAdder();
+    this.sharedMessages = new LongAdder();
+  }
+
+  private WebsocketStreamSharing(WebsocketStreamSharing other) {
+    this.qualifiers = other.qualifiers;
+    this.upstreams = other.upstreams;
+    this.subscribers = other.subscribers;
+    this.encodedMessages = other.encodedMessages;
+    this.sharedMessages = other.sharedMessages;
+  }
+
+  /**
+   * Setter for qualifiers, identical request-stream calls of which share one upstream stream.
+   *
+   * @param qualifiers shared qualifiers
+   * @return new WebsocketStreamSharing instance
+   */
+  public WebsocketStreamSharing qualifiers(String... qualifiers) {
+    WebsocketStreamSharing s = new WebsocketStreamSharing(this);
+    s.qualifiers = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(qualifiers)));
+    return s;
+  }
+
+  public boolean isShared(String qualifier) {
+    return qualifier != null && qualifiers.contains(qualifier);
+  }
+
+  /**
+   * Returns number of active upstream streams.
+   *
+   * @return number of upstreams
+   */
+  public int upstreams() {
+    return upstreams.get();
+  }
+
+  /**
+   * Returns number of session streams subscribed to upstream streams.
+   *
+   * @return number of subscribers
+   */
+  public int subscribers() {
+    return subscribers.get();
+  }
+
+  /**
+   * Returns number of upstream responses encoded, once per response.
+   *
+   * @return number of messages
+   */
+  public long encodedMessages() {
+    return encodedMessages.sum();
+  }
+
+  /**
+   * Returns number of encoded responses passed to subscribers, once per subscriber.
+   *
+   * @return number of messages
+   */
+  public long sharedMessages() {
+    return sharedMessages.sum();
+  }
+
+  void recordUpstream(int delta) {
+    upstreams.addAndGet(delta);
+  }
+
+  void recordSubscriber(int delta) {
+    subscribers.addAndGet(delta);
+  }
+
+  void recordMessage(int subscribers) {
+    encodedMessages.increment();
+    sharedMessages.add(subscribers);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("WebsocketStreamSharing{");
+    sb.append("qualifiers=").append(qualifiers);
+    sb.append('}');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,113 @@
+package io.scalecube.services.gateway.ws;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Settings of outbound write coalescing. By default every outbound message of a session is written
+ * and flushed on its own. With coalescing, messages are queued and written by the event loop of the
+ * session: all messages queued at that moment are written as separate frames and flushed once,
+ * or once per {@link #maxMessages(int)} messages or {@link #maxBytes(int)} bytes if there are more.
+ *
+ * <p>Messages of coalescing session are never fragmented (see {@link
+ * WebsocketGateway#chunkSize(int)}), max number of bytes per flush bounds the outbound buffer
+ * instead. Coalescing is combined with {@link WebsocketBatching} if both are enabled: then batched
+ * frames are coalesced.
+ *
+ * <p>Counters of flushes and messages ({@link #flushes()}, {@link #messages()}) are shared by all
+ * instances derived from this one.
+ */
+public final class WebsocketWriteCoalescing {
+
+  public static final int DEFAULT_MAX_MESSAGES = 256;
+  public static final int DEFAULT_MAX_BYTES = 64 * 1024;
+
+  private int maxMessages = DEFAULT_MAX_MESSAGES;
+  private int maxBytes = DEFAULT_MAX_BYTES;
+
+  private final LongAdder flushes;
+  private final LongAdder messages;
+
+  public WebsocketWriteCoalescing() {
+    this.flushes = new LongAdder();
+    this.messages = new LongAdder();
+  }
+
+  private WebsocketWriteCoalescing(WebsocketWriteCoalescing other) {
+    this.maxMessages = other.maxMessages;
+    this.maxBytes = other.maxBytes;
+    this.flushes = other.flushes;
+    this.messages = other.messages;
+  }
+
+  /**
+   * Setter for max number of messages written per flush. Default is {@link
+   * #DEFAULT_MAX_MESSAGES}.
+   *
+   * @param maxMessages max number of messages per flush
+   * @return new WebsocketWriteCoalescing instance
+   */
+  public WebsocketWriteCoalescing maxMessages(int maxMessages) {
+    if (maxMessages < 1) {
+      throw new IllegalArgumentException("Invalid max messages: " + maxMessages);
+    }
+    WebsocketWriteCoalescing c = new WebsocketWriteCoalescing(this);
+    c.maxMessages = maxMessages;
+    return c;
+  }
+
+  public int maxMessages() {
+    return maxMessages;
+  }
+
+  /**
+   * Setter for number of written bytes after which pending frames are flushed even if more
+   * messages are queued. Default is {@link #DEFAULT_MAX_BYTES}.
+   *
+   * @param maxBytes max number of bytes per flush
+   * @return new WebsocketWriteCoalescing instance
+   */
+  public WebsocketWriteCoalescing maxBytes(int maxBytes) {
+    if (maxBytes < 1) {
+      throw new IllegalArgumentException("Invalid max bytes: " + maxBytes);
+    }
+    WebsocketWriteCoalescing c = new WebsocketWriteCoalescing(this);
+    c.maxBytes = maxBytes;
+    return c;
+  }
+
+  public int maxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Returns number of flushes of coalescing sessions.
+   *
+   * @return number of flushes
+   */
+  public long flushes() {
+    return flushes.sum();
+  }
+
+  /**
+   * Returns number of outbound messages written by coalescing sessions.
+   *
+   * @return number of messages
+   */
+  public long messages() {
+    return messages.sum();
+  }
+
+  void recordFlush(int messages) {
+    this.flushes.increment();
+    this.messages.add(messages);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("WebsocketWriteCoalescing{");
+    sb.append("maxMessages=").append(maxMessages);
+    sb.append(", maxBytes=").append(maxBytes);
+    sb.append('}');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,33 @@
+package io.scalecube.services.gateway.ws;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * Notifies session that its channel got writable again, or got closed, so that outbound messages
+ * held by the session are written (or fail and get released). Events are passed on as is.
+ */
+final class WritabilityHandler extends ChannelInboundHandlerAdapter {
+
+  static final String NAME = "ws-writability";
+
+  private final Runnable onWritable;
+
+  WritabilityHandler(Runnable onWritable) {
+    this.onWritable = onWritable;
+  }
+
+  @Override
+  public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+    if (ctx.channel().isWritable()) {
+      onWritable.run();
+    }
+    ctx.fireChannelWritabilityChanged();
+  }
+
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) {
+    onWritable.run();
+    ctx.fireChannelInactive();
+  }
+}
@@ -0,0 +1,93 @@
+package io.scalecube.services.gateway.ws;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+/**
+ * Subscriber of service stream which requests responses only while channel of its session is
+ * writable, see {@link WebsocketBackpressure}. It requests prefetch responses at first and
+ * replenishes 3/4 of them once they're received; if channel is not writable at that moment, stream
+ * is paused till {@link #resume()} is called on writability change.
+ *
+ * @param <T> type of responses
+ */
+final class WritabilitySubscriber<T> extends BaseSubscriber<T> {
+
+  private static final AtomicLongFieldUpdater<WritabilitySubscriber> PAUSED_DEMAND =
+      AtomicLongFieldUpdater.newUpdater(WritabilitySubscriber.class, "pausedDemand");
+
+  private final int prefetch;
+  private final int limit;
+  private final BooleanSupplier writable;
+  private final Runnable onPause;
+  private final Consumer<? super T> onNext;
+  private final Consumer<? super Throwable> onError;
+  private final Runnable onComplete;
+
+  private int produced; // accessed by onNext only
+  private volatile long pausedDemand; // demand to request on resume, 0 if not paused
+
+  WritabilitySubscriber(
+      int prefetch,
+      BooleanSupplier writable,
+      Runnable onPause,
+      Consumer<? super T> onNext,
+      Consumer<? super Throwable> onError,
+      Runnable onComplete) {
+    this.prefetch = prefetch;
+    this.limit = prefetch - (prefetch >> 2);
+    this.writable = writable;
+    this.onPause = onPause;
+    this.onNext = onNext;
+    this.onError = onError;
+    this.onComplete = onComplete;
+  }
+
+  /** Requests demand held back while channel was not writable, if any. */
+  void resume() {
+    long n = PAUSED_DEMAND.getAndSet(this, 0);
+    if (n > 0) {
+      request(n);
+    }
+  }
+
+  boolean isPaused() {
+    return pausedDemand > 0;
+  }
+
+  @Override
+  protected void hookOnSubscribe(Subscription subscription) {
+    subscription.request(prefetch);
+  }
+
+  @Override
+  protected void hookOnNext(T value) {
+    onNext.accept(value);
+    if (++produced == limit) {
+      long n = produced;
+      produced = 0;
+      if (writable.getAsBoolean()) {
+        request(n);
+      } else {
+        onPause.run();
+        pausedDemand = n;
+        if (writable.getAsBoolean()) {
+          resume(); // got writable meanwhile, possibly before it was paused
+        }
+      }
+    }
+  }
+
+  @Override
+  protected void hookOnError(Throwable throwable) {
+    onError.accept(throwable);
+  }
+
+  @Override
+  protected void hookOnComplete() {
+    onComplete.run();
+  }
+}
@@ -0,0 +1,67 @@
+package io.scalecube.services.gateway;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+public class ByteBufChunksTest {
+
+  @Test
+  public void testSplit() {
+    ByteBuf content = toByteBuf("0123456789");
+
+    List<String> chunks =
+        ByteBufChunks.split(content, 4).map(ByteBufChunksTest::release).collectList().block();
+
+    assertEquals(Arrays.asList("0123", "4567", "89"), chunks);
+    assertEquals(3, ByteBufChunks.count(toByteBuf("0123456789"), 4));
+    assertEquals(0, content.refCnt());
+  }
+
+  @Test
+  public void testSplitExactMultiple() {
+    ByteBuf content = toByteBuf("01234567");
+    content.readerIndex(2);
+
+    List<String> chunks =
+        ByteBufChunks.split(content, 3).map(ByteBufChunksTest::release).collectList().block();
+
+    assertEquals(Arrays.asList("234", "567"), chunks);
+    assertEquals(0, content.refCnt());
+  }
+
+  @Test
+  public void testSplitCancelled() {
+    ByteBuf content = toByteBuf("0123456789");
+
+    List<ByteBuf> chunks = ByteBufChunks.split(content, 4).take(1).collectList().block();
+
+    assertEquals(1, chunks.size());
+    assertEquals(
+        Arrays.asList("0123"),
+        chunks.stream().map(ByteBufChunksTest::release).collect(Collectors.toList()));
+    assertEquals(0, content.refCnt());
+  }
+
+  @Test
+  public void testInvalidChunkSize() {
+    assertThrows(IllegalArgumentException.class, () -> ByteBufChunks.split(toByteBuf("0"), 0));
+  }
+
+  private static ByteBuf toByteBuf(String value) {
+    return Unpooled.copiedBuffer(value, StandardCharsets.UTF_8);
+  }
+
+  private static String release(ByteBuf byteBuf) {
+    String value = byteBuf.toString(StandardCharsets.UTF_8);
+    byteBuf.release();
+    return value;
+  }
+}
@@ -0,0 +1,59 @@
+package io.scalecube.services.gateway;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class ContentNegotiationTest {
+
+  private static final String JSON = ContentNegotiation.DEFAULT_CONTENT_TYPE;
+  private static final String UNSUPPORTED = "application/x-unsupported";
+
+  @Test
+  public void testMediaType() {
+    assertNull(ContentNegotiation.mediaType(null));
+    assertNull(ContentNegotiation.mediaType(" "));
+    assertEquals(JSON, ContentNegotiation.mediaType("Application/JSON; charset=UTF-8"));
+  }
+
+  @Test
+  public void testContentType() {
+    assertEquals(JSON, ContentNegotiation.contentType(null));
+    assertEquals(JSON, ContentNegotiation.contentType("application/json;charset=utf-8"));
+    assertNull(ContentNegotiation.contentType(UNSUPPORTED));
+  }
+
+  @Test
+  public void testAccept() {
+    assertEquals(JSON, ContentNegotiation.accept(null, JSON));
+    assertEquals(JSON, ContentNegotiation.accept("*/*", JSON));
+    assertEquals(JSON, ContentNegotiation.accept(UNSUPPORTED + ", application/*;q=0.5", JSON));
+    assertEquals(JSON, ContentNegotiation.accept(UNSUPPORTED + ";q=0.9, " + JSON + ";q=0.1", JSON));
+    assertNull(ContentNegotiation.accept(UNSUPPORTED, JSON));
+    assertNull(ContentNegotiation.accept(JSON + ";q=0", JSON));
+  }
+
+  @Test
+  public void testIsJson() {
+    assertTrue(ContentNegotiation.isJson(JSON));
+    assertTrue(ContentNegotiation.isJson("application/problem+json"));
+    assertFalse(ContentNegotiation.isJson("application/octet-stream"));
+  }
+
+  @Test
+  public void testTranscodeSameFormat() {
+    ByteBuf data = Unpooled.copiedBuffer("{\"text\":\"hello\"}", StandardCharsets.UTF_8);
+
+    assertSame(data, ContentNegotiation.transcode(data, JSON, JSON, ByteBufAllocator.DEFAULT));
+    assertEquals(1, data.refCnt());
+    data.release();
+  }
+}
@@ -0,0 +1,110 @@
+package io.scalecube.services.gateway;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.scalecube.services.gateway.ws.GatewayMessage;
+import io.scalecube.services.gateway.ws.GatewayMessageCodec;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class EncodedSizeEstimatorTest {
+
+  private static final String Q = "/test/test";
+
+  private final EncodedSizeEstimator estimator = new EncodedSizeEstimator();
+
+  @Test
+  public void testGrowsGraduallyAndDecaysSlowly() {
+    assertEquals(EncodedSizeEstimator.DEFAULT_INITIAL_CAPACITY, estimator.initialCapacity(Q));
+
+    record(Q, 10000);
+    assertTrue(estimator.initialCapacity(Q) < 1000);
+
+    for (int i = 0; i < 10; i++) {
+      record(Q, 10000);
+    }
+    assertTrue(estimator.initialCapacity(Q) >= 10000);
+    long resizeCount = estimator.resizeCount();
+    assertTrue(resizeCount < 10);
+
+    record(Q, 1000);
+    assertTrue(estimator.initialCapacity(Q) > 8000);
+
+    for (int i = 0; i < 100; i++) {
+      record(Q, 1000);
+    }
+    assertTrue(estimator.initialCapacity(Q) < 1200);
+    assertEquals(112, estimator.encodeCount());
+    assertEquals(resizeCount, estimator.resizeCount());
+  }
+
+  @Test
+  public void testLargeMessageDoesNotInflateEstimate() {
+    record(Q, 4 * 1024 * 1024);
+    assertTrue(estimator.initialCapacity(Q) <= 4 * EncodedSizeEstimator.DEFAULT_INITIAL_CAPACITY);
+
+    for (int i = 0; i < 20; i++) {
+      record(Q, 1000);
+    }
+    assertTrue(estimator.initialCapacity(Q) < 1200);
+
+    record(Q, 4 * 1024 * 1024);
+    assertTrue(estimator.initialCapacity(Q) < 2 * 1200);
+
+    for (int i = 0; i < 20; i++) {
+      record(Q, 1000);
+    }
+    assertTrue(estimator.initialCapacity(Q) < 1200);
+  }
+
+  @Test
+  public void testQualifiersAreTrackedSeparately() {
+    for (int i = 0; i < 10; i++) {
+      record(Q, 10000);
+    }
+    record(null, 10);
+
+    assertTrue(estimator.initialCapacity(Q) >= 10000);
+    assertTrue(estimator.initialCapacity(null) < 100);
+    assertEquals(
+        EncodedSizeEstimator.DEFAULT_INITIAL_CAPACITY, estimator.initialCapacity("/other"));
+  }
+
+  @Test
+  public void testCodecDoesNotResizeBufferOfRepeatedMessage() {
+    GatewayMessageCodec codec = new GatewayMessageCodec();
+    String data = "\"" + new String(new char[5000]).replace('\0', 'x') + "\"";
+
+    encode(codec, data, 10);
+    long resizeCount = codec.sizeEstimator().resizeCount();
+    assertTrue(resizeCount < 10);
+
+    // estimate has grown to size of message
+    encode(codec, data, 10);
+    assertEquals(20, codec.sizeEstimator().encodeCount());
+    assertEquals(resizeCount, codec.sizeEstimator().resizeCount());
+  }
+
+  private void encode(GatewayMessageCodec codec, String data, int count) {
+    for (int i = 0; i < count; i++) {
+      GatewayMessage message =
+          GatewayMessage.builder().qualifier(Q).streamId(i).data(toByteBuf(data)).build();
+      codec.encode(message, UnpooledByteBufAllocator.DEFAULT).release();
+    }
+  }
+
+  private void record(String qualifier, int size) {
+    int initialCapacity = estimator.initialCapacity(qualifier);
+    ByteBuf byteBuf = Unpooled.buffer(initialCapacity);
+    byteBuf.writeZero(size);
+    estimator.record(qualifier, byteBuf, initialCapacity);
+  }
+
+  private ByteBuf toByteBuf(String data) {
+    return Unpooled.copiedBuffer(data, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,66 @@
+package io.scalecube.services.gateway;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.scalecube.services.gateway.StreamAdmission.Rejection;
+import org.junit.jupiter.api.Test;
+
+public class StreamAdmissionTest {
+
+  @Test
+  public void testNoLimits() {
+    StreamAdmission admission = new StreamAdmission();
+
+    for (int i = 0; i < 100; i++) {
+      assertNull(admission.tryAcquire("q", i));
+    }
+    assertEquals(100, admission.activeStreams());
+    assertEquals(0, admission.rejectedStreams());
+  }
+
+  @Test
+  public void testSessionLimit() {
+    StreamAdmission admission = new StreamAdmission().maxStreamsPerSession(2);
+
+    assertNull(admission.tryAcquire("q", 1));
+    assertEquals(Rejection.SESSION, admission.tryAcquire("q", 2));
+    assertEquals(1, admission.activeStreams());
+    assertEquals(1, admission.rejectedStreams());
+  }
+
+  @Test
+  public void testQualifierLimit() {
+    StreamAdmission admission = new StreamAdmission().maxStreamsPerQualifier(1);
+
+    assertNull(admission.tryAcquire("a", 0));
+    assertNull(admission.tryAcquire("b", 0));
+    assertEquals(Rejection.QUALIFIER, admission.tryAcquire("a", 0));
+    assertEquals(1, admission.activeStreams("a"));
+    assertEquals(2, admission.activeStreams());
+
+    admission.release("a");
+    assertEquals(0, admission.activeStreams("a"));
+    assertNull(admission.tryAcquire("a", 0));
+  }
+
+  @Test
+  public void testGatewayLimit() {
+    StreamAdmission admission = new StreamAdmission().maxStreams(2);
+
+    assertNull(admission.tryAcquire("a", 0));
+    assertNull(admission.tryAcquire("b", 0));
+    assertEquals(Rejection.GATEWAY, admission.tryAcquire("c", 0));
+    assertEquals(2, admission.activeStreams());
+
+    admission.release("a");
+    assertNull(admission.tryAcquire("c", 0));
+    assertEquals(1, admission.rejectedStreams());
+  }
+
+  @Test
+  public void testInvalidLimit() {
+    assertThrows(IllegalArgumentException.class, () -> new StreamAdmission().maxStreams(-1));
+  }
+}
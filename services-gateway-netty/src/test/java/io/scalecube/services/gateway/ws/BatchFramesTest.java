@@ -0,0 +1,115 @@
+package io.scalecube.services.gateway.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.scalecube.services.exceptions.MessageCodecException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+public class BatchFramesTest {
+
+  private final GatewayMessageCodec codec = new GatewayMessageCodec();
+  private final GatewayMessageBinaryCodec binaryCodec = new GatewayMessageBinaryCodec();
+
+  @Test
+  public void testNegotiate() {
+    WebsocketBatching batching = new WebsocketBatching();
+
+    assertNull(batching.negotiate(null));
+    assertNull(batching.negotiate("2"));
+    assertEquals(WebsocketBatching.VERSION, batching.negotiate(" 1 "));
+  }
+
+  @Test
+  public void testComposeSplitJson() {
+    List<String> envelopes =
+        Arrays.asList(
+            TestInputs.NO_DATA,
+            "{\"sid\":1,\"d\":{\"text\":\"brackets ]},{[ and \\\"quotes\\\"\"}}",
+            "{\"sid\":2,\"d\":[1,[2,{}]]}");
+
+    ByteBuf frame =
+        BatchFrames.compose(
+            ByteBufAllocator.DEFAULT,
+            envelopes.stream().map(BatchFramesTest::toByteBuf).collect(Collectors.toList()),
+            false);
+    List<ByteBuf> actual = BatchFrames.split(frame, false);
+
+    assertEquals(
+        envelopes, actual.stream().map(BatchFramesTest::release).collect(Collectors.toList()));
+    assertEquals(0, frame.refCnt());
+  }
+
+  @Test
+  public void testComposeSplitBinary() {
+    List<GatewayMessage> messages =
+        Arrays.asList(
+            GatewayMessage.builder().qualifier(TestInputs.Q).streamId(TestInputs.SID).build(),
+            GatewayMessage.builder()
+                .streamId(TestInputs.SID)
+                .data(Unpooled.wrappedBuffer(new byte[300]))
+                .build(),
+            GatewayMessage.builder().streamId(TestInputs.SID).signal(Signal.COMPLETE).build());
+
+    ByteBuf frame =
+        BatchFrames.compose(
+            ByteBufAllocator.DEFAULT,
+            messages.stream().map(binaryCodec::encode).collect(Collectors.toList()),
+            true);
+    List<ByteBuf> actual = BatchFrames.split(frame, true);
+
+    assertEquals(messages.size(), actual.size());
+    for (int i = 0; i < messages.size(); i++) {
+      GatewayMessage message = binaryCodec.decode(actual.get(i));
+      assertEquals(messages.get(i).headers(), message.headers());
+      if (message.data() != null) {
+        assertEquals(300, ((ByteBuf) message.data()).readableBytes());
+        ((ByteBuf) message.data()).release();
+      }
+    }
+  }
+
+  @Test
+  public void testSplitSingleEnvelope() {
+    ByteBuf json = toByteBuf(TestInputs.NO_DATA);
+    ByteBuf binary = binaryCodec.encode(codec.decode(toByteBuf(TestInputs.NO_DATA)));
+
+    assertSame(json, BatchFrames.split(json, false).get(0));
+    assertSame(binary, BatchFrames.split(binary, true).get(0));
+    json.release();
+    binary.release();
+  }
+
+  @Test
+  public void testSplitMalformed() {
+    ByteBuf notTerminated = toByteBuf("[{\"sid\":1},{\"sid\":2}");
+    ByteBuf notObject = toByteBuf("[{\"sid\":1},2]");
+    ByteBuf lengthExceeded = Unpooled.wrappedBuffer(new byte[] {(byte) 0x80, 10, 1});
+
+    assertThrows(MessageCodecException.class, () -> BatchFrames.split(notTerminated, false));
+    assertThrows(MessageCodecException.class, () -> BatchFrames.split(notObject, false));
+    assertThrows(MessageCodecException.class, () -> BatchFrames.split(lengthExceeded, true));
+    assertEquals(0, notTerminated.refCnt());
+    assertEquals(0, notObject.refCnt());
+    assertEquals(0, lengthExceeded.refCnt());
+  }
+
+  private static ByteBuf toByteBuf(String value) {
+    return Unpooled.copiedBuffer(value, StandardCharsets.UTF_8);
+  }
+
+  private static String release(ByteBuf byteBuf) {
+    String value = byteBuf.toString(StandardCharsets.UTF_8);
+    byteBuf.release();
+    return value;
+  }
+}
@@ -0,0 +1,61 @@
+package io.scalecube.services.gateway.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+public class CreditSubscriberTest {
+
+  @Test
+  public void testInitialCredit() {
+    assertEquals(-1, CreditSubscriber.initialCredit(GatewayMessage.builder().build()));
+    assertEquals(0, CreditSubscriber.initialCredit(credit("0")));
+    assertEquals(16, CreditSubscriber.initialCredit(credit("16")));
+    assertThrows(
+        IllegalArgumentException.class, () -> CreditSubscriber.initialCredit(credit("-1")));
+    assertThrows(IllegalArgumentException.class, () -> CreditSubscriber.initialCredit(credit("n")));
+  }
+
+  @Test
+  public void testCredit() {
+    assertEquals(Long.MAX_VALUE, CreditSubscriber.credit(credit(Long.toString(Long.MAX_VALUE))));
+    assertThrows(IllegalArgumentException.class, () -> CreditSubscriber.credit(credit("0")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> CreditSubscriber.credit(GatewayMessage.builder().signal(Signal.REQUEST_N).build()));
+  }
+
+  @Test
+  public void testRequestsOnlyCredits() {
+    List<Integer> received = new ArrayList<>();
+    AtomicBoolean completed = new AtomicBoolean();
+
+    CreditSubscriber<Integer> subscriber =
+        Flux.range(0, 5)
+            .subscribeWith(
+                new CreditSubscriber<>(2, received::add, th -> {}, () -> completed.set(true)));
+    assertEquals(Arrays.asList(0, 1), received);
+
+    subscriber.request(2);
+    assertEquals(Arrays.asList(0, 1, 2, 3), received);
+
+    subscriber.request(2);
+    assertEquals(Arrays.asList(0, 1, 2, 3, 4), received);
+    assertTrue(completed.get());
+  }
+
+  private static GatewayMessage credit(String value) {
+    return GatewayMessage.builder()
+        .streamId(1)
+        .signal(Signal.REQUEST_N)
+        .header(CreditSubscriber.CREDIT_HEADER, value)
+        .build();
+  }
+}
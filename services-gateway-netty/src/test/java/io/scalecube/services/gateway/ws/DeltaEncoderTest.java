@@ -0,0 +1,117 @@
+package io.scalecube.services.gateway.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class DeltaEncoderTest {
+
+  private static final String PRICE_1 =
+      "{\"symbol\":\"BTCUSD\",\"venue\":\"exchange\",\"bid\":100,\"ask\":101,\"depth\":{\"b\":5}}";
+  private static final String PRICE_2 =
+      "{\"symbol\":\"BTCUSD\",\"venue\":\"exchange\",\"bid\":102,\"ask\":101,\"depth\":{\"b\":6}}";
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  public void testOf() {
+    assertNull(DeltaEncoder.of(GatewayMessage.builder().qualifier(TestInputs.Q).build()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> DeltaEncoder.of(GatewayMessage.builder().header("delta", "0").build()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> DeltaEncoder.of(GatewayMessage.builder().header("delta", "often").build()));
+  }
+
+  @Test
+  public void testDiff() throws Exception {
+    ObjectNode source = (ObjectNode) objectMapper.readTree("{\"a\":1,\"b\":{\"c\":2,\"d\":3}}");
+    ObjectNode target = (ObjectNode) objectMapper.readTree("{\"a\":1,\"b\":{\"c\":4},\"e\":[1]}");
+
+    assertEquals(
+        objectMapper.readTree("{\"b\":{\"c\":4,\"d\":null},\"e\":[1]}"),
+        DeltaEncoder.diff(source, target));
+    assertNull(
+        DeltaEncoder.diff(source, (ObjectNode) objectMapper.readTree("{\"a\":null,\"b\":{}}")));
+  }
+
+  @Test
+  public void testEncodeSnapshotAndPatch() throws Exception {
+    DeltaEncoder encoder = newEncoder(2);
+
+    GatewayMessage first = encode(encoder, PRICE_1);
+    assertEquals(DeltaEncoder.SNAPSHOT, first.customHeaders().get(DeltaEncoder.DELTA_HEADER));
+    assertEquals(PRICE_1, release(first));
+
+    GatewayMessage second = encode(encoder, PRICE_2);
+    assertEquals(DeltaEncoder.PATCH, second.customHeaders().get(DeltaEncoder.DELTA_HEADER));
+    assertEquals(
+        objectMapper.readTree("{\"bid\":102,\"depth\":{\"b\":6}}"),
+        objectMapper.readTree(release(second)));
+
+    // period is reached
+    GatewayMessage third = encode(encoder, PRICE_1);
+    assertEquals(DeltaEncoder.SNAPSHOT, third.customHeaders().get(DeltaEncoder.DELTA_HEADER));
+    assertEquals(PRICE_1, release(third));
+  }
+
+  @Test
+  public void testEncodeSnapshotIfPatchHasNulls() {
+    DeltaEncoder encoder = newEncoder(100);
+    release(encode(encoder, PRICE_1));
+
+    GatewayMessage message = encode(encoder, "{\"symbol\":null}");
+
+    assertEquals(DeltaEncoder.SNAPSHOT, message.customHeaders().get(DeltaEncoder.DELTA_HEADER));
+    assertEquals("{\"symbol\":null}", release(message));
+  }
+
+  @Test
+  public void testEncodeNotJson() {
+    DeltaEncoder encoder = newEncoder(100);
+    GatewayMessage.Builder response = GatewayMessage.builder().streamId(TestInputs.SID);
+    ByteBuf data = toByteBuf("not json");
+
+    assertSame(response, encoder.encode(response, data));
+    assertNull(response.data(data).build().customHeaders().get(DeltaEncoder.DELTA_HEADER));
+    assertEquals(1, data.refCnt());
+    data.release();
+
+    // encoder is disabled for the stream
+    GatewayMessage message = encode(encoder, PRICE_1);
+    assertNull(message.customHeaders().get(DeltaEncoder.DELTA_HEADER));
+    release(message);
+  }
+
+  private static DeltaEncoder newEncoder(int period) {
+    GatewayMessage request =
+        GatewayMessage.builder().header(DeltaEncoder.DELTA_HEADER, String.valueOf(period)).build();
+    return DeltaEncoder.of(request);
+  }
+
+  private static GatewayMessage encode(DeltaEncoder encoder, String payload) {
+    ByteBuf data = toByteBuf(payload);
+    GatewayMessage.Builder response = GatewayMessage.builder().streamId(TestInputs.SID).data(data);
+    return encoder.encode(response, data).build();
+  }
+
+  private static ByteBuf toByteBuf(String value) {
+    return Unpooled.copiedBuffer(value, StandardCharsets.UTF_8);
+  }
+
+  private static String release(GatewayMessage message) {
+    ByteBuf byteBuf = message.data();
+    String value = byteBuf.toString(StandardCharsets.UTF_8);
+    byteBuf.release();
+    return value;
+  }
+}
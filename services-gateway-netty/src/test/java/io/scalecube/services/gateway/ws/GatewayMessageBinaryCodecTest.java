@@ -0,0 +1,129 @@
+package io.scalecube.services.gateway.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.scalecube.services.exceptions.MessageCodecException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class GatewayMessageBinaryCodecTest {
+
+  private final GatewayMessageBinaryCodec codec = new GatewayMessageBinaryCodec();
+
+  @Test
+  public void testEncodeDecodeNoData() {
+    GatewayMessage expected =
+        GatewayMessage.builder()
+            .qualifier(TestInputs.Q)
+            .streamId(TestInputs.SID)
+            .signal(TestInputs.SIG)
+            .inactivity(TestInputs.I)
+            .header("custom", "значение")
+            .build();
+
+    GatewayMessage actual = codec.decode(codec.encode(expected));
+
+    assertEquals(expected.headers(), actual.headers());
+    assertNull(actual.data());
+  }
+
+  @Test
+  public void testEncodeDecodeData() {
+    String data = "{\"text\":\"someValue\", \"id\":12345}";
+    GatewayMessage expected =
+        GatewayMessage.builder()
+            .qualifier(TestInputs.Q)
+            .streamId(Long.MAX_VALUE)
+            .data(toByteBuf(data))
+            .build();
+
+    ByteBuf bb = codec.encode(expected);
+    GatewayMessage actual = codec.decode(bb);
+
+    assertEquals(expected.headers(), actual.headers());
+    assertEquals(data, ((ByteBuf) actual.data()).toString(StandardCharsets.UTF_8));
+    assertEquals(0, ((ByteBuf) expected.data()).refCnt());
+    assertEquals(0, bb.refCnt());
+  }
+
+  @Test
+  public void testEncodeObjectData() {
+    TestInputs.Entity data = new TestInputs.Entity("test", 123, true);
+    GatewayMessage expected = GatewayMessage.builder().streamId(TestInputs.SID).data(data).build();
+
+    GatewayMessage actual = codec.decode(codec.encode(expected));
+
+    assertEquals(TestInputs.SID, actual.streamId());
+    assertEquals(
+        "{\"text\":\"test\",\"number\":123,\"check\":true}",
+        ((ByteBuf) actual.data()).toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testDecodeZeroCopyData() {
+    String data = "[1,2,3]";
+    GatewayMessage expected =
+        GatewayMessage.builder().streamId(TestInputs.SID).data(toByteBuf(data)).build();
+    ByteBuf bb = codec.encode(expected);
+
+    GatewayMessage actual = codec.zeroCopyDecode(true).decode(bb);
+
+    ByteBuf actualData = actual.data();
+    assertEquals(data, actualData.toString(StandardCharsets.UTF_8));
+    assertSame(bb, actualData.unwrap());
+    actualData.release();
+    assertEquals(0, bb.refCnt());
+  }
+
+  @Test
+  public void testEncodeStreamId() {
+    String data = "{\"text\":\"someValue\", \"id\":12345}";
+    GatewayMessage message =
+        GatewayMessage.builder()
+            .qualifier(TestInputs.Q)
+            .signal(TestInputs.SIG)
+            .header("custom", "value")
+            .data(toByteBuf(data))
+            .build();
+    ByteBuf shared = codec.encode(message);
+    ByteBuf copy = shared.copy();
+
+    ByteBuf content = shared.retainedDuplicate();
+    GatewayMessage actual =
+        codec.decode(codec.encodeStreamId(content, Long.MAX_VALUE, ByteBufAllocator.DEFAULT));
+
+    assertEquals(Long.MAX_VALUE, actual.streamIdAsLong());
+    assertEquals(TestInputs.Q, actual.qualifier());
+    assertEquals(TestInputs.SIG, actual.signal());
+    assertEquals("value", actual.customHeaders().get("custom"));
+    assertEquals(data, ((ByteBuf) actual.data()).toString(StandardCharsets.UTF_8));
+    assertEquals(copy, shared); // shared one is intact
+    copy.release();
+    assertEquals(1, shared.refCnt());
+    shared.release();
+  }
+
+  @Test
+  public void testDecodeMalformed() {
+    GatewayMessage expected =
+        GatewayMessage.builder().qualifier(TestInputs.Q).streamId(TestInputs.SID).build();
+    ByteBuf bb = codec.encode(expected);
+    ByteBuf truncated = bb.copy(0, bb.readableBytes() - 1);
+    bb.release();
+
+    assertThrows(MessageCodecException.class, () -> codec.decode(truncated));
+    assertEquals(0, truncated.refCnt());
+  }
+
+  private ByteBuf toByteBuf(String data) {
+    ByteBuf bb = Unpooled.buffer(); // unpooled, so that refCnt of released buffer stays 0
+    bb.writeBytes(data.getBytes(StandardCharsets.UTF_8));
+    return bb;
+  }
+}
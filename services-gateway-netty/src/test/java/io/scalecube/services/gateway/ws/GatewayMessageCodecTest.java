@@ -2,7 +2,9 @@ package io.scalecube.services.gateway.ws;
 
 import static io.scalecube.services.gateway.ws.GatewayMessage.STREAM_ID_FIELD;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
@@ -16,11 +18,14 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.scalecube.services.gateway.ws.GatewayMessage.Builder;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -43,6 +48,35 @@ public class GatewayMessageCodecTest {
     assertEquals(TestInputs.I, result.inactivity());
   }
 
+  @Test
+  public void testDecodeCustomHeaders() {
+    ByteBuf input =
+        toByteBuf("{\"q\":\"" + TestInputs.Q + "\",\"sid\":\"42\",\"rlimit\":8,\"custom\":\"a\"}");
+
+    GatewayMessage result = codec.decode(input);
+
+    assertEquals(TestInputs.Q, result.qualifier());
+    assertTrue(result.hasStreamId());
+    assertEquals(42L, result.streamIdAsLong());
+    assertEquals(8, result.rateLimitAsInt());
+    assertFalse(result.hasSignal());
+    assertEquals(Collections.singletonMap("custom", "a"), result.customHeaders());
+    assertEquals("8", result.headers().get(GatewayMessage.RATE_LIMIT_FIELD));
+  }
+
+  @Test
+  public void testBuilderReuseDoesNotAffectBuiltMessage() {
+    Builder builder = GatewayMessage.builder().qualifier(TestInputs.Q).header("custom", "a");
+    GatewayMessage first = builder.build();
+
+    GatewayMessage second = builder.header("custom", "b").streamId(TestInputs.SID).build();
+
+    assertEquals("a", first.customHeaders().get("custom"));
+    assertFalse(first.hasStreamId());
+    assertEquals("b", second.customHeaders().get("custom"));
+    assertEquals(TestInputs.SID, second.streamId());
+  }
+
   @Test
   public void testDecodeNullData() {
     Object nullData = "null";
@@ -207,6 +241,53 @@ public class GatewayMessageCodecTest {
     assertEquals(expectedData, ((ByteBuf) result.data()).toString(StandardCharsets.UTF_8));
   }
 
+  @Test
+  public void testDecodeZeroCopyData() {
+    String expectedData = "{\"text\":\"someValue\", \"id\":12345}";
+    String stringData =
+        String.format(
+            TestInputs.STRING_DATA_PATTERN_Q_SIG_SID_D,
+            TestInputs.Q,
+            TestInputs.SIG,
+            TestInputs.SID,
+            expectedData);
+
+    ByteBuf input = toByteBuf(stringData);
+
+    GatewayMessage result = codec.zeroCopyDecode(true).decode(input);
+
+    assertEquals(TestInputs.Q, result.qualifier());
+    assertEquals(TestInputs.SID, result.streamId());
+    ByteBuf data = result.data();
+    assertEquals(expectedData, data.toString(StandardCharsets.UTF_8));
+    // data is a slice which keeps inbound frame alive until data is released
+    assertSame(input, data.unwrap());
+    assertEquals(1, input.refCnt());
+    data.release();
+    assertEquals(0, input.refCnt());
+  }
+
+  @Test
+  public void testDecodeDataWithReaderIndex() {
+    String expectedData = "[1,2,3]";
+    String stringData =
+        String.format(
+            TestInputs.STRING_DATA_PATTERN_D_SIG_SID_Q,
+            expectedData,
+            TestInputs.SIG,
+            TestInputs.SID,
+            TestInputs.Q);
+
+    ByteBuf input = toByteBuf("garbage" + stringData);
+    input.skipBytes("garbage".length());
+
+    GatewayMessage result = codec.decode(input);
+
+    assertEquals(TestInputs.Q, result.qualifier());
+    assertEquals(expectedData, ((ByteBuf) result.data()).toString(StandardCharsets.UTF_8));
+    assertEquals(0, input.refCnt());
+  }
+
   @Test
   public void testEncodePojoData() throws Exception {
     TestInputs.Entity data = new TestInputs.Entity("test", 123, true);
@@ -228,6 +309,65 @@ public class GatewayMessageCodecTest {
     assertEquals(data, actual.data());
   }
 
+  @Test
+  public void testEncodeCompositeData() {
+    String data = "{\"text\":\"someValue\",\"id\":12345}";
+    ByteBuf dataBin = Unpooled.copiedBuffer(data, StandardCharsets.UTF_8);
+    GatewayMessage message =
+        GatewayMessage.builder().qualifier(TestInputs.Q).streamId(TestInputs.SID).build();
+
+    ByteBuf expected =
+        new GatewayMessageCodec(false)
+            .encode(GatewayMessage.from(message).data(dataBin.slice()).build());
+    ByteBuf actual =
+        codec
+            .compositeEncode(true)
+            .encode(GatewayMessage.from(message).data(dataBin).build());
+
+    assertTrue(actual instanceof CompositeByteBuf);
+    assertEquals(
+        expected.toString(StandardCharsets.UTF_8), actual.toString(StandardCharsets.UTF_8));
+    assertEquals(1, dataBin.refCnt()); // owned by composite buffer now
+    actual.release();
+    expected.release();
+    assertEquals(0, dataBin.refCnt());
+  }
+
+  @Test
+  public void testEncodeStreamId() {
+    String data = "{\"text\":\"someValue\",\"id\":12345}";
+    GatewayMessage message =
+        GatewayMessage.builder()
+            .qualifier(TestInputs.Q)
+            .data(Unpooled.copiedBuffer(data, StandardCharsets.UTF_8))
+            .build();
+    ByteBuf shared = codec.encode(message);
+    String encoded = shared.toString(StandardCharsets.UTF_8);
+
+    ByteBuf content = shared.retainedDuplicate();
+    GatewayMessage actual =
+        codec.decode(codec.encodeStreamId(content, TestInputs.SID, ByteBufAllocator.DEFAULT));
+
+    assertEquals(TestInputs.Q, actual.qualifier());
+    assertEquals(TestInputs.SID, actual.streamId());
+    assertEquals(data, ((ByteBuf) actual.data()).toString(StandardCharsets.UTF_8));
+    assertEquals(encoded, shared.toString(StandardCharsets.UTF_8)); // shared one is intact
+    assertEquals(1, shared.refCnt());
+    shared.release();
+  }
+
+  @Test
+  public void testEncodeStreamIdOfEmptyMessage() {
+    ByteBuf actual =
+        codec.encodeStreamId(
+            codec.encode(GatewayMessage.builder().build()),
+            TestInputs.SID,
+            ByteBufAllocator.DEFAULT);
+
+    assertEquals("{\"sid\":" + TestInputs.SID + "}", actual.toString(StandardCharsets.UTF_8));
+    actual.release();
+  }
+
   @Test
   public void testEncodeNumberData() throws Exception {
     Integer data = -213;
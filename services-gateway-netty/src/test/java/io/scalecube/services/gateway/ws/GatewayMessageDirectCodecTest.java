@@ -0,0 +1,139 @@
+package io.scalecube.services.gateway.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.scalecube.services.exceptions.MessageCodecException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class GatewayMessageDirectCodecTest {
+
+  private final GatewayMessageCodec jacksonCodec = new GatewayMessageCodec(false);
+  private final GatewayMessageCodec directCodec = new GatewayMessageCodec(false).directCodec(true);
+
+  @Test
+  public void testDecodeSameAsJackson() {
+    List<String> inputs =
+        Arrays.asList(
+            TestInputs.NO_DATA,
+            "{}",
+            "{\"q\":\"/test/test\",\"sid\":42,\"sig\":-1,\"rlimit\":8,\"d\":null}",
+            "{\"d\":{\"a\":[1,{\"b\":\"}]\\\"\"}]},\"sid\":9223372036854775,\"q\":\"/q\"}",
+            "{\"sid\":1,\"d\":\"text, with \\\"quotes\\\"\"}",
+            "{\"sid\":1,\"d\":-1.5e3}",
+            "{\"sid\":1,\"d\":true , \"custom\":\"v\", \"num\":12, \"flag\":false}",
+            "{\"q\":\"/юникод\",\"d\":[\"ü\"]}");
+
+    for (String input : inputs) {
+      GatewayMessage expected = jacksonCodec.decode(toByteBuf(input));
+      GatewayMessage actual = directCodec.decode(toByteBuf(input));
+      GatewayMessage actualDirect = directCodec.decode(toDirectByteBuf(input));
+      assertEquals(expected.headers(), actual.headers(), input);
+      assertEquals(expected.headers(), actualDirect.headers(), input);
+      String expectedData = dataToString(expected);
+      assertEquals(expectedData, dataToString(actual), input);
+      assertEquals(expectedData, dataToString(actualDirect), input);
+    }
+  }
+
+  @Test
+  public void testFallbackToJackson() {
+    List<String> inputs =
+        Arrays.asList(
+            "{\"q\":\"/test/\\u0074est\",\"sid\":42}",
+            "{\"sid\":\"42\",\"sig\":1}",
+            "{\"sid\":42,\"price\":1.5}",
+            "{\"sid\" : 42, \"custom\":\"a\\\"b\"}");
+
+    for (String input : inputs) {
+      assertNull(GatewayMessageDirectCodec.decode(toByteBuf(input), false), input);
+      GatewayMessage expected = jacksonCodec.decode(toByteBuf(input));
+      GatewayMessage actual = directCodec.decode(toByteBuf(input));
+      assertEquals(expected.headers(), actual.headers(), input);
+    }
+  }
+
+  @Test
+  public void testDecodeMalformedEnvelope() {
+    assertThrows(MessageCodecException.class, () -> directCodec.decode(toByteBuf("{\"sid\":1")));
+    assertThrows(MessageCodecException.class, () -> directCodec.decode(toByteBuf("[]")));
+    assertThrows(
+        MessageCodecException.class,
+        () -> directCodec.decode(toByteBuf("{\"sid\":12345678901234567890}")));
+  }
+
+  @Test
+  public void testEncodeSameAsJackson() {
+    List<GatewayMessage> messages =
+        Arrays.asList(
+            GatewayMessage.builder().build(),
+            GatewayMessage.builder()
+                .qualifier(TestInputs.Q)
+                .streamId(Long.MIN_VALUE)
+                .signal(0)
+                .inactivity(TestInputs.I)
+                .rateLimit(Integer.MAX_VALUE)
+                .header("custom", "a \"quoted\" \\ value\n")
+                .header("unicode", "ü")
+                .data(toByteBuf("{\"text\":\"hello\"}"))
+                .build(),
+            GatewayMessage.builder().streamId(-7).data(new TestInputs.Entity("x", 1, true)).build(),
+            GatewayMessage.builder().streamId(0).data("str").build(),
+            GatewayMessage.builder().qualifier(TestInputs.Q).data(Unpooled.EMPTY_BUFFER).build());
+
+    for (GatewayMessage message : messages) {
+      ByteBuf actual = directCodec.encode(message); // doesn't move reader index of data
+      ByteBuf expected = jacksonCodec.encode(message);
+      assertEquals(
+          expected.toString(StandardCharsets.UTF_8), actual.toString(StandardCharsets.UTF_8));
+      assertNotNull(jacksonCodec.decode(actual));
+      expected.release();
+    }
+  }
+
+  @Test
+  public void testEncodeCompositeSameAsJackson() {
+    GatewayMessage message =
+        GatewayMessage.builder()
+            .qualifier(TestInputs.Q)
+            .streamId(TestInputs.SID)
+            .data(toByteBuf("\"payload\""))
+            .build();
+
+    ByteBuf expected = jacksonCodec.compositeEncode(true).encode(message);
+    ByteBuf actual = directCodec.compositeEncode(true).encode(message);
+
+    assertEquals(
+        expected.toString(StandardCharsets.UTF_8), actual.toString(StandardCharsets.UTF_8));
+    expected.release();
+    actual.release();
+  }
+
+  private static String dataToString(GatewayMessage message) {
+    ByteBuf data = message.data();
+    if (data == null) {
+      return null;
+    }
+    String result = data.toString(StandardCharsets.UTF_8);
+    data.release();
+    return result;
+  }
+
+  private static ByteBuf toByteBuf(String value) {
+    return Unpooled.copiedBuffer(value, StandardCharsets.UTF_8);
+  }
+
+  private static ByteBuf toDirectByteBuf(String value) {
+    // direct buffer with non-zero reader index
+    ByteBuf byteBuf = Unpooled.directBuffer().writeByte(' ');
+    byteBuf.writeCharSequence(value, StandardCharsets.UTF_8);
+    return byteBuf.skipBytes(1);
+  }
+}
@@ -0,0 +1,163 @@
+package io.scalecube.services.gateway.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.TooLongFrameException;
+import io.scalecube.services.exceptions.MessageCodecException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class GatewayMessageIncrementalDecoderTest {
+
+  private static final String LONG_STRING = new String(new char[20000]).replace('\0', 'x');
+
+  private final GatewayMessageCodec codec = new GatewayMessageCodec();
+
+  static List<String> dataSamples() {
+    return Arrays.asList(
+        "123",
+        "-1.5e10",
+        "true",
+        "\"test\"",
+        "\"esc\\\"aped\\\\\"",
+        "{\"text\":\"someValue\", \"id\":12345, \"empty\":null, \"embedded\":{\"id\":123}}",
+        "[{\"id\":1}, {\"id\":2}, [3, [4]]]",
+        "\"" + LONG_STRING + "\"");
+  }
+
+  @ParameterizedTest
+  @MethodSource("dataSamples")
+  public void testDecodeSplitAtEveryPosition(String expectedData) {
+    String message =
+        String.format(
+            TestInputs.STRING_DATA_PATTERN_D_SIG_SID_Q,
+            expectedData,
+            TestInputs.SIG,
+            TestInputs.SID,
+            TestInputs.Q);
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+
+    int step = Math.max(1, bytes.length / 200);
+    for (boolean zeroCopy : new boolean[] {false, true}) {
+      GatewayMessageIncrementalDecoder decoder =
+          codec.zeroCopyDecode(zeroCopy).newIncrementalDecoder();
+      for (int i = 0; i <= bytes.length; i += step) {
+        for (int j = i; j <= bytes.length; j += Math.max(step, bytes.length / 7)) {
+          assertNull(decoder.feed(toByteBuf(bytes, 0, i), false));
+          assertNull(decoder.feed(toByteBuf(bytes, i, j), false));
+          GatewayMessage result = decoder.feed(toByteBuf(bytes, j, bytes.length), true);
+
+          assertNotNull(result);
+          assertEquals(TestInputs.Q, result.qualifier());
+          assertEquals(TestInputs.SIG, result.signal());
+          assertEquals(TestInputs.SID, result.streamId());
+          ByteBuf data = result.data();
+          assertEquals(expectedData, data.toString(StandardCharsets.UTF_8));
+          data.release();
+        }
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"null", "{}"})
+  public void testDecodeNoData(String data) {
+    String message =
+        String.format(
+            TestInputs.STRING_DATA_PATTERN_Q_SIG_SID_D,
+            TestInputs.Q,
+            TestInputs.SIG,
+            TestInputs.SID,
+            data);
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+    GatewayMessageIncrementalDecoder decoder = codec.newIncrementalDecoder();
+
+    assertNull(decoder.feed(toByteBuf(bytes, 0, bytes.length / 2), false));
+    GatewayMessage result = decoder.feed(toByteBuf(bytes, bytes.length / 2, bytes.length), true);
+
+    assertEquals(TestInputs.Q, result.qualifier());
+    if ("null".equals(data)) {
+      assertNull(result.data());
+    } else {
+      assertEquals(data, ((ByteBuf) result.data()).toString(StandardCharsets.UTF_8));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"[1,2]", "{\"q\":{}}", "{\"q\":\"/test\"} {}"})
+  public void testMalformedMessageIsSkipped(String malformed) {
+    byte[] bytes = malformed.getBytes(StandardCharsets.UTF_8);
+    byte[] valid = TestInputs.NO_DATA.getBytes(StandardCharsets.UTF_8);
+    GatewayMessageIncrementalDecoder decoder = codec.newIncrementalDecoder();
+
+    List<ByteBuf> fragments = new ArrayList<>();
+    fragments.add(toByteBuf(bytes, 0, bytes.length));
+    fragments.add(toByteBuf(valid, 0, valid.length)); // continuation of malformed message
+
+    assertThrows(MessageCodecException.class, () -> decoder.feed(fragments.get(0), false));
+    assertNull(decoder.feed(fragments.get(1), true));
+
+    GatewayMessage result = decoder.feed(toByteBuf(valid, 0, valid.length), true);
+    assertEquals(TestInputs.Q, result.qualifier());
+    assertEquals(TestInputs.I, result.inactivity());
+    fragments.forEach(fragment -> assertEquals(0, fragment.refCnt()));
+  }
+
+  @Test
+  public void testIncompleteMessage() {
+    byte[] bytes = "{\"q\":\"/test\",\"d\":{\"a\":".getBytes(StandardCharsets.UTF_8);
+    GatewayMessageIncrementalDecoder decoder = codec.newIncrementalDecoder();
+    ByteBuf fragment = toByteBuf(bytes, 0, bytes.length);
+
+    assertThrows(MessageCodecException.class, () -> decoder.feed(fragment, true));
+    assertEquals(0, fragment.refCnt());
+  }
+
+  @Test
+  public void testMessageSizeIsLimited() {
+    String data = "\"" + LONG_STRING + "\"";
+    String message =
+        String.format(
+            TestInputs.STRING_DATA_PATTERN_Q_SIG_SID_D,
+            TestInputs.Q,
+            TestInputs.SIG,
+            TestInputs.SID,
+            data);
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+    byte[] valid = TestInputs.NO_DATA.getBytes(StandardCharsets.UTF_8);
+    GatewayMessageIncrementalDecoder decoder =
+        codec.maxMessageSize(bytes.length - 1).newIncrementalDecoder();
+
+    List<ByteBuf> fragments = new ArrayList<>();
+    fragments.add(toByteBuf(bytes, 0, bytes.length / 2));
+    fragments.add(toByteBuf(bytes, bytes.length / 2, bytes.length - 1));
+    fragments.add(toByteBuf(bytes, bytes.length - 1, bytes.length));
+    fragments.add(toByteBuf(valid, 0, valid.length)); // continuation of too long message
+
+    assertNull(decoder.feed(fragments.get(0), false));
+    assertNull(decoder.feed(fragments.get(1), false));
+    assertThrows(TooLongFrameException.class, () -> decoder.feed(fragments.get(2), false));
+    assertNull(decoder.feed(fragments.get(3), true));
+    fragments.forEach(fragment -> assertEquals(0, fragment.refCnt()));
+
+    GatewayMessage result = decoder.feed(toByteBuf(valid, 0, valid.length), true);
+    assertEquals(TestInputs.Q, result.qualifier());
+  }
+
+  private ByteBuf toByteBuf(byte[] bytes, int from, int to) {
+    ByteBuf bb = ByteBufAllocator.DEFAULT.buffer();
+    bb.writeBytes(bytes, from, to - from);
+    return bb;
+  }
+}
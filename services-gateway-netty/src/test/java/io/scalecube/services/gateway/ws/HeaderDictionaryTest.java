@@ -0,0 +1,77 @@
+package io.scalecube.services.gateway.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class HeaderDictionaryTest {
+
+  private static final String TOKEN = "Bearer eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiIxMjM0NTY3ODkwIn0";
+
+  @Test
+  public void testRegister() {
+    HeaderDictionary dictionary = new HeaderDictionary(2);
+
+    assertEquals(0, dictionary.register(TestInputs.Q));
+    assertEquals(1, dictionary.register(TOKEN));
+    assertEquals(0, dictionary.register(new String(TestInputs.Q))); // already registered
+    assertEquals(HeaderDictionary.NO_INDEX, dictionary.register("tenant")); // full
+    assertEquals(2, dictionary.size());
+    assertSame(TestInputs.Q.intern(), dictionary.value(0));
+  }
+
+  @Test
+  public void testResolve() {
+    HeaderDictionary dictionary = new HeaderDictionary(16);
+    int qualifierIndex = dictionary.register(TestInputs.Q);
+    int tokenIndex = dictionary.register(TOKEN);
+    ByteBuf data = Unpooled.copiedBuffer("{}", StandardCharsets.UTF_8);
+
+    GatewayMessage request =
+        GatewayMessage.builder()
+            .streamId(TestInputs.SID)
+            .inactivity(TestInputs.I)
+            .header("q" + HeaderDictionary.REFERENCE_SUFFIX, qualifierIndex)
+            .header("token" + HeaderDictionary.REFERENCE_SUFFIX, tokenIndex)
+            .header("custom", "value")
+            .data(data)
+            .build();
+    GatewayMessage resolved = dictionary.resolve(request);
+
+    assertSame(dictionary.value(qualifierIndex), resolved.qualifier());
+    assertSame(dictionary.value(tokenIndex), resolved.customHeaders().get("token"));
+    assertEquals("value", resolved.customHeaders().get("custom"));
+    assertEquals(2, resolved.customHeaders().size());
+    assertEquals(TestInputs.SID.longValue(), resolved.streamIdAsLong());
+    assertEquals(TestInputs.I.intValue(), resolved.inactivityAsInt());
+    assertSame(data, resolved.data());
+    data.release();
+  }
+
+  @Test
+  public void testResolveWithoutReferences() {
+    HeaderDictionary dictionary = new HeaderDictionary(16);
+    GatewayMessage request =
+        GatewayMessage.builder().qualifier(TestInputs.Q).header("custom", "value").build();
+
+    assertSame(request, dictionary.resolve(request));
+  }
+
+  @Test
+  public void testResolveUnknownIndex() {
+    HeaderDictionary dictionary = new HeaderDictionary(16);
+    dictionary.register(TestInputs.Q);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> dictionary.resolve(GatewayMessage.builder().header("q@", "1").build()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> dictionary.resolve(GatewayMessage.builder().header("q@", "first").build()));
+  }
+}
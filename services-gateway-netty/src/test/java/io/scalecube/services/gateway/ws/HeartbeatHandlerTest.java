@@ -0,0 +1,59 @@
+package io.scalecube.services.gateway.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.junit.jupiter.api.Test;
+
+public class HeartbeatHandlerTest {
+
+  @Test
+  public void testPongResetsMissedPongs() {
+    WebsocketHeartbeat settings = new WebsocketHeartbeat().maxMissedPongs(2);
+    HeartbeatHandler handler = new HeartbeatHandler(settings);
+    EmbeddedChannel channel = new EmbeddedChannel(handler);
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(handler.heartbeat());
+      WebSocketFrame ping = channel.readOutbound();
+      assertTrue(ping instanceof PingWebSocketFrame);
+      ping.release();
+      assertFalse(channel.writeInbound(new PongWebSocketFrame())); // pong is consumed
+    }
+
+    assertTrue(channel.isActive());
+    assertEquals(5, settings.pings());
+    assertEquals(0, settings.reapedSessions());
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  public void testReapOnMissedPongs() {
+    WebsocketHeartbeat settings = new WebsocketHeartbeat().maxMissedPongs(2);
+    HeartbeatHandler handler = new HeartbeatHandler(settings);
+    EmbeddedChannel channel = new EmbeddedChannel(handler);
+
+    assertTrue(handler.heartbeat());
+    assertTrue(handler.heartbeat());
+    // other inbound frames don't count as pongs
+    assertTrue(channel.writeInbound(new TextWebSocketFrame("{}")));
+    assertFalse(handler.heartbeat());
+
+    assertFalse(channel.isActive());
+    assertEquals(2, settings.pings());
+    assertEquals(1, settings.reapedSessions());
+    assertFalse(handler.heartbeat());
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  public void testNotStarted() {
+    assertFalse(new HeartbeatHandler(new WebsocketHeartbeat()).heartbeat());
+  }
+}
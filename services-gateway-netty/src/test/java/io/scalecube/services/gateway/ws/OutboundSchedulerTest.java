@@ -0,0 +1,109 @@
+package io.scalecube.services.gateway.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class OutboundSchedulerTest {
+
+  private static final int QUANTUM = 100;
+
+  private final OutboundScheduler<Message> scheduler =
+      new OutboundScheduler<>(QUANTUM, m -> m.sid, m -> m.size, m -> m.terminal);
+
+  @Test
+  public void testBurstDoesNotHoldBackOtherStream() {
+    for (int i = 0; i < 5; i++) {
+      scheduler.offer(new Message(1, QUANTUM));
+    }
+    scheduler.offer(new Message(2, 10));
+
+    assertEquals(Arrays.asList(1L, 2L, 1L, 1L, 1L, 1L), drain());
+  }
+
+  @Test
+  public void testSmallStreamIsWrittenBeforeBacklogOfBulkStream() {
+    int backlog = 100;
+    for (int i = 0; i < backlog; i++) {
+      scheduler.offer(new Message(1, QUANTUM / 2));
+    }
+    // single response of another stream is queued behind the whole backlog
+    scheduler.offer(new Message(2, 10));
+    scheduler.offer(new Message(2, 10, true));
+
+    List<Long> sids = drain();
+
+    assertEquals(backlog + 2, sids.size());
+    assertEquals(Arrays.asList(1L, 1L, 2L, 2L), sids.subList(0, 4));
+    assertTrue(sids.subList(4, sids.size()).stream().allMatch(sid -> sid == 1L));
+  }
+
+  @Test
+  public void testPriorityIsWeightOfStream() {
+    scheduler.priority(1, 2);
+    for (int i = 0; i < 4; i++) {
+      scheduler.offer(new Message(1, QUANTUM));
+      scheduler.offer(new Message(2, QUANTUM));
+    }
+
+    assertEquals(Arrays.asList(1L, 1L, 2L, 1L, 1L, 2L, 2L, 2L), drain());
+  }
+
+  @Test
+  public void testLargeMessageAccumulatesDeficit() {
+    scheduler.offer(new Message(1, QUANTUM * 3));
+    scheduler.offer(new Message(2, QUANTUM));
+    scheduler.offer(new Message(2, QUANTUM));
+    scheduler.offer(new Message(2, QUANTUM));
+
+    assertEquals(Arrays.asList(2L, 2L, 1L, 2L), drain());
+  }
+
+  @Test
+  public void testStreamIsDroppedAfterTerminalMessage() {
+    scheduler.priority(1, 4);
+    scheduler.offer(new Message(1, 10));
+    scheduler.offer(new Message(1, 10, true));
+    assertEquals(Arrays.asList(1L, 1L), drain());
+
+    // same sid starts over with default priority
+    for (int i = 0; i < 3; i++) {
+      scheduler.offer(new Message(1, QUANTUM));
+      scheduler.offer(new Message(2, QUANTUM));
+    }
+    assertEquals(Arrays.asList(1L, 2L, 1L, 2L, 1L, 2L), drain());
+  }
+
+  private List<Long> drain() {
+    List<Long> sids = new ArrayList<>();
+    Message message;
+    while ((message = scheduler.poll()) != null) {
+      sids.add(message.sid);
+    }
+    assertTrue(scheduler.isEmpty());
+    assertNull(scheduler.poll());
+    return sids;
+  }
+
+  private static final class Message {
+
+    private final long sid;
+    private final int size;
+    private final boolean terminal;
+
+    private Message(long sid, int size) {
+      this(sid, size, false);
+    }
+
+    private Message(long sid, int size, boolean terminal) {
+      this.sid = sid;
+      this.size = size;
+      this.terminal = terminal;
+    }
+  }
+}
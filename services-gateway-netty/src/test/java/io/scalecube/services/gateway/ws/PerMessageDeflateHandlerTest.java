@@ -0,0 +1,153 @@
+package io.scalecube.services.gateway.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.scalecube.services.gateway.ws.PerMessageDeflateHandler.UncompressedTextFrame;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class PerMessageDeflateHandlerTest {
+
+  private static final String MESSAGE =
+      "{\"q\":\"/test/test\",\"sid\":42,\"d\":{\"price\":1.2345,\"size\":1000000,"
+          + "\"symbol\":\"EURUSD\",\"side\":\"BUY\",\"venue\":\"TEST\"}}";
+
+  private final WebsocketCompression compression = new WebsocketCompression().minSize(64);
+
+  @Test
+  public void testNegotiate() {
+    assertNull(compression.negotiate(null));
+    assertNull(compression.negotiate("x-webkit-deflate-frame"));
+    assertEquals("permessage-deflate", compression.negotiate("permessage-deflate"));
+    assertEquals(
+        "permessage-deflate",
+        compression.negotiate("permessage-deflate; client_max_window_bits"));
+    assertEquals(
+        "permessage-deflate; server_no_context_takeover; client_no_context_takeover",
+        compression.negotiate(
+            "permessage-deflate; server_no_context_takeover; client_no_context_takeover"));
+    assertEquals(
+        "permessage-deflate; server_no_context_takeover",
+        compression.noContextTakeover(true).negotiate("permessage-deflate"));
+    // server window can't be smaller than 32K, falls back to next offer
+    assertNull(compression.negotiate("permessage-deflate; server_max_window_bits=10"));
+    assertEquals(
+        "permessage-deflate",
+        compression.negotiate(
+            "permessage-deflate; server_max_window_bits=10, permessage-deflate"));
+  }
+
+  @Test
+  public void testCompressedRoundTrip() {
+    EmbeddedChannel server = new EmbeddedChannel(compression.newHandler("permessage-deflate"));
+    EmbeddedChannel client = new EmbeddedChannel(compression.newHandler("permessage-deflate"));
+
+    for (int i = 0; i < 3; i++) {
+      server.writeOutbound(new TextWebSocketFrame(MESSAGE));
+      WebSocketFrame compressed = server.readOutbound();
+      assertEquals(0x4, compressed.rsv());
+      assertTrue(compressed.content().readableBytes() < MESSAGE.length());
+
+      client.writeInbound(compressed);
+      TextWebSocketFrame inflated = client.readInbound();
+      assertEquals(0, inflated.rsv());
+      assertEquals(MESSAGE, inflated.text());
+      inflated.release();
+    }
+
+    assertEquals(3 * MESSAGE.length(), compression.uncompressedBytes());
+    assertTrue(compression.compressedBytes() < compression.uncompressedBytes());
+    server.finishAndReleaseAll();
+    client.finishAndReleaseAll();
+  }
+
+  @Test
+  public void testSmallAndExcludedMessagesAreNotCompressed() {
+    EmbeddedChannel server = new EmbeddedChannel(compression.newHandler("permessage-deflate"));
+
+    server.writeOutbound(new TextWebSocketFrame("{\"sid\":1}"));
+    server.writeOutbound(new UncompressedTextFrame(toByteBuf(MESSAGE)));
+
+    TextWebSocketFrame small = server.readOutbound();
+    assertEquals(0, small.rsv());
+    assertEquals("{\"sid\":1}", small.text());
+    TextWebSocketFrame excluded = server.readOutbound();
+    assertEquals(0, excluded.rsv());
+    assertEquals(MESSAGE, excluded.text());
+
+    assertEquals(compression.uncompressedBytes(), compression.compressedBytes());
+    small.release();
+    excluded.release();
+    server.finishAndReleaseAll();
+  }
+
+  @Test
+  public void testInflateFragmentedMessage() {
+    EmbeddedChannel server = new EmbeddedChannel(compression.newHandler("permessage-deflate"));
+    EmbeddedChannel client = new EmbeddedChannel(compression.newHandler("permessage-deflate"));
+
+    server.writeOutbound(new TextWebSocketFrame(MESSAGE));
+    WebSocketFrame compressed = server.readOutbound();
+    ByteBuf content = compressed.content();
+    int half = content.readableBytes() / 2;
+
+    client.writeInbound(
+        new TextWebSocketFrame(false, compressed.rsv(), content.retainedSlice(0, half)));
+    client.writeInbound(
+        new ContinuationWebSocketFrame(
+            true, 0, content.retainedSlice(half, content.readableBytes() - half)));
+    compressed.release();
+
+    WebSocketFrame first = client.readInbound();
+    WebSocketFrame last = client.readInbound();
+    assertTrue(first instanceof TextWebSocketFrame);
+    assertTrue(last instanceof ContinuationWebSocketFrame);
+    assertEquals(
+        MESSAGE,
+        first.content().toString(StandardCharsets.UTF_8)
+            + last.content().toString(StandardCharsets.UTF_8));
+
+    first.release();
+    last.release();
+    server.finishAndReleaseAll();
+    client.finishAndReleaseAll();
+  }
+
+  @Test
+  public void testInflatedSizeIsLimited() {
+    EmbeddedChannel server = new EmbeddedChannel(compression.newHandler("permessage-deflate"));
+    EmbeddedChannel client =
+        new EmbeddedChannel(compression.maxInflatedSize(1024).newHandler("permessage-deflate"));
+
+    server.writeOutbound(new BinaryWebSocketFrame(Unpooled.wrappedBuffer(new byte[64 * 1024])));
+    WebSocketFrame bomb = server.readOutbound();
+    assertTrue(bomb.content().readableBytes() < 1024);
+
+    assertThrows(CorruptedFrameException.class, () -> client.writeInbound(bomb));
+    assertNull(client.readInbound());
+    CloseWebSocketFrame close = client.readOutbound();
+    assertEquals(1009, close.statusCode());
+    close.release();
+    assertFalse(client.isOpen());
+
+    server.finishAndReleaseAll();
+    client.finishAndReleaseAll();
+  }
+
+  private static ByteBuf toByteBuf(String value) {
+    return Unpooled.copiedBuffer(value, StandardCharsets.UTF_8);
+  }
+}
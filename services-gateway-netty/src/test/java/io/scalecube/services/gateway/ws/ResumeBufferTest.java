@@ -0,0 +1,77 @@
+package io.scalecube.services.gateway.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ResumeBufferTest {
+
+  private final List<long[]> released = new ArrayList<>();
+
+  // message is {sid, sequence number}
+  private final ResumeBuffer<long[]> buffer =
+      new ResumeBuffer<>(2, message -> message[0], released::add);
+
+  @Test
+  public void testDrainInOrderOfArrival() {
+    assertTrue(buffer.offer(message(1, 1)));
+    assertTrue(buffer.offer(message(2, 1)));
+    assertTrue(buffer.offer(message(1, 2)));
+
+    assertEquals(Arrays.asList("1:1", "2:1", "1:2"), toStrings(buffer.drain()));
+    assertEquals(0, buffer.size());
+    assertTrue(released.isEmpty());
+  }
+
+  @Test
+  public void testOverflowDropsMessagesOfStream() {
+    assertTrue(buffer.offer(message(1, 1)));
+    assertTrue(buffer.offer(message(2, 1)));
+    assertTrue(buffer.offer(message(1, 2)));
+    assertFalse(buffer.offer(message(1, 3)));
+    assertFalse(buffer.offer(message(1, 4)));
+    assertTrue(buffer.offer(message(2, 2)));
+
+    assertEquals(Arrays.asList("1:3", "1:1", "1:2", "1:4"), toStrings(released));
+    assertEquals(Arrays.asList("2:1", "2:2"), toStrings(buffer.drain()));
+    assertEquals(Collections.singletonList(1L), buffer.drainOverflowedStreams());
+    assertTrue(buffer.drainOverflowedStreams().isEmpty());
+  }
+
+  @Test
+  public void testLimitIsPerDrain() {
+    assertTrue(buffer.offer(message(1, 1)));
+    assertTrue(buffer.offer(message(1, 2)));
+    buffer.drain();
+    assertTrue(buffer.offer(message(1, 3)));
+    assertTrue(buffer.offer(message(1, 4)));
+  }
+
+  @Test
+  public void testRelease() {
+    buffer.offer(message(1, 1));
+    buffer.offer(message(2, 1));
+    buffer.release();
+
+    assertEquals(Arrays.asList("1:1", "2:1"), toStrings(released));
+    assertEquals(0, buffer.size());
+  }
+
+  private static long[] message(long sid, long seq) {
+    return new long[] {sid, seq};
+  }
+
+  private static List<String> toStrings(List<long[]> messages) {
+    List<String> result = new ArrayList<>();
+    for (long[] message : messages) {
+      result.add(message[0] + ":" + message[1]);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,156 @@
+package io.scalecube.services.gateway.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.scalecube.services.gateway.ContentNegotiation;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.DirectProcessor;
+
+public class SharedStreamsTest {
+
+  private final WebsocketStreamSharing sharing = new WebsocketStreamSharing();
+  private final SharedStreams streams = new SharedStreams(sharing);
+
+  private final DirectProcessor<SharedStreams.Message> upstream = DirectProcessor.create();
+  private final AtomicInteger connects = new AtomicInteger();
+  private final AtomicInteger finalized = new AtomicInteger();
+
+  @Test
+  public void testIdenticalRequestsShareUpstream() {
+    List<String> first = new ArrayList<>();
+    List<String> second = new ArrayList<>();
+
+    Disposable d1 = subscribe(key("data"), first);
+    Disposable d2 = subscribe(key("data"), second);
+    assertEquals(1, connects.get());
+    assertEquals(1, sharing.upstreams());
+    assertEquals(2, sharing.subscribers());
+
+    ByteBuf content = content("m1");
+    upstream.onNext(new SharedStreams.Message(GatewayMessage.builder().build(), content));
+
+    assertEquals(0, content.refCnt());
+    assertEquals(1, first.size());
+    assertEquals(first, second);
+    assertEquals(1, sharing.encodedMessages());
+    assertEquals(2, sharing.sharedMessages());
+
+    d1.dispose();
+    assertTrue(upstream.hasDownstreams());
+    d2.dispose();
+    assertFalse(upstream.hasDownstreams());
+    assertEquals(0, sharing.upstreams());
+    assertEquals(0, sharing.subscribers());
+    assertEquals(0, streams.size());
+  }
+
+  @Test
+  public void testDifferentRequestsDontShareUpstream() {
+    Disposable d1 = subscribe(key("data1"), new ArrayList<>());
+    Disposable d2 = subscribe(key("data2"), new ArrayList<>());
+    assertEquals(2, connects.get());
+    assertEquals(2, streams.size());
+    d1.dispose();
+    d2.dispose();
+  }
+
+  @Test
+  public void testSubscriberAfterCompletionGetsNewUpstream() {
+    Disposable d1 = subscribe(key("data"), new ArrayList<>());
+    upstream.onComplete();
+    assertTrue(d1.isDisposed());
+    assertEquals(1, finalized.get());
+    assertEquals(0, streams.size());
+    assertEquals(0, sharing.upstreams());
+    assertEquals(0, sharing.subscribers());
+
+    Disposable d2 =
+        streams.subscribe(
+            key("data"), DirectProcessor::create, message -> {}, th -> {}, () -> {}, () -> {});
+    assertEquals(1, streams.size());
+    d2.dispose();
+  }
+
+  @Test
+  public void testDisposedSubscriberDoesNotReceiveMessages() {
+    List<String> first = new ArrayList<>();
+    List<String> second = new ArrayList<>();
+
+    Disposable d1 = subscribe(key("data"), first);
+    Disposable d2 = subscribe(key("data"), second);
+    d1.dispose();
+    d1.dispose();
+    assertEquals(1, finalized.get());
+
+    ByteBuf content = content("m1");
+    upstream.onNext(new SharedStreams.Message(GatewayMessage.builder().build(), content));
+
+    assertEquals(0, content.refCnt());
+    assertTrue(first.isEmpty());
+    assertEquals(1, second.size());
+    assertEquals(1, sharing.sharedMessages());
+    d2.dispose();
+  }
+
+  @Test
+  public void testKeyEquality() {
+    assertEquals(key("data"), key("data"));
+    assertEquals(key("data").hashCode(), key("data").hashCode());
+    assertEquals(
+        key("data"),
+        SharedStreams.Key.of(
+            GatewayMessage.builder()
+                .qualifier(TestInputs.Q)
+                .streamId(TestInputs.SID + 1)
+                .data(content("data"))
+                .build(),
+            ContentNegotiation.DEFAULT_CONTENT_TYPE,
+            false));
+    assertNotEquals(key("data"), key("other"));
+    assertNotEquals(
+        key("data"),
+        SharedStreams.Key.of(request("data"), ContentNegotiation.DEFAULT_CONTENT_TYPE, true));
+  }
+
+  private Disposable subscribe(SharedStreams.Key key, List<String> received) {
+    return streams.subscribe(
+        key,
+        () -> {
+          connects.incrementAndGet();
+          return upstream;
+        },
+        message -> {
+          received.add(message.content().toString(StandardCharsets.UTF_8));
+          message.content().release();
+        },
+        th -> {},
+        () -> {},
+        finalized::incrementAndGet);
+  }
+
+  private static SharedStreams.Key key(String data) {
+    return SharedStreams.Key.of(request(data), ContentNegotiation.DEFAULT_CONTENT_TYPE, false);
+  }
+
+  private static GatewayMessage request(String data) {
+    return GatewayMessage.builder()
+        .qualifier(TestInputs.Q)
+        .streamId(TestInputs.SID)
+        .data(content(data))
+        .build();
+  }
+
+  private static ByteBuf content(String value) {
+    return Unpooled.copiedBuffer(value, StandardCharsets.UTF_8);
+  }
+}
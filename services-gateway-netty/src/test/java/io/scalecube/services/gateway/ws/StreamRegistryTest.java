@@ -0,0 +1,53 @@
+package io.scalecube.services.gateway.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class StreamRegistryTest {
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  public void testPutIfAbsentAndRemove(boolean concurrent) {
+    StreamRegistry<String> registry = registry(concurrent);
+
+    assertTrue(registry.putIfAbsent(1, "a"));
+    assertFalse(registry.putIfAbsent(1, "b"));
+    assertEquals("a", registry.get(1));
+    assertTrue(registry.containsKey(1));
+
+    assertEquals("a", registry.remove(1));
+    assertNull(registry.remove(1));
+    assertFalse(registry.containsKey(1));
+    assertEquals(0, registry.size());
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  public void testGrowBeyondInitialCapacity(boolean concurrent) {
+    StreamRegistry<Long> registry = registry(concurrent);
+    int count = StreamRegistry.INITIAL_CAPACITY * 64;
+
+    LongStream.range(0, count).forEach(sid -> assertTrue(registry.putIfAbsent(sid, sid)));
+
+    assertEquals(count, registry.size());
+    LongStream.range(0, count).forEach(sid -> assertEquals(sid, (long) registry.get(sid)));
+
+    List<Long> cleared = registry.clear();
+    Collections.sort(cleared);
+    assertEquals(LongStream.range(0, count).boxed().collect(Collectors.toList()), cleared);
+    assertEquals(0, registry.size());
+  }
+
+  private static <V> StreamRegistry<V> registry(boolean concurrent) {
+    return concurrent ? StreamRegistry.concurrent() : StreamRegistry.confined();
+  }
+}
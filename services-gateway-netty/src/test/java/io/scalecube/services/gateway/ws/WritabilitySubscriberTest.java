@@ -0,0 +1,68 @@
+package io.scalecube.services.gateway.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+public class WritabilitySubscriberTest {
+
+  private final AtomicBoolean writable = new AtomicBoolean(true);
+  private final AtomicInteger pauses = new AtomicInteger();
+  private final List<Integer> received = new ArrayList<>();
+  private final AtomicBoolean completed = new AtomicBoolean();
+
+  @Test
+  public void testRequestsAllWhileWritable() {
+    subscribe(Flux.range(0, 100));
+    assertEquals(100, received.size());
+    assertTrue(completed.get());
+    assertEquals(0, pauses.get());
+  }
+
+  @Test
+  public void testPausesWhileNotWritable() {
+    writable.set(false);
+    WritabilitySubscriber<Integer> subscriber = subscribe(Flux.range(0, 100));
+
+    // prefetch 4, paused once 3 are received, the 4th is still requested
+    assertEquals(4, received.size());
+    assertTrue(subscriber.isPaused());
+    assertEquals(1, pauses.get());
+
+    subscriber.resume(); // resumed regardless of writability
+    assertEquals(7, received.size());
+    assertTrue(subscriber.isPaused());
+
+    writable.set(true);
+    subscriber.resume();
+    assertFalse(subscriber.isPaused());
+    assertEquals(100, received.size());
+    assertTrue(completed.get());
+  }
+
+  @Test
+  public void testResumeWithoutPauseRequestsNothing() {
+    WritabilitySubscriber<Integer> subscriber = subscribe(Flux.range(0, 2));
+    subscriber.resume();
+    assertEquals(2, received.size());
+    assertFalse(subscriber.isPaused());
+  }
+
+  private WritabilitySubscriber<Integer> subscribe(Flux<Integer> flux) {
+    return flux.subscribeWith(
+        new WritabilitySubscriber<>(
+            4,
+            writable::get,
+            pauses::incrementAndGet,
+            received::add,
+            th -> {},
+            () -> completed.set(true)));
+  }
+}
@@ -8,6 +8,7 @@ import io.scalecube.services.discovery.ScalecubeServiceDiscovery;
 import io.scalecube.services.discovery.api.ServiceDiscovery;
 import io.scalecube.services.gateway.transport.GatewayClientSettings;
 import io.scalecube.services.gateway.transport.StaticAddressRouter;
+import io.scalecube.services.registry.api.ServiceRegistry;
 import io.scalecube.services.transport.api.ClientTransport;
 import io.scalecube.services.transport.rsocket.RSocketServiceTransport;
 import java.util.function.Function;
@@ -25,6 +26,7 @@ public abstract class AbstractGatewayExtension
   private static final Logger LOGGER = LoggerFactory.getLogger(AbstractGatewayExtension.class);
 
   private final Object serviceInstance;
+  private final ServiceRegistry gatewayServiceRegistry;
   private final Function<GatewayOptions, Gateway> gatewaySupplier;
   private final Function<GatewayClientSettings, ClientTransport> clientSupplier;
 
@@ -37,15 +39,28 @@ public abstract class AbstractGatewayExtension
       Object serviceInstance,
       Function<GatewayOptions, Gateway> gatewaySupplier,
       Function<GatewayClientSettings, ClientTransport> clientSupplier) {
+    this(serviceInstance, null, gatewaySupplier, clientSupplier);
+  }
+
+  protected AbstractGatewayExtension(
+      Object serviceInstance,
+      ServiceRegistry gatewayServiceRegistry,
+      Function<GatewayOptions, Gateway> gatewaySupplier,
+      Function<GatewayClientSettings, ClientTransport> clientSupplier) {
     this.serviceInstance = serviceInstance;
+    this.gatewayServiceRegistry = gatewayServiceRegistry;
     this.gatewaySupplier = gatewaySupplier;
     this.clientSupplier = clientSupplier;
   }
 
   @Override
   public final void beforeAll(ExtensionContext context) {
+    Microservices.Builder builder = Microservices.builder();
+    if (gatewayServiceRegistry != null) {
+      builder.serviceRegistry(gatewayServiceRegistry);
+    }
     gateway =
-        Microservices.builder()
+        builder
             .discovery(ScalecubeServiceDiscovery::new)
             .transport(RSocketServiceTransport::new)
             .gateway(
@@ -0,0 +1,58 @@
+package io.scalecube.services.gateway.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.scalecube.services.examples.GreetingRequest;
+import io.scalecube.services.examples.GreetingService;
+import io.scalecube.services.examples.GreetingServiceImpl;
+import io.scalecube.services.exceptions.ServiceUnavailableException;
+import io.scalecube.services.gateway.StreamAdmission;
+import java.time.Duration;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import reactor.test.StepVerifier;
+
+class WebsocketAdmissionGatewayTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(3);
+
+  private static final StreamAdmission ADMISSION = new StreamAdmission().maxStreamsPerSession(1);
+
+  @RegisterExtension
+  static WebsocketGatewayExtension extension =
+      new WebsocketGatewayExtension(
+          new GreetingServiceImpl(),
+          gateway -> gateway.admission(ADMISSION),
+          UnaryOperator.identity());
+
+  private GreetingService service;
+
+  @BeforeEach
+  void initService() {
+    service = extension.client().api(GreetingService.class);
+  }
+
+  @Test
+  void shouldRejectStreamOverSessionLimit() {
+    StepVerifier.create(service.one("hello"))
+        .expectNext("Echo:hello")
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    long rejectedStreams = ADMISSION.rejectedStreams();
+
+    StepVerifier.create(service.pojoMany(new GreetingRequest("bulk")))
+        .expectNextCount(1)
+        .then(
+            () ->
+                StepVerifier.create(service.one("hello"))
+                    .expectErrorMatches(th -> th instanceof ServiceUnavailableException)
+                    .verify(TIMEOUT))
+        .thenCancel()
+        .verify(TIMEOUT);
+
+    assertEquals(rejectedStreams + 1, ADMISSION.rejectedStreams());
+  }
+}
@@ -0,0 +1,82 @@
+package io.scalecube.services.gateway.websocket;
+
+import io.scalecube.services.annotations.Service;
+import io.scalecube.services.annotations.ServiceMethod;
+import io.scalecube.services.gateway.ws.WebsocketBackpressure;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class WebsocketBackpressureGatewayTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(3);
+
+  private static final WebsocketBackpressure BACKPRESSURE =
+      new WebsocketBackpressure().waterMarks(1024, 4096).prefetch(4);
+
+  @RegisterExtension
+  static WebsocketGatewayExtension extension =
+      new WebsocketGatewayExtension(
+          new RangeServiceImpl(),
+          gateway -> gateway.backpressure(BACKPRESSURE),
+          UnaryOperator.identity());
+
+  private RangeService service;
+
+  @BeforeEach
+  void initService() {
+    service = extension.client().api(RangeService.class);
+  }
+
+  @Test
+  void shouldReturnAllResponsesInOrder() {
+    int count = 1000;
+    List<String> expected =
+        IntStream.range(0, count).mapToObj(RangeServiceImpl::payload).collect(Collectors.toList());
+
+    StepVerifier.create(service.range(count))
+        .expectNextSequence(expected)
+        .expectComplete()
+        .verify(TIMEOUT);
+  }
+
+  @Test
+  void shouldReturnResponsesAfterCancelledStream() {
+    StepVerifier.create(service.range(Integer.MAX_VALUE).take(10))
+        .expectNextCount(10)
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    StepVerifier.create(service.range(1))
+        .expectNext(RangeServiceImpl.payload(0))
+        .expectComplete()
+        .verify(TIMEOUT);
+  }
+
+  @Service("rangeService")
+  public interface RangeService {
+
+    @ServiceMethod
+    Flux<String> range(Integer count);
+  }
+
+  public static class RangeServiceImpl implements RangeService {
+
+    static String payload(int i) {
+      return i + ":" + String.join("", Collections.nCopies(64, "x"));
+    }
+
+    @Override
+    public Flux<String> range(Integer count) {
+      return Flux.range(0, count).map(RangeServiceImpl::payload);
+    }
+  }
+}
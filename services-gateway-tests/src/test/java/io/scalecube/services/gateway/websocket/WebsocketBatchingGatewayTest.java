@@ -0,0 +1,71 @@
+package io.scalecube.services.gateway.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.scalecube.services.examples.GreetingRequest;
+import io.scalecube.services.examples.GreetingResponse;
+import io.scalecube.services.examples.GreetingService;
+import io.scalecube.services.examples.GreetingServiceImpl;
+import io.scalecube.services.gateway.transport.GatewayClientSettings;
+import io.scalecube.services.gateway.ws.WebsocketBatching;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class WebsocketBatchingGatewayTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(3);
+
+  private static final WebsocketBatching BATCHING =
+      new WebsocketBatching().maxSize(16).maxDelay(Duration.ofMillis(5));
+
+  @RegisterExtension
+  static WebsocketGatewayExtension extension =
+      new WebsocketGatewayExtension(
+          new GreetingServiceImpl(),
+          gateway -> gateway.batching(BATCHING),
+          settings -> GatewayClientSettings.from(settings).batching(true).build());
+
+  private GreetingService service;
+
+  @BeforeEach
+  void initService() {
+    service = extension.client().api(GreetingService.class);
+  }
+
+  @Test
+  void shouldReturnManyResponses() {
+    int expectedResponseNum = 10;
+    List<GreetingResponse> expected =
+        IntStream.range(0, expectedResponseNum)
+            .mapToObj(i -> new GreetingResponse("Greeting (" + i + ") to: hello"))
+            .collect(Collectors.toList());
+
+    StepVerifier.create(service.pojoMany(new GreetingRequest("hello")).take(expectedResponseNum))
+        .expectNextSequence(expected)
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    // frames are filled opportunistically, so only the lower bound of messages is known
+    assertTrue(BATCHING.messages() >= expectedResponseNum);
+    assertTrue(BATCHING.frames() <= BATCHING.messages());
+  }
+
+  @Test
+  void shouldReturnResponsesOfConcurrentRequests() {
+    int requestNum = 50;
+
+    StepVerifier.create(
+            Flux.range(0, requestNum).flatMap(i -> service.one("hello" + i)).collectList())
+        .assertNext(responses -> assertEquals(requestNum, responses.size()))
+        .expectComplete()
+        .verify(TIMEOUT);
+  }
+}
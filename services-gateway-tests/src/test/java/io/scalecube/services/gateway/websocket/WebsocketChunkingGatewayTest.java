@@ -0,0 +1,67 @@
+package io.scalecube.services.gateway.websocket;
+
+import io.scalecube.services.annotations.Service;
+import io.scalecube.services.annotations.ServiceMethod;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class WebsocketChunkingGatewayTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  private static final int CHUNK_SIZE = 16 * 1024;
+
+  // several times larger than chunk size and than default max size of aggregated message
+  private static final int PAYLOAD_SIZE = 512 * 1024;
+
+  @RegisterExtension
+  static WebsocketGatewayExtension extension =
+      new WebsocketGatewayExtension(
+          new LargeServiceImpl(),
+          gateway -> gateway.chunkSize(CHUNK_SIZE),
+          UnaryOperator.identity());
+
+  private LargeService service;
+
+  @BeforeEach
+  void initService() {
+    service = extension.client().api(LargeService.class);
+  }
+
+  @Test
+  void shouldReturnResponsesLargerThanChunkSize() {
+    int count = 3;
+
+    StepVerifier.create(service.payloads(count))
+        .expectNext(LargeServiceImpl.payload(0))
+        .expectNext(LargeServiceImpl.payload(1))
+        .expectNext(LargeServiceImpl.payload(2))
+        .expectComplete()
+        .verify(TIMEOUT);
+  }
+
+  @Service("largeService")
+  public interface LargeService {
+
+    @ServiceMethod
+    Flux<String> payloads(Integer count);
+  }
+
+  public static class LargeServiceImpl implements LargeService {
+
+    static String payload(int i) {
+      return i + ":" + String.join("", Collections.nCopies(PAYLOAD_SIZE, "x"));
+    }
+
+    @Override
+    public Flux<String> payloads(Integer count) {
+      return Flux.range(0, count).map(LargeServiceImpl::payload);
+    }
+  }
+}
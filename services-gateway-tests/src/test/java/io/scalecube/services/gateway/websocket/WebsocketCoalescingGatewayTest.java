@@ -0,0 +1,94 @@
+package io.scalecube.services.gateway.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.scalecube.services.annotations.Service;
+import io.scalecube.services.annotations.ServiceMethod;
+import io.scalecube.services.gateway.transport.GatewayClientSettings;
+import io.scalecube.services.gateway.ws.WebsocketWriteCoalescing;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class WebsocketCoalescingGatewayTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(3);
+
+  private static final WebsocketWriteCoalescing COALESCING =
+      new WebsocketWriteCoalescing().maxMessages(8).maxBytes(4096);
+
+  @RegisterExtension
+  static WebsocketGatewayExtension extension =
+      new WebsocketGatewayExtension(
+          new BurstServiceImpl(),
+          gateway -> gateway.writeCoalescing(COALESCING),
+          settings -> GatewayClientSettings.from(settings).writeCoalescing(true).build());
+
+  private BurstService service;
+
+  @BeforeEach
+  void initService() {
+    service = extension.client().api(BurstService.class);
+  }
+
+  @Test
+  void shouldCoalesceBurstOfResponses() {
+    int count = 1000;
+    List<Integer> expected = IntStream.range(0, count).boxed().collect(Collectors.toList());
+    long flushesBefore = COALESCING.flushes();
+    long messagesBefore = COALESCING.messages();
+
+    StepVerifier.create(service.range(count))
+        .expectNextSequence(expected)
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    // service emits synchronously, so responses queue up faster than event loop flushes them
+    long flushes = COALESCING.flushes() - flushesBefore;
+    long messages = COALESCING.messages() - messagesBefore;
+    assertTrue(messages >= count, "messages: " + messages);
+    assertTrue(flushes < messages, "flushes: " + flushes + ", messages: " + messages);
+  }
+
+  @Test
+  void shouldReturnResponsesOfConcurrentRequests() {
+    int requestNum = 50;
+
+    StepVerifier.create(
+            Flux.range(0, requestNum).flatMap(i -> service.one("hello" + i)).collectList())
+        .assertNext(responses -> assertEquals(requestNum, responses.size()))
+        .expectComplete()
+        .verify(TIMEOUT);
+  }
+
+  @Service("burstService")
+  public interface BurstService {
+
+    @ServiceMethod
+    Flux<Integer> range(Integer count);
+
+    @ServiceMethod
+    Mono<String> one(String name);
+  }
+
+  public static class BurstServiceImpl implements BurstService {
+
+    @Override
+    public Flux<Integer> range(Integer count) {
+      return Flux.range(0, count);
+    }
+
+    @Override
+    public Mono<String> one(String name) {
+      return Mono.just("Echo:" + name);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package io.scalecube.services.gateway.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.scalecube.services.examples.GreetingRequest;
+import io.scalecube.services.examples.GreetingResponse;
+import io.scalecube.services.examples.GreetingService;
+import io.scalecube.services.examples.GreetingServiceImpl;
+import io.scalecube.services.gateway.transport.GatewayClientSettings;
+import io.scalecube.services.gateway.ws.WebsocketCompression;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import reactor.test.StepVerifier;
+
+class WebsocketCompressedGatewayTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(3);
+
+  private static final WebsocketCompression COMPRESSION = new WebsocketCompression().minSize(0);
+
+  @RegisterExtension
+  static WebsocketGatewayExtension extension =
+      new WebsocketGatewayExtension(
+          new GreetingServiceImpl(),
+          gateway -> gateway.compression(COMPRESSION),
+          settings ->
+              GatewayClientSettings.from(settings).compression(true).compressionMinSize(0).build());
+
+  private GreetingService service;
+
+  @BeforeEach
+  void initService() {
+    service = extension.client().api(GreetingService.class);
+  }
+
+  @Test
+  void shouldCompressManyResponses() {
+    int expectedResponseNum = 10;
+    List<GreetingResponse> expected =
+        IntStream.range(0, expectedResponseNum)
+            .mapToObj(i -> new GreetingResponse("Greeting (" + i + ") to: hello"))
+            .collect(Collectors.toList());
+
+    StepVerifier.create(service.pojoMany(new GreetingRequest("hello")).take(expectedResponseNum))
+        .expectNextSequence(expected)
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertTrue(COMPRESSION.compressedBytes() > 0);
+    assertTrue(COMPRESSION.compressedBytes() < COMPRESSION.uncompressedBytes());
+  }
+}
@@ -0,0 +1,114 @@
+package io.scalecube.services.gateway.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.scalecube.services.annotations.Service;
+import io.scalecube.services.annotations.ServiceMethod;
+import io.scalecube.services.gateway.transport.GatewayClientSettings;
+import io.scalecube.services.gateway.transport.GatewayClientTransports;
+import io.scalecube.services.registry.ServiceRegistryImpl;
+import io.scalecube.services.registry.api.ServiceRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class WebsocketFlowControlGatewayTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(3);
+
+  private static final AtomicInteger EMITTED = new AtomicInteger();
+
+  // gateway recognises request-response methods by it
+  private static final ServiceRegistry SERVICE_REGISTRY = new ServiceRegistryImpl();
+
+  @RegisterExtension
+  static WebsocketGatewayExtension extension =
+      new WebsocketGatewayExtension(
+          new CountingServiceImpl(),
+          SERVICE_REGISTRY,
+          gateway -> gateway.serviceRegistry(SERVICE_REGISTRY),
+          settings -> GatewayClientSettings.from(settings).flowControl(true).build(),
+          GatewayClientTransports::websocketGatewayClientTransport);
+
+  private CountingService service;
+
+  @BeforeEach
+  void initService() {
+    EMITTED.set(0);
+    service = extension.client().api(CountingService.class);
+  }
+
+  @Test
+  void shouldEmitOnlyRequestedResponses() {
+    StepVerifier.create(service.range(1000), 0)
+        .expectSubscription()
+        .thenRequest(2)
+        .expectNext(0, 1)
+        .expectNoEvent(Duration.ofMillis(300))
+        .then(() -> assertEquals(2, EMITTED.get()))
+        .thenRequest(3)
+        .expectNext(2, 3, 4)
+        .expectNoEvent(Duration.ofMillis(300))
+        .then(() -> assertEquals(5, EMITTED.get()))
+        .thenCancel()
+        .verify(TIMEOUT);
+  }
+
+  @Test
+  void shouldReturnAllResponsesOnUnboundedDemand() {
+    StepVerifier.create(service.range(100))
+        .expectNextCount(100)
+        .expectComplete()
+        .verify(TIMEOUT);
+  }
+
+  @Test
+  void shouldGrantCreditToStreamOfRequestResponseMethod() {
+    // REQUEST_N arrives while service is still computing the response
+    CountingStream stream = extension.client().api(CountingStream.class);
+
+    StepVerifier.create(stream.delayedOne(42), 0)
+        .expectSubscription()
+        .expectNoEvent(Duration.ofMillis(100))
+        .thenRequest(1)
+        .expectNext(42)
+        .expectComplete()
+        .verify(TIMEOUT);
+  }
+
+  @Service("countingService")
+  public interface CountingService {
+
+    @ServiceMethod
+    Flux<Integer> range(Integer count);
+
+    @ServiceMethod
+    Mono<Integer> delayedOne(Integer value);
+  }
+
+  /** Client view of {@link CountingService} which calls its request-response method as stream. */
+  @Service("countingService")
+  public interface CountingStream {
+
+    @ServiceMethod("delayedOne")
+    Flux<Integer> delayedOne(Integer value);
+  }
+
+  public static class CountingServiceImpl implements CountingService {
+
+    @Override
+    public Flux<Integer> range(Integer count) {
+      return Flux.range(0, count).doOnNext(i -> EMITTED.incrementAndGet());
+    }
+
+    @Override
+    public Mono<Integer> delayedOne(Integer value) {
+      return Mono.delay(Duration.ofMillis(500)).thenReturn(value);
+    }
+  }
+}
@@ -1,17 +1,62 @@
 package io.scalecube.services.gateway.websocket;
 
 import io.scalecube.services.gateway.AbstractGatewayExtension;
+import io.scalecube.services.gateway.transport.GatewayClientSettings;
 import io.scalecube.services.gateway.transport.GatewayClientTransports;
 import io.scalecube.services.gateway.ws.WebsocketGateway;
+import io.scalecube.services.registry.api.ServiceRegistry;
+import io.scalecube.services.transport.api.ClientTransport;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 class WebsocketGatewayExtension extends AbstractGatewayExtension {
 
   private static final String GATEWAY_ALIAS_NAME = "ws";
 
   WebsocketGatewayExtension(Object serviceInstance) {
-    super(
+    this(serviceInstance, UnaryOperator.identity(), UnaryOperator.identity());
+  }
+
+  /**
+   * Constructor of extension with websocket gateway and client customized for a feature under
+   * test.
+   *
+   * @param serviceInstance service instance
+   * @param gateway customizer of websocket gateway
+   * @param client customizer of client settings
+   */
+  WebsocketGatewayExtension(
+      Object serviceInstance,
+      UnaryOperator<WebsocketGateway> gateway,
+      UnaryOperator<GatewayClientSettings> client) {
+    this(
         serviceInstance,
-        opts -> new WebsocketGateway(opts.id(GATEWAY_ALIAS_NAME)),
+        null,
+        gateway,
+        client,
         GatewayClientTransports::websocketGatewayClientTransport);
   }
+
+  /**
+   * Constructor of extension with websocket gateway and client customized for a feature under
+   * test.
+   *
+   * @param serviceInstance service instance
+   * @param gatewayServiceRegistry service registry of gateway node, or null for default one
+   * @param gateway customizer of websocket gateway
+   * @param client customizer of client settings
+   * @param clientTransport client transport factory
+   */
+  WebsocketGatewayExtension(
+      Object serviceInstance,
+      ServiceRegistry gatewayServiceRegistry,
+      UnaryOperator<WebsocketGateway> gateway,
+      UnaryOperator<GatewayClientSettings> client,
+      Function<GatewayClientSettings, ClientTransport> clientTransport) {
+    super(
+        serviceInstance,
+        gatewayServiceRegistry,
+        opts -> gateway.apply(new WebsocketGateway(opts.id(GATEWAY_ALIAS_NAME))),
+        settings -> clientTransport.apply(client.apply(settings)));
+  }
 }
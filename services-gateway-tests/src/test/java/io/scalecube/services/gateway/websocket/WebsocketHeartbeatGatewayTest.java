@@ -0,0 +1,53 @@
+package io.scalecube.services.gateway.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.scalecube.services.examples.GreetingService;
+import io.scalecube.services.examples.GreetingServiceImpl;
+import io.scalecube.services.gateway.ws.WebsocketHeartbeat;
+import java.time.Duration;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class WebsocketHeartbeatGatewayTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(3);
+
+  private static final WebsocketHeartbeat HEARTBEAT =
+      new WebsocketHeartbeat().interval(Duration.ofMillis(100)).maxMissedPongs(2);
+
+  @RegisterExtension
+  static WebsocketGatewayExtension extension =
+      new WebsocketGatewayExtension(
+          new GreetingServiceImpl(),
+          gateway -> gateway.heartbeat(HEARTBEAT),
+          UnaryOperator.identity());
+
+  private GreetingService service;
+
+  @BeforeEach
+  void initService() {
+    service = extension.client().api(GreetingService.class);
+  }
+
+  @Test
+  void shouldKeepSessionAnsweringPings() {
+    StepVerifier.create(
+            service
+                .one("hello")
+                .then(Mono.delay(Duration.ofMillis(1000)))
+                .then(service.one("again")))
+        .expectNext("Echo:again")
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    // client answers pings, so its session outlives several heartbeats
+    assertTrue(HEARTBEAT.pings() >= 5);
+    assertEquals(0, HEARTBEAT.reapedSessions());
+  }
+}
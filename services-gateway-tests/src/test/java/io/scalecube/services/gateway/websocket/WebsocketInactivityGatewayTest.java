@@ -0,0 +1,68 @@
+package io.scalecube.services.gateway.websocket;
+
+import io.scalecube.services.annotations.Service;
+import io.scalecube.services.annotations.ServiceMethod;
+import io.scalecube.services.api.ServiceMessage;
+import io.scalecube.services.exceptions.InternalServiceException;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class WebsocketInactivityGatewayTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(3);
+
+  @RegisterExtension
+  static WebsocketGatewayExtension extension =
+      new WebsocketGatewayExtension(new InactivityServiceImpl());
+
+  @Test
+  void shouldTimeOutSilentStream() {
+    StepVerifier.create(extension.client().requestMany(request("silent", 300), String.class))
+        .expectErrorMatches(
+            th -> th instanceof InternalServiceException && th.getMessage().contains("300ms"))
+        .verify(TIMEOUT);
+  }
+
+  @Test
+  void shouldNotTimeOutActiveStream() {
+    StepVerifier.create(
+            extension.client().requestMany(request("ticks", 300), String.class).take(10))
+        .expectNextCount(10)
+        .expectComplete()
+        .verify(TIMEOUT);
+  }
+
+  private static ServiceMessage request(String method, int inactivity) {
+    return ServiceMessage.builder()
+        .qualifier("inactivityService", method)
+        .header("i", inactivity)
+        .data("hello")
+        .build();
+  }
+
+  @Service("inactivityService")
+  public interface InactivityService {
+
+    @ServiceMethod
+    Flux<String> silent(String name);
+
+    @ServiceMethod
+    Flux<String> ticks(String name);
+  }
+
+  public static class InactivityServiceImpl implements InactivityService {
+
+    @Override
+    public Flux<String> silent(String name) {
+      return Flux.never();
+    }
+
+    @Override
+    public Flux<String> ticks(String name) {
+      return Flux.interval(Duration.ofMillis(100)).map(i -> name + i);
+    }
+  }
+}
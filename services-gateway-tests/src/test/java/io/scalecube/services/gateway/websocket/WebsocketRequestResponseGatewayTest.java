@@ -0,0 +1,71 @@
+package io.scalecube.services.gateway.websocket;
+
+import io.scalecube.services.examples.GreetingRequest;
+import io.scalecube.services.examples.GreetingResponse;
+import io.scalecube.services.examples.GreetingService;
+import io.scalecube.services.examples.GreetingServiceImpl;
+import io.scalecube.services.exceptions.InternalServiceException;
+import io.scalecube.services.gateway.transport.GatewayClientTransports;
+import io.scalecube.services.registry.ServiceRegistryImpl;
+import io.scalecube.services.registry.api.ServiceRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import reactor.test.StepVerifier;
+
+class WebsocketRequestResponseGatewayTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(3);
+
+  private static final ServiceRegistry SERVICE_REGISTRY = new ServiceRegistryImpl();
+
+  @RegisterExtension
+  static WebsocketGatewayExtension extension =
+      new WebsocketGatewayExtension(
+          new GreetingServiceImpl(),
+          SERVICE_REGISTRY,
+          gateway -> gateway.serviceRegistry(SERVICE_REGISTRY),
+          UnaryOperator.identity(),
+          GatewayClientTransports::websocketGatewayClientTransport);
+
+  private GreetingService service;
+
+  @BeforeEach
+  void initService() {
+    service = extension.client().api(GreetingService.class);
+  }
+
+  @Test
+  void shouldReturnSingleResponseWithPojoRequest() {
+    StepVerifier.create(service.pojoOne(new GreetingRequest("hello")))
+        .expectNextMatches(response -> "Echo:hello".equals(response.getText()))
+        .expectComplete()
+        .verify(TIMEOUT);
+  }
+
+  @Test
+  void shouldReturnManyResponsesWithPojoRequest() {
+    int expectedResponseNum = 3;
+    List<GreetingResponse> expected =
+        IntStream.range(0, expectedResponseNum)
+            .mapToObj(i -> new GreetingResponse("Greeting (" + i + ") to: hello"))
+            .collect(Collectors.toList());
+
+    StepVerifier.create(service.pojoMany(new GreetingRequest("hello")).take(expectedResponseNum))
+        .expectNextSequence(expected)
+        .expectComplete()
+        .verify(TIMEOUT);
+  }
+
+  @Test
+  void shouldReturnErrorDataWhenServiceFails() {
+    StepVerifier.create(service.failingOne("hello"))
+        .expectErrorMatches(throwable -> throwable instanceof InternalServiceException)
+        .verify(TIMEOUT);
+  }
+}
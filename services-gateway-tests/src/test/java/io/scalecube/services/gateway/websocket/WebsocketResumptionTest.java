@@ -0,0 +1,151 @@
+package io.scalecube.services.gateway.websocket;
+
+import static io.scalecube.services.gateway.TestUtils.TIMEOUT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import io.scalecube.net.Address;
+import io.scalecube.services.Microservices;
+import io.scalecube.services.annotations.Service;
+import io.scalecube.services.annotations.ServiceMethod;
+import io.scalecube.services.api.Qualifier;
+import io.scalecube.services.discovery.ScalecubeServiceDiscovery;
+import io.scalecube.services.gateway.ws.WebsocketGateway;
+import io.scalecube.services.gateway.ws.WebsocketResumption;
+import io.scalecube.services.transport.rsocket.RSocketServiceTransport;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.test.StepVerifier;
+
+class WebsocketResumptionTest {
+
+  private static final String REQUEST =
+      "{\"q\":\"" + Qualifier.asString("resumption", "ticks") + "\",\"sid\":1}";
+
+  private static final AtomicInteger subscriptions = new AtomicInteger();
+
+  private final WebsocketResumption resumption =
+      new WebsocketResumption().gracePeriod(Duration.ofSeconds(5));
+
+  private Microservices gateway;
+  private Address gatewayAddress;
+  private Microservices service;
+
+  @BeforeEach
+  void beforeEach() {
+    gateway =
+        Microservices.builder()
+            .discovery(ScalecubeServiceDiscovery::new)
+            .transport(RSocketServiceTransport::new)
+            .gateway(options -> new WebsocketGateway(options.id("WS")).resumption(resumption))
+            .startAwait();
+
+    gatewayAddress = gateway.gateway("WS").address();
+
+    service =
+        Microservices.builder()
+            .discovery(
+                serviceEndpoint ->
+                    new ScalecubeServiceDiscovery(serviceEndpoint)
+                        .options(
+                            config ->
+                                config.membership(
+                                    opts -> opts.seedMembers(gateway.discovery().address()))))
+            .transport(RSocketServiceTransport::new)
+            .services(new TestServiceImpl())
+            .startAwait();
+
+    subscriptions.set(0);
+  }
+
+  @AfterEach
+  void afterEach() {
+    Flux.concat(
+            Mono.justOrEmpty(gateway).map(Microservices::shutdown),
+            Mono.justOrEmpty(service).map(Microservices::shutdown))
+        .then()
+        .block();
+  }
+
+  @Test
+  void shouldResumeStreamsOnReconnect() {
+    AtomicReference<HttpHeaders> headers = new AtomicReference<>();
+    StepVerifier.create(connect(null, REQUEST, headers).take(2))
+        .expectNextCount(2)
+        .expectComplete()
+        .verify(TIMEOUT);
+    String token = headers.get().get(WebsocketResumption.TOKEN_HEADER);
+    assertNotNull(token);
+
+    AtomicReference<HttpHeaders> resumedHeaders = new AtomicReference<>();
+    StepVerifier.create(connect(token, null, resumedHeaders).take(2))
+        .assertNext(frame -> assertTrue(frame.contains("\"sid\":1"), frame))
+        .assertNext(frame -> assertTrue(frame.contains("\"sid\":1"), frame))
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertEquals("true", resumedHeaders.get().get(WebsocketResumption.RESUMED_HEADER));
+    assertNotEquals(token, resumedHeaders.get().get(WebsocketResumption.TOKEN_HEADER));
+    assertEquals(1, resumption.resumedSessions());
+    assertEquals(1, subscriptions.get(), "service stream is not called again");
+  }
+
+  @Test
+  void shouldNotResumeWithUnknownToken() {
+    AtomicReference<HttpHeaders> headers = new AtomicReference<>();
+    StepVerifier.create(connect("unknown", REQUEST, headers).take(1))
+        .expectNextCount(1)
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertNull(headers.get().get(WebsocketResumption.RESUMED_HEADER));
+    assertEquals(0, resumption.resumedSessions());
+  }
+
+  private Flux<String> connect(
+      String resumeToken, String request, AtomicReference<HttpHeaders> responseHeaders) {
+    return HttpClient.create()
+        .headers(
+            headers -> {
+              if (resumeToken != null) {
+                headers.set(WebsocketResumption.TOKEN_HEADER, resumeToken);
+              }
+            })
+        .doOnResponse((response, connection) -> responseHeaders.set(response.responseHeaders()))
+        .websocket()
+        .uri("ws://localhost:" + gatewayAddress.port() + "/")
+        .handle(
+            (inbound, outbound) -> {
+              Mono<Void> send =
+                  request != null ? outbound.sendString(Mono.just(request)).then() : Mono.empty();
+              return send.thenMany(inbound.receive().asString());
+            });
+  }
+
+  @Service("resumption")
+  public interface TestService {
+
+    @ServiceMethod("ticks")
+    Flux<Long> ticks();
+  }
+
+  private static class TestServiceImpl implements TestService {
+
+    @Override
+    public Flux<Long> ticks() {
+      return Flux.interval(Duration.ofMillis(100))
+          .doOnSubscribe(s -> subscriptions.incrementAndGet());
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package io.scalecube.services.gateway.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.scalecube.services.examples.GreetingRequest;
+import io.scalecube.services.examples.GreetingResponse;
+import io.scalecube.services.examples.GreetingService;
+import io.scalecube.services.examples.GreetingServiceImpl;
+import io.scalecube.services.gateway.ws.WebsocketOutboundScheduling;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class WebsocketSchedulingGatewayTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(3);
+
+  private static final WebsocketOutboundScheduling SCHEDULING =
+      new WebsocketOutboundScheduling().quantum(1024);
+
+  @RegisterExtension
+  static WebsocketGatewayExtension extension =
+      new WebsocketGatewayExtension(
+          new GreetingServiceImpl(),
+          gateway -> gateway.outboundScheduling(SCHEDULING),
+          UnaryOperator.identity());
+
+  private GreetingService service;
+
+  @BeforeEach
+  void initService() {
+    service = extension.client().api(GreetingService.class);
+  }
+
+  @Test
+  void shouldReturnManyResponses() {
+    int expectedResponseNum = 10;
+    List<GreetingResponse> expected =
+        IntStream.range(0, expectedResponseNum)
+            .mapToObj(i -> new GreetingResponse("Greeting (" + i + ") to: hello"))
+            .collect(Collectors.toList());
+
+    StepVerifier.create(service.pojoMany(new GreetingRequest("hello")).take(expectedResponseNum))
+        .expectNextSequence(expected)
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertTrue(SCHEDULING.messages() >= expectedResponseNum);
+  }
+
+  @Test
+  void shouldReturnSingleResponsesNextToBulkStream() {
+    int requestNum = 50;
+    Disposable bulk = service.pojoMany(new GreetingRequest("bulk")).subscribe();
+    try {
+      StepVerifier.create(
+              Flux.range(0, requestNum).concatMap(i -> service.one("hello" + i)).collectList())
+          .assertNext(responses -> assertEquals(requestNum, responses.size()))
+          .expectComplete()
+          .verify(TIMEOUT);
+    } finally {
+      bulk.dispose();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package io.scalecube.services.gateway.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.scalecube.services.api.Qualifier;
+import io.scalecube.services.examples.GreetingService;
+import io.scalecube.services.examples.GreetingServiceImpl;
+import io.scalecube.services.gateway.ws.WebsocketStreamSharing;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class WebsocketSharingGatewayTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(3);
+
+  private static final WebsocketStreamSharing SHARING =
+      new WebsocketStreamSharing().qualifiers(Qualifier.asString("greeting", "many"));
+
+  @RegisterExtension
+  static WebsocketGatewayExtension extension =
+      new WebsocketGatewayExtension(
+          new GreetingServiceImpl(),
+          gateway -> gateway.streamSharing(SHARING),
+          UnaryOperator.identity());
+
+  private GreetingService service;
+
+  @BeforeEach
+  void initService() {
+    service = extension.client().api(GreetingService.class);
+  }
+
+  @Test
+  void shouldShareUpstreamOfIdenticalStreams() {
+    int expectedResponseNum = 3;
+    long encodedMessages = SHARING.encodedMessages();
+    long sharedMessages = SHARING.sharedMessages();
+
+    StepVerifier.create(
+            Flux.merge(
+                    service.many("hello").take(expectedResponseNum),
+                    service.many("hello").take(expectedResponseNum))
+                .collectList())
+        .assertNext(
+            responses -> {
+              assertEquals(2 * expectedResponseNum, responses.size());
+              assertTrue(responses.stream().allMatch(r -> r.endsWith(" to: hello")));
+            })
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    // some responses were encoded once for both streams
+    long encoded = SHARING.encodedMessages() - encodedMessages;
+    long shared = SHARING.sharedMessages() - sharedMessages;
+    assertTrue(shared > encoded, "shared: " + shared + ", encoded: " + encoded);
+  }
+
+  @Test
+  void shouldNotShareStreamsOfDifferentRequests() {
+    int expectedResponseNum = 3;
+
+    StepVerifier.create(
+            Flux.merge(
+                    service.many("a").take(expectedResponseNum),
+                    service.many("b").take(expectedResponseNum))
+                .collectList())
+        .assertNext(
+            responses -> {
+              assertEquals(expectedResponseNum, count(responses, " to: a"));
+              assertEquals(expectedResponseNum, count(responses, " to: b"));
+            })
+        .expectComplete()
+        .verify(TIMEOUT);
+  }
+
+  @Test
+  void shouldReturnSingleResponseOfNotSharedQualifier() {
+    StepVerifier.create(service.one("hello"))
+        .expectNext("Echo:hello")
+        .expectComplete()
+        .verify(TIMEOUT);
+  }
+
+  private static long count(List<String> responses, String suffix) {
+    return responses.stream().filter(response -> response.endsWith(suffix)).count();
+  }
+}